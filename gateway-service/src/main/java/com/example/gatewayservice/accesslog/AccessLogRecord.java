@@ -0,0 +1,41 @@
+package com.example.gatewayservice.accesslog;
+
+/**
+ * 一条访问日志，作为环形缓冲区的槽位预先创建并重复使用，请求线程只做字段赋值
+ */
+public final class AccessLogRecord {
+
+    long timestamp;
+    String method;
+    String path;
+    String routeId;
+    Object remoteAddress;
+    int status;
+    long durationNanos;
+
+    /**
+     * 槽位序号，用于在生产者与消费者之间发布数据（见 {@link AccessLogRingBuffer}）
+     */
+    volatile long sequence;
+
+    void clear() {
+        method = null;
+        path = null;
+        routeId = null;
+        remoteAddress = null;
+    }
+
+    /**
+     * 以key=value形式输出，便于日志系统解析
+     */
+    void appendTo(StringBuilder builder) {
+        builder.append("ts=").append(timestamp)
+                .append(" method=").append(method)
+                .append(" path=").append(path)
+                .append(" status=").append(status)
+                .append(" duration_ms=").append(durationNanos / 1_000_000).append('.')
+                .append((durationNanos / 100_000) % 10)
+                .append(" route=").append(routeId)
+                .append(" remote=").append(remoteAddress);
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.gatewayservice.accesslog;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 有界无锁环形缓冲区（多生产者、单消费者）
+ * <p>
+ * 每个槽位带有序号：sequence == 位置 表示槽位空闲可写，sequence == 位置 + 1 表示数据已发布可读。
+ * 生产者以CAS抢占写入位置，缓冲区满时直接放弃，不会阻塞Netty事件循环线程。
+ */
+public final class AccessLogRingBuffer {
+
+    private final AccessLogRecord[] slots;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private long head;
+
+    public AccessLogRingBuffer(int requestedCapacity) {
+        int capacity = Integer.highestOneBit(Math.max(2, requestedCapacity - 1)) << 1;
+        this.slots = new AccessLogRecord[capacity];
+        this.mask = capacity - 1;
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new AccessLogRecord();
+            slots[i].sequence = i;
+        }
+    }
+
+    /**
+     * 抢占一个可写槽位，缓冲区满时返回null；写完字段后必须调用 {@link #publish(AccessLogRecord)}
+     */
+    public AccessLogRecord claim() {
+        while (true) {
+            long position = tail.get();
+            AccessLogRecord slot = slots[(int) (position & mask)];
+            long sequence = slot.sequence;
+            if (sequence == position) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    return slot;
+                }
+            } else if (sequence < position) {
+                return null;
+            }
+        }
+    }
+
+    public void publish(AccessLogRecord slot) {
+        slot.sequence = slot.sequence + 1;
+    }
+
+    /**
+     * 取出下一条已发布的记录，没有时返回null；只能由消费者线程调用，处理完后调用 {@link #release(AccessLogRecord)}
+     */
+    public AccessLogRecord poll() {
+        AccessLogRecord slot = slots[(int) (head & mask)];
+        return slot.sequence == head + 1 ? slot : null;
+    }
+
+    public void release(AccessLogRecord slot) {
+        slot.clear();
+        slot.sequence = head + slots.length;
+        head++;
+    }
+
+    public int capacity() {
+        return slots.length;
+    }
+
+    public long size() {
+        return tail.get() - head;
+    }
+}
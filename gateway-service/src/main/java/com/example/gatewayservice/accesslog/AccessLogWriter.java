@@ -0,0 +1,141 @@
+package com.example.gatewayservice.accesslog;
+
+import com.example.gatewayservice.config.AccessLogProperties;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 异步访问日志
+ * 请求线程把记录写入环形缓冲区后立即返回，由后台线程格式化并输出到名为ACCESS_LOG的日志。
+ * 缓冲区为空时后台线程的休眠时间逐次加倍（上限100ms），休眠期间写入记录的请求线程负责唤醒它，空闲时几乎不占CPU
+ */
+@Component
+public class AccessLogWriter implements MeterBinder, InitializingBean, DisposableBean {
+
+    private static final Logger accessLogger = LoggerFactory.getLogger("ACCESS_LOG");
+    private static final Logger logger = LoggerFactory.getLogger(AccessLogWriter.class);
+    private static final long MIN_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final AccessLogProperties properties;
+    private final AccessLogRingBuffer buffer;
+    private final LongAdder written = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private Thread thread;
+    private volatile boolean running;
+    /**
+     * 后台线程是否正在（或即将）休眠，为true时写入记录后需要唤醒它
+     */
+    private volatile boolean parked;
+
+    public AccessLogWriter(AccessLogProperties properties) {
+        this.properties = properties;
+        this.buffer = new AccessLogRingBuffer(properties.getBufferSize());
+    }
+
+    /**
+     * 按采样规则记录一次请求，慢请求和5xx响应始终记录
+     */
+    public void log(long timestamp, String method, String path, String routeId, Object remoteAddress,
+                    int status, long durationNanos) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        boolean always = status >= 500 || durationNanos >= properties.getSlowThreshold().toNanos();
+        double sampleRate = properties.getSampleRate();
+        if (!always && sampleRate < 1.0 && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            return;
+        }
+        AccessLogRecord record = buffer.claim();
+        if (record == null) {
+            dropped.increment();
+            return;
+        }
+        record.timestamp = timestamp;
+        record.method = method;
+        record.path = path;
+        record.routeId = routeId;
+        record.remoteAddress = remoteAddress;
+        record.status = status;
+        record.durationNanos = durationNanos;
+        buffer.publish(record);
+        if (parked) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        running = true;
+        thread = new Thread(this::drain, "access-log-writer");
+        thread.setDaemon(true);
+        thread.start();
+        logger.info("访问日志缓冲区大小: {}", buffer.capacity());
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(thread);
+        thread.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("gateway.access.log.written", written, LongAdder::sum)
+                .description("已输出的访问日志条数")
+                .register(registry);
+        FunctionCounter.builder("gateway.access.log.dropped", dropped, LongAdder::sum)
+                .description("缓冲区已满而丢弃的访问日志条数")
+                .register(registry);
+        Gauge.builder("gateway.access.log.pending", buffer, AccessLogRingBuffer::size)
+                .description("缓冲区中等待输出的访问日志条数")
+                .register(registry);
+    }
+
+    private void drain() {
+        StringBuilder builder = new StringBuilder(256);
+        long parkNanos = MIN_PARK_NANOS;
+        while (true) {
+            AccessLogRecord record = buffer.poll();
+            if (record == null) {
+                if (!running) {
+                    return;
+                }
+                parked = true;
+                // 设置标记后再检查一次：在此之前发布的记录这里能看到，之后发布的记录由写入方唤醒
+                record = buffer.poll();
+                if (record == null) {
+                    LockSupport.parkNanos(this, parkNanos);
+                    parked = false;
+                    parkNanos = Math.min(parkNanos * 2, MAX_PARK_NANOS);
+                    continue;
+                }
+                parked = false;
+            }
+            parkNanos = MIN_PARK_NANOS;
+            try {
+                builder.setLength(0);
+                record.appendTo(builder);
+                accessLogger.info(builder.toString());
+                written.increment();
+            } catch (RuntimeException e) {
+                logger.warn("输出访问日志失败: {}", e.getMessage());
+            } finally {
+                buffer.release(record);
+            }
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.gatewayservice.cache;
+
+import org.springframework.http.MediaType;
+
+import java.util.Objects;
+
+/**
+ * 缓存的响应：响应体字节、Content-Type、Content-Encoding与ETag，以及缓存时请求的Accept与Accept-Encoding
+ */
+public final class CachedResponse {
+
+    private final byte[] body;
+    private final MediaType contentType;
+    private final String contentEncoding;
+    private final String etag;
+    private final String accept;
+    private final String acceptEncoding;
+    private final long ttlNanos;
+
+    public CachedResponse(byte[] body, MediaType contentType, String contentEncoding, String etag,
+                          String accept, String acceptEncoding, long ttlNanos) {
+        this.body = body;
+        this.contentType = contentType;
+        this.contentEncoding = contentEncoding;
+        this.etag = etag;
+        this.accept = accept;
+        this.acceptEncoding = acceptEncoding;
+        this.ttlNanos = ttlNanos;
+    }
+
+    public byte[] getBody() {
+        return body;
+    }
+
+    public MediaType getContentType() {
+        return contentType;
+    }
+
+    public String getContentEncoding() {
+        return contentEncoding;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    /**
+     * 下游可能按Accept选择格式、按Accept-Encoding压缩，两者都与缓存时相同才能复用（Vary）
+     */
+    boolean matches(String accept, String acceptEncoding) {
+        return Objects.equals(this.accept, accept) && Objects.equals(this.acceptEncoding, acceptEncoding);
+    }
+
+    long getTtlNanos() {
+        return ttlNanos;
+    }
+}
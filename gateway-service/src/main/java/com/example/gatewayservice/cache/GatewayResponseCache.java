@@ -0,0 +1,122 @@
+package com.example.gatewayservice.cache;
+
+import com.example.gatewayservice.config.ResponseCacheProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 网关本地响应缓存
+ * 按响应体字节数限制总大小，每条缓存使用所属路由配置的过期时间；
+ * 每个实体路径只保存一个响应，请求的Accept与Accept-Encoding与缓存时不同则视为未命中（Vary）。
+ * 实体的写请求经过时只删除该实体的缓存，并递增路由的版本号，丢弃写请求期间正在转发的读请求的结果
+ * （只影响当前网关节点，其他节点以及不经过网关的写入依赖过期时间）
+ */
+@Component
+public class GatewayResponseCache implements MeterBinder {
+
+    private final Cache<String, CachedResponse> cache;
+    private final ConcurrentMap<String, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder notModified = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public GatewayResponseCache(ResponseCacheProperties properties) {
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(properties.getMaxSize().toBytes())
+                .weigher((String key, CachedResponse value) -> key.length() + value.getBody().length)
+                .expireAfter(new Expiry<String, CachedResponse>() {
+                    @Override
+                    public long expireAfterCreate(String key, CachedResponse value, long currentTime) {
+                        return value.getTtlNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, CachedResponse value, long currentTime, long currentDuration) {
+                        return value.getTtlNanos();
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, CachedResponse value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    public static String key(String routeId, String path) {
+        return routeId + ' ' + path;
+    }
+
+    public static String etag(byte[] body) {
+        return "\"" + DigestUtils.md5DigestAsHex(body) + "\"";
+    }
+
+    /**
+     * 获取仍然有效、且与请求的Accept及Accept-Encoding一致的缓存响应
+     */
+    public CachedResponse get(String key, String accept, String acceptEncoding) {
+        CachedResponse response = cache.getIfPresent(key);
+        if (response == null || !response.matches(accept, acceptEncoding)) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return response;
+    }
+
+    /**
+     * 当前路由版本号，在请求转发前读取，转发期间该路由上有写请求经过时不缓存结果
+     */
+    public long currentGeneration(String routeId) {
+        return generation(routeId).get();
+    }
+
+    public void put(String key, CachedResponse response) {
+        cache.put(key, response);
+    }
+
+    /**
+     * 实体的写请求成功后删除该实体的缓存
+     */
+    public void invalidate(String routeId, String key) {
+        generation(routeId).incrementAndGet();
+        cache.invalidate(key);
+        invalidations.increment();
+    }
+
+    public void recordNotModified() {
+        notModified.increment();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("gateway.response.cache.gets", hits, LongAdder::sum)
+                .tag("result", "hit").register(registry);
+        FunctionCounter.builder("gateway.response.cache.gets", misses, LongAdder::sum)
+                .tag("result", "miss").register(registry);
+        FunctionCounter.builder("gateway.response.cache.not.modified", notModified, LongAdder::sum)
+                .description("以304响应的请求数").register(registry);
+        FunctionCounter.builder("gateway.response.cache.invalidations", invalidations, LongAdder::sum)
+                .description("写请求导致的实体缓存失效次数").register(registry);
+        Gauge.builder("gateway.response.cache.size", cache, c -> c.estimatedSize())
+                .description("缓存的响应条数").register(registry);
+    }
+
+    private AtomicLong generation(String routeId) {
+        return generations.computeIfAbsent(routeId, id -> new AtomicLong());
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.gatewayservice.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 网关访问日志配置
+ */
+@ConfigurationProperties(prefix = "gateway.access-log")
+public class AccessLogProperties {
+
+    /**
+     * 是否记录访问日志
+     */
+    private boolean enabled = true;
+
+    /**
+     * 采样比例（0-1），1表示记录全部请求
+     */
+    private double sampleRate = 1.0;
+
+    /**
+     * 慢请求阈值，超过该耗时的请求以及5xx响应不受采样限制，始终记录
+     */
+    private Duration slowThreshold = Duration.ofSeconds(1);
+
+    /**
+     * 环形缓冲区大小（向上取整为2的幂，重启后生效），写日志跟不上时新的记录会被丢弃
+     */
+    private int bufferSize = 8192;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public double getSampleRate() {
+        return sampleRate;
+    }
+
+    public void setSampleRate(double sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+
+    public Duration getSlowThreshold() {
+        return slowThreshold;
+    }
+
+    public void setSlowThreshold(Duration slowThreshold) {
+        this.slowThreshold = slowThreshold;
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    public void setBufferSize(int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.gatewayservice.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.context.config.annotation.RefreshScope;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 网关过滤器配置类
+ */
+@Configuration
+@EnableConfigurationProperties({AccessLogProperties.class, ResponseCacheProperties.class})
+public class GatewayFilterConfig {
+
+    @Bean
+    @RefreshScope
+    public RateLimitProperties rateLimitProperties() {
+        return new RateLimitProperties();
+    }
+}
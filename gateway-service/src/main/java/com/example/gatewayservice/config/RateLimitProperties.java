@@ -0,0 +1,62 @@
+package com.example.gatewayservice.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 网关本地限流配置，各路由未单独配置时使用这里的默认值
+ */
+@ConfigurationProperties(prefix = "gateway.rate-limit")
+public class RateLimitProperties {
+
+    /**
+     * 是否开启限流
+     */
+    private boolean enabled = true;
+
+    /**
+     * 令牌桶容量，即允许的突发请求数
+     */
+    private long defaultCapacity = 100;
+
+    /**
+     * 每秒补充的令牌数，即稳定状态下允许的每秒请求数
+     */
+    private long defaultTokens = 10;
+
+    /**
+     * 最多保留的令牌桶数量（按IP或请求头限流时每个取值一个桶），长时间未访问的桶会被回收
+     */
+    private long maxBuckets = 100000;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long getDefaultCapacity() {
+        return defaultCapacity;
+    }
+
+    public void setDefaultCapacity(long defaultCapacity) {
+        this.defaultCapacity = defaultCapacity;
+    }
+
+    public long getDefaultTokens() {
+        return defaultTokens;
+    }
+
+    public void setDefaultTokens(long defaultTokens) {
+        this.defaultTokens = defaultTokens;
+    }
+
+    public long getMaxBuckets() {
+        return maxBuckets;
+    }
+
+    public void setMaxBuckets(long maxBuckets) {
+        this.maxBuckets = maxBuckets;
+    }
+}
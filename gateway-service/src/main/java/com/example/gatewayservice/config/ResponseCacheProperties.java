@@ -0,0 +1,50 @@
+package com.example.gatewayservice.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * 网关响应缓存配置，是否缓存及缓存时间按路由通过ResponseCache过滤器配置
+ */
+@ConfigurationProperties(prefix = "gateway.response-cache")
+public class ResponseCacheProperties {
+
+    /**
+     * 总开关，关闭后ResponseCache过滤器直接转发请求
+     */
+    private boolean enabled = true;
+
+    /**
+     * 所有缓存响应体的总大小上限（重启后生效）
+     */
+    private DataSize maxSize = DataSize.ofMegabytes(64);
+
+    /**
+     * 单个响应体的大小上限，超过时不缓存
+     */
+    private DataSize maxEntrySize = DataSize.ofKilobytes(512);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public DataSize getMaxSize() {
+        return maxSize;
+    }
+
+    public void setMaxSize(DataSize maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public DataSize getMaxEntrySize() {
+        return maxEntrySize;
+    }
+
+    public void setMaxEntrySize(DataSize maxEntrySize) {
+        this.maxEntrySize = maxEntrySize;
+    }
+}
@@ -1,9 +1,10 @@
 package com.example.gatewayservice.filter;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import com.example.gatewayservice.accesslog.AccessLogWriter;
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
 import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
 import org.springframework.core.Ordered;
 import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.stereotype.Component;
@@ -13,44 +14,42 @@ import reactor.core.publisher.Mono;
 /**
  * 全局请求过滤器
  * 统一处理请求日志记录和认证
+ * 每个请求在结束时只生成一条访问日志，交给 {@link AccessLogWriter} 异步输出，不在事件循环线程上格式化字符串
  */
 @Component
 public class GlobalRequestFilter implements GlobalFilter, Ordered {
-    
-    private static final Logger logger = LoggerFactory.getLogger(GlobalRequestFilter.class);
-    
+
+    private final AccessLogWriter accessLogWriter;
+
+    public GlobalRequestFilter(AccessLogWriter accessLogWriter) {
+        this.accessLogWriter = accessLogWriter;
+    }
+
     @Override
     public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
         ServerHttpRequest request = exchange.getRequest();
-        
-        // 记录请求信息
-        logger.info("=== 全局过滤器 - 请求开始 ===");
-        logger.info("请求方法: {}", request.getMethod());
-        logger.info("请求路径: {}", request.getPath().value());
-        logger.info("请求URI: {}", request.getURI());
-        logger.info("远程地址: {}", request.getRemoteAddress());
-        
+        long timestamp = System.currentTimeMillis();
+        long startTime = System.nanoTime();
+
         // 添加自定义请求头
         ServerHttpRequest modifiedRequest = request.mutate()
                 .header("X-Gateway-Source", "gateway-service")
-                .header("X-Request-Time", String.valueOf(System.currentTimeMillis()))
+                .header("X-Request-Time", String.valueOf(timestamp))
                 .build();
-        
-        // 记录处理时间
-        long startTime = System.currentTimeMillis();
-        
+
         return chain.filter(exchange.mutate().request(modifiedRequest).build())
                 .doFinally(signalType -> {
-                    long endTime = System.currentTimeMillis();
-                    logger.info("=== 全局过滤器 - 请求完成 ===");
-                    logger.info("处理时间: {}ms", endTime - startTime);
-                    logger.info("响应状态: {}", exchange.getResponse().getStatusCode());
+                    Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+                    Integer status = exchange.getResponse().getRawStatusCode();
+                    accessLogWriter.log(timestamp, request.getMethodValue(), request.getPath().value(),
+                            route != null ? route.getId() : null, request.getRemoteAddress(),
+                            status != null ? status : 0, System.nanoTime() - startTime);
                 });
     }
-    
+
     @Override
     public int getOrder() {
         // 设置较高的优先级，确保最先执行
         return -100;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,286 @@
+package com.example.gatewayservice.filter;
+
+import com.example.gatewayservice.hedge.HedgeBudget;
+import com.example.gatewayservice.hedge.LatencyTracker;
+import com.example.gatewayservice.loadbalancer.InstanceStats;
+import com.example.gatewayservice.loadbalancer.InstanceStatsRegistry;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.ReactiveDiscoveryClient;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.client.loadbalancer.reactive.ReactiveLoadBalancer;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * lb://路由的对冲请求与自适应超时过滤器，在Nacos的gateway-service.yml中按路由开启，需放在filters的最后：
+ * <pre>
+ * filters:
+ *   - name: Hedge
+ *     args:
+ *       max-hedge-percent: 10   # 对冲请求最多占总请求的百分比
+ *       min-delay: 10ms         # 对冲延迟取路由实时p95，并限制在[min-delay, max-delay]内
+ *       max-delay: 500ms
+ *       timeout-multiplier: 3   # 超时时间取p99的倍数，并限制在[min-timeout, max-timeout]内
+ *       min-timeout: 500ms
+ *       max-timeout: 10s
+ * </pre>
+ * 只处理幂等的GET请求：先把请求发给负载均衡选出的实例，超过对冲延迟仍未收到响应头时，
+ * 在预算允许的情况下把同一请求发给另一个实例，采用先返回的响应并取消另一个请求。
+ * 这类请求由本过滤器直接转发，后续的负载均衡与路由过滤器不再执行；其他请求照常交给过滤器链。
+ */
+@Component
+public class HedgeGatewayFilterFactory extends AbstractGatewayFilterFactory<HedgeGatewayFilterFactory.Config>
+        implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(HedgeGatewayFilterFactory.class);
+    private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(10);
+    private static final long MIN_SAMPLES = 50;
+
+    private final LoadBalancerClientFactory loadBalancerClientFactory;
+    private final ReactiveDiscoveryClient discoveryClient;
+    private final WebClient webClient;
+    private final InstanceStatsRegistry statsRegistry;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder hedges = new LongAdder();
+    private final LongAdder hedgeWins = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+
+    public HedgeGatewayFilterFactory(LoadBalancerClientFactory loadBalancerClientFactory,
+                                     ReactiveDiscoveryClient discoveryClient, HttpClient httpClient,
+                                     InstanceStatsRegistry statsRegistry) {
+        super(Config.class);
+        this.loadBalancerClientFactory = loadBalancerClientFactory;
+        this.discoveryClient = discoveryClient;
+        this.statsRegistry = statsRegistry;
+        // 复用网关自身的HttpClient（连接池、超时等配置保持一致）
+        this.webClient = WebClient.builder().clientConnector(new ReactorClientHttpConnector(httpClient)).build();
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        LatencyTracker tracker = new LatencyTracker(WINDOW_NANOS, MIN_SAMPLES);
+        HedgeBudget budget = new HedgeBudget(config.getMaxHedgePercent(), 10);
+        return (exchange, chain) -> {
+            Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+            if (exchange.getRequest().getMethod() != HttpMethod.GET || route == null
+                    || !"lb".equals(route.getUri().getScheme())) {
+                return chain.filter(exchange);
+            }
+            ServerWebExchangeUtils.setAlreadyRouted(exchange);
+            requests.increment();
+            budget.onRequest();
+            return forward(exchange, route.getUri().getHost(), config, tracker, budget);
+        };
+    }
+
+    private Mono<Void> forward(ServerWebExchange exchange, String serviceId, Config config,
+                               LatencyTracker tracker, HedgeBudget budget) {
+        Duration delay = clamp(tracker.getP95Micros(), 1, config.getMinDelay(), config.getMaxDelay());
+        Duration timeout = clamp(tracker.getP99Micros(), config.getTimeoutMultiplier(),
+                config.getMinTimeout(), config.getMaxTimeout());
+        long start = System.nanoTime();
+
+        ReactiveLoadBalancer<ServiceInstance> loadBalancer = loadBalancerClientFactory.getInstance(serviceId);
+        return Mono.from(loadBalancer.choose(new DefaultRequest<>()))
+                .flatMap(response -> {
+                    if (!response.hasServer()) {
+                        return writeStatus(exchange, HttpStatus.SERVICE_UNAVAILABLE);
+                    }
+                    ServiceInstance primary = response.getServer();
+                    Mono<ResponseEntity<Flux<DataBuffer>>> first = send(exchange, primary);
+                    Mono<ResponseEntity<Flux<DataBuffer>>> hedge = Mono.delay(delay)
+                            .flatMap(tick -> budget.tryAcquire() ? otherInstance(serviceId, primary) : Mono.empty())
+                            .flatMap(instance -> {
+                                hedges.increment();
+                                logger.debug("发送对冲请求: service={}, instance={}, delay={}ms",
+                                        serviceId, instance.getInstanceId(), delay.toMillis());
+                                return send(exchange, instance).doOnNext(entity -> hedgeWins.increment());
+                            });
+                    return Mono.firstWithValue(first, hedge)
+                            .timeout(timeout)
+                            .doOnNext(entity -> tracker.record(System.nanoTime() - start))
+                            .flatMap(entity -> writeResponse(exchange, entity))
+                            .onErrorResume(TimeoutException.class, e -> {
+                                timeouts.increment();
+                                tracker.record(System.nanoTime() - start);
+                                return writeStatus(exchange, HttpStatus.GATEWAY_TIMEOUT);
+                            });
+                });
+    }
+
+    private Mono<ResponseEntity<Flux<DataBuffer>>> send(ServerWebExchange exchange, ServiceInstance instance) {
+        ServerHttpRequest request = exchange.getRequest();
+        URI uri = UriComponentsBuilder.fromUri(instance.getUri())
+                .replacePath(request.getURI().getRawPath())
+                .replaceQuery(request.getURI().getRawQuery())
+                .build(true)
+                .toUri();
+        // 自行转发的请求同样计入实例负载统计，供延迟感知负载均衡使用
+        InstanceStats stats = statsRegistry.get(instance);
+        long start = System.nanoTime();
+        stats.onStart();
+        return webClient.get()
+                .uri(uri)
+                .headers(headers -> {
+                    headers.addAll(request.getHeaders());
+                    headers.remove(HttpHeaders.HOST);
+                })
+                .retrieve()
+                // 下游的4xx/5xx原样返回给客户端，不作为异常处理
+                .onStatus(status -> true, clientResponse -> Mono.empty())
+                .toEntityFlux(DataBuffer.class)
+                .doOnNext(entity -> statsRegistry.onComplete(instance, System.nanoTime() - start,
+                        entity.getStatusCodeValue() >= 500))
+                .doOnError(e -> statsRegistry.onComplete(instance, System.nanoTime() - start, true))
+                .doOnCancel(stats::onCancel);
+    }
+
+    /**
+     * 选择与首个实例不同的另一个实例，只有一个实例时不对冲
+     */
+    private Mono<ServiceInstance> otherInstance(String serviceId, ServiceInstance primary) {
+        return discoveryClient.getInstances(serviceId)
+                .filter(instance -> !(instance.getHost().equals(primary.getHost()) && instance.getPort() == primary.getPort()))
+                .collectList()
+                .flatMap(candidates -> candidates.isEmpty() ? Mono.empty()
+                        : Mono.just(candidates.get(ThreadLocalRandom.current().nextInt(candidates.size()))));
+    }
+
+    private static Mono<Void> writeResponse(ServerWebExchange exchange, ResponseEntity<Flux<DataBuffer>> entity) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.setRawStatusCode(entity.getStatusCodeValue());
+        HttpHeaders headers = response.getHeaders();
+        entity.getHeaders().forEach((name, values) -> {
+            if (!HttpHeaders.TRANSFER_ENCODING.equalsIgnoreCase(name) && !HttpHeaders.CONNECTION.equalsIgnoreCase(name)) {
+                headers.put(name, values);
+            }
+        });
+        Flux<DataBuffer> body = entity.getBody();
+        return body != null ? response.writeWith(body) : response.setComplete();
+    }
+
+    private static Mono<Void> writeStatus(ServerWebExchange exchange, HttpStatus status) {
+        exchange.getResponse().setStatusCode(status);
+        return exchange.getResponse().setComplete();
+    }
+
+    /**
+     * 以实时分位数乘以倍数得到时长，没有足够样本时使用上限
+     */
+    private static Duration clamp(long quantileMicros, double multiplier, Duration min, Duration max) {
+        if (quantileMicros < 0) {
+            return max;
+        }
+        long micros = (long) (quantileMicros * multiplier);
+        long bounded = Math.max(TimeUnit.NANOSECONDS.toMicros(min.toNanos()),
+                Math.min(TimeUnit.NANOSECONDS.toMicros(max.toNanos()), micros));
+        return Duration.ofNanos(TimeUnit.MICROSECONDS.toNanos(bounded));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("gateway.hedge.requests", requests, LongAdder::sum)
+                .description("经过对冲过滤器转发的请求数").register(registry);
+        FunctionCounter.builder("gateway.hedge.sent", hedges, LongAdder::sum)
+                .description("发出的对冲请求数").register(registry);
+        FunctionCounter.builder("gateway.hedge.wins", hedgeWins, LongAdder::sum)
+                .description("对冲请求先于首个请求返回的次数").register(registry);
+        FunctionCounter.builder("gateway.hedge.timeouts", timeouts, LongAdder::sum)
+                .description("超过自适应超时时间的请求数").register(registry);
+    }
+
+    public static class Config {
+
+        private double maxHedgePercent = 10;
+
+        private Duration minDelay = Duration.ofMillis(10);
+
+        private Duration maxDelay = Duration.ofMillis(500);
+
+        private double timeoutMultiplier = 3;
+
+        private Duration minTimeout = Duration.ofMillis(500);
+
+        private Duration maxTimeout = Duration.ofSeconds(10);
+
+        public double getMaxHedgePercent() {
+            return maxHedgePercent;
+        }
+
+        public void setMaxHedgePercent(double maxHedgePercent) {
+            this.maxHedgePercent = maxHedgePercent;
+        }
+
+        public Duration getMinDelay() {
+            return minDelay;
+        }
+
+        public void setMinDelay(Duration minDelay) {
+            this.minDelay = minDelay;
+        }
+
+        public Duration getMaxDelay() {
+            return maxDelay;
+        }
+
+        public void setMaxDelay(Duration maxDelay) {
+            this.maxDelay = maxDelay;
+        }
+
+        public double getTimeoutMultiplier() {
+            return timeoutMultiplier;
+        }
+
+        public void setTimeoutMultiplier(double timeoutMultiplier) {
+            this.timeoutMultiplier = timeoutMultiplier;
+        }
+
+        public Duration getMinTimeout() {
+            return minTimeout;
+        }
+
+        public void setMinTimeout(Duration minTimeout) {
+            this.minTimeout = minTimeout;
+        }
+
+        public Duration getMaxTimeout() {
+            return maxTimeout;
+        }
+
+        public void setMaxTimeout(Duration maxTimeout) {
+            this.maxTimeout = maxTimeout;
+        }
+    }
+}
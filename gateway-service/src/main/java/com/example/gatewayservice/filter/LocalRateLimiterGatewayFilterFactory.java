@@ -0,0 +1,199 @@
+package com.example.gatewayservice.filter;
+
+import com.example.gatewayservice.config.RateLimitProperties;
+import com.example.gatewayservice.ratelimit.TokenBucket;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.context.scope.refresh.RefreshScopeRefreshedEvent;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.context.ApplicationListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 进程内令牌桶限流过滤器，不需要访问Redis，在Nacos的gateway-service.yml中按路由配置：
+ * <pre>
+ * filters:
+ *   - name: LocalRateLimiter
+ *     args:
+ *       key-resolver: ip        # route（整个路由共用一个桶）| ip | header
+ *       header-name: X-User-Id  # key-resolver为header时使用
+ *       capacity: 200           # 可选，默认gateway.rate-limit.default-capacity
+ *       tokens: 50              # 可选，默认gateway.rate-limit.default-tokens
+ * </pre>
+ * 默认值与开关来自 {@link RateLimitProperties}（@RefreshScope），配置刷新后立即生效。
+ * 放行路径上只有一次缓存查找和一次CAS，不创建对象。
+ */
+@Component
+public class LocalRateLimiterGatewayFilterFactory
+        extends AbstractGatewayFilterFactory<LocalRateLimiterGatewayFilterFactory.Config>
+        implements ApplicationListener<RefreshScopeRefreshedEvent>, MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocalRateLimiterGatewayFilterFactory.class);
+    private static final Object ROUTE_KEY = new Object();
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final RateLimitProperties properties;
+
+    /**
+     * 配置快照，每次请求只读取这几个字段，不经过@RefreshScope代理
+     */
+    private volatile boolean enabled;
+    private volatile long defaultCapacity;
+    private volatile long defaultTokens;
+
+    private final LongAdder allowed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    public LocalRateLimiterGatewayFilterFactory(RateLimitProperties properties) {
+        super(Config.class);
+        this.properties = properties;
+        reload();
+    }
+
+    @Override
+    public void onApplicationEvent(RefreshScopeRefreshedEvent event) {
+        reload();
+    }
+
+    private void reload() {
+        enabled = properties.isEnabled();
+        defaultCapacity = properties.getDefaultCapacity();
+        defaultTokens = properties.getDefaultTokens();
+        logger.info("网关限流配置: enabled={}, default-capacity={}, default-tokens={}",
+                enabled, defaultCapacity, defaultTokens);
+    }
+
+    @Override
+    public List<String> shortcutFieldOrder() {
+        return Arrays.asList("keyResolver", "headerName");
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        Cache<Object, TokenBucket> buckets = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxBuckets())
+                .expireAfterAccess(Duration.ofMinutes(10))
+                .build();
+        return (exchange, chain) -> {
+            if (!enabled) {
+                return chain.filter(exchange);
+            }
+            long capacity = Math.max(1, config.getCapacity() > 0 ? config.getCapacity() : defaultCapacity);
+            long tokens = Math.max(1, config.getTokens() > 0 ? config.getTokens() : defaultTokens);
+            long intervalNanos = NANOS_PER_SECOND / tokens;
+            TokenBucket bucket = buckets.get(resolveKey(config, exchange), key -> new TokenBucket());
+            if (bucket.tryAcquire(System.nanoTime(), intervalNanos, capacity * intervalNanos)) {
+                allowed.increment();
+                return chain.filter(exchange);
+            }
+            rejected.increment();
+            ServerHttpResponse response = exchange.getResponse();
+            response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+            response.getHeaders().set("Retry-After", String.valueOf(Math.max(1, intervalNanos / NANOS_PER_SECOND)));
+            return response.setComplete();
+        };
+    }
+
+    private static Object resolveKey(Config config, ServerWebExchange exchange) {
+        ServerHttpRequest request = exchange.getRequest();
+        switch (config.getKeyResolver()) {
+            case HEADER:
+                String value = config.getHeaderName() != null ? request.getHeaders().getFirst(config.getHeaderName()) : null;
+                if (value != null) {
+                    return value;
+                }
+                // 未携带请求头时按IP限流
+                return remoteAddress(request);
+            case IP:
+                return remoteAddress(request);
+            default:
+                return ROUTE_KEY;
+        }
+    }
+
+    /**
+     * 以InetAddress作为桶的键，避免每次请求把地址格式化成字符串
+     */
+    private static Object remoteAddress(ServerHttpRequest request) {
+        InetSocketAddress address = request.getRemoteAddress();
+        return address != null && address.getAddress() != null ? address.getAddress() : ROUTE_KEY;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("gateway.rate.limit.requests", allowed, LongAdder::sum)
+                .tag("result", "allowed").register(registry);
+        FunctionCounter.builder("gateway.rate.limit.requests", rejected, LongAdder::sum)
+                .tag("result", "rejected").register(registry);
+    }
+
+    public enum KeyResolver {
+        ROUTE, IP, HEADER
+    }
+
+    public static class Config {
+
+        private KeyResolver keyResolver = KeyResolver.ROUTE;
+
+        private String headerName;
+
+        /**
+         * 令牌桶容量，0表示使用默认值
+         */
+        private long capacity;
+
+        /**
+         * 每秒补充的令牌数，0表示使用默认值
+         */
+        private long tokens;
+
+        public KeyResolver getKeyResolver() {
+            return keyResolver;
+        }
+
+        public void setKeyResolver(KeyResolver keyResolver) {
+            this.keyResolver = keyResolver;
+        }
+
+        public String getHeaderName() {
+            return headerName;
+        }
+
+        public void setHeaderName(String headerName) {
+            this.headerName = headerName;
+        }
+
+        public long getCapacity() {
+            return capacity;
+        }
+
+        public void setCapacity(long capacity) {
+            this.capacity = capacity;
+        }
+
+        public long getTokens() {
+            return tokens;
+        }
+
+        public void setTokens(long tokens) {
+            this.tokens = tokens;
+        }
+    }
+}
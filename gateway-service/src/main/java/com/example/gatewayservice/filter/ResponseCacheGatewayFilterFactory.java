@@ -0,0 +1,326 @@
+package com.example.gatewayservice.filter;
+
+import com.example.gatewayservice.cache.CachedResponse;
+import com.example.gatewayservice.cache.GatewayResponseCache;
+import com.example.gatewayservice.config.ResponseCacheProperties;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.PathContainer;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 路由级实体响应缓存过滤器，在Nacos的gateway-service.yml中按路由配置（path为StripPrefix之后的实体读取路径）：
+ * <pre>
+ * filters:
+ *   - name: ResponseCache
+ *     args:
+ *       path: /products/{id:\d+}
+ *       ttl: 30s
+ * </pre>
+ * 只缓存路径匹配path、不带查询参数的GET请求的200响应，命中时直接返回，不再转发到下游服务；
+ * 列表、库存、任务状态、配置等会变化的接口不匹配path，直接转发。
+ * 响应体为Result且code不是200（业务错误以HTTP 200返回）时不缓存。
+ * 响应带有ETag，请求的If-None-Match匹配时返回304；请求的Accept或Accept-Encoding与缓存时不同则视为未命中。
+ * 同一实体路径上的PUT/PATCH/DELETE/POST请求成功后只删除该实体的缓存；不经过网关的写入（如服务间调用）依赖过期时间。
+ * 带有Authorization或Cache-Control: no-cache的请求不使用缓存。
+ */
+@Component
+public class ResponseCacheGatewayFilterFactory extends AbstractGatewayFilterFactory<ResponseCacheGatewayFilterFactory.Config> {
+
+    private static final String CACHE_STATUS_HEADER = "X-Cache";
+
+    private final GatewayResponseCache responseCache;
+    private final ResponseCacheProperties properties;
+    private final ObjectMapper objectMapper;
+
+    public ResponseCacheGatewayFilterFactory(GatewayResponseCache responseCache, ResponseCacheProperties properties,
+                                             ObjectMapper objectMapper) {
+        super(Config.class);
+        this.responseCache = responseCache;
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public List<String> shortcutFieldOrder() {
+        return Arrays.asList("path", "ttl");
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        if (config.getPath() == null) {
+            throw new IllegalArgumentException("ResponseCache过滤器需要配置path（实体读取路径，如/products/{id:\\d+}）");
+        }
+        PathPattern pattern = PathPatternParser.defaultInstance.parse(config.getPath());
+        long ttlNanos = config.getTtl().toNanos();
+        return (exchange, chain) -> {
+            if (!properties.isEnabled()) {
+                return chain.filter(exchange);
+            }
+            ServerHttpRequest request = exchange.getRequest();
+            HttpMethod method = request.getMethod();
+            String path = request.getPath().value();
+            if (method == HttpMethod.HEAD || method == HttpMethod.OPTIONS
+                    || !pattern.matches(PathContainer.parsePath(path))) {
+                return chain.filter(exchange);
+            }
+            Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+            String routeId = route != null ? route.getId() : "";
+            String key = GatewayResponseCache.key(routeId, path);
+
+            if (method != HttpMethod.GET) {
+                // 实体的写请求：成功后删除该实体的缓存
+                return chain.filter(exchange).doOnSuccess(v -> {
+                    HttpStatus status = exchange.getResponse().getStatusCode();
+                    if (status == null || status.is2xxSuccessful()) {
+                        responseCache.invalidate(routeId, key);
+                    }
+                });
+            }
+            if (!isCacheable(request)) {
+                return chain.filter(exchange);
+            }
+
+            HttpHeaders headers = request.getHeaders();
+            String accept = headers.getFirst(HttpHeaders.ACCEPT);
+            String acceptEncoding = headers.getFirst(HttpHeaders.ACCEPT_ENCODING);
+            CachedResponse cached = responseCache.get(key, accept, acceptEncoding);
+            if (cached != null) {
+                return writeCached(exchange, cached);
+            }
+            long generation = responseCache.currentGeneration(routeId);
+            ServerHttpResponse decorated = new CachingResponse(exchange, routeId, key, accept, acceptEncoding,
+                    generation, ttlNanos);
+            return chain.filter(exchange.mutate().response(decorated).build());
+        };
+    }
+
+    private boolean isCacheable(ServerHttpRequest request) {
+        HttpHeaders headers = request.getHeaders();
+        if (headers.containsKey(HttpHeaders.AUTHORIZATION) || request.getURI().getRawQuery() != null) {
+            return false;
+        }
+        String cacheControl = headers.getCacheControl();
+        return cacheControl == null || !cacheControl.contains("no-cache");
+    }
+
+    /**
+     * 业务错误（如商品不存在）以HTTP 200和Result.code返回，不能缓存
+     */
+    private boolean isSuccessBody(MediaType contentType, byte[] body) {
+        if (!isJson(contentType)) {
+            return true;
+        }
+        try {
+            JsonNode code = objectMapper.readTree(body).get("code");
+            return code == null || !code.isNumber() || code.asInt() == HttpStatus.OK.value();
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static boolean isJson(MediaType contentType) {
+        return contentType != null && contentType.isCompatibleWith(MediaType.APPLICATION_JSON);
+    }
+
+    private Mono<Void> writeCached(ServerWebExchange exchange, CachedResponse cached) {
+        ServerHttpResponse response = exchange.getResponse();
+        HttpHeaders headers = response.getHeaders();
+        headers.setETag(cached.getEtag());
+        headers.set(CACHE_STATUS_HEADER, "HIT");
+        if (etagMatches(exchange.getRequest(), cached.getEtag())) {
+            responseCache.recordNotModified();
+            response.setStatusCode(HttpStatus.NOT_MODIFIED);
+            return response.setComplete();
+        }
+        response.setStatusCode(HttpStatus.OK);
+        if (cached.getContentType() != null) {
+            headers.setContentType(cached.getContentType());
+        }
+        if (cached.getContentEncoding() != null) {
+            headers.set(HttpHeaders.CONTENT_ENCODING, cached.getContentEncoding());
+        }
+        headers.setContentLength(cached.getBody().length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(cached.getBody())));
+    }
+
+    private static boolean etagMatches(ServerHttpRequest request, String etag) {
+        List<String> ifNoneMatch = request.getHeaders().getIfNoneMatch();
+        for (String candidate : ifNoneMatch) {
+            if ("*".equals(candidate) || etag.equals(candidate) || etag.equals(stripWeak(candidate))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String stripWeak(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+
+    /**
+     * 收集下游响应体：成功的200响应写入缓存并补充ETag，If-None-Match匹配时改为304
+     */
+    private class CachingResponse extends ServerHttpResponseDecorator {
+
+        private final ServerWebExchange exchange;
+        private final String routeId;
+        private final String key;
+        private final String accept;
+        private final String acceptEncoding;
+        private final long generation;
+        private final long ttlNanos;
+
+        CachingResponse(ServerWebExchange exchange, String routeId, String key, String accept, String acceptEncoding,
+                        long generation, long ttlNanos) {
+            super(exchange.getResponse());
+            this.exchange = exchange;
+            this.routeId = routeId;
+            this.key = key;
+            this.accept = accept;
+            this.acceptEncoding = acceptEncoding;
+            this.generation = generation;
+            this.ttlNanos = ttlNanos;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            if (getStatusCode() != HttpStatus.OK) {
+                return super.writeWith(body);
+            }
+            long maxEntrySize = properties.getMaxEntrySize().toBytes();
+            long contentLength = getHeaders().getContentLength();
+            if (contentLength > maxEntrySize) {
+                return super.writeWith(body);
+            }
+            if (contentLength < 0) {
+                // 分块传输（如流式导出）：边转发边复制，不超过单条上限时才缓存，本次响应不带ETag
+                return super.writeWith(copyWhileStreaming(body, maxEntrySize));
+            }
+            return DataBufferUtils.join(Flux.from(body)).flatMap(joined -> {
+                byte[] bytes = new byte[joined.readableByteCount()];
+                joined.read(bytes);
+                DataBufferUtils.release(joined);
+                if (!isCacheableBody(bytes)) {
+                    return super.writeWith(Mono.just(bufferFactory().wrap(bytes)));
+                }
+
+                String etag = GatewayResponseCache.etag(bytes);
+                HttpHeaders headers = getHeaders();
+                headers.setETag(etag);
+                headers.set(CACHE_STATUS_HEADER, "MISS");
+                cache(bytes, etag);
+                if (etagMatches(exchange.getRequest(), etag)) {
+                    responseCache.recordNotModified();
+                    setStatusCode(HttpStatus.NOT_MODIFIED);
+                    headers.remove(HttpHeaders.CONTENT_LENGTH);
+                    headers.remove(HttpHeaders.TRANSFER_ENCODING);
+                    return setComplete();
+                }
+                return super.writeWith(Mono.just(bufferFactory().wrap(bytes)));
+            });
+        }
+
+        private Flux<DataBuffer> copyWhileStreaming(Publisher<? extends DataBuffer> body, long maxEntrySize) {
+            ByteArrayOutputStream copy = new ByteArrayOutputStream();
+            boolean[] overflow = new boolean[1];
+            return Flux.from(body)
+                    .map(buffer -> {
+                        if (!overflow[0]) {
+                            if (copy.size() + buffer.readableByteCount() > maxEntrySize) {
+                                overflow[0] = true;
+                                copy.reset();
+                            } else {
+                                ByteBuffer view = buffer.asByteBuffer();
+                                byte[] bytes = new byte[view.remaining()];
+                                view.get(bytes);
+                                copy.write(bytes, 0, bytes.length);
+                            }
+                        }
+                        return (DataBuffer) buffer;
+                    })
+                    .doOnComplete(() -> {
+                        if (!overflow[0]) {
+                            byte[] bytes = copy.toByteArray();
+                            if (isCacheableBody(bytes)) {
+                                cache(bytes, GatewayResponseCache.etag(bytes));
+                            }
+                        }
+                    });
+        }
+
+        private boolean isCacheableBody(byte[] bytes) {
+            // 压缩后的响应体无法检查Result.code，不缓存
+            return getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING) == null
+                    ? isSuccessBody(getHeaders().getContentType(), bytes)
+                    : !isJson(getHeaders().getContentType());
+        }
+
+        /**
+         * 转发期间该路由上有写请求经过时不缓存，避免写入旧数据
+         */
+        private void cache(byte[] bytes, String etag) {
+            if (bytes.length <= properties.getMaxEntrySize().toBytes()
+                    && generation == responseCache.currentGeneration(routeId)) {
+                HttpHeaders headers = getHeaders();
+                responseCache.put(key, new CachedResponse(bytes, headers.getContentType(),
+                        headers.getFirst(HttpHeaders.CONTENT_ENCODING), etag, accept, acceptEncoding, ttlNanos));
+            }
+        }
+    }
+
+    public static class Config {
+
+        /**
+         * 缓存的实体读取路径（StripPrefix之后），如/products/{id:\d+}，同一路径上的写请求删除该实体的缓存
+         */
+        private String path;
+
+        /**
+         * 缓存时间
+         */
+        private Duration ttl = Duration.ofSeconds(30);
+
+        public String getPath() {
+            return path;
+        }
+
+        public void setPath(String path) {
+            this.path = path;
+        }
+
+        public Duration getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(Duration ttl) {
+            this.ttl = ttl;
+        }
+    }
+}
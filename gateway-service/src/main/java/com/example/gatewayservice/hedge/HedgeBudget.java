@@ -0,0 +1,43 @@
+package com.example.gatewayservice.hedge;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 对冲请求预算：每个请求存入 percent/100 个额度，每次对冲消耗1个额度，
+ * 从而保证对冲请求不超过总请求数的percent%，额度上限防止长时间空闲后集中对冲
+ */
+public final class HedgeBudget {
+
+    private static final long UNIT = 1000;
+
+    private final AtomicLong credits = new AtomicLong();
+    private final long depositPerRequest;
+    private final long maxCredits;
+
+    public HedgeBudget(double percent, int maxBurst) {
+        this.depositPerRequest = Math.round(percent * UNIT / 100);
+        this.maxCredits = Math.max(1, maxBurst) * UNIT;
+    }
+
+    public void onRequest() {
+        while (true) {
+            long current = credits.get();
+            long next = Math.min(maxCredits, current + depositPerRequest);
+            if (next == current || credits.compareAndSet(current, next)) {
+                return;
+            }
+        }
+    }
+
+    public boolean tryAcquire() {
+        while (true) {
+            long current = credits.get();
+            if (current < UNIT) {
+                return false;
+            }
+            if (credits.compareAndSet(current, current - UNIT)) {
+                return true;
+            }
+        }
+    }
+}
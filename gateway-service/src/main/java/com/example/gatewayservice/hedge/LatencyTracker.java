@@ -0,0 +1,101 @@
+package com.example.gatewayservice.hedge;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 无锁滑动窗口延迟分布，用于计算路由的实时p95/p99
+ * <p>
+ * 延迟按对数分桶（每个2的幂区间再分4个子桶，误差约19%），记录时只做一次数组原子自增。
+ * 窗口结束后由第一个发现的线程轮换窗口并计算分位数，读取分位数只是一次volatile读。
+ */
+public final class LatencyTracker {
+
+    private static final int SUB_BUCKET_BITS = 2;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = 40 * SUB_BUCKETS;
+
+    private final long windowNanos;
+    private final long minSamples;
+    private volatile AtomicLongArray current = new AtomicLongArray(BUCKETS);
+    private final AtomicLong windowEnd;
+
+    private volatile long p95Micros = -1;
+    private volatile long p99Micros = -1;
+
+    public LatencyTracker(long windowNanos, long minSamples) {
+        this.windowNanos = windowNanos;
+        this.minSamples = minSamples;
+        this.windowEnd = new AtomicLong(System.nanoTime() + windowNanos);
+    }
+
+    public void record(long durationNanos) {
+        long micros = Math.max(1, TimeUnit.NANOSECONDS.toMicros(durationNanos));
+        current.incrementAndGet(index(micros));
+        long now = System.nanoTime();
+        long end = windowEnd.get();
+        if (now - end >= 0 && windowEnd.compareAndSet(end, now + windowNanos)) {
+            rotate();
+        }
+    }
+
+    /**
+     * 上一个窗口的p95（微秒），样本不足时返回-1
+     */
+    public long getP95Micros() {
+        return p95Micros;
+    }
+
+    /**
+     * 上一个窗口的p99（微秒），样本不足时返回-1
+     */
+    public long getP99Micros() {
+        return p99Micros;
+    }
+
+    private void rotate() {
+        AtomicLongArray finished = current;
+        current = new AtomicLongArray(BUCKETS);
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            total += finished.get(i);
+        }
+        if (total < minSamples) {
+            // 样本太少时保留上一次的分位数
+            return;
+        }
+        p95Micros = quantile(finished, total, 0.95);
+        p99Micros = quantile(finished, total, 0.99);
+    }
+
+    private static long quantile(AtomicLongArray buckets, long total, double quantile) {
+        long target = (long) Math.ceil(total * quantile);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += buckets.get(i);
+            if (seen >= target) {
+                return upperBound(i);
+            }
+        }
+        return upperBound(BUCKETS - 1);
+    }
+
+    static int index(long micros) {
+        int msb = 63 - Long.numberOfLeadingZeros(micros);
+        if (msb < SUB_BUCKET_BITS) {
+            return (int) micros;
+        }
+        int sub = (int) ((micros >>> (msb - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1));
+        return Math.min(BUCKETS - 1, (msb - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub);
+    }
+
+    static long upperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index + 1;
+        }
+        int msb = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        int sub = index % SUB_BUCKETS;
+        return (long) (SUB_BUCKETS + sub + 1) << (msb - SUB_BUCKET_BITS);
+    }
+}
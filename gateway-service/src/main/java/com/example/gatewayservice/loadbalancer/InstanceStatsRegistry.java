@@ -0,0 +1,78 @@
+package com.example.gatewayservice.loadbalancer;
+
+import com.example.gatewayservice.config.LoadBalancingProperties;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycle;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.client.loadbalancer.ResponseData;
+import org.springframework.cloud.client.loadbalancer.TimedRequestContext;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 各服务实例的负载统计
+ * 作为 {@link LoadBalancerLifecycle} 由网关的负载均衡过滤器在请求开始与结束时回调，记录延迟、进行中请求数与5xx/异常
+ */
+@Component
+public class InstanceStatsRegistry implements LoadBalancerLifecycle<Object, Object, ServiceInstance> {
+
+    private final ConcurrentMap<String, InstanceStats> stats = new ConcurrentHashMap<>();
+    private final LoadBalancingProperties properties;
+
+    public InstanceStatsRegistry(LoadBalancingProperties properties) {
+        this.properties = properties;
+    }
+
+    public InstanceStats get(ServiceInstance instance) {
+        return stats.computeIfAbsent(instance.getHost() + ":" + instance.getPort(), key -> new InstanceStats());
+    }
+
+    public double cost(ServiceInstance instance) {
+        return get(instance).cost(properties.getDecayTime().toNanos(), properties.getErrorPenalty());
+    }
+
+    public void onComplete(ServiceInstance instance, long latencyNanos, boolean failed) {
+        get(instance).onComplete(latencyNanos, failed, properties.getDecayTime().toNanos());
+    }
+
+    @Override
+    public void onStart(Request<Object> request) {
+    }
+
+    @Override
+    public void onStartRequest(Request<Object> request, Response<ServiceInstance> lbResponse) {
+        if (!lbResponse.hasServer()) {
+            return;
+        }
+        if (request.getContext() instanceof TimedRequestContext) {
+            ((TimedRequestContext) request.getContext()).setRequestStartTime(System.nanoTime());
+        }
+        get(lbResponse.getServer()).onStart();
+    }
+
+    @Override
+    public void onComplete(CompletionContext<Object, ServiceInstance, Object> completionContext) {
+        Response<ServiceInstance> lbResponse = completionContext.getLoadBalancerResponse();
+        if (completionContext.status() == CompletionContext.Status.DISCARD
+                || lbResponse == null || !lbResponse.hasServer()) {
+            return;
+        }
+        Object context = completionContext.getLoadBalancerRequest().getContext();
+        long startTime = context instanceof TimedRequestContext ? ((TimedRequestContext) context).getRequestStartTime() : 0;
+        if (startTime == 0) {
+            get(lbResponse.getServer()).onCancel();
+            return;
+        }
+        boolean failed = completionContext.status() == CompletionContext.Status.FAILED;
+        Object clientResponse = completionContext.getClientResponse();
+        if (clientResponse instanceof ResponseData) {
+            Integer status = ((ResponseData) clientResponse).getRawHttpStatus();
+            failed |= status != null && status >= 500;
+        }
+        onComplete(lbResponse.getServer(), System.nanoTime() - startTime, failed);
+    }
+}
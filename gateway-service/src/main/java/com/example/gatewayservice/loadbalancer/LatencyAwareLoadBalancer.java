@@ -0,0 +1,78 @@
+package com.example.gatewayservice.loadbalancer;
+
+import com.example.gatewayservice.config.LoadBalancingProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.NoopServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 按服务配置选择策略的负载均衡器：轮询，或从两个随机实例中选出进行中请求更少 / 峰值EWMA得分更低的一个（P2C）
+ * 每次选择时读取当前配置，因此在Nacos中切换策略无需重建负载均衡器
+ */
+public class LatencyAwareLoadBalancer implements ReactorServiceInstanceLoadBalancer {
+
+    private static final Logger logger = LoggerFactory.getLogger(LatencyAwareLoadBalancer.class);
+
+    private final ObjectProvider<ServiceInstanceListSupplier> supplierProvider;
+    private final String serviceId;
+    private final InstanceStatsRegistry statsRegistry;
+    private final LoadBalancingProperties properties;
+    private final AtomicInteger position = new AtomicInteger(ThreadLocalRandom.current().nextInt(1000));
+
+    public LatencyAwareLoadBalancer(ObjectProvider<ServiceInstanceListSupplier> supplierProvider, String serviceId,
+                                    InstanceStatsRegistry statsRegistry, LoadBalancingProperties properties) {
+        this.supplierProvider = supplierProvider;
+        this.serviceId = serviceId;
+        this.statsRegistry = statsRegistry;
+        this.properties = properties;
+    }
+
+    @Override
+    public Mono<Response<ServiceInstance>> choose(Request request) {
+        ServiceInstanceListSupplier supplier = supplierProvider.getIfAvailable(NoopServiceInstanceListSupplier::new);
+        return supplier.get(request).next().map(this::select);
+    }
+
+    private Response<ServiceInstance> select(List<ServiceInstance> instances) {
+        if (instances.isEmpty()) {
+            logger.warn("没有可用的服务实例: {}", serviceId);
+            return new EmptyResponse();
+        }
+        int size = instances.size();
+        if (size == 1) {
+            return new DefaultResponse(instances.get(0));
+        }
+        LoadBalancingProperties.Strategy strategy = properties.getStrategy(serviceId);
+        if (strategy == LoadBalancingProperties.Strategy.ROUND_ROBIN) {
+            int pos = position.incrementAndGet() & Integer.MAX_VALUE;
+            return new DefaultResponse(instances.get(pos % size));
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int a = random.nextInt(size);
+        int b = random.nextInt(size - 1);
+        if (b >= a) {
+            b++;
+        }
+        ServiceInstance first = instances.get(a);
+        ServiceInstance second = instances.get(b);
+        if (strategy == LoadBalancingProperties.Strategy.LEAST_OUTSTANDING) {
+            return new DefaultResponse(statsRegistry.get(first).getInFlight() <= statsRegistry.get(second).getInFlight()
+                    ? first : second);
+        }
+        return new DefaultResponse(statsRegistry.cost(first) <= statsRegistry.cost(second) ? first : second);
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.gatewayservice.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 无锁令牌桶，按GCRA（通用信元速率算法）实现
+ * <p>
+ * 只保存一个值：下一个令牌的理论到达时间（TAT）。每次请求把TAT推后一个令牌间隔，
+ * 推后后超出当前时间的部分大于桶容量对应的时长时拒绝。整个判断只有一次CAS，不加锁也不创建对象，
+ * 容量和速率在每次调用时传入，配置刷新后立即生效。
+ */
+public final class TokenBucket {
+
+    private final AtomicLong theoreticalArrival = new AtomicLong(Long.MIN_VALUE);
+
+    /**
+     * 尝试获取一个令牌
+     *
+     * @param nowNanos      当前时间，System.nanoTime()
+     * @param intervalNanos 生成一个令牌的间隔
+     * @param burstNanos    桶容量对应的时长（容量 * 间隔）
+     */
+    public boolean tryAcquire(long nowNanos, long intervalNanos, long burstNanos) {
+        while (true) {
+            long tat = theoreticalArrival.get();
+            long base = tat == Long.MIN_VALUE || tat - nowNanos < 0 ? nowNanos : tat;
+            long next = base + intervalNanos;
+            if (next - nowNanos > burstNanos) {
+                return false;
+            }
+            if (theoreticalArrival.compareAndSet(tat, next)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 当前可用的令牌数（近似值）
+     */
+    public long available(long nowNanos, long intervalNanos, long burstNanos) {
+        long tat = theoreticalArrival.get();
+        long used = tat == Long.MIN_VALUE ? 0 : Math.max(0, tat - nowNanos);
+        return Math.max(0, (burstNanos - used) / intervalNanos);
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.gatewayservice.accesslog;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 访问日志环形缓冲区：多生产者并发写入时每条记录恰好被消费一次，缓冲区满时丢弃而不阻塞
+ */
+class AccessLogRingBufferTest {
+
+    private static final int PRODUCERS = 8;
+    private static final int RECORDS_PER_PRODUCER = 50_000;
+
+    @Test
+    void capacityIsRoundedUpToPowerOfTwo() {
+        assertThat(new AccessLogRingBuffer(1000).capacity()).isEqualTo(1024);
+        assertThat(new AccessLogRingBuffer(1024).capacity()).isEqualTo(1024);
+        assertThat(new AccessLogRingBuffer(3).capacity()).isEqualTo(4);
+    }
+
+    @Test
+    void fullBufferRejectsClaimsUntilReleased() {
+        AccessLogRingBuffer buffer = new AccessLogRingBuffer(4);
+        for (int i = 0; i < 4; i++) {
+            AccessLogRecord record = buffer.claim();
+            record.status = i;
+            buffer.publish(record);
+        }
+        assertThat(buffer.claim()).isNull();
+        assertThat(buffer.size()).isEqualTo(4);
+
+        AccessLogRecord first = buffer.poll();
+        assertThat(first.status).isZero();
+        buffer.release(first);
+        assertThat(buffer.claim()).isNotNull();
+    }
+
+    @Test
+    void claimedButUnpublishedSlotBlocksConsumerOnly() {
+        AccessLogRingBuffer buffer = new AccessLogRingBuffer(4);
+        AccessLogRecord slow = buffer.claim();
+        AccessLogRecord fast = buffer.claim();
+        buffer.publish(fast);
+        // 按顺序消费，前一个槽位发布前不会读到后面的记录
+        assertThat(buffer.poll()).isNull();
+        buffer.publish(slow);
+        assertThat(buffer.poll()).isSameAs(slow);
+    }
+
+    @Test
+    void concurrentProducersDeliverEveryRecordExactlyOnceInOrder() throws Exception {
+        AccessLogRingBuffer buffer = new AccessLogRingBuffer(1024);
+        LongAdder dropped = new LongAdder();
+        long[] received = new long[PRODUCERS];
+        long[] lastSequence = new long[PRODUCERS];
+        AtomicBoolean outOfOrder = new AtomicBoolean();
+        AtomicBoolean producing = new AtomicBoolean(true);
+
+        Thread consumer = new Thread(() -> {
+            Arrays.fill(lastSequence, -1);
+            while (true) {
+                AccessLogRecord record = buffer.poll();
+                if (record == null) {
+                    if (!producing.get() && buffer.size() == 0) {
+                        return;
+                    }
+                    Thread.yield();
+                    continue;
+                }
+                int producer = record.status;
+                long sequence = record.durationNanos;
+                // 同一生产者的记录按写入顺序消费（中间可能有被丢弃的）
+                if (sequence <= lastSequence[producer] || !("p" + producer).equals(record.path)) {
+                    outOfOrder.set(true);
+                }
+                lastSequence[producer] = sequence;
+                received[producer]++;
+                buffer.release(record);
+            }
+        }, "access-log-test-consumer");
+        consumer.start();
+
+        ExecutorService executor = Executors.newFixedThreadPool(PRODUCERS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int p = 0; p < PRODUCERS; p++) {
+            int producer = p;
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < RECORDS_PER_PRODUCER; i++) {
+                    AccessLogRecord record = buffer.claim();
+                    if (record == null) {
+                        dropped.increment();
+                        continue;
+                    }
+                    record.status = producer;
+                    record.path = "p" + producer;
+                    record.durationNanos = i;
+                    buffer.publish(record);
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        producing.set(false);
+        consumer.join(TimeUnit.SECONDS.toMillis(30));
+        executor.shutdown();
+
+        assertThat(consumer.isAlive()).isFalse();
+        assertThat(outOfOrder.get()).isFalse();
+        long total = 0;
+        for (long count : received) {
+            total += count;
+        }
+        // 每条记录要么被消费一次，要么被计为丢弃
+        assertThat(total + dropped.sum()).isEqualTo((long) PRODUCERS * RECORDS_PER_PRODUCER);
+        assertThat(total).isPositive();
+        assertThat(buffer.size()).isZero();
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.gatewayservice.accesslog;
+
+import com.example.gatewayservice.config.AccessLogProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 访问日志后台线程：空闲时退避休眠几乎不占CPU，写入记录的请求线程立即唤醒它，并发写入的记录全部输出
+ */
+class AccessLogWriterTest {
+
+    private final AccessLogProperties properties = new AccessLogProperties();
+    private AccessLogWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        properties.setBufferSize(1 << 16);
+        writer = new AccessLogWriter(properties);
+        writer.afterPropertiesSet();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        writer.destroy();
+    }
+
+    @Test
+    void idleWriterIsWokenByProducer() throws Exception {
+        // 空闲足够久，休眠时间已退避到上限
+        TimeUnit.MILLISECONDS.sleep(500);
+        Thread thread = (Thread) ReflectionTestUtils.getField(writer, "thread");
+        assertThat(thread.getState()).isEqualTo(Thread.State.TIMED_WAITING);
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        long cpuBefore = threads.getThreadCpuTime(thread.getId());
+        TimeUnit.SECONDS.sleep(1);
+        long idleCpuNanos = threads.getThreadCpuTime(thread.getId()) - cpuBefore;
+        // 空闲时每秒只醒来约10次，而不是按固定的1ms间隔醒来1000次
+        assertThat(TimeUnit.NANOSECONDS.toMillis(idleCpuNanos)).isLessThan(5);
+
+        for (int i = 1; i <= 5; i++) {
+            long begin = System.nanoTime();
+            log(i);
+            awaitWritten(i);
+            // 不必等到休眠结束（100ms）才输出
+            assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin)).isLessThan(50);
+            TimeUnit.MILLISECONDS.sleep(300);
+        }
+    }
+
+    @Test
+    void concurrentProducersAreAllWritten() throws Exception {
+        int producers = 8;
+        int perProducer = 5_000;
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < perProducer; i++) {
+                    log(i);
+                    // 间歇写入，让后台线程在两批之间进入休眠
+                    if (i % 500 == 0) {
+                        TimeUnit.MILLISECONDS.sleep(5);
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        awaitWritten(producers * perProducer);
+        assertThat(counter("dropped")).isZero();
+    }
+
+    private void log(int sequence) {
+        writer.log(System.currentTimeMillis(), "GET", "/products/" + sequence, "product-service", "127.0.0.1",
+                200, TimeUnit.MILLISECONDS.toNanos(3));
+    }
+
+    private long counter(String name) {
+        return ((LongAdder) ReflectionTestUtils.getField(writer, name)).sum();
+    }
+
+    private void awaitWritten(long expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (counter("written") < expected && System.nanoTime() < deadline) {
+            Thread.yield();
+        }
+        assertThat(counter("written")).isEqualTo(expected);
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.gatewayservice.filter;
+
+import com.example.gatewayservice.cache.GatewayResponseCache;
+import com.example.gatewayservice.config.ResponseCacheProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 实体响应缓存：只缓存实体读取，写请求只删除对应实体，按Accept/Accept-Encoding区分，不缓存业务错误
+ */
+class ResponseCacheGatewayFilterFactoryTest {
+
+    private static final String OK_BODY = "{\"code\":200,\"message\":\"操作成功\",\"data\":{\"id\":\"1\"}}";
+    private static final String NOT_FOUND_BODY = "{\"code\":404,\"message\":\"商品不存在\"}";
+
+    private final ResponseCacheProperties properties = new ResponseCacheProperties();
+    private final ResponseCacheGatewayFilterFactory factory = new ResponseCacheGatewayFilterFactory(
+            new GatewayResponseCache(properties), properties, new ObjectMapper());
+    private final GatewayFilter filter = factory.apply(config("/products/{id:\\d+}"));
+    private final AtomicInteger forwarded = new AtomicInteger();
+
+    @Test
+    void cachesEntityReadsOnly() {
+        assertThat(get("/products/1").getResponse().getHeaders().getFirst("X-Cache")).isEqualTo("MISS");
+        MockServerWebExchange hit = get("/products/1");
+        assertThat(hit.getResponse().getHeaders().getFirst("X-Cache")).isEqualTo("HIT");
+        assertThat(hit.getResponse().getBodyAsString().block()).isEqualTo(OK_BODY);
+        assertThat(forwarded.get()).isEqualTo(1);
+
+        // 库存、配置、导入任务等会变化的接口每次都转发
+        for (String path : new String[]{"/products/1/stock", "/products/config", "/products/import/jobs/7", "/products/1?x=1"}) {
+            forwarded.set(0);
+            get(path);
+            get(path);
+            assertThat(forwarded.get()).as(path).isEqualTo(2);
+        }
+    }
+
+    @Test
+    void doesNotCacheErrorResults() {
+        exchange(MockServerHttpRequest.get("/products/404"), NOT_FOUND_BODY);
+        MockServerWebExchange second = exchange(MockServerHttpRequest.get("/products/404"), NOT_FOUND_BODY);
+        assertThat(forwarded.get()).isEqualTo(2);
+        assertThat(second.getResponse().getHeaders().getETag()).isNull();
+    }
+
+    @Test
+    void writeInvalidatesOnlyThatEntity() {
+        get("/products/1");
+        get("/products/2");
+        forwarded.set(0);
+
+        // 预占库存不是实体本身的写请求，不影响缓存
+        exchange(MockServerHttpRequest.method(HttpMethod.POST, "/products/1/reservations"), OK_BODY);
+        exchange(MockServerHttpRequest.put("/products/1"), OK_BODY);
+        assertThat(forwarded.get()).isEqualTo(2);
+
+        assertThat(get("/products/1").getResponse().getHeaders().getFirst("X-Cache")).isEqualTo("MISS");
+        assertThat(get("/products/2").getResponse().getHeaders().getFirst("X-Cache")).isEqualTo("HIT");
+        assertThat(forwarded.get()).isEqualTo(3);
+    }
+
+    @Test
+    void variesOnAcceptAndAcceptEncoding() {
+        get("/products/1");
+        exchange(MockServerHttpRequest.get("/products/1").header(HttpHeaders.ACCEPT_ENCODING, "gzip"), OK_BODY);
+        exchange(MockServerHttpRequest.get("/products/1").accept(MediaType.APPLICATION_XML), OK_BODY);
+        assertThat(forwarded.get()).isEqualTo(3);
+    }
+
+    @Test
+    void answersNotModifiedForMatchingEtag() {
+        String etag = get("/products/1").getResponse().getHeaders().getETag();
+        MockServerWebExchange revalidated = exchange(MockServerHttpRequest.get("/products/1").ifNoneMatch(etag), OK_BODY);
+        assertThat(revalidated.getResponse().getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(forwarded.get()).isEqualTo(1);
+    }
+
+    @Test
+    void requiresEntityPath() {
+        assertThatThrownBy(() -> factory.apply(new ResponseCacheGatewayFilterFactory.Config()))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private MockServerWebExchange get(String path) {
+        return exchange(MockServerHttpRequest.get(path), OK_BODY);
+    }
+
+    private MockServerWebExchange exchange(MockServerHttpRequest.BaseBuilder<?> request, String body) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(request.build());
+        filter.filter(exchange, downstream(body)).block();
+        return exchange;
+    }
+
+    /**
+     * 模拟下游服务：与Spring MVC一样以HTTP 200返回Result
+     */
+    private GatewayFilterChain downstream(String body) {
+        return exchange -> {
+            forwarded.incrementAndGet();
+            ServerHttpResponse response = exchange.getResponse();
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            response.setStatusCode(HttpStatus.OK);
+            response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+            response.getHeaders().setContentLength(bytes.length);
+            return response.writeWith(Mono.just(response.bufferFactory().wrap(bytes)));
+        };
+    }
+
+    private static ResponseCacheGatewayFilterFactory.Config config(String path) {
+        ResponseCacheGatewayFilterFactory.Config config = new ResponseCacheGatewayFilterFactory.Config();
+        config.setPath(path);
+        return config;
+    }
+}
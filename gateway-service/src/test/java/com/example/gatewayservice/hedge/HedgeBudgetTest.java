@@ -0,0 +1,80 @@
+package com.example.gatewayservice.hedge;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 对冲预算：对冲请求数不超过总请求数的percent%，空闲后的集中对冲不超过突发上限
+ */
+class HedgeBudgetTest {
+
+    @Test
+    void hedgesAreLimitedToPercentOfRequests() {
+        HedgeBudget budget = new HedgeBudget(5, 10);
+        assertThat(budget.tryAcquire()).isFalse();
+
+        int hedges = 0;
+        for (int i = 0; i < 10_000; i++) {
+            budget.onRequest();
+            // 每个请求都想对冲
+            if (budget.tryAcquire()) {
+                hedges++;
+            }
+        }
+        assertThat(hedges).isEqualTo(500);
+    }
+
+    @Test
+    void idleCreditsAreCappedAtMaxBurst() {
+        HedgeBudget budget = new HedgeBudget(10, 3);
+        for (int i = 0; i < 100_000; i++) {
+            budget.onRequest();
+        }
+        int burst = 0;
+        while (budget.tryAcquire()) {
+            burst++;
+        }
+        assertThat(burst).isEqualTo(3);
+    }
+
+    @Test
+    void concurrentCallersNeverOverspend() throws Exception {
+        HedgeBudget budget = new HedgeBudget(2, 5);
+        int threads = 16;
+        int requestsPerThread = 50_000;
+        AtomicInteger hedges = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < requestsPerThread; i++) {
+                    budget.onRequest();
+                    if (budget.tryAcquire()) {
+                        hedges.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // 每个请求存入0.02个额度，全部请求最多换来2%的对冲
+        assertThat(hedges.get()).isEqualTo(threads * requestsPerThread / 50);
+    }
+}
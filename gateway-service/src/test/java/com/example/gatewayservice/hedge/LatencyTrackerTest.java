@@ -0,0 +1,73 @@
+package com.example.gatewayservice.hedge;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 延迟分布：对数分桶误差有界，窗口结束后按上一个窗口的样本给出p95/p99
+ */
+class LatencyTrackerTest {
+
+    private static final long WINDOW_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    @Test
+    void bucketUpperBoundIsWithinTwentyFivePercent() {
+        long previousIndex = -1;
+        for (long micros = 1; micros < TimeUnit.SECONDS.toMicros(60); micros += Math.max(1, micros / 7)) {
+            int index = LatencyTracker.index(micros);
+            long upper = LatencyTracker.upperBound(index);
+            assertThat(index).isGreaterThanOrEqualTo((int) previousIndex);
+            assertThat(upper).as("micros=%d", micros).isGreaterThanOrEqualTo(micros).isLessThanOrEqualTo(micros + micros / 4 + 1);
+            previousIndex = index;
+        }
+    }
+
+    @Test
+    void quantilesComeFromTheFinishedWindow() throws InterruptedException {
+        LatencyTracker tracker = new LatencyTracker(WINDOW_NANOS, 100);
+        assertThat(tracker.getP95Micros()).isEqualTo(-1);
+
+        // 90%为1ms，8%为20ms，2%为200ms：p95落在20ms，p99落在200ms
+        record(tracker, 900, 1);
+        record(tracker, 80, 20);
+        record(tracker, 20, 200);
+        assertThat(tracker.getP95Micros()).as("窗口结束前不更新").isEqualTo(-1);
+
+        TimeUnit.NANOSECONDS.sleep(WINDOW_NANOS * 2);
+        record(tracker, 1, 1);
+        assertThat(tracker.getP95Micros()).isBetween(20_000L, 25_000L);
+        assertThat(tracker.getP99Micros()).isBetween(200_000L, 250_000L);
+
+        // 下一个窗口全部变快后分位数随之下降
+        record(tracker, 1000, 2);
+        TimeUnit.NANOSECONDS.sleep(WINDOW_NANOS * 2);
+        record(tracker, 1, 2);
+        assertThat(tracker.getP95Micros()).isBetween(2_000L, 2_500L);
+        assertThat(tracker.getP99Micros()).isBetween(2_000L, 2_500L);
+    }
+
+    @Test
+    void windowWithTooFewSamplesKeepsPreviousQuantiles() throws InterruptedException {
+        LatencyTracker tracker = new LatencyTracker(WINDOW_NANOS, 100);
+        record(tracker, 200, 10);
+        TimeUnit.NANOSECONDS.sleep(WINDOW_NANOS * 2);
+        record(tracker, 1, 10);
+        long p99 = tracker.getP99Micros();
+        assertThat(p99).isBetween(10_000L, 12_500L);
+
+        // 流量很低的窗口中的一个慢请求不会把分位数拉高
+        record(tracker, 5, 500);
+        TimeUnit.NANOSECONDS.sleep(WINDOW_NANOS * 2);
+        record(tracker, 1, 10);
+        assertThat(tracker.getP99Micros()).isEqualTo(p99);
+    }
+
+    private static void record(LatencyTracker tracker, int count, long millis) {
+        for (int i = 0; i < count; i++) {
+            tracker.record(TimeUnit.MILLISECONDS.toNanos(millis));
+        }
+    }
+}
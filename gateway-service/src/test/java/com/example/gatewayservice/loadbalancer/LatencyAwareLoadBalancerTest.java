@@ -0,0 +1,161 @@
+package com.example.gatewayservice.loadbalancer;
+
+import com.example.gatewayservice.config.LoadBalancingProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 负载均衡模拟：两个快实例和一个慢实例，按虚拟时间每毫秒到达一个请求，
+ * 比较轮询与延迟感知策略下慢实例分到的请求比例和整体尾延迟
+ */
+class LatencyAwareLoadBalancerTest {
+
+    private static final String SERVICE_ID = "product-service";
+    private static final int REQUESTS = 5_000;
+    /**
+     * 每个实例可同时处理的请求数，超出的请求在实例上排队
+     */
+    private static final int WORKERS = 4;
+
+    private final ServiceInstance fast1 = instance("fast-1", 5);
+    private final ServiceInstance fast2 = instance("fast-2", 5);
+    private final ServiceInstance slow = instance("slow", 50);
+
+    @Test
+    void peakEwmaAvoidsSlowInstance() {
+        Simulation roundRobin = simulate(LoadBalancingProperties.Strategy.ROUND_ROBIN);
+        Simulation peakEwma = simulate(LoadBalancingProperties.Strategy.PEAK_EWMA);
+
+        // 轮询平均分配，慢实例处理不过来，排队使尾延迟持续增长
+        assertThat(roundRobin.share(slow)).isCloseTo(1.0 / 3, offset(0.01));
+        assertThat(peakEwma.share(slow)).isLessThan(0.1);
+        assertThat(peakEwma.percentileMillis(0.99)).isLessThan(roundRobin.percentileMillis(0.99) / 10);
+        assertThat(peakEwma.percentileMillis(0.5)).isLessThanOrEqualTo(roundRobin.percentileMillis(0.5));
+    }
+
+    @Test
+    void leastOutstandingAlsoShedsLoadFromSlowInstance() {
+        Simulation roundRobin = simulate(LoadBalancingProperties.Strategy.ROUND_ROBIN);
+        Simulation leastOutstanding = simulate(LoadBalancingProperties.Strategy.LEAST_OUTSTANDING);
+
+        assertThat(leastOutstanding.share(slow)).isLessThan(0.15);
+        assertThat(leastOutstanding.percentileMillis(0.99)).isLessThan(roundRobin.percentileMillis(0.99) / 10);
+    }
+
+    /**
+     * 虚拟时间下的排队模拟：请求到达前先处理已完成的请求，使负载均衡器看到的进行中请求数与延迟与真实情况一致
+     */
+    private Simulation simulate(LoadBalancingProperties.Strategy strategy) {
+        LoadBalancingProperties properties = new LoadBalancingProperties();
+        properties.setStrategy(strategy);
+        InstanceStatsRegistry registry = new InstanceStatsRegistry(properties);
+        LatencyAwareLoadBalancer loadBalancer = new LatencyAwareLoadBalancer(supplier(fast1, fast2, slow),
+                SERVICE_ID, registry, properties);
+
+        Map<ServiceInstance, PriorityQueue<Long>> workerFreeAt = new HashMap<>();
+        for (ServiceInstance instance : Arrays.asList(fast1, fast2, slow)) {
+            PriorityQueue<Long> workers = new PriorityQueue<>();
+            for (int i = 0; i < WORKERS; i++) {
+                workers.add(0L);
+            }
+            workerFreeAt.put(instance, workers);
+        }
+        PriorityQueue<Completion> completions = new PriorityQueue<>((a, b) -> Long.compare(a.at, b.at));
+        Simulation simulation = new Simulation();
+
+        for (long now = 0; now < REQUESTS; now++) {
+            while (!completions.isEmpty() && completions.peek().at <= now) {
+                Completion done = completions.poll();
+                registry.onComplete(done.instance, TimeUnit.MILLISECONDS.toNanos(done.latency), false);
+            }
+            ServiceInstance chosen = loadBalancer.choose(new DefaultRequest<>()).block().getServer();
+            registry.get(chosen).onStart();
+            PriorityQueue<Long> workers = workerFreeAt.get(chosen);
+            long start = Math.max(now, workers.poll());
+            long finish = start + Long.parseLong(chosen.getMetadata().get("service-millis"));
+            workers.add(finish);
+            completions.add(new Completion(finish, chosen, finish - now));
+            simulation.record(chosen, finish - now);
+        }
+        return simulation;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ObjectProvider<ServiceInstanceListSupplier> supplier(ServiceInstance... instances) {
+        List<ServiceInstance> list = Arrays.asList(instances);
+        ServiceInstanceListSupplier supplier = new ServiceInstanceListSupplier() {
+            @Override
+            public String getServiceId() {
+                return SERVICE_ID;
+            }
+
+            @Override
+            public Flux<List<ServiceInstance>> get() {
+                return Flux.just(list);
+            }
+        };
+        ObjectProvider<ServiceInstanceListSupplier> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable(any())).thenReturn(supplier);
+        return provider;
+    }
+
+    private static ServiceInstance instance(String host, long serviceMillis) {
+        DefaultServiceInstance instance = new DefaultServiceInstance(host, SERVICE_ID, host, 8080, false);
+        instance.getMetadata().put("service-millis", String.valueOf(serviceMillis));
+        return instance;
+    }
+
+    private static final class Completion {
+
+        final long at;
+        final ServiceInstance instance;
+        final long latency;
+
+        Completion(long at, ServiceInstance instance, long latency) {
+            this.at = at;
+            this.instance = instance;
+            this.latency = latency;
+        }
+    }
+
+    private static final class Simulation {
+
+        private final Map<ServiceInstance, Integer> counts = new HashMap<>();
+        private final List<Long> latencies = new ArrayList<>();
+
+        void record(ServiceInstance instance, long latencyMillis) {
+            counts.merge(instance, 1, Integer::sum);
+            latencies.add(latencyMillis);
+        }
+
+        double share(ServiceInstance instance) {
+            return counts.getOrDefault(instance, 0) / (double) latencies.size();
+        }
+
+        long percentileMillis(double quantile) {
+            List<Long> sorted = new ArrayList<>(latencies);
+            Collections.sort(sorted);
+            return sorted.get((int) Math.ceil(quantile * sorted.size()) - 1);
+        }
+    }
+}
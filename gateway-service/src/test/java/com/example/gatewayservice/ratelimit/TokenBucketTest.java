@@ -0,0 +1,131 @@
+package com.example.gatewayservice.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * GCRA令牌桶：突发容量、按速率补充、容量上限、并发下不超发、nanoTime溢出
+ */
+class TokenBucketTest {
+
+    private static final int CAPACITY = 10;
+    private static final long INTERVAL = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long BURST = CAPACITY * INTERVAL;
+
+    @Test
+    void allowsBurstUpToCapacityThenRejects() {
+        TokenBucket bucket = new TokenBucket();
+        long now = 1_000_000_000L;
+        assertThat(bucket.available(now, INTERVAL, BURST)).isEqualTo(CAPACITY);
+        for (int i = 0; i < CAPACITY; i++) {
+            assertThat(bucket.tryAcquire(now, INTERVAL, BURST)).isTrue();
+        }
+        assertThat(bucket.tryAcquire(now, INTERVAL, BURST)).isFalse();
+        assertThat(bucket.available(now, INTERVAL, BURST)).isZero();
+    }
+
+    @Test
+    void refillsOneTokenPerIntervalUpToCapacity() {
+        TokenBucket bucket = new TokenBucket();
+        long now = 1_000_000_000L;
+        drain(bucket, now);
+
+        // 不足一个间隔时仍然拒绝
+        assertThat(bucket.tryAcquire(now + INTERVAL - 1, INTERVAL, BURST)).isFalse();
+        assertThat(bucket.tryAcquire(now + INTERVAL, INTERVAL, BURST)).isTrue();
+        assertThat(bucket.tryAcquire(now + INTERVAL, INTERVAL, BURST)).isFalse();
+
+        // 空闲很久后最多攒满一个桶
+        long later = now + 100 * INTERVAL;
+        assertThat(bucket.available(later, INTERVAL, BURST)).isEqualTo(CAPACITY);
+        assertThat(drain(bucket, later)).isEqualTo(CAPACITY);
+    }
+
+    @Test
+    void sustainedRateMatchesConfiguredRate() {
+        TokenBucket bucket = new TokenBucket();
+        long start = 1_000_000_000L;
+        long duration = TimeUnit.SECONDS.toNanos(10);
+        long step = TimeUnit.MILLISECONDS.toNanos(1);
+        int accepted = 0;
+        for (long now = start; now < start + duration; now += step) {
+            if (bucket.tryAcquire(now, INTERVAL, BURST)) {
+                accepted++;
+            }
+        }
+        // 初始的一桶突发 + 10秒内按每100ms一个补充
+        assertThat(accepted).isEqualTo(CAPACITY + (int) (duration / INTERVAL) - 1);
+    }
+
+    @Test
+    void concurrentCallersNeverExceedCapacity() throws Exception {
+        TokenBucket bucket = new TokenBucket();
+        long now = System.nanoTime();
+        int threads = 16;
+        int attemptsPerThread = 1_000;
+        AtomicInteger granted = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>(threads);
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < attemptsPerThread; i++) {
+                    if (bucket.tryAcquire(now, INTERVAL, BURST)) {
+                        granted.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        assertThat(granted.get()).isEqualTo(CAPACITY);
+    }
+
+    @Test
+    void survivesNanoTimeOverflow() {
+        TokenBucket bucket = new TokenBucket();
+        long now = Long.MAX_VALUE - INTERVAL / 2;
+        drain(bucket, now);
+        // nanoTime越过Long.MAX_VALUE后按差值比较仍然正确
+        long afterOverflow = now + INTERVAL;
+        assertThat(afterOverflow).isNegative();
+        assertThat(bucket.tryAcquire(afterOverflow, INTERVAL, BURST)).isTrue();
+        assertThat(bucket.tryAcquire(afterOverflow, INTERVAL, BURST)).isFalse();
+    }
+
+    @Test
+    void rateChangeAppliesImmediately() {
+        TokenBucket bucket = new TokenBucket();
+        long now = 1_000_000_000L;
+        drain(bucket, now);
+        // 配置刷新后速率翻倍（突发时长不变），一个旧间隔内补充两个令牌
+        long fasterInterval = INTERVAL / 2;
+        long later = now + INTERVAL;
+        assertThat(bucket.tryAcquire(later, fasterInterval, BURST)).isTrue();
+        assertThat(bucket.tryAcquire(later, fasterInterval, BURST)).isTrue();
+        assertThat(bucket.tryAcquire(later, fasterInterval, BURST)).isFalse();
+    }
+
+    private static int drain(TokenBucket bucket, long now) {
+        int acquired = 0;
+        while (bucket.tryAcquire(now, INTERVAL, BURST)) {
+            acquired++;
+        }
+        return acquired;
+    }
+}
@@ -7,6 +7,9 @@ CREATE DATABASE IF NOT EXISTS user_db CHARACTER SET utf8mb4 COLLATE utf8mb4_unic
 -- 创建商品数据库
 CREATE DATABASE IF NOT EXISTS product_db CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci;
 
+-- 创建订单数据库
+CREATE DATABASE IF NOT EXISTS order_db CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci;
+
 -- 使用用户数据库
 USE user_db;
 
@@ -121,6 +124,44 @@ INSERT IGNORE INTO products (name, description, price, stock, category_id, brand
 ('iPhone 14', '苹果iPhone 14 128GB 蓝色', 5999.00, 150, 3, 1, 1),
 ('MacBook Pro', '苹果MacBook Pro 14英寸 M2芯片', 14999.00, 50, 1, 1, 1);
 
+-- 使用订单数据库
+USE order_db;
+
+-- 创建订单表
+CREATE TABLE IF NOT EXISTS orders (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    order_no VARCHAR(50) NOT NULL UNIQUE COMMENT '订单号',
+    user_id BIGINT NOT NULL COMMENT '用户ID',
+    total_amount DECIMAL(10,2) NOT NULL COMMENT '订单总金额',
+    shipping_fee DECIMAL(10,2) DEFAULT 0.00 COMMENT '运费',
+    payment_method TINYINT COMMENT '支付方式',
+    payment_status TINYINT DEFAULT 0 COMMENT '支付状态：0-未支付，1-已支付，2-已退款',
+    order_status TINYINT DEFAULT 0 COMMENT '订单状态：0-待支付，1-已支付，2-已发货，3-已完成，4-已取消',
+    receiver_name VARCHAR(50) NOT NULL COMMENT '收货人姓名',
+    receiver_phone VARCHAR(20) NOT NULL COMMENT '收货人电话',
+    receiver_address VARCHAR(255) NOT NULL COMMENT '收货地址',
+    created_time DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    updated_time DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    deleted TINYINT DEFAULT 0 COMMENT '逻辑删除：0-未删除，1-已删除'
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='订单表';
+
+-- 创建订单明细表
+CREATE TABLE IF NOT EXISTS order_items (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    order_id BIGINT NOT NULL COMMENT '订单ID',
+    product_id BIGINT NOT NULL COMMENT '商品ID',
+    product_name VARCHAR(100) NOT NULL COMMENT '商品名称',
+    product_price DECIMAL(10,2) NOT NULL COMMENT '商品价格',
+    quantity INT NOT NULL COMMENT '购买数量',
+    subtotal DECIMAL(10,2) NOT NULL COMMENT '小计金额',
+    created_time DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    updated_time DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    deleted TINYINT DEFAULT 0 COMMENT '逻辑删除：0-未删除，1-已删除'
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='订单明细表';
+
+CREATE INDEX idx_orders_user_id ON orders(user_id);
+CREATE INDEX idx_order_items_order_id ON order_items(order_id);
+
 -- 验证迁移结果
 SELECT '用户数据库 - 用户数量:' as info, COUNT(*) as count FROM user_db.users WHERE deleted = 0;
 SELECT '商品数据库 - 商品数量:' as info, COUNT(*) as count FROM product_db.products WHERE deleted = 0;
@@ -0,0 +1,40 @@
+package com.example.orderservice.client;
+
+import com.example.orderservice.common.Result;
+import com.example.orderservice.dto.BatchReservationRequest;
+import com.example.orderservice.dto.StockReservation;
+import com.example.orderservice.entity.Product;
+import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import java.util.List;
+
+@FeignClient(name = "product-service")
+public interface ProductClient {
+
+    @GetMapping("/products/{id}")
+    Result<Product> getProductById(@PathVariable("id") Long id);
+
+    @GetMapping("/products/batch")
+    Result<List<Product>> getProductsByIds(@RequestParam("ids") List<Long> ids);
+
+    @PostMapping("/products/{id}/reservations")
+    Result<StockReservation> reserve(@PathVariable("id") Long id, @RequestParam("quantity") int quantity);
+
+    /**
+     * 一次预占订单中全部商品的库存，任一商品不足时都不预占，返回的预占与请求中的商品顺序一致
+     */
+    @PostMapping("/products/reservations/batch")
+    Result<List<StockReservation>> reserveAll(@RequestBody BatchReservationRequest request);
+
+    @PostMapping("/products/reservations/{reservationId}/confirm")
+    Result<Boolean> confirm(@PathVariable("reservationId") String reservationId);
+
+    @DeleteMapping("/products/reservations/{reservationId}")
+    Result<Boolean> release(@PathVariable("reservationId") String reservationId);
+}
@@ -0,0 +1,9 @@
+package com.example.orderservice.config;
+
+import org.mybatis.spring.annotation.MapperScan;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@MapperScan("com.example.orderservice.mapper")
+public class MybatisPlusConfig {
+}
\ No newline at end of file
@@ -0,0 +1,12 @@
+package com.example.orderservice.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 订单配置管理类
+ */
+@Configuration
+@EnableConfigurationProperties(OrderProperties.class)
+public class OrderConfig {
+}
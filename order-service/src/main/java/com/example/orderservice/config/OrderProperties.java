@@ -0,0 +1,67 @@
+package com.example.orderservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 订单配置
+ */
+@Data
+@ConfigurationProperties(prefix = "app.order")
+public class OrderProperties {
+
+    /**
+     * 单个订单最多包含的明细数
+     */
+    private int maxItems = 50;
+
+    /**
+     * 异步批量写入配置
+     */
+    private Async async = new Async();
+
+    @Data
+    public static class Async {
+
+        /**
+         * 是否开启异步下单：订单写入本地日志后立即返回，由后台线程批量写入数据库
+         */
+        private boolean enabled = false;
+
+        /**
+         * 内存队列容量，队列满时拒绝下单
+         */
+        private int queueCapacity = 10000;
+
+        /**
+         * 每次写入数据库的最大订单数
+         */
+        private int batchSize = 200;
+
+        /**
+         * 凑批的最长等待时间
+         */
+        private Duration maxWait = Duration.ofMillis(20);
+
+        /**
+         * 本地日志目录（同步下单也使用），订单保留到库存预占确认完成；
+         * 服务重启后会重放日志，写入尚未写入数据库的异步订单，并重新确认已写入订单的预占
+         */
+        private String journalDir = "data/order-journal";
+
+        /**
+         * 最早受理的未写入订单（包括正在写入的批次）等待超过该时间时拒绝新的异步订单。
+         * 库存预占在订单写入数据库后才确认，必须明显小于商品服务的app.stock.reservation-timeout，
+         * 否则积压期间预占过期、库存被再次售出，订单写入后确认失败即超卖
+         */
+        private Duration maxQueueAge = Duration.ofMinutes(5);
+
+        /**
+         * 每次写日志后是否强制刷盘（同步下单也使用），关闭后吞吐更高，但机器掉电可能丢失最近受理的订单，
+         * 或遗漏已写入订单的预占确认
+         */
+        private boolean fsync = true;
+    }
+}
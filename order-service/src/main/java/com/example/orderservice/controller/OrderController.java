@@ -0,0 +1,60 @@
+package com.example.orderservice.controller;
+
+import com.example.orderservice.common.Result;
+import com.example.orderservice.dto.CreateOrderRequest;
+import com.example.orderservice.entity.Order;
+import com.example.orderservice.service.OrderService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/orders")
+@Tag(name = "订单管理", description = "订单相关接口")
+@RequiredArgsConstructor
+public class OrderController {
+
+    private final OrderService orderService;
+
+    @PostMapping
+    @Operation(summary = "创建订单")
+    public Result<Order> createOrder(@Parameter(description = "下单信息") @RequestBody CreateOrderRequest request) {
+        try {
+            return Result.success(orderService.createOrder(request));
+        } catch (IllegalArgumentException e) {
+            return Result.error(400, e.getMessage());
+        } catch (IllegalStateException e) {
+            return Result.error(409, e.getMessage());
+        }
+    }
+
+    @GetMapping("/{id}")
+    @Operation(summary = "根据ID获取订单")
+    public Result<Order> getOrderById(@Parameter(description = "订单ID") @PathVariable Long id) {
+        Order order = orderService.getOrderById(id);
+        if (order != null) {
+            return Result.success(order);
+        }
+        return Result.error("订单不存在");
+    }
+
+    @GetMapping("/no/{orderNo}")
+    @Operation(summary = "根据订单号获取订单，异步下单时可用于查询订单是否已写入")
+    public Result<Order> getOrderByNo(@Parameter(description = "订单号") @PathVariable String orderNo) {
+        Order order = orderService.getOrderByNo(orderNo);
+        if (order != null) {
+            return Result.success(order);
+        }
+        return Result.error("订单不存在");
+    }
+
+    @GetMapping
+    @Operation(summary = "获取用户的订单列表")
+    public Result<List<Order>> listByUser(@Parameter(description = "用户ID") @RequestParam Long userId) {
+        return Result.success(orderService.listByUser(userId));
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.orderservice.dto;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * 下单请求
+ */
+@Data
+public class CreateOrderRequest {
+
+    private Long userId;
+
+    private String receiverName;
+
+    private String receiverPhone;
+
+    private String receiverAddress;
+
+    private Integer paymentMethod;
+
+    private BigDecimal shippingFee;
+
+    private List<Item> items;
+
+    @Data
+    public static class Item {
+
+        private Long productId;
+
+        private Integer quantity;
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.orderservice.dto;
+
+import com.example.orderservice.entity.Order;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 已受理但尚未写入数据库的订单，连同下单时预占的库存一起写入本地日志
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PendingOrder {
+
+    private Order order;
+
+    private List<String> reservationIds;
+
+    /**
+     * 受理时间（毫秒），库存预占从此时开始计算有效期
+     */
+    private long acceptedAt;
+
+    /**
+     * 同步下单：写入数据库失败时调用方已收到失败，重放日志时不再写入，只释放预占
+     */
+    private boolean sync;
+}
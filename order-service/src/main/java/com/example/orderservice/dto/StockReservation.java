@@ -0,0 +1,23 @@
+package com.example.orderservice.dto;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+import lombok.Data;
+
+/**
+ * 商品服务返回的库存预占结果
+ */
+@Data
+public class StockReservation {
+
+    private String reservationId;
+
+    @JsonSerialize(using = ToStringSerializer.class)
+    private Long productId;
+
+    private Integer quantity;
+
+    private Long remaining;
+
+    private Long expireAt;
+}
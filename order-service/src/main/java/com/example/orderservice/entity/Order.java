@@ -0,0 +1,59 @@
+package com.example.orderservice.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+import lombok.Data;
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@TableName("orders")
+public class Order {
+
+    /**
+     * Snowflake主键超过JavaScript的安全整数范围（2^53），JSON中以字符串输出
+     */
+    @TableId(type = IdType.ASSIGN_ID)
+    @JsonSerialize(using = ToStringSerializer.class)
+    private Long id;
+
+    private String orderNo;
+
+    @JsonSerialize(using = ToStringSerializer.class)
+    private Long userId;
+
+    private BigDecimal totalAmount;
+
+    private BigDecimal shippingFee;
+
+    private Integer paymentMethod;
+
+    /**
+     * 支付状态：0-未支付，1-已支付，2-已退款
+     */
+    private Integer paymentStatus;
+
+    /**
+     * 订单状态：0-待支付，1-已支付，2-已发货，3-已完成，4-已取消
+     */
+    private Integer orderStatus;
+
+    private String receiverName;
+
+    private String receiverPhone;
+
+    private String receiverAddress;
+
+    @TableField(value = "created_time", fill = FieldFill.INSERT)
+    private String createdTime;
+
+    @TableField(value = "updated_time", fill = FieldFill.INSERT_UPDATE)
+    private String updatedTime;
+
+    @TableLogic
+    private Integer deleted;
+
+    @TableField(exist = false)
+    private List<OrderItem> items;
+}
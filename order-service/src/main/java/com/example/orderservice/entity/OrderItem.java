@@ -0,0 +1,42 @@
+package com.example.orderservice.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+import lombok.Data;
+import java.math.BigDecimal;
+
+@Data
+@TableName("order_items")
+public class OrderItem {
+
+    /**
+     * Snowflake主键超过JavaScript的安全整数范围（2^53），JSON中以字符串输出
+     */
+    @TableId(type = IdType.ASSIGN_ID)
+    @JsonSerialize(using = ToStringSerializer.class)
+    private Long id;
+
+    @JsonSerialize(using = ToStringSerializer.class)
+    private Long orderId;
+
+    @JsonSerialize(using = ToStringSerializer.class)
+    private Long productId;
+
+    private String productName;
+
+    private BigDecimal productPrice;
+
+    private Integer quantity;
+
+    private BigDecimal subtotal;
+
+    @TableField(value = "created_time", fill = FieldFill.INSERT)
+    private String createdTime;
+
+    @TableField(value = "updated_time", fill = FieldFill.INSERT_UPDATE)
+    private String updatedTime;
+
+    @TableLogic
+    private Integer deleted;
+}
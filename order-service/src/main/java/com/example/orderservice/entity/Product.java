@@ -0,0 +1,25 @@
+package com.example.orderservice.entity;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+import lombok.Data;
+import java.math.BigDecimal;
+
+/**
+ * 商品信息（来自商品服务）
+ */
+@Data
+public class Product {
+
+    /**
+     * Snowflake主键超过JavaScript的安全整数范围（2^53），JSON中以字符串输出
+     */
+    @JsonSerialize(using = ToStringSerializer.class)
+    private Long id;
+
+    private String name;
+
+    private BigDecimal price;
+
+    private Integer stock;
+}
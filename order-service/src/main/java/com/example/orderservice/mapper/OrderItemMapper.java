@@ -0,0 +1,22 @@
+package com.example.orderservice.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.example.orderservice.entity.OrderItem;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+@Mapper
+public interface OrderItemMapper extends BaseMapper<OrderItem> {
+
+    /**
+     * 多行INSERT批量写入订单明细，一次数据库往返写入整张订单（或一批订单）的全部明细
+     */
+    @Insert("<script>INSERT INTO order_items (id, order_id, product_id, product_name, product_price, quantity, subtotal) VALUES "
+            + "<foreach collection='items' item='i' separator=','>"
+            + "(#{i.id}, #{i.orderId}, #{i.productId}, #{i.productName}, #{i.productPrice}, #{i.quantity}, #{i.subtotal})"
+            + "</foreach></script>")
+    int insertBatch(@Param("items") List<OrderItem> items);
+}
@@ -0,0 +1,24 @@
+package com.example.orderservice.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.example.orderservice.entity.Order;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+@Mapper
+public interface OrderMapper extends BaseMapper<Order> {
+
+    /**
+     * 多行INSERT批量写入订单，主键由SnowflakeIdGenerator预先分配
+     */
+    @Insert("<script>INSERT INTO orders (id, order_no, user_id, total_amount, shipping_fee, payment_method, "
+            + "payment_status, order_status, receiver_name, receiver_phone, receiver_address) VALUES "
+            + "<foreach collection='orders' item='o' separator=','>"
+            + "(#{o.id}, #{o.orderNo}, #{o.userId}, #{o.totalAmount}, #{o.shippingFee}, #{o.paymentMethod}, "
+            + "#{o.paymentStatus}, #{o.orderStatus}, #{o.receiverName}, #{o.receiverPhone}, #{o.receiverAddress})"
+            + "</foreach></script>")
+    int insertBatch(@Param("orders") List<Order> orders);
+}
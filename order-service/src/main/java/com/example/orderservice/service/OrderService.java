@@ -0,0 +1,30 @@
+package com.example.orderservice.service;
+
+import com.example.orderservice.dto.CreateOrderRequest;
+import com.example.orderservice.entity.Order;
+
+import java.util.List;
+
+public interface OrderService {
+
+    /**
+     * 下单：从商品服务获取价格并预占库存，生成订单号后写入订单及明细
+     * 开启异步下单时订单写入本地日志即返回，可通过订单号查询订单是否已写入数据库
+     *
+     * @throws IllegalArgumentException 请求不合法或商品不存在
+     * @throws IllegalStateException    库存不足或系统繁忙
+     */
+    Order createOrder(CreateOrderRequest request);
+
+    /**
+     * 获取订单详情，包含订单明细
+     */
+    Order getOrderById(Long id);
+
+    /**
+     * 按订单号获取订单详情，包含订单明细
+     */
+    Order getOrderByNo(String orderNo);
+
+    List<Order> listByUser(Long userId);
+}
@@ -0,0 +1,219 @@
+package com.example.orderservice.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.example.orderservice.client.ProductClient;
+import com.example.orderservice.common.Result;
+import com.example.orderservice.common.SnowflakeIdGenerator;
+import com.example.orderservice.config.OrderProperties;
+import com.example.orderservice.dto.BatchReservationRequest;
+import com.example.orderservice.dto.CreateOrderRequest;
+import com.example.orderservice.dto.PendingOrder;
+import com.example.orderservice.dto.StockReservation;
+import com.example.orderservice.entity.Order;
+import com.example.orderservice.entity.OrderItem;
+import com.example.orderservice.entity.Product;
+import com.example.orderservice.mapper.OrderItemMapper;
+import com.example.orderservice.mapper.OrderMapper;
+import com.example.orderservice.service.OrderService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Slf4j
+@Service
+public class OrderServiceImpl implements OrderService {
+
+    @Autowired
+    private OrderMapper orderMapper;
+
+    @Autowired
+    private OrderItemMapper orderItemMapper;
+
+    @Autowired
+    private ProductClient productClient;
+
+    @Autowired
+    private SnowflakeIdGenerator idGenerator;
+
+    @Autowired
+    private OrderWriter orderWriter;
+
+    @Autowired
+    private OrderProperties orderProperties;
+
+    @Override
+    public Order createOrder(CreateOrderRequest request) {
+        Map<Long, Integer> quantities = validate(request);
+        if (orderProperties.getAsync().isEnabled()) {
+            // 积压过多时在预占库存前拒绝，避免预占后再释放
+            orderWriter.ensureAccepting();
+        }
+
+        Order order = new Order();
+        // 主键与订单号都在本地生成，异步下单时也能立即返回完整的订单
+        order.setId(idGenerator.nextLong());
+        order.setOrderNo(Long.toString(idGenerator.nextLong()));
+        order.setUserId(request.getUserId());
+        order.setReceiverName(request.getReceiverName());
+        order.setReceiverPhone(request.getReceiverPhone());
+        order.setReceiverAddress(request.getReceiverAddress());
+        order.setPaymentMethod(request.getPaymentMethod());
+        order.setShippingFee(request.getShippingFee() != null ? request.getShippingFee() : BigDecimal.ZERO);
+        order.setPaymentStatus(0);
+        order.setOrderStatus(0);
+
+        Map<Long, Product> products = loadProducts(quantities.keySet());
+        List<OrderItem> items = new ArrayList<>(quantities.size());
+        BigDecimal total = order.getShippingFee();
+        for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+            Product product = products.get(entry.getKey());
+            OrderItem item = new OrderItem();
+            item.setId(idGenerator.nextLong());
+            item.setOrderId(order.getId());
+            item.setProductId(product.getId());
+            item.setProductName(product.getName());
+            item.setProductPrice(product.getPrice());
+            item.setQuantity(entry.getValue());
+            item.setSubtotal(product.getPrice().multiply(BigDecimal.valueOf(entry.getValue())));
+            total = total.add(item.getSubtotal());
+            items.add(item);
+        }
+        order.setTotalAmount(total);
+        order.setItems(items);
+
+        List<String> reservationIds = reserveStock(items);
+        boolean async = orderProperties.getAsync().isEnabled();
+        PendingOrder pending = new PendingOrder(order, reservationIds, System.currentTimeMillis(), !async);
+        if (!async) {
+            // 写入失败时已释放预占
+            orderWriter.writeNow(pending);
+            return order;
+        }
+        try {
+            orderWriter.submit(pending);
+        } catch (RuntimeException e) {
+            orderWriter.releaseReservations(reservationIds);
+            throw e;
+        }
+        return order;
+    }
+
+    @Override
+    public Order getOrderById(Long id) {
+        return withItems(orderMapper.selectById(id));
+    }
+
+    @Override
+    public Order getOrderByNo(String orderNo) {
+        return withItems(orderMapper.selectOne(new QueryWrapper<Order>().eq("order_no", orderNo)));
+    }
+
+    @Override
+    public List<Order> listByUser(Long userId) {
+        return orderMapper.selectList(new QueryWrapper<Order>().eq("user_id", userId).orderByDesc("id"));
+    }
+
+    private Order withItems(Order order) {
+        if (order != null) {
+            order.setItems(orderItemMapper.selectList(new QueryWrapper<OrderItem>().eq("order_id", order.getId())));
+        }
+        return order;
+    }
+
+    /**
+     * 校验下单请求，返回按商品合并后的购买数量
+     */
+    private Map<Long, Integer> validate(CreateOrderRequest request) {
+        if (request.getUserId() == null) {
+            throw new IllegalArgumentException("用户ID不能为空");
+        }
+        if (isBlank(request.getReceiverName()) || isBlank(request.getReceiverPhone()) || isBlank(request.getReceiverAddress())) {
+            throw new IllegalArgumentException("收货人信息不能为空");
+        }
+        if (request.getItems() == null || request.getItems().isEmpty()) {
+            throw new IllegalArgumentException("订单明细不能为空");
+        }
+        if (request.getItems().size() > orderProperties.getMaxItems()) {
+            throw new IllegalArgumentException("单个订单最多包含" + orderProperties.getMaxItems() + "个商品");
+        }
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        for (CreateOrderRequest.Item item : request.getItems()) {
+            if (item.getProductId() == null || item.getQuantity() == null || item.getQuantity() <= 0) {
+                throw new IllegalArgumentException("商品ID不能为空且购买数量必须大于0");
+            }
+            quantities.merge(item.getProductId(), item.getQuantity(), Integer::sum);
+        }
+        return quantities;
+    }
+
+    /**
+     * 一次查询订单中的全部商品，任一商品不存在或未设置价格时拒绝下单
+     */
+    private Map<Long, Product> loadProducts(Collection<Long> productIds) {
+        Result<List<Product>> result = productClient.getProductsByIds(new ArrayList<>(productIds));
+        if (result == null || result.getCode() != 200 || result.getData() == null) {
+            String message = result != null ? result.getMessage() : "empty response";
+            throw new IllegalStateException("查询商品失败: " + message);
+        }
+        Map<Long, Product> products = new HashMap<>();
+        for (Product product : result.getData()) {
+            products.put(product.getId(), product);
+        }
+        for (Long productId : productIds) {
+            Product product = products.get(productId);
+            if (product == null) {
+                throw new IllegalArgumentException("商品不存在: " + productId);
+            }
+            if (product.getPrice() == null) {
+                throw new IllegalArgumentException("商品价格未设置: " + productId);
+            }
+        }
+        return products;
+    }
+
+    /**
+     * 一次预占全部商品的库存，商品服务保证全部成功或全部不预占，失败时无需释放
+     */
+    private List<String> reserveStock(List<OrderItem> items) {
+        BatchReservationRequest request = new BatchReservationRequest();
+        List<BatchReservationRequest.Item> requestItems = new ArrayList<>(items.size());
+        for (OrderItem item : items) {
+            BatchReservationRequest.Item requestItem = new BatchReservationRequest.Item();
+            requestItem.setProductId(item.getProductId());
+            requestItem.setQuantity(item.getQuantity());
+            requestItems.add(requestItem);
+        }
+        request.setItems(requestItems);
+
+        Result<List<StockReservation>> result;
+        try {
+            result = productClient.reserveAll(request);
+        } catch (RuntimeException e) {
+            throw new IllegalStateException("库存预占失败: " + e.getMessage(), e);
+        }
+        if (result == null || result.getCode() != 200 || result.getData() == null) {
+            throw new IllegalStateException(result != null ? result.getMessage() : "库存预占失败: empty response");
+        }
+        List<String> reservationIds = new ArrayList<>(items.size());
+        for (StockReservation reservation : result.getData()) {
+            reservationIds.add(reservation.getReservationId());
+        }
+        if (reservationIds.size() != items.size()) {
+            orderWriter.releaseReservations(reservationIds);
+            throw new IllegalStateException("库存预占失败: 预占结果与订单明细不一致");
+        }
+        return reservationIds;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+}
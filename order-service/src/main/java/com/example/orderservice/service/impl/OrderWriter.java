@@ -0,0 +1,504 @@
+package com.example.orderservice.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.example.orderservice.client.ProductClient;
+import com.example.orderservice.common.Result;
+import com.example.orderservice.config.OrderProperties;
+import com.example.orderservice.dto.PendingOrder;
+import com.example.orderservice.entity.Order;
+import com.example.orderservice.entity.OrderItem;
+import com.example.orderservice.mapper.OrderItemMapper;
+import com.example.orderservice.mapper.OrderMapper;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * 订单写入器
+ * <p>
+ * 订单先追加到本地日志文件：同步下单时随后在一个事务内写入订单及其全部明细；异步下单时由后台线程凑批，
+ * 一个事务内以多行INSERT写入一批订单及明细，用于削平下单高峰。
+ * <p>
+ * 库存预占在订单写入数据库后才确认，商品服务暂不可用时在后台按退避时间重试。订单在日志中保留到预占确认完成
+ * （或写入失败、预占已释放），所有订单都完成后截断日志。服务重启时重放日志：已存在于数据库的订单（按订单号）
+ * 重新确认预占（确认是幂等的），未写入的异步订单重新写入，未写入的同步订单（调用方已收到失败）释放预占。
+ * <p>
+ * 最早的未写入订单等待超过maxQueueAge时拒绝新的异步订单，避免积压期间预占过期导致超卖。
+ */
+@Slf4j
+@Component
+public class OrderWriter implements MeterBinder, InitializingBean, DisposableBean {
+
+    private static final String JOURNAL_FILE = "orders.log";
+    private static final int ITEM_CHUNK_SIZE = 1000;
+    private static final long RETRY_BACKOFF_MILLIS = 1000;
+    private static final long MAX_CONFIRM_BACKOFF_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private final OrderMapper orderMapper;
+    private final OrderItemMapper orderItemMapper;
+    private final ProductClient productClient;
+    private final ObjectMapper objectMapper;
+    private final OrderProperties.Async properties;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Object journalLock = new Object();
+    private BlockingQueue<PendingOrder> queue;
+    private FileChannel journal;
+    private Thread writerThread;
+    private ScheduledExecutorService confirmExecutor;
+    private volatile boolean running;
+    /**
+     * 正在写入的批次中最早的受理时间，没有正在写入的批次时为0
+     */
+    private volatile long writingSince;
+    /**
+     * 已写入日志、尚未完成（写入数据库并确认预占，或预占已释放）的订单数，为0时截断日志
+     */
+    private final AtomicInteger unfinished = new AtomicInteger();
+
+    private final LongAdder persisted = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder confirmFailures = new LongAdder();
+
+    public OrderWriter(OrderMapper orderMapper, OrderItemMapper orderItemMapper, ProductClient productClient,
+                       ObjectMapper objectMapper, OrderProperties orderProperties,
+                       PlatformTransactionManager transactionManager) {
+        this.orderMapper = orderMapper;
+        this.orderItemMapper = orderItemMapper;
+        this.productClient = productClient;
+        this.objectMapper = objectMapper;
+        this.properties = orderProperties.getAsync();
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * 在一个事务内写入一批订单：订单与明细各用一条多行INSERT
+     */
+    public void write(List<PendingOrder> pendingOrders) {
+        List<Order> orders = pendingOrders.stream().map(PendingOrder::getOrder).collect(Collectors.toList());
+        transactionTemplate.executeWithoutResult(status -> {
+            orderMapper.insertBatch(orders);
+            List<OrderItem> items = new ArrayList<>();
+            for (Order order : orders) {
+                items.addAll(order.getItems());
+            }
+            for (int from = 0; from < items.size(); from += ITEM_CHUNK_SIZE) {
+                orderItemMapper.insertBatch(items.subList(from, Math.min(from + ITEM_CHUNK_SIZE, items.size())));
+            }
+        });
+        persisted.add(orders.size());
+        batches.increment();
+    }
+
+    /**
+     * 同步下单：追加到本地日志后写入数据库，再确认库存预占，确认失败时在后台重试
+     * <p>
+     * 写入失败时释放库存预占并抛出异常
+     */
+    public void writeNow(PendingOrder pendingOrder) {
+        try {
+            byte[] line = toJournalLine(pendingOrder);
+            synchronized (journalLock) {
+                append(line);
+            }
+        } catch (RuntimeException e) {
+            releaseReservations(pendingOrder.getReservationIds());
+            throw e;
+        }
+        try {
+            write(Collections.singletonList(pendingOrder));
+        } catch (RuntimeException e) {
+            releaseReservations(pendingOrder.getReservationIds());
+            finish();
+            throw e;
+        }
+        confirm(pendingOrder, pendingOrder.getReservationIds(), 0);
+    }
+
+    /**
+     * 受理异步订单：追加到本地日志后放入内存队列
+     *
+     * @throws IllegalStateException 队列已满
+     */
+    public void submit(PendingOrder pendingOrder) {
+        byte[] line = toJournalLine(pendingOrder);
+        synchronized (journalLock) {
+            // 只有后台线程会从队列中取出订单，持锁检查容量后offer一定成功
+            if (queue.remainingCapacity() == 0) {
+                throw new IllegalStateException("下单繁忙，请稍后重试");
+            }
+            ensureAccepting();
+            append(line);
+            queue.offer(pendingOrder);
+        }
+    }
+
+    /**
+     * 检查积压：最早的未写入订单等待超过maxQueueAge时拒绝受理
+     *
+     * @throws IllegalStateException 积压过多
+     */
+    public void ensureAccepting() {
+        long age = getOldestPendingAgeMillis();
+        if (age > properties.getMaxQueueAge().toMillis()) {
+            log.warn("订单写入积压，拒绝异步下单: oldestAge={}ms, queued={}", age, queue.size());
+            throw new IllegalStateException("下单繁忙，请稍后重试");
+        }
+    }
+
+    /**
+     * 最早的未写入订单（包括正在写入的批次）已等待的毫秒数，没有未写入的订单时为0
+     */
+    private long getOldestPendingAgeMillis() {
+        if (queue == null) {
+            return 0;
+        }
+        long oldest = writingSince;
+        PendingOrder head = queue.peek();
+        if (head != null && (oldest == 0 || head.getAcceptedAt() < oldest)) {
+            oldest = head.getAcceptedAt();
+        }
+        return oldest == 0 ? 0 : Math.max(0, System.currentTimeMillis() - oldest);
+    }
+
+    /**
+     * 确认已写入数据库的订单的库存预占，未确认的预占按退避时间在后台重试，全部处理完后订单从日志中移除
+     * <p>
+     * 重复确认返回成功；预占不存在说明已过期或被释放、库存已归还，只能记录并人工核对，不再重试
+     */
+    private void confirm(PendingOrder pendingOrder, List<String> reservationIds, int attempt) {
+        List<String> remaining = new ArrayList<>();
+        for (String reservationId : reservationIds) {
+            try {
+                Result<Boolean> result = productClient.confirm(reservationId);
+                if (result != null && result.getCode() == 200) {
+                    continue;
+                }
+                if (result != null && result.getCode() == 404) {
+                    confirmFailures.increment();
+                    log.error("库存预占已过期，订单已写入但库存可能被再次售出，需要人工核对: orderNo={}, reservationId={}",
+                            pendingOrder.getOrder().getOrderNo(), reservationId);
+                    continue;
+                }
+                log.warn("确认库存预占失败，稍后重试: reservationId={}, error={}", reservationId,
+                        result != null ? result.getMessage() : "empty response");
+            } catch (RuntimeException e) {
+                log.warn("确认库存预占失败，稍后重试: reservationId={}, error={}", reservationId, e.getMessage());
+            }
+            remaining.add(reservationId);
+        }
+        if (remaining.isEmpty()) {
+            finish();
+            return;
+        }
+        long delay = Math.min(MAX_CONFIRM_BACKOFF_MILLIS, RETRY_BACKOFF_MILLIS << Math.min(attempt, 6));
+        try {
+            confirmExecutor.schedule(() -> confirm(pendingOrder, remaining, attempt + 1), delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // 服务正在关闭，订单留在日志中，重启后重放时重新确认
+            log.warn("服务关闭，未确认的库存预占将在重启后重试: orderNo={}", pendingOrder.getOrder().getOrderNo());
+        }
+    }
+
+    public void releaseReservations(List<String> reservationIds) {
+        for (String reservationId : reservationIds) {
+            try {
+                productClient.release(reservationId);
+            } catch (RuntimeException e) {
+                // 释放失败的预占会在超时后自动释放
+                log.warn("释放库存预占失败: reservationId={}, error={}", reservationId, e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void afterPropertiesSet() throws IOException {
+        queue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+        Path dir = Paths.get(properties.getJournalDir());
+        Files.createDirectories(dir);
+        Path file = dir.resolve(JOURNAL_FILE);
+        journal = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+
+        CustomizableThreadFactory confirmThreadFactory = new CustomizableThreadFactory("order-confirm-");
+        confirmThreadFactory.setDaemon(true);
+        confirmExecutor = Executors.newScheduledThreadPool(4, confirmThreadFactory);
+        recover(file);
+        // 异步下单关闭时后台线程只写入重放的异步订单
+        running = true;
+        writerThread = new Thread(this::runWriter, "order-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+        log.info("订单写入器已启动: async={}, journal={}, pending={}", properties.isEnabled(), file, queue.size());
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        if (writerThread == null) {
+            return;
+        }
+        running = false;
+        writerThread.interrupt();
+        writerThread.join(TimeUnit.SECONDS.toMillis(10));
+        // 未完成的确认留在日志中，重启后重放
+        confirmExecutor.shutdownNow();
+        synchronized (journalLock) {
+            journal.close();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("order.queue.size", this, writer -> writer.queue != null ? writer.queue.size() : 0)
+                .description("已受理尚未写入数据库的订单数")
+                .register(registry);
+        TimeGauge.builder("order.queue.oldest.age", this, TimeUnit.MILLISECONDS, OrderWriter::getOldestPendingAgeMillis)
+                .description("最早的未写入订单已等待的时间，超过max-queue-age时拒绝异步下单")
+                .register(registry);
+        FunctionCounter.builder("order.persisted", persisted, LongAdder::sum)
+                .description("写入数据库的订单数")
+                .register(registry);
+        FunctionCounter.builder("order.persist.batches", batches, LongAdder::sum)
+                .description("订单写入事务数")
+                .register(registry);
+        FunctionCounter.builder("order.dropped", dropped, LongAdder::sum)
+                .description("因数据错误无法写入而丢弃的订单数")
+                .register(registry);
+        Gauge.builder("order.journal.unfinished", unfinished, AtomicInteger::get)
+                .description("日志中尚未写入数据库或尚未确认库存预占的订单数")
+                .register(registry);
+        FunctionCounter.builder("order.confirm.failures", confirmFailures, LongAdder::sum)
+                .description("写入数据库时库存预占已过期的订单明细数，需要人工核对库存")
+                .register(registry);
+    }
+
+    /**
+     * 重放日志中的订单：已存在于数据库的（按订单号）重新确认预占，未写入的异步订单放入队列，未写入的同步订单释放预占
+     */
+    private void recover(Path file) throws IOException {
+        List<PendingOrder> recovered = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.trim().isEmpty()) {
+                    try {
+                        PendingOrder pendingOrder = objectMapper.readValue(line, PendingOrder.class);
+                        if (pendingOrder.getAcceptedAt() == 0) {
+                            // 旧版本写入的日志没有受理时间，按重放时间计算
+                            pendingOrder.setAcceptedAt(System.currentTimeMillis());
+                        }
+                        recovered.add(pendingOrder);
+                    } catch (IOException e) {
+                        // 最后一行可能因进程退出而不完整
+                        log.warn("跳过无法解析的订单日志: {}", e.getMessage());
+                    }
+                }
+            }
+        }
+        // 重放期间计数至少为1，先确认完的订单不会在其余订单放入队列前截断日志
+        unfinished.incrementAndGet();
+        int confirming = 0;
+        int releasing = 0;
+        for (int from = 0; from < recovered.size(); from += properties.getBatchSize()) {
+            List<PendingOrder> chunk = recovered.subList(from, Math.min(from + properties.getBatchSize(), recovered.size()));
+            List<String> orderNos = chunk.stream().map(p -> p.getOrder().getOrderNo()).collect(Collectors.toList());
+            Set<String> existing = orderMapper.selectList(new QueryWrapper<Order>().select("order_no").in("order_no", orderNos))
+                    .stream().map(Order::getOrderNo).collect(Collectors.toCollection(HashSet::new));
+            for (PendingOrder pendingOrder : chunk) {
+                unfinished.incrementAndGet();
+                if (existing.contains(pendingOrder.getOrder().getOrderNo())) {
+                    // 写入数据库后、确认完成前进程退出，重新确认，否则预占过期后库存会被再次售出
+                    confirming++;
+                    confirmExecutor.execute(() -> confirm(pendingOrder, pendingOrder.getReservationIds(), 0));
+                } else if (pendingOrder.isSync()) {
+                    releasing++;
+                    confirmExecutor.execute(() -> {
+                        releaseReservations(pendingOrder.getReservationIds());
+                        finish();
+                    });
+                } else if (!queue.offer(pendingOrder)) {
+                    throw new IllegalStateException("订单日志中待写入的订单超过队列容量，请调大app.order.async.queue-capacity");
+                }
+            }
+        }
+        log.info("订单日志重放完成: 日志中{}个订单，待写入{}个，待确认{}个，待释放{}个",
+                recovered.size(), queue.size(), confirming, releasing);
+        finish();
+    }
+
+    private void runWriter() {
+        List<PendingOrder> batch = new ArrayList<>(properties.getBatchSize());
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingOrder first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + properties.getMaxWait().toNanos();
+                while (batch.size() < properties.getBatchSize()) {
+                    queue.drainTo(batch, properties.getBatchSize() - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= properties.getBatchSize() || remaining <= 0) {
+                        break;
+                    }
+                    PendingOrder next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                // 队列先进先出，批次中第一个订单受理最早
+                writingSince = batch.get(0).getAcceptedAt();
+                persistBatch(batch);
+                batch.clear();
+                writingSince = 0;
+            } catch (InterruptedException e) {
+                if (!running && queue.isEmpty() && batch.isEmpty()) {
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * 写入一批订单，数据库暂不可用时持续重试；因数据错误整批失败时逐个写入，丢弃无法写入的订单
+     */
+    private void persistBatch(List<PendingOrder> batch) throws InterruptedException {
+        while (true) {
+            try {
+                write(batch);
+                for (PendingOrder pendingOrder : batch) {
+                    confirmLater(pendingOrder);
+                }
+                return;
+            } catch (DataIntegrityViolationException e) {
+                log.warn("批量写入订单失败，改为逐个写入: {}", e.getMostSpecificCause().getMessage());
+                for (PendingOrder pendingOrder : batch) {
+                    writeOne(pendingOrder);
+                }
+                return;
+            } catch (RuntimeException e) {
+                log.warn("批量写入订单失败，稍后重试: size={}, error={}", batch.size(), e.getMessage());
+                Thread.sleep(RETRY_BACKOFF_MILLIS);
+            }
+        }
+    }
+
+    private void writeOne(PendingOrder pendingOrder) throws InterruptedException {
+        while (true) {
+            try {
+                write(Collections.singletonList(pendingOrder));
+                confirmLater(pendingOrder);
+                return;
+            } catch (DataIntegrityViolationException e) {
+                dropped.increment();
+                log.error("订单无法写入，已丢弃并释放库存: orderNo={}, error={}",
+                        pendingOrder.getOrder().getOrderNo(), e.getMostSpecificCause().getMessage());
+                confirmExecutor.execute(() -> {
+                    releaseReservations(pendingOrder.getReservationIds());
+                    finish();
+                });
+                return;
+            } catch (RuntimeException e) {
+                log.warn("写入订单失败，稍后重试: orderNo={}, error={}", pendingOrder.getOrder().getOrderNo(), e.getMessage());
+                Thread.sleep(RETRY_BACKOFF_MILLIS);
+            }
+        }
+    }
+
+    private void confirmLater(PendingOrder pendingOrder) {
+        try {
+            confirmExecutor.execute(() -> confirm(pendingOrder, pendingOrder.getReservationIds(), 0));
+        } catch (RejectedExecutionException e) {
+            log.warn("服务关闭，未确认的库存预占将在重启后重试: orderNo={}", pendingOrder.getOrder().getOrderNo());
+        }
+    }
+
+    private byte[] toJournalLine(PendingOrder pendingOrder) {
+        try {
+            return (objectMapper.writeValueAsString(pendingOrder) + "\n").getBytes(StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 追加一行到日志，调用方持有journalLock
+     */
+    private void append(byte[] line) {
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(line);
+            while (buffer.hasRemaining()) {
+                journal.write(buffer);
+            }
+            if (properties.isFsync()) {
+                journal.force(false);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("写入订单日志失败", e);
+        }
+        unfinished.incrementAndGet();
+    }
+
+    /**
+     * 订单已完成（写入并确认，或预占已释放），日志中所有订单都完成时截断日志
+     */
+    private void finish() {
+        if (unfinished.decrementAndGet() == 0) {
+            truncateJournalIfDrained();
+        }
+    }
+
+    /**
+     * 日志中的订单都已完成时截断日志，避免日志无限增长；追加日志也持有journalLock，检查后不会有新订单写入
+     */
+    private void truncateJournalIfDrained() {
+        synchronized (journalLock) {
+            if (unfinished.get() != 0 || !journal.isOpen()) {
+                return;
+            }
+            try {
+                journal.truncate(0);
+            } catch (IOException e) {
+                log.warn("截断订单日志失败: {}", e.getMessage());
+            }
+        }
+    }
+}
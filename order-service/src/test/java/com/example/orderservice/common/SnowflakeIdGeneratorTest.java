@@ -0,0 +1,149 @@
+package com.example.orderservice.common;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 主键生成器：并发下单调且不重复，时钟回拨时沿用逻辑时钟继续递增，逻辑时钟保存后重启可以延续
+ */
+class SnowflakeIdGeneratorTest {
+
+    private static final long EPOCH = 1704067200000L;
+    private static final int SEQUENCE_BITS = 12;
+    private static final int WORKER_BITS = 10;
+
+    @Test
+    void idsAreUniqueAndMonotonicPerThread() throws Exception {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(7);
+        int threads = 8;
+        int perThread = 100_000;
+        Set<Long> ids = ConcurrentHashMap.newKeySet(threads * perThread);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> futures = new ArrayList<>(threads);
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                long previous = Long.MIN_VALUE;
+                for (int i = 0; i < perThread; i++) {
+                    long id = generator.nextLong();
+                    if (id <= previous || !ids.add(id)) {
+                        return false;
+                    }
+                    previous = id;
+                }
+                return true;
+            }));
+        }
+        start.countDown();
+        for (Future<Boolean> future : futures) {
+            assertThat(future.get(30, TimeUnit.SECONDS)).isTrue();
+        }
+        executor.shutdown();
+        assertThat(ids).hasSize(threads * perThread);
+        // 机器号位于序列号之上
+        long sample = ids.iterator().next();
+        assertThat((sample >>> SEQUENCE_BITS) & SnowflakeIdGenerator.MAX_WORKER_ID).isEqualTo(7);
+    }
+
+    @Test
+    void clockMovingBackwardsKeepsIdsIncreasing() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1);
+        long before = generator.nextLong();
+
+        // 模拟系统时钟回拨5秒：上次使用的时间戳领先当前时间
+        long aheadMillis = 5_000;
+        long logicalNow = System.currentTimeMillis() - EPOCH + aheadMillis;
+        ((AtomicLong) ReflectionTestUtils.getField(generator, "state")).set(logicalNow << SEQUENCE_BITS);
+
+        long previous = before;
+        for (int i = 0; i < 10_000; i++) {
+            long id = generator.nextLong();
+            assertThat(id).isGreaterThan(previous);
+            previous = id;
+        }
+        // 回拨期间沿用逻辑时钟，序列号用尽时借用下一毫秒
+        assertThat(previous >>> (WORKER_BITS + SEQUENCE_BITS)).isBetween(logicalNow, logicalNow + 10);
+        assertThat(generator.getClockDrift()).isGreaterThan(aheadMillis - 1_000);
+    }
+
+    @Test
+    void restartResumesAfterPersistedClock(@TempDir Path dir) {
+        FileTimestampStore store = new FileTimestampStore(dir.resolve("order-service-1.timestamp"));
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1, store, 2_000);
+
+        // 运行期间逻辑时钟领先系统时钟5秒（发生过回拨），重启时系统时钟仍未追上
+        long logicalNow = System.currentTimeMillis() - EPOCH + 5_000;
+        ((AtomicLong) ReflectionTestUtils.getField(generator, "state")).set(logicalNow << SEQUENCE_BITS);
+        long last = 0;
+        for (int i = 0; i < 10_000; i++) {
+            last = generator.nextLong();
+        }
+        assertThat(store.load()).isGreaterThan((last >>> (WORKER_BITS + SEQUENCE_BITS)) + EPOCH);
+
+        SnowflakeIdGenerator restarted = new SnowflakeIdGenerator(1, store, 2_000);
+        assertThat(restarted.nextLong()).isGreaterThan(last);
+        // 没有保存的时钟时从系统时间开始
+        SnowflakeIdGenerator fresh = new SnowflakeIdGenerator(1, new FileTimestampStore(dir.resolve("missing")), 2_000);
+        assertThat(fresh.getClockDrift()).isZero();
+    }
+
+    @Test
+    void clockIsPersistedOncePerReserveWindow() {
+        AtomicInteger saves = new AtomicInteger();
+        AtomicLong saved = new AtomicLong();
+        SnowflakeIdGenerator.TimestampStore store = new SnowflakeIdGenerator.TimestampStore() {
+            @Override
+            public long load() {
+                return 0;
+            }
+
+            @Override
+            public void save(long timestampMillis) {
+                saves.incrementAndGet();
+                saved.set(timestampMillis);
+            }
+        };
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1, store, 60_000);
+
+        long last = 0;
+        for (int i = 0; i < 1_000_000; i++) {
+            last = generator.nextLong();
+        }
+        // 一百万个id（约250ms的序列号）都在启动时保存的窗口内，不再写存储
+        assertThat(saves.get()).isEqualTo(1);
+        assertThat(saved.get()).isGreaterThan((last >>> (WORKER_BITS + SEQUENCE_BITS)) + EPOCH);
+
+        // 超出窗口时先保存再返回
+        long beyond = (saved.get() - EPOCH) + 1;
+        ((AtomicLong) ReflectionTestUtils.getField(generator, "state")).set(beyond << SEQUENCE_BITS);
+        long id = generator.nextLong();
+        assertThat(saves.get()).isEqualTo(2);
+        assertThat(saved.get()).isGreaterThan((id >>> (WORKER_BITS + SEQUENCE_BITS)) + EPOCH);
+    }
+
+    @Test
+    void rejectsWorkerIdOutOfRange() {
+        assertThatThrownBy(() -> new SnowflakeIdGenerator(SnowflakeIdGenerator.MAX_WORKER_ID + 1))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new SnowflakeIdGenerator(-1))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
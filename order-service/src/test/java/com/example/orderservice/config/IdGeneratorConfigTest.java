@@ -0,0 +1,111 @@
+package com.example.orderservice.config;
+
+import com.alibaba.cloud.nacos.NacosDiscoveryProperties;
+import com.alibaba.cloud.nacos.NacosServiceManager;
+import com.alibaba.nacos.api.exception.NacosException;
+import com.alibaba.nacos.api.naming.NamingService;
+import com.alibaba.nacos.api.naming.pojo.Instance;
+import com.example.orderservice.common.SnowflakeIdGenerator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 机器号：多实例部署未配置或与其他实例相同时启动失败，单实例时允许根据IP和进程号计算
+ */
+class IdGeneratorConfigTest {
+
+    private static final int PORT = 8083;
+
+    private final IdGeneratorConfig config = new IdGeneratorConfig();
+    private final NacosDiscoveryProperties discoveryProperties = new NacosDiscoveryProperties();
+    private final NamingService namingService = mock(NamingService.class);
+    private final List<Instance> registered = new ArrayList<>();
+    private final IdGeneratorProperties properties = new IdGeneratorProperties();
+    private ObjectProvider<NacosServiceManager> serviceManager;
+
+    @TempDir
+    Path stateDir;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() throws NacosException {
+        discoveryProperties.setService("order-service");
+        discoveryProperties.setIp("10.0.0.1");
+        properties.setStateDir(stateDir.toString());
+        when(namingService.getAllInstances(anyString(), anyString(), anyBoolean())).thenReturn(registered);
+        NacosServiceManager manager = mock(NacosServiceManager.class);
+        when(manager.getNamingService()).thenReturn(namingService);
+        serviceManager = mock(ObjectProvider.class);
+        when(serviceManager.getIfAvailable()).thenReturn(manager);
+    }
+
+    @Test
+    void singleInstanceMayOmitWorkerId() {
+        // 上次运行留下的本实例注册信息不算其他实例
+        registered.add(instance("10.0.0.1", PORT, null));
+
+        SnowflakeIdGenerator generator = create();
+
+        assertThat(generator.nextLong()).isPositive();
+        // 计算得到的机器号写回元数据，之后启动的实例可以检查冲突
+        assertThat(discoveryProperties.getMetadata()).containsKey(IdGeneratorConfig.WORKER_ID_METADATA);
+        assertThat(stateDir.toFile().list()).hasSize(1);
+    }
+
+    @Test
+    void missingWorkerIdFailsWhenOtherInstancesExist() {
+        registered.add(instance("10.0.0.2", PORT, "1"));
+
+        assertThatThrownBy(this::create).isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining(IdGeneratorConfig.WORKER_ID_METADATA);
+    }
+
+    @Test
+    void duplicateWorkerIdFails() {
+        registered.add(instance("10.0.0.2", PORT, "3"));
+        registered.add(instance("10.0.0.1", PORT + 1, " 7 "));
+        discoveryProperties.getMetadata().put(IdGeneratorConfig.WORKER_ID_METADATA, "7");
+
+        assertThatThrownBy(this::create).isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("10.0.0.1:" + (PORT + 1));
+
+        discoveryProperties.getMetadata().put(IdGeneratorConfig.WORKER_ID_METADATA, "8");
+        assertThat(create().nextLong()).isPositive();
+    }
+
+    @Test
+    void unreachableNacosFallsBackToConfiguredOrComputedWorkerId() throws NacosException {
+        when(namingService.getAllInstances(anyString(), anyString(), anyBoolean()))
+                .thenThrow(new NacosException(NacosException.SERVER_ERROR, "连接超时"));
+
+        assertThat(create().nextLong()).isPositive();
+    }
+
+    private SnowflakeIdGenerator create() {
+        return config.snowflakeIdGenerator(discoveryProperties, serviceManager, properties, PORT);
+    }
+
+    private static Instance instance(String ip, int port, String workerId) {
+        Instance instance = new Instance();
+        instance.setIp(ip);
+        instance.setPort(port);
+        if (workerId != null) {
+            instance.setMetadata(Collections.singletonMap(IdGeneratorConfig.WORKER_ID_METADATA, workerId));
+        }
+        return instance;
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.orderservice.entity;
+
+import com.example.orderservice.common.SnowflakeIdGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Snowflake主键大于2^53，JSON中以字符串输出，JavaScript客户端不会丢失精度
+ */
+class OrderJsonTest {
+
+    private static final long MAX_SAFE_INTEGER = (1L << 53) - 1;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void idsAreSerializedAsStringsAndReadBack() throws Exception {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(SnowflakeIdGenerator.MAX_WORKER_ID);
+        Order order = new Order();
+        order.setId(generator.nextLong());
+        order.setUserId(generator.nextLong());
+        OrderItem item = new OrderItem();
+        item.setId(generator.nextLong());
+        item.setOrderId(order.getId());
+        item.setProductId(generator.nextLong());
+        order.setItems(Collections.singletonList(item));
+        assertThat(order.getId()).isGreaterThan(MAX_SAFE_INTEGER);
+
+        JsonNode json = objectMapper.readTree(objectMapper.writeValueAsString(order));
+        assertThat(json.get("id").isTextual()).isTrue();
+        assertThat(json.get("id").asText()).isEqualTo(order.getId().toString());
+        assertThat(json.get("userId").isTextual()).isTrue();
+        JsonNode itemJson = json.get("items").get(0);
+        assertThat(itemJson.get("id").isTextual()).isTrue();
+        assertThat(itemJson.get("orderId").isTextual()).isTrue();
+        assertThat(itemJson.get("productId").isTextual()).isTrue();
+
+        // 服务间调用与订单日志读取时字符串仍能还原为Long
+        Order read = objectMapper.treeToValue(json, Order.class);
+        assertThat(read.getId()).isEqualTo(order.getId());
+        assertThat(read.getItems().get(0).getProductId()).isEqualTo(item.getProductId());
+    }
+}
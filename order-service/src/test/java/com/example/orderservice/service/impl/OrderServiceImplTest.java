@@ -0,0 +1,237 @@
+package com.example.orderservice.service.impl;
+
+import com.example.orderservice.client.ProductClient;
+import com.example.orderservice.common.Result;
+import com.example.orderservice.common.SnowflakeIdGenerator;
+import com.example.orderservice.config.OrderProperties;
+import com.example.orderservice.dto.BatchReservationRequest;
+import com.example.orderservice.dto.CreateOrderRequest;
+import com.example.orderservice.dto.StockReservation;
+import com.example.orderservice.entity.Order;
+import com.example.orderservice.entity.Product;
+import com.example.orderservice.mapper.OrderItemMapper;
+import com.example.orderservice.mapper.OrderMapper;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 下单：同步与异步写入的吞吐对比，以及积压接近预占有效期时拒绝异步下单
+ * <p>
+ * 商品服务与数据库均为模拟实现，每个写入事务固定耗时 {@link #TRANSACTION_MILLIS} 毫秒。
+ * 同步下单每单等待一个事务，吞吐不可能超过 {@link #SYNC_THROUGHPUT_LIMIT}；
+ * 异步下单只追加本地日志即返回，受理吞吐应高于这个上限
+ */
+class OrderServiceImplTest {
+
+    private static final long TRANSACTION_MILLIS = 20;
+    private static final int THREADS = 16;
+    private static final double SYNC_THROUGHPUT_LIMIT = THREADS * 1000.0 / TRANSACTION_MILLIS;
+
+    @TempDir
+    Path journalDir;
+
+    private final OrderMapper orderMapper = mock(OrderMapper.class);
+    private final OrderItemMapper orderItemMapper = mock(OrderItemMapper.class);
+    private final ProductClient productClient = mock(ProductClient.class);
+    private final AtomicInteger persistedOrders = new AtomicInteger();
+    private final AtomicBoolean databaseDown = new AtomicBoolean();
+
+    private OrderWriter orderWriter;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (orderWriter != null) {
+            orderWriter.destroy();
+        }
+    }
+
+    @Test
+    void syncOrderThroughput() throws Exception {
+        OrderServiceImpl service = newService(false, Duration.ofMinutes(5));
+        int orders = 400;
+        double throughput = createOrders(service, orders);
+
+        assertThat(throughput).isPositive().isLessThanOrEqualTo(SYNC_THROUGHPUT_LIMIT);
+        assertThat(persistedOrders.get()).isEqualTo(orders);
+        verify(productClient, times(orders)).confirm(anyString());
+    }
+
+    @Test
+    void asyncOrderThroughput() throws Exception {
+        OrderServiceImpl service = newService(true, Duration.ofMinutes(5));
+        int orders = 20_000;
+        double throughput = createOrders(service, orders);
+
+        // 受理不等待数据库事务，吞吐高于同步下单的理论上限
+        assertThat(throughput).isGreaterThan(SYNC_THROUGHPUT_LIMIT);
+        // 全部订单由后台批量写入，写入后确认预占
+        verify(productClient, timeout(10_000).times(orders)).confirm(anyString());
+        assertThat(persistedOrders.get()).isEqualTo(orders);
+        verify(productClient, times(0)).release(anyString());
+    }
+
+    @Test
+    void refusesAsyncOrdersWhenBacklogNearsReservationTimeout() throws Exception {
+        OrderServiceImpl service = newService(true, Duration.ofMillis(200));
+        databaseDown.set(true);
+        Order accepted = service.createOrder(request());
+        assertThat(accepted.getOrderNo()).isNotNull();
+
+        // 数据库不可用，订单积压超过max-queue-age后拒绝下单，且不再预占库存
+        TimeUnit.MILLISECONDS.sleep(300);
+        assertThatThrownBy(() -> service.createOrder(request()))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("下单繁忙，请稍后重试");
+        verify(productClient, times(1)).reserveAll(any());
+
+        // 数据库恢复、积压写入后重新受理
+        databaseDown.set(false);
+        verify(productClient, timeout(5_000).times(1)).confirm(anyString());
+        assertThat(service.createOrder(request()).getOrderNo()).isNotNull();
+        verify(productClient, times(2)).reserveAll(any());
+    }
+
+    @Test
+    void looksUpAndReservesAllItemsInOneCallEach() throws Exception {
+        OrderServiceImpl service = newService(false, Duration.ofMinutes(5));
+        CreateOrderRequest request = request();
+        CreateOrderRequest.Item missing = new CreateOrderRequest.Item();
+        missing.setProductId(2L);
+        missing.setQuantity(1);
+        request.setItems(Arrays.asList(request.getItems().get(0), missing, request.getItems().get(0)));
+
+        // 商品2不存在：一次批量查询后拒绝，不预占库存
+        assertThatThrownBy(() -> service.createOrder(request))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("商品不存在: 2");
+        verify(productClient).getProductsByIds(Arrays.asList(1L, 2L));
+        verify(productClient, never()).reserveAll(any());
+
+        // 同一商品合并为一项，一次预占
+        request.setItems(Arrays.asList(request.getItems().get(0), request.getItems().get(0)));
+        Order order = service.createOrder(request);
+        assertThat(order.getItems()).singleElement().satisfies(item -> assertThat(item.getQuantity()).isEqualTo(2));
+        verify(productClient).reserveAll(argThat(batch -> batch.getItems().size() == 1
+                && batch.getItems().get(0).getQuantity() == 2));
+    }
+
+    private OrderServiceImpl newService(boolean async, Duration maxQueueAge) throws Exception {
+        Product product = new Product();
+        product.setId(1L);
+        product.setName("测试商品");
+        product.setPrice(new BigDecimal("9.90"));
+        when(productClient.getProductsByIds(anyList())).thenReturn(Result.success(Collections.singletonList(product)));
+        when(productClient.reserveAll(any())).thenAnswer(invocation -> {
+            BatchReservationRequest request = invocation.getArgument(0);
+            List<StockReservation> reservations = new ArrayList<>();
+            for (BatchReservationRequest.Item item : request.getItems()) {
+                StockReservation reservation = new StockReservation();
+                reservation.setReservationId(UUID.randomUUID().toString());
+                reservation.setProductId(item.getProductId());
+                reservation.setQuantity(item.getQuantity());
+                reservations.add(reservation);
+            }
+            return Result.success(reservations);
+        });
+        when(productClient.confirm(anyString())).thenReturn(Result.success(true));
+        when(orderMapper.insertBatch(anyList())).thenAnswer(invocation -> {
+            if (databaseDown.get()) {
+                throw new QueryTimeoutException("数据库不可用");
+            }
+            TimeUnit.MILLISECONDS.sleep(TRANSACTION_MILLIS);
+            List<Order> orders = invocation.getArgument(0);
+            persistedOrders.addAndGet(orders.size());
+            return orders.size();
+        });
+
+        OrderProperties properties = new OrderProperties();
+        properties.getAsync().setEnabled(async);
+        properties.getAsync().setJournalDir(journalDir.toString());
+        properties.getAsync().setFsync(false);
+        properties.getAsync().setQueueCapacity(100_000);
+        properties.getAsync().setMaxQueueAge(maxQueueAge);
+
+        orderWriter = new OrderWriter(orderMapper, orderItemMapper, productClient, new ObjectMapper(), properties,
+                mock(PlatformTransactionManager.class));
+        orderWriter.afterPropertiesSet();
+
+        OrderServiceImpl service = new OrderServiceImpl();
+        ReflectionTestUtils.setField(service, "orderMapper", orderMapper);
+        ReflectionTestUtils.setField(service, "orderItemMapper", orderItemMapper);
+        ReflectionTestUtils.setField(service, "productClient", productClient);
+        ReflectionTestUtils.setField(service, "idGenerator", new SnowflakeIdGenerator(1));
+        ReflectionTestUtils.setField(service, "orderWriter", orderWriter);
+        ReflectionTestUtils.setField(service, "orderProperties", properties);
+        return service;
+    }
+
+    /**
+     * 多线程并发下单，返回每秒受理的订单数
+     */
+    private static double createOrders(OrderServiceImpl service, int orders) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Order>> futures = new ArrayList<>(orders);
+        for (int i = 0; i < orders; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return service.createOrder(request());
+            }));
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Future<Order> future : futures) {
+            assertThat(future.get(60, TimeUnit.SECONDS).getOrderNo()).isNotNull();
+        }
+        long elapsedNanos = System.nanoTime() - begin;
+        executor.shutdown();
+        return orders * 1e9 / elapsedNanos;
+    }
+
+    private static CreateOrderRequest request() {
+        CreateOrderRequest.Item item = new CreateOrderRequest.Item();
+        item.setProductId(1L);
+        item.setQuantity(1);
+        CreateOrderRequest request = new CreateOrderRequest();
+        request.setUserId(1L);
+        request.setReceiverName("张三");
+        request.setReceiverPhone("13800000000");
+        request.setReceiverAddress("测试地址");
+        request.setItems(Collections.singletonList(item));
+        return request;
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.orderservice.service.impl;
+
+import com.example.orderservice.client.ProductClient;
+import com.example.orderservice.common.Result;
+import com.example.orderservice.config.OrderProperties;
+import com.example.orderservice.dto.PendingOrder;
+import com.example.orderservice.entity.Order;
+import com.example.orderservice.entity.OrderItem;
+import com.example.orderservice.mapper.OrderItemMapper;
+import com.example.orderservice.mapper.OrderMapper;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 订单日志：订单保留到库存预占确认完成，重启后重新确认已写入订单的预占、写入未写入的异步订单、释放失败的同步订单
+ */
+class OrderWriterTest {
+
+    @TempDir
+    Path journalDir;
+
+    private final OrderMapper orderMapper = mock(OrderMapper.class);
+    private final ProductClient productClient = mock(ProductClient.class);
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<Order> database = Collections.synchronizedList(new ArrayList<>());
+
+    private OrderWriter orderWriter;
+
+    @BeforeEach
+    void setUp() {
+        when(orderMapper.insertBatch(anyList())).thenAnswer(invocation -> {
+            List<Order> orders = invocation.getArgument(0);
+            database.addAll(orders);
+            return orders.size();
+        });
+        when(orderMapper.selectList(any())).thenAnswer(invocation -> new ArrayList<>(database));
+        when(productClient.confirm(anyString())).thenReturn(Result.success(true));
+        when(productClient.release(anyString())).thenReturn(Result.success(true));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (orderWriter != null) {
+            orderWriter.destroy();
+        }
+    }
+
+    @Test
+    void replayConfirmsOrdersWrittenBeforeCrash() throws Exception {
+        // 订单已写入数据库，确认预占前进程退出
+        PendingOrder written = pendingOrder("1001", false, "r1", "r2");
+        database.add(written.getOrder());
+        writeJournal(written);
+
+        start();
+
+        verify(productClient, timeout(5_000)).confirm("r1");
+        verify(productClient, timeout(5_000)).confirm("r2");
+        verify(orderMapper, never()).insertBatch(anyList());
+        awaitJournalTruncated();
+    }
+
+    @Test
+    void replayWritesAsyncOrdersAndReleasesFailedSyncOrders() throws Exception {
+        writeJournal(pendingOrder("1002", false, "r3"), pendingOrder("1003", true, "r4"));
+
+        start();
+
+        // 未写入的异步订单重新写入并确认
+        verify(productClient, timeout(5_000)).confirm("r3");
+        assertThat(database).extracting(Order::getOrderNo).containsExactly("1002");
+        // 同步订单的调用方已收到失败，只释放预占
+        verify(productClient, timeout(5_000)).release("r4");
+        verify(productClient, never()).confirm("r4");
+        awaitJournalTruncated();
+    }
+
+    @Test
+    void failedConfirmIsRetriedAndJournalKeptUntilConfirmed() throws Exception {
+        when(productClient.confirm("r5"))
+                .thenThrow(new IllegalStateException("商品服务不可用"))
+                .thenReturn(Result.success(true));
+        start();
+
+        orderWriter.writeNow(pendingOrder("1004", true, "r5"));
+
+        assertThat(database).hasSize(1);
+        assertThat(Files.size(journal())).isPositive();
+        verify(productClient, timeout(5_000).times(2)).confirm("r5");
+        awaitJournalTruncated();
+    }
+
+    @Test
+    void expiredReservationIsCountedAndNotRetried() throws Exception {
+        when(productClient.confirm("r6")).thenReturn(Result.error(404, "预占不存在或已过期"));
+        start();
+
+        orderWriter.writeNow(pendingOrder("1005", true, "r6"));
+
+        verify(productClient, times(1)).confirm("r6");
+        assertThat(((LongAdder) ReflectionTestUtils.getField(orderWriter, "confirmFailures")).sum()).isEqualTo(1);
+        awaitJournalTruncated();
+    }
+
+    private void start() throws IOException {
+        OrderProperties properties = new OrderProperties();
+        properties.getAsync().setEnabled(true);
+        properties.getAsync().setJournalDir(journalDir.toString());
+        properties.getAsync().setFsync(false);
+        orderWriter = new OrderWriter(orderMapper, mock(OrderItemMapper.class), productClient, objectMapper, properties,
+                mock(PlatformTransactionManager.class));
+        orderWriter.afterPropertiesSet();
+    }
+
+    private PendingOrder pendingOrder(String orderNo, boolean sync, String... reservationIds) {
+        Order order = new Order();
+        order.setId(Long.valueOf(orderNo));
+        order.setOrderNo(orderNo);
+        OrderItem item = new OrderItem();
+        item.setOrderId(order.getId());
+        order.setItems(Collections.singletonList(item));
+        return new PendingOrder(order, Arrays.asList(reservationIds), System.currentTimeMillis(), sync);
+    }
+
+    private void writeJournal(PendingOrder... pendingOrders) throws IOException {
+        StringBuilder lines = new StringBuilder();
+        for (PendingOrder pendingOrder : pendingOrders) {
+            lines.append(objectMapper.writeValueAsString(pendingOrder)).append('\n');
+        }
+        Files.write(journal(), lines.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Path journal() {
+        return journalDir.resolve("orders.log");
+    }
+
+    private void awaitJournalTruncated() throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (Files.size(journal()) > 0 && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        assertThat(Files.size(journal())).isZero();
+    }
+}
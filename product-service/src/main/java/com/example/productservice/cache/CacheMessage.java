@@ -0,0 +1,30 @@
+package com.example.productservice.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * 缓存变更消息，通过Redis pub/sub广播给所有节点
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheMessage implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 发送消息的节点ID，节点忽略自己发出的消息
+     */
+    private String nodeId;
+
+    private String cacheName;
+
+    /**
+     * 变更的缓存key，为null时表示清空整个缓存区域
+     */
+    private String key;
+}
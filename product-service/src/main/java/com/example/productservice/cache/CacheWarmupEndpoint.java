@@ -0,0 +1,29 @@
+package com.example.productservice.cache;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+
+/**
+ * 缓存预热端点：GET /actuator/cachewarmup 查看最近一次预热的进度，POST 触发一次后台预热
+ */
+@Endpoint(id = "cachewarmup")
+public class CacheWarmupEndpoint {
+
+    private final CacheWarmer cacheWarmer;
+
+    public CacheWarmupEndpoint(CacheWarmer cacheWarmer) {
+        this.cacheWarmer = cacheWarmer;
+    }
+
+    @ReadOperation
+    public WarmupProgress progress() {
+        return cacheWarmer.getProgress();
+    }
+
+    @WriteOperation
+    public WarmupProgress warmUp() {
+        cacheWarmer.warmUpAsync("manual");
+        return cacheWarmer.getProgress();
+    }
+}
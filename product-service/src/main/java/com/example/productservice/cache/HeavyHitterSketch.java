@@ -0,0 +1,115 @@
+package com.example.productservice.cache;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.Collectors;
+
+/**
+ * 热点key统计：Count-Min Sketch估算每个key的访问次数，另维护一个有限大小的候选集合作为top-K
+ * <p>记录一次访问只需4次原子自增，候选集合只在新key的估算值超过当前门槛时写入；
+ * 候选超过两倍容量时裁剪回容量，并以保留下来的最小估算值作为新的门槛。
+ * {@link #decay()} 将所有计数减半，使统计结果偏向最近的访问
+ */
+public class HeavyHitterSketch {
+
+    private static final int DEPTH = 4;
+
+    private final int capacity;
+    private final int width;
+    private final int mask;
+    private final AtomicIntegerArray counters;
+    private final Map<String, Boolean> candidates = new ConcurrentHashMap<>();
+    private final AtomicBoolean pruning = new AtomicBoolean();
+
+    private volatile int threshold;
+
+    public HeavyHitterSketch(int capacity) {
+        this.capacity = capacity;
+        int size = Integer.highestOneBit(Math.max(1024, capacity * 16) - 1) << 1;
+        this.width = size;
+        this.mask = size - 1;
+        this.counters = new AtomicIntegerArray(DEPTH * size);
+    }
+
+    public void record(String key) {
+        int h1 = mix(key.hashCode());
+        int h2 = mix(h1) | 1;
+        int estimate = Integer.MAX_VALUE;
+        for (int i = 0; i < DEPTH; i++) {
+            estimate = Math.min(estimate, counters.incrementAndGet(i * width + ((h1 + i * h2) & mask)));
+        }
+        if (estimate > threshold && !candidates.containsKey(key)) {
+            candidates.put(key, Boolean.TRUE);
+            if (candidates.size() > capacity * 2) {
+                prune();
+            }
+        }
+    }
+
+    public int estimate(String key) {
+        int h1 = mix(key.hashCode());
+        int h2 = mix(h1) | 1;
+        int estimate = Integer.MAX_VALUE;
+        for (int i = 0; i < DEPTH; i++) {
+            estimate = Math.min(estimate, counters.get(i * width + ((h1 + i * h2) & mask)));
+        }
+        return estimate;
+    }
+
+    /**
+     * 按估算访问次数从高到低返回最多n个热点key及其次数
+     */
+    public List<Map.Entry<String, Integer>> top(int n) {
+        List<Map.Entry<String, Integer>> entries = new ArrayList<>(candidates.size());
+        for (String key : candidates.keySet()) {
+            int count = estimate(key);
+            if (count > 0) {
+                entries.add(new AbstractMap.SimpleImmutableEntry<>(key, count));
+            }
+        }
+        entries.sort(Map.Entry.<String, Integer>comparingByValue(Comparator.reverseOrder()));
+        return entries.size() > n ? new ArrayList<>(entries.subList(0, n)) : entries;
+    }
+
+    /**
+     * 所有计数减半，并发的自增可能因此丢失，对热点排序没有影响
+     */
+    public void decay() {
+        for (int i = 0; i < counters.length(); i++) {
+            int value = counters.get(i);
+            if (value != 0) {
+                counters.set(i, value >>> 1);
+            }
+        }
+        threshold >>>= 1;
+        candidates.keySet().removeIf(key -> estimate(key) == 0);
+    }
+
+    private void prune() {
+        if (!pruning.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            List<Map.Entry<String, Integer>> kept = top(capacity);
+            candidates.keySet().retainAll(kept.stream().map(Map.Entry::getKey).collect(Collectors.toSet()));
+            threshold = kept.isEmpty() ? 0 : kept.get(kept.size() - 1).getValue();
+        } finally {
+            pruning.set(false);
+        }
+    }
+
+    static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+}
@@ -0,0 +1,213 @@
+package com.example.productservice.cache;
+
+import com.example.productservice.config.TwoLevelCacheProperties;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 热点key检测：滑动窗口Count-Min Sketch，窗口分为 {@value #SLOTS} 个时间片轮转使用，
+ * 窗口内估算访问次数达到阈值的key被标记为热点，最后一次达到阈值后在pinTtl内保持热点状态
+ * <p>热点key在本节点保留一份短期的固定副本（不受一级缓存容量淘汰影响），
+ * 开启副本时Redis读取分散到 {@code cacheName::key#n} 等多个key上，避免单个分片过载
+ */
+@Slf4j
+public class HotKeyDetector {
+
+    private static final int SLOTS = 5;
+    private static final int DEPTH = 4;
+    private static final int WIDTH = 1024;
+    private static final int MASK = WIDTH - 1;
+    private static final int SLOT_SIZE = DEPTH * WIDTH;
+
+    private final String cacheName;
+    private final TwoLevelCacheProperties properties;
+    private final AtomicIntegerArray counters = new AtomicIntegerArray(SLOTS * SLOT_SIZE);
+    private final AtomicLongArray epochs = new AtomicLongArray(SLOTS);
+    private final ConcurrentMap<String, HotKey> hotKeys = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Pinned> pinned = new ConcurrentHashMap<>();
+
+    public HotKeyDetector(String cacheName, TwoLevelCacheProperties properties) {
+        this.cacheName = cacheName;
+        this.properties = properties;
+    }
+
+    /**
+     * 记录一次访问
+     *
+     * @return 该key当前是否为热点
+     */
+    public boolean record(String key) {
+        TwoLevelCacheProperties.HotKey config = properties.getHotKey();
+        if (!config.isEnabled()) {
+            return false;
+        }
+        long slotNanos = Math.max(1, config.getWindow().toNanos() / SLOTS);
+        long epoch = System.nanoTime() / slotNanos;
+        int slot = (int) (epoch % SLOTS);
+        long slotEpoch = epochs.get(slot);
+        if (slotEpoch != epoch && epochs.compareAndSet(slot, slotEpoch, epoch)) {
+            // 轮转到新的时间片，清空其中上一轮的计数
+            for (int i = slot * SLOT_SIZE; i < (slot + 1) * SLOT_SIZE; i++) {
+                counters.set(i, 0);
+            }
+        }
+
+        int h1 = HeavyHitterSketch.mix(key.hashCode());
+        int h2 = HeavyHitterSketch.mix(h1) | 1;
+        int current = Integer.MAX_VALUE;
+        for (int i = 0; i < DEPTH; i++) {
+            current = Math.min(current, counters.incrementAndGet(slot * SLOT_SIZE + i * WIDTH + ((h1 + i * h2) & MASK)));
+        }
+
+        long now = System.currentTimeMillis();
+        HotKey hot = hotKeys.get(key);
+        // 当前时间片的计数达到平均份额时才计算整个窗口，大部分访问只需更新计数
+        if (current >= config.getThreshold() / SLOTS) {
+            int total = windowEstimate(h1, h2, epoch);
+            if (total >= config.getThreshold()) {
+                long expireAt = now + config.getPinTtl().toMillis();
+                if (hot != null) {
+                    // 过期时间只在剩余不足一半时延长，避免热点key的每次访问都写同一个对象
+                    if (hot.expireAt - now < config.getPinTtl().toMillis() / 2) {
+                        hot.expireAt = expireAt;
+                        hot.estimate = total;
+                    }
+                    return true;
+                }
+                return markHot(key, total, expireAt, config.getMaxHotKeys());
+            }
+        }
+        if (hot == null) {
+            return false;
+        }
+        if (hot.expireAt <= now) {
+            hotKeys.remove(key, hot);
+            pinned.remove(key);
+            log.info("热点key冷却: cache={}, key={}", cacheName, key);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 热点key的本地固定副本，过期后返回null
+     */
+    public TwoLevelCache.CacheEntry getPinned(String key) {
+        Pinned entry = pinned.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expireAt <= System.currentTimeMillis()) {
+            pinned.remove(key, entry);
+            return null;
+        }
+        return entry.entry;
+    }
+
+    public void pin(String key, TwoLevelCache.CacheEntry entry) {
+        long ttlMillis = properties.getHotKey().getPinTtl().toMillis();
+        pinned.put(key, new Pinned(entry, System.currentTimeMillis() + ttlMillis));
+    }
+
+    /**
+     * 值发生变化时移除本地固定副本，key为null时全部移除
+     */
+    public void unpin(String key) {
+        if (key == null) {
+            pinned.clear();
+        } else if (!pinned.isEmpty()) {
+            pinned.remove(key);
+        }
+    }
+
+    /**
+     * 当前仍有效的热点key，按估算访问次数从高到低排列
+     */
+    public List<HotKey> getHotKeys() {
+        long now = System.currentTimeMillis();
+        List<HotKey> result = new ArrayList<>();
+        for (HotKey hot : hotKeys.values()) {
+            if (hot.expireAt > now) {
+                result.add(hot);
+            }
+        }
+        result.sort(Comparator.comparingInt(HotKey::getEstimate).reversed());
+        return result;
+    }
+
+    public int getHotKeyCount() {
+        return hotKeys.size();
+    }
+
+    private boolean markHot(String key, int estimate, long expireAt, int maxHotKeys) {
+        if (hotKeys.size() >= maxHotKeys) {
+            long now = System.currentTimeMillis();
+            hotKeys.values().removeIf(hot -> hot.expireAt <= now);
+            if (hotKeys.size() >= maxHotKeys) {
+                return false;
+            }
+        }
+        if (hotKeys.putIfAbsent(key, new HotKey(key, estimate, expireAt)) == null) {
+            log.info("检测到热点key: cache={}, key={}, windowCount={}", cacheName, key, estimate);
+        }
+        return true;
+    }
+
+    /**
+     * 窗口内各时间片估算值之和，跳过已过期未轮转的时间片
+     */
+    private int windowEstimate(int h1, int h2, long epoch) {
+        int total = 0;
+        for (int slot = 0; slot < SLOTS; slot++) {
+            if (epoch - epochs.get(slot) >= SLOTS) {
+                continue;
+            }
+            int estimate = Integer.MAX_VALUE;
+            for (int i = 0; i < DEPTH; i++) {
+                estimate = Math.min(estimate, counters.get(slot * SLOT_SIZE + i * WIDTH + ((h1 + i * h2) & MASK)));
+            }
+            total += estimate;
+        }
+        return total;
+    }
+
+    @Getter
+    public static class HotKey {
+
+        private final String key;
+
+        private final long detectedAt = System.currentTimeMillis();
+
+        /**
+         * 最近一次确认时窗口内的估算访问次数
+         */
+        private volatile int estimate;
+
+        private volatile long expireAt;
+
+        HotKey(String key, int estimate, long expireAt) {
+            this.key = key;
+            this.estimate = estimate;
+            this.expireAt = expireAt;
+        }
+    }
+
+    private static final class Pinned {
+
+        final TwoLevelCache.CacheEntry entry;
+        final long expireAt;
+
+        Pinned(TwoLevelCache.CacheEntry entry, long expireAt) {
+            this.entry = entry;
+            this.expireAt = expireAt;
+        }
+    }
+}
@@ -0,0 +1,757 @@
+package com.example.productservice.cache;
+
+import com.example.productservice.config.TwoLevelCacheProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 二级缓存：一级为进程内Caffeine，二级为Redis
+ * 读取时先查本地缓存，未命中再查Redis并回填本地；写入和删除时同时更新两级，
+ * 并通过Redis pub/sub通知其他节点清理本地副本
+ *
+ * <p>带回源函数的读取（{@code @Cacheable(sync = true)}）额外提供缓存击穿保护：
+ * <ul>
+ *     <li>同一个key在本节点同一时刻只有一个线程回源，其他线程等待其结果</li>
+ *     <li>回源前通过Redis短期锁保证集群内只有一个节点查询数据库</li>
+ *     <li>Redis过期时间加随机抖动，避免同一批写入的缓存同时过期</li>
+ *     <li>按概率提前过期（XFetch）：临近过期的热点key在后台提前刷新，期间调用方继续读取旧值</li>
+ * </ul>
+ *
+ * <p>{@link HotKeyDetector} 识别出的热点key在一级缓存未命中时优先使用本地固定副本，
+ * 配置了副本数时随机读取 {@code cacheName::key#n} 副本，值变化时副本随主key一起删除
+ *
+ * <p>Redis过期时间、一级缓存大小与过期时间可在运行中调整，只影响之后写入的条目，已有条目保留；
+ * 关闭缓存后读取直接回源，写入改为删除，保证重新开启时不会读到关闭期间被修改的旧值
+ */
+@Slf4j
+public class TwoLevelCache extends AbstractValueAdaptingCache {
+
+    private static final RedisScript<Long> UNLOCK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    private static final long LOCK_POLL_MILLIS = 50;
+    private static final String REPLICA_SEPARATOR = "#";
+
+    private final String name;
+    private final Cache<String, CacheEntry> localCache;
+    private final RedisTemplate<String, Object> redisTemplate;
+    private volatile Duration ttl;
+    private volatile boolean enabled = true;
+    private final TwoLevelCacheProperties properties;
+    private final String nodeId;
+    private final Executor refreshExecutor;
+    private final HeavyHitterSketch hotKeys;
+    private final HotKeyDetector hotKeyDetector;
+
+    /**
+     * 正在回源的key，包括同步加载和后台提前刷新
+     */
+    private final ConcurrentMap<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * 最近一次回源耗时（毫秒），用于估算提前刷新的时间窗口
+     */
+    private volatile long loadMillis = 1;
+
+    private final LongAdder localHits = new LongAdder();
+    private final LongAdder localMisses = new LongAdder();
+    private final LongAdder remoteHits = new LongAdder();
+    private final LongAdder remoteMisses = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder earlyRefreshes = new LongAdder();
+
+    public TwoLevelCache(String name, Cache<String, CacheEntry> localCache, RedisTemplate<String, Object> redisTemplate,
+                         Duration ttl, TwoLevelCacheProperties properties, String nodeId, Executor refreshExecutor,
+                         HeavyHitterSketch hotKeys, HotKeyDetector hotKeyDetector) {
+        super(false); // 与原RedisCacheManager一致，不缓存null值
+        this.name = name;
+        this.localCache = localCache;
+        this.redisTemplate = redisTemplate;
+        this.ttl = ttl;
+        this.properties = properties;
+        this.nodeId = nodeId;
+        this.refreshExecutor = refreshExecutor;
+        this.hotKeys = hotKeys;
+        this.hotKeyDetector = hotKeyDetector;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return this;
+    }
+
+    /**
+     * 调整Redis过期时间，之后写入的条目生效
+     */
+    public void setTtl(Duration ttl) {
+        this.ttl = ttl;
+    }
+
+    public Duration getTtl() {
+        return ttl;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 调整一级缓存的最大条目数和写入后过期时间，超出的条目由Caffeine逐步淘汰，不清空缓存
+     */
+    public void setLocalLimits(long maximumSize, Duration expireAfterWrite) {
+        localCache.policy().eviction().ifPresent(eviction -> eviction.setMaximum(maximumSize));
+        localCache.policy().expireAfterWrite().ifPresent(expiration -> expiration.setExpiresAfter(expireAfterWrite));
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        if (!enabled) {
+            return null;
+        }
+        CacheEntry entry = read(createCacheKey(key));
+        return entry != null ? entry.value : null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        if (!enabled) {
+            try {
+                return valueLoader.call();
+            } catch (Exception e) {
+                throw new ValueRetrievalException(key, valueLoader, e);
+            }
+        }
+        String cacheKey = createCacheKey(key);
+        CacheEntry entry = read(cacheKey);
+        if (entry != null) {
+            if (shouldRefreshEarly(entry)) {
+                refreshAsync(cacheKey, key, valueLoader);
+            }
+            return (T) fromStoreValue(entry.value);
+        }
+        return (T) fromStoreValue(loadSingleFlight(cacheKey, key, valueLoader));
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        if (!enabled) {
+            evict(key);
+            return;
+        }
+        String cacheKey = createCacheKey(key);
+        Object storeValue = toStoreValue(value);
+        long expireAt = putRemote(cacheKey, storeValue);
+        localCache.put(cacheKey, new CacheEntry(storeValue, expireAt));
+        hotKeyDetector.unpin(cacheKey);
+        publish(cacheKey);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        if (!enabled) {
+            evict(key);
+            return null;
+        }
+        String cacheKey = createCacheKey(key);
+        Object storeValue = toStoreValue(value);
+        long ttlMillis = jitteredTtlMillis();
+        Boolean absent = ttlMillis > 0
+                ? redisTemplate.opsForValue().setIfAbsent(redisKey(cacheKey), storeValue, ttlMillis, TimeUnit.MILLISECONDS)
+                : redisTemplate.opsForValue().setIfAbsent(redisKey(cacheKey), storeValue);
+        if (Boolean.TRUE.equals(absent)) {
+            deleteReplicas(cacheKey);
+            localCache.put(cacheKey, new CacheEntry(storeValue, expireAt(ttlMillis)));
+            hotKeyDetector.unpin(cacheKey);
+            publish(cacheKey);
+            return null;
+        }
+        Object existing = redisTemplate.opsForValue().get(redisKey(cacheKey));
+        return existing != null ? new SimpleValueWrapper(fromStoreValue(existing)) : null;
+    }
+
+    @Override
+    public void evict(Object key) {
+        String cacheKey = createCacheKey(key);
+        redisTemplate.delete(redisKey(cacheKey));
+        deleteReplicas(cacheKey);
+        localCache.invalidate(cacheKey);
+        hotKeyDetector.unpin(cacheKey);
+        publish(cacheKey);
+    }
+
+    @Override
+    public void clear() {
+        String pattern = name + "::*";
+        redisTemplate.execute((RedisCallback<Void>) connection -> {
+            List<byte[]> keys = new ArrayList<>();
+            try (Cursor<byte[]> cursor = connection.scan(ScanOptions.scanOptions().match(pattern).count(1000).build())) {
+                while (cursor.hasNext()) {
+                    keys.add(cursor.next());
+                }
+            }
+            if (!keys.isEmpty()) {
+                connection.del(keys.toArray(new byte[0][]));
+            }
+            return null;
+        });
+        localCache.invalidateAll();
+        hotKeyDetector.unpin(null);
+        publish(null);
+    }
+
+    /**
+     * 批量读取：先查一级缓存，未命中的key在一次Redis往返中批量读取并回填本地
+     *
+     * @return 命中的key及其缓存值，未命中的key不在结果中
+     */
+    public Map<Object, Object> getAll(Collection<?> keys) {
+        Map<Object, Object> result = new LinkedHashMap<>();
+        if (!enabled) {
+            return result;
+        }
+        List<Object> missKeys = new ArrayList<>();
+        List<String> missCacheKeys = new ArrayList<>();
+        for (Object key : keys) {
+            String cacheKey = createCacheKey(key);
+            hotKeys.record(cacheKey);
+            CacheEntry entry = localCache.getIfPresent(cacheKey);
+            if (entry != null) {
+                localHits.increment();
+                result.put(key, fromStoreValue(entry.value));
+            } else {
+                localMisses.increment();
+                missKeys.add(key);
+                missCacheKeys.add(cacheKey);
+            }
+        }
+        if (missCacheKeys.isEmpty()) {
+            return result;
+        }
+
+        List<CacheEntry> entries = getRemote(missCacheKeys);
+        for (int i = 0; i < missKeys.size(); i++) {
+            CacheEntry entry = entries.get(i);
+            if (entry != null) {
+                localCache.put(missCacheKeys.get(i), entry);
+                result.put(missKeys.get(i), fromStoreValue(entry.value));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 批量写入：在一次Redis往返中写入所有条目并广播变更
+     */
+    @SuppressWarnings("unchecked")
+    public void putAll(Map<?, ?> values) {
+        // 批量写入的都是刚从数据库读取或新建的值，关闭期间直接跳过即可
+        if (!enabled || values.isEmpty()) {
+            return;
+        }
+        Map<String, CacheEntry> entries = new LinkedHashMap<>();
+        Map<String, Long> ttls = new LinkedHashMap<>();
+        values.forEach((key, value) -> {
+            String cacheKey = createCacheKey(key);
+            long ttlMillis = jitteredTtlMillis();
+            entries.put(cacheKey, new CacheEntry(toStoreValue(value), expireAt(ttlMillis)));
+            ttls.put(cacheKey, ttlMillis);
+        });
+
+        byte[] channel = ((RedisSerializer<String>) redisTemplate.getKeySerializer()).serialize(properties.getTopic());
+        int replicas = properties.getHotKey().getReplicas();
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            entries.forEach((cacheKey, entry) -> {
+                long ttlMillis = ttls.get(cacheKey);
+                if (ttlMillis > 0) {
+                    connection.pSetEx(rawKey(cacheKey), ttlMillis, rawValue(entry.value));
+                } else {
+                    connection.set(rawKey(cacheKey), rawValue(entry.value));
+                }
+                for (int i = 1; i <= replicas; i++) {
+                    connection.del(rawKey(cacheKey + REPLICA_SEPARATOR + i));
+                }
+                connection.publish(channel, rawValue(new CacheMessage(nodeId, name, cacheKey)));
+            });
+            return null;
+        });
+        localCache.putAll(entries);
+        entries.keySet().forEach(hotKeyDetector::unpin);
+    }
+
+    /**
+     * 缓存预热：把Redis中已有的值批量读入一级缓存，不计入命中统计和热点统计
+     *
+     * @return Redis中存在并已载入本地的key
+     */
+    public Set<String> preload(List<String> cacheKeys) {
+        Set<String> loaded = new HashSet<>();
+        if (!enabled) {
+            return loaded;
+        }
+        List<CacheEntry> entries = readRemote(cacheKeys);
+        for (int i = 0; i < cacheKeys.size(); i++) {
+            CacheEntry entry = entries.get(i);
+            if (entry != null) {
+                localCache.put(cacheKeys.get(i), entry);
+                loaded.add(cacheKeys.get(i));
+            }
+        }
+        return loaded;
+    }
+
+    public HeavyHitterSketch getHotKeys() {
+        return hotKeys;
+    }
+
+    public HotKeyDetector getHotKeyDetector() {
+        return hotKeyDetector;
+    }
+
+    /**
+     * 仅清理本地一级缓存，收到其他节点的变更消息时调用
+     */
+    public void clearLocal(String cacheKey) {
+        hotKeyDetector.unpin(cacheKey);
+        if (cacheKey == null) {
+            localCache.invalidateAll();
+        } else {
+            localCache.invalidate(cacheKey);
+        }
+    }
+
+    /**
+     * 该key在Redis中的完整key，供不经过本缓存的读取方（响应式读取路径）直接读写二级缓存
+     */
+    public String getRedisKey(Object key) {
+        return redisKey(createCacheKey(key));
+    }
+
+    /**
+     * 下一次写入Redis使用的过期时间（毫秒，已加抖动），0表示不过期
+     */
+    public long nextTtlMillis() {
+        return jitteredTtlMillis();
+    }
+
+    public long getLocalHits() {
+        return localHits.sum();
+    }
+
+    public long getLocalMisses() {
+        return localMisses.sum();
+    }
+
+    public long getRemoteHits() {
+        return remoteHits.sum();
+    }
+
+    public long getRemoteMisses() {
+        return remoteMisses.sum();
+    }
+
+    public long getLoads() {
+        return loads.sum();
+    }
+
+    public long getEarlyRefreshes() {
+        return earlyRefreshes.sum();
+    }
+
+    public long getLocalSize() {
+        return localCache.estimatedSize();
+    }
+
+    /**
+     * 本节点单飞回源：同一个key只有第一个线程执行加载，其余线程等待同一个结果
+     */
+    private Object loadSingleFlight(String cacheKey, Object key, Callable<?> valueLoader) {
+        while (true) {
+            CompletableFuture<Object> future = new CompletableFuture<>();
+            CompletableFuture<Object> existing = inFlight.putIfAbsent(cacheKey, future);
+            if (existing == null) {
+                try {
+                    Object value = loadWithLock(cacheKey, key, valueLoader);
+                    future.complete(value);
+                    return value;
+                } catch (RuntimeException e) {
+                    future.completeExceptionally(e);
+                    throw e;
+                } finally {
+                    inFlight.remove(cacheKey, future);
+                }
+            }
+            Object value = await(existing, key, valueLoader);
+            if (value != null) {
+                return value;
+            }
+            // 后台刷新因其他节点持锁而放弃时没有结果，移除这次刷新后重新单飞，等待的线程中只有一个回源
+            inFlight.remove(cacheKey, existing);
+        }
+    }
+
+    /**
+     * 集群内回源：持有Redis锁的节点查询数据库，其他节点等待其写入Redis，等待超时后再自行回源
+     */
+    private Object loadWithLock(String cacheKey, Object key, Callable<?> valueLoader) {
+        String lockKey = lockKey(cacheKey);
+        boolean locked = tryLock(lockKey);
+        try {
+            if (!locked) {
+                CacheEntry entry = waitForRemote(cacheKey);
+                if (entry != null) {
+                    localCache.put(cacheKey, entry);
+                    return entry.value;
+                }
+            }
+            return load(cacheKey, key, valueLoader);
+        } finally {
+            if (locked) {
+                unlock(lockKey);
+            }
+        }
+    }
+
+    private Object load(String cacheKey, Object key, Callable<?> valueLoader) {
+        long start = System.nanoTime();
+        Object value;
+        try {
+            value = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        loadMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        loads.increment();
+
+        Object storeValue = toStoreValue(value);
+        long expireAt = putRemote(cacheKey, storeValue);
+        localCache.put(cacheKey, new CacheEntry(storeValue, expireAt));
+        hotKeyDetector.unpin(cacheKey);
+        publish(cacheKey);
+        return storeValue;
+    }
+
+    /**
+     * XFetch算法：now - delta * beta * ln(rand) >= expireAt 时提前刷新，
+     * 越接近过期、回源越慢，提前刷新的概率越大
+     */
+    private boolean shouldRefreshEarly(CacheEntry entry) {
+        if (entry.expireAt == Long.MAX_VALUE || properties.getEarlyRefreshBeta() <= 0) {
+            return false;
+        }
+        double random = 1.0 - ThreadLocalRandom.current().nextDouble();
+        double gap = loadMillis * properties.getEarlyRefreshBeta() * -Math.log(random);
+        return System.currentTimeMillis() + gap >= entry.expireAt;
+    }
+
+    private void refreshAsync(String cacheKey, Object key, Callable<?> valueLoader) {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        if (inFlight.putIfAbsent(cacheKey, future) != null) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                String lockKey = lockKey(cacheKey);
+                boolean locked = false;
+                try {
+                    locked = tryLock(lockKey);
+                    // 其他节点已在刷新，本节点继续使用旧值
+                    future.complete(locked ? load(cacheKey, key, valueLoader) : null);
+                    if (locked) {
+                        earlyRefreshes.increment();
+                    }
+                } catch (RuntimeException e) {
+                    log.warn("缓存提前刷新失败: cache={}, key={}, error={}", name, cacheKey, e.getMessage());
+                    future.complete(null);
+                } finally {
+                    if (locked) {
+                        unlock(lockKey);
+                    }
+                    inFlight.remove(cacheKey, future);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(cacheKey, future);
+            future.complete(null);
+        }
+    }
+
+    private Object await(CompletableFuture<Object> future, Object key, Callable<?> valueLoader) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ValueRetrievalException(key, valueLoader, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new ValueRetrievalException(key, valueLoader, e.getCause());
+        }
+    }
+
+    private CacheEntry waitForRemote(String cacheKey) {
+        long deadline = System.currentTimeMillis() + properties.getLockTimeout().toMillis();
+        while (System.currentTimeMillis() < deadline) {
+            try {
+                TimeUnit.MILLISECONDS.sleep(LOCK_POLL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+            CacheEntry entry = getRemote(cacheKey);
+            if (entry != null) {
+                return entry;
+            }
+        }
+        log.warn("等待其他节点回源超时，自行加载: cache={}, key={}", name, cacheKey);
+        return null;
+    }
+
+    private boolean tryLock(String lockKey) {
+        return Boolean.TRUE.equals(redisTemplate.opsForValue()
+                .setIfAbsent(lockKey, nodeId, properties.getLockTimeout().toMillis(), TimeUnit.MILLISECONDS));
+    }
+
+    private void unlock(String lockKey) {
+        try {
+            redisTemplate.execute(UNLOCK_SCRIPT, Collections.singletonList(lockKey), nodeId);
+        } catch (Exception e) {
+            // 释放失败时锁会按超时时间自动过期
+            log.warn("释放缓存回源锁失败: lock={}, error={}", lockKey, e.getMessage());
+        }
+    }
+
+    /**
+     * 单个key的读取路径：一级缓存 -> 热点key的本地固定副本 -> Redis（热点key可读副本），Redis中的值回填一级缓存
+     */
+    private CacheEntry read(String cacheKey) {
+        hotKeys.record(cacheKey);
+        boolean hot = hotKeyDetector.record(cacheKey);
+        CacheEntry entry = localCache.getIfPresent(cacheKey);
+        if (entry != null) {
+            localHits.increment();
+            return entry;
+        }
+        localMisses.increment();
+
+        if (hot) {
+            entry = hotKeyDetector.getPinned(cacheKey);
+            if (entry == null) {
+                entry = getRemoteHot(cacheKey);
+                if (entry != null) {
+                    hotKeyDetector.pin(cacheKey, entry);
+                }
+            }
+        } else {
+            entry = getRemote(cacheKey);
+        }
+        if (entry != null) {
+            localCache.put(cacheKey, entry);
+        }
+        return entry;
+    }
+
+    /**
+     * 热点key在主key与各副本之间随机读取，副本未命中时读主key并写回该副本
+     * 副本的过期时间不代表主key的过期时间，从副本读到的值不参与提前刷新
+     */
+    private CacheEntry getRemoteHot(String cacheKey) {
+        TwoLevelCacheProperties.HotKey config = properties.getHotKey();
+        int replica = config.getReplicas() > 0 ? ThreadLocalRandom.current().nextInt(config.getReplicas() + 1) : 0;
+        if (replica == 0) {
+            return getRemote(cacheKey);
+        }
+        String replicaKey = cacheKey + REPLICA_SEPARATOR + replica;
+        CacheEntry entry = getRemote(replicaKey);
+        if (entry != null) {
+            return new CacheEntry(entry.value, Long.MAX_VALUE);
+        }
+        entry = getRemote(cacheKey);
+        if (entry != null) {
+            long ttlMillis = config.getReplicaTtl().toMillis();
+            if (entry.expireAt != Long.MAX_VALUE) {
+                ttlMillis = Math.min(ttlMillis, entry.expireAt - System.currentTimeMillis());
+            }
+            if (ttlMillis > 0) {
+                redisTemplate.opsForValue().set(redisKey(replicaKey), entry.value, ttlMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+        return entry;
+    }
+
+    /**
+     * 删除热点key的Redis副本，值变化时调用；不论本节点是否认为该key是热点都删除，副本由其他节点创建
+     */
+    private void deleteReplicas(String cacheKey) {
+        int replicas = properties.getHotKey().getReplicas();
+        if (replicas <= 0) {
+            return;
+        }
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (int i = 1; i <= replicas; i++) {
+                connection.del(rawKey(cacheKey + REPLICA_SEPARATOR + i));
+            }
+            return null;
+        });
+    }
+
+    private CacheEntry getRemote(String cacheKey) {
+        return getRemote(Collections.singletonList(cacheKey)).get(0);
+    }
+
+    /**
+     * 在一次往返中读取Redis中的值及其剩余过期时间，返回结果与cacheKeys一一对应，未命中为null
+     */
+    private List<CacheEntry> getRemote(List<String> cacheKeys) {
+        List<CacheEntry> entries = readRemote(cacheKeys);
+        for (CacheEntry entry : entries) {
+            if (entry != null) {
+                remoteHits.increment();
+            } else {
+                remoteMisses.increment();
+            }
+        }
+        return entries;
+    }
+
+    private List<CacheEntry> readRemote(List<String> cacheKeys) {
+        List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (String cacheKey : cacheKeys) {
+                byte[] rawKey = rawKey(cacheKey);
+                connection.get(rawKey);
+                connection.pTtl(rawKey);
+            }
+            return null;
+        });
+        List<CacheEntry> entries = new ArrayList<>(cacheKeys.size());
+        for (int i = 0; i < cacheKeys.size(); i++) {
+            Object value = results.get(i * 2);
+            if (value == null) {
+                entries.add(null);
+                continue;
+            }
+            Long pttl = (Long) results.get(i * 2 + 1);
+            entries.add(new CacheEntry(value, pttl != null && pttl > 0 ? expireAt(pttl) : Long.MAX_VALUE));
+        }
+        return entries;
+    }
+
+    /**
+     * 写入Redis，返回该条目的过期时间点
+     */
+    private long putRemote(String cacheKey, Object storeValue) {
+        long ttlMillis = jitteredTtlMillis();
+        if (ttlMillis > 0) {
+            redisTemplate.opsForValue().set(redisKey(cacheKey), storeValue, ttlMillis, TimeUnit.MILLISECONDS);
+        } else {
+            redisTemplate.opsForValue().set(redisKey(cacheKey), storeValue);
+        }
+        deleteReplicas(cacheKey);
+        return expireAt(ttlMillis);
+    }
+
+    /**
+     * 在配置的过期时间上增加 ±ttlJitter 比例的随机抖动
+     */
+    private long jitteredTtlMillis() {
+        long ttlMillis = ttl != null ? ttl.toMillis() : 0;
+        double jitter = properties.getTtlJitter();
+        if (ttlMillis <= 0 || jitter <= 0) {
+            return ttlMillis;
+        }
+        double factor = 1.0 + ThreadLocalRandom.current().nextDouble(-jitter, jitter);
+        return Math.max(1, (long) (ttlMillis * factor));
+    }
+
+    private static long expireAt(long ttlMillis) {
+        return ttlMillis > 0 ? System.currentTimeMillis() + ttlMillis : Long.MAX_VALUE;
+    }
+
+    private void publish(String cacheKey) {
+        try {
+            redisTemplate.convertAndSend(properties.getTopic(), new CacheMessage(nodeId, name, cacheKey));
+        } catch (Exception e) {
+            // 广播失败只影响其他节点本地缓存的新鲜度，本地缓存会按TTL自然过期
+            log.warn("缓存变更广播失败: cache={}, key={}, error={}", name, cacheKey, e.getMessage());
+        }
+    }
+
+    /**
+     * 与RedisCache保持相同的key格式（cacheName::key），保证与已有缓存数据兼容
+     */
+    private String redisKey(String cacheKey) {
+        return name + "::" + cacheKey;
+    }
+
+    @SuppressWarnings("unchecked")
+    private byte[] rawKey(String cacheKey) {
+        return ((RedisSerializer<String>) redisTemplate.getKeySerializer()).serialize(redisKey(cacheKey));
+    }
+
+    @SuppressWarnings("unchecked")
+    private byte[] rawValue(Object value) {
+        return ((RedisSerializer<Object>) redisTemplate.getValueSerializer()).serialize(value);
+    }
+
+    private String lockKey(String cacheKey) {
+        return "lock:" + redisKey(cacheKey);
+    }
+
+    private static String createCacheKey(Object key) {
+        return key instanceof String ? (String) key : String.valueOf(key);
+    }
+
+    /**
+     * 一级缓存条目，记录值及其在Redis中的过期时间点
+     */
+    static final class CacheEntry {
+
+        final Object value;
+        final long expireAt;
+
+        CacheEntry(Object value, long expireAt) {
+            this.value = value;
+            this.expireAt = expireAt;
+        }
+    }
+}
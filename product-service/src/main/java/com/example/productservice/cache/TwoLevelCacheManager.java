@@ -0,0 +1,180 @@
+package com.example.productservice.cache;
+
+import com.example.productservice.config.DynamicConfigProperties;
+import com.example.productservice.config.TwoLevelCacheProperties;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cloud.context.scope.refresh.RefreshScopeRefreshedEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 二级缓存管理器，按缓存区域创建 {@link TwoLevelCache}
+ * 并以Micrometer指标 cache.level.gets 暴露每一级的命中/未命中次数，cache.level.loads 暴露回源次数
+ *
+ * <p>缓存开关（app.config.enable-caching）、默认Redis过期时间（app.config.cache-expire-minutes）
+ * 及各区域的过期时间和一级缓存大小在配置刷新后直接作用于运行中的缓存，不重建缓存、不丢弃已有条目
+ */
+@Slf4j
+public class TwoLevelCacheManager implements CacheManager, MeterBinder, DisposableBean,
+        ApplicationListener<RefreshScopeRefreshedEvent> {
+
+    private final ConcurrentMap<String, TwoLevelCache> cacheMap = new ConcurrentHashMap<>();
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final TwoLevelCacheProperties properties;
+    private final DynamicConfigProperties configProperties;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final ThreadPoolExecutor refreshExecutor;
+
+    private volatile MeterRegistry meterRegistry;
+
+    /**
+     * DynamicConfigProperties的快照，配置刷新时更新
+     */
+    private volatile boolean enabled;
+    private volatile Duration defaultTtl;
+
+    public TwoLevelCacheManager(RedisTemplate<String, Object> redisTemplate, TwoLevelCacheProperties properties,
+                                DynamicConfigProperties configProperties) {
+        this.redisTemplate = redisTemplate;
+        this.properties = properties;
+        this.configProperties = configProperties;
+        this.enabled = configProperties.isEnableCaching();
+        this.defaultTtl = Duration.ofMinutes(configProperties.getCacheExpireMinutes());
+        // 后台提前刷新线程池，队列满时直接丢弃，调用方继续使用旧值
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("cache-refresh-");
+        threadFactory.setDaemon(true);
+        this.refreshExecutor = new ThreadPoolExecutor(2, 2, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(1000), threadFactory, new ThreadPoolExecutor.DiscardPolicy());
+        // 预先创建已配置的缓存区域
+        properties.getRegions().keySet().forEach(this::getCache);
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        return cacheMap.computeIfAbsent(name, this::createCache);
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return Collections.unmodifiableSet(cacheMap.keySet());
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * 处理其他节点广播的缓存变更，清理本地一级缓存
+     */
+    public void onMessage(CacheMessage message) {
+        if (nodeId.equals(message.getNodeId())) {
+            return;
+        }
+        TwoLevelCache cache = cacheMap.get(message.getCacheName());
+        if (cache != null) {
+            log.debug("收到缓存变更广播，清理本地缓存: cache={}, key={}", message.getCacheName(), message.getKey());
+            cache.clearLocal(message.getKey());
+        }
+    }
+
+    /**
+     * 配置刷新后（app.cache.*已重新绑定）把新配置应用到所有已创建的缓存
+     */
+    @Override
+    public void onApplicationEvent(RefreshScopeRefreshedEvent event) {
+        boolean wasEnabled = enabled;
+        enabled = configProperties.isEnableCaching();
+        defaultTtl = Duration.ofMinutes(configProperties.getCacheExpireMinutes());
+        if (wasEnabled != enabled) {
+            log.info("缓存已{}", enabled ? "开启" : "关闭，读取直接回源");
+        }
+        cacheMap.values().forEach(this::configure);
+    }
+
+    @Override
+    public void destroy() {
+        refreshExecutor.shutdownNow();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        this.meterRegistry = registry;
+        cacheMap.values().forEach(cache -> bindCache(registry, cache));
+    }
+
+    private TwoLevelCache createCache(String name) {
+        TwoLevelCacheProperties.Local local = properties.getLocal(name);
+        com.github.benmanes.caffeine.cache.Cache<String, TwoLevelCache.CacheEntry> localCache = Caffeine.newBuilder()
+                .maximumSize(local.getMaximumSize())
+                .expireAfterWrite(local.getExpireAfterWrite())
+                .build();
+        TwoLevelCache cache = new TwoLevelCache(name, localCache, redisTemplate, properties.getTtl(name, defaultTtl),
+                properties, nodeId, refreshExecutor, new HeavyHitterSketch(properties.getWarmup().getTopN()),
+                new HotKeyDetector(name, properties));
+        cache.setEnabled(enabled);
+        MeterRegistry registry = this.meterRegistry;
+        if (registry != null) {
+            bindCache(registry, cache);
+        }
+        return cache;
+    }
+
+    private void configure(TwoLevelCache cache) {
+        TwoLevelCacheProperties.Local local = properties.getLocal(cache.getName());
+        Duration ttl = properties.getTtl(cache.getName(), defaultTtl);
+        if (!ttl.equals(cache.getTtl())) {
+            log.info("缓存过期时间已调整: cache={}, ttl={} -> {}", cache.getName(), cache.getTtl(), ttl);
+        }
+        cache.setTtl(ttl);
+        cache.setLocalLimits(local.getMaximumSize(), local.getExpireAfterWrite());
+        cache.setEnabled(enabled);
+    }
+
+    private static void bindCache(MeterRegistry registry, TwoLevelCache cache) {
+        String name = cache.getName();
+        FunctionCounter.builder("cache.level.gets", cache, TwoLevelCache::getLocalHits)
+                .tags("cache", name, "level", "l1", "result", "hit")
+                .register(registry);
+        FunctionCounter.builder("cache.level.gets", cache, TwoLevelCache::getLocalMisses)
+                .tags("cache", name, "level", "l1", "result", "miss")
+                .register(registry);
+        FunctionCounter.builder("cache.level.gets", cache, TwoLevelCache::getRemoteHits)
+                .tags("cache", name, "level", "l2", "result", "hit")
+                .register(registry);
+        FunctionCounter.builder("cache.level.gets", cache, TwoLevelCache::getRemoteMisses)
+                .tags("cache", name, "level", "l2", "result", "miss")
+                .register(registry);
+        FunctionCounter.builder("cache.level.loads", cache, TwoLevelCache::getLoads)
+                .tags("cache", name, "type", "miss")
+                .register(registry);
+        FunctionCounter.builder("cache.level.loads", cache, TwoLevelCache::getEarlyRefreshes)
+                .tags("cache", name, "type", "early-refresh")
+                .register(registry);
+        Gauge.builder("cache.level.size", cache, TwoLevelCache::getLocalSize)
+                .tags("cache", name, "level", "l1")
+                .register(registry);
+        Gauge.builder("cache.hotkeys", cache.getHotKeyDetector(), HotKeyDetector::getHotKeyCount)
+                .description("当前被识别为热点的key数量")
+                .tags("cache", name)
+                .register(registry);
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.productservice.cache.serializer;
+
+import com.example.productservice.cache.CacheMessage;
+
+/**
+ * 缓存变更广播消息 {@link CacheMessage} 的二进制编解码器
+ */
+public class CacheMessageCodec implements ValueCodec<CacheMessage> {
+
+    @Override
+    public int tag() {
+        return 4;
+    }
+
+    @Override
+    public Class<CacheMessage> type() {
+        return CacheMessage.class;
+    }
+
+    @Override
+    public void write(BinaryWriter out, CacheMessage message) {
+        out.writeString(message.getNodeId());
+        out.writeString(message.getCacheName());
+        out.writeString(message.getKey());
+    }
+
+    @Override
+    public CacheMessage read(BinaryReader in) {
+        return new CacheMessage(in.readString(), in.readString(), in.readString());
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.productservice.cache.serializer;
+
+import com.example.productservice.entity.Product;
+
+/**
+ * {@link Product} 的二进制编解码器
+ */
+public class ProductCodec implements ValueCodec<Product> {
+
+    private static final int ID = 1;
+    private static final int PRICE = 1 << 1;
+    private static final int STOCK = 1 << 2;
+    private static final int CATEGORY_ID = 1 << 3;
+    private static final int DELETED = 1 << 4;
+
+    @Override
+    public int tag() {
+        return 2;
+    }
+
+    @Override
+    public Class<Product> type() {
+        return Product.class;
+    }
+
+    @Override
+    public void write(BinaryWriter out, Product product) {
+        int mask = (product.getId() != null ? ID : 0)
+                | (product.getPrice() != null ? PRICE : 0)
+                | (product.getStock() != null ? STOCK : 0)
+                | (product.getCategoryId() != null ? CATEGORY_ID : 0)
+                | (product.getDeleted() != null ? DELETED : 0);
+        out.writeVarInt(mask);
+        if (product.getId() != null) {
+            out.writeVarLong(product.getId());
+        }
+        out.writeString(product.getName());
+        out.writeString(product.getDescription());
+        if (product.getPrice() != null) {
+            out.writeBigDecimal(product.getPrice());
+        }
+        if (product.getStock() != null) {
+            out.writeSignedVarLong(product.getStock());
+        }
+        if (product.getCategoryId() != null) {
+            out.writeVarLong(product.getCategoryId());
+        }
+        out.writeString(product.getCreatedTime());
+        out.writeString(product.getUpdatedTime());
+        if (product.getDeleted() != null) {
+            out.writeSignedVarLong(product.getDeleted());
+        }
+    }
+
+    @Override
+    public Product read(BinaryReader in) {
+        int mask = in.readVarInt();
+        Product product = new Product();
+        if ((mask & ID) != 0) {
+            product.setId(in.readVarLong());
+        }
+        product.setName(in.readString());
+        product.setDescription(in.readString());
+        if ((mask & PRICE) != 0) {
+            product.setPrice(in.readBigDecimal());
+        }
+        if ((mask & STOCK) != 0) {
+            product.setStock((int) in.readSignedVarLong());
+        }
+        if ((mask & CATEGORY_ID) != 0) {
+            product.setCategoryId(in.readVarLong());
+        }
+        product.setCreatedTime(in.readString());
+        product.setUpdatedTime(in.readString());
+        if ((mask & DELETED) != 0) {
+            product.setDeleted((int) in.readSignedVarLong());
+        }
+        return product;
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.productservice.client;
+
+import com.example.productservice.common.Result;
+import com.example.productservice.config.ReactiveProperties;
+import com.example.productservice.entity.User;
+import org.springframework.cloud.client.loadbalancer.LoadBalanced;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * {@link UserClient} 的非阻塞版本，经Spring Cloud LoadBalancer选择user-service实例
+ */
+@Component
+@Profile("reactive")
+public class ReactiveUserClient {
+
+    private static final ParameterizedTypeReference<Result<User>> USER_RESULT =
+            new ParameterizedTypeReference<Result<User>>() {
+            };
+
+    private static final ParameterizedTypeReference<Result<List<User>>> USER_LIST_RESULT =
+            new ParameterizedTypeReference<Result<List<User>>>() {
+            };
+
+    private final WebClient webClient;
+    private final ReactiveProperties properties;
+
+    public ReactiveUserClient(@LoadBalanced WebClient.Builder loadBalancedWebClientBuilder, ReactiveProperties properties) {
+        this.webClient = loadBalancedWebClientBuilder.baseUrl("http://user-service").build();
+        this.properties = properties;
+    }
+
+    public Mono<Result<User>> getUserById(Long id) {
+        return webClient.get()
+                .uri("/users/{id}", id)
+                .retrieve()
+                .bodyToMono(USER_RESULT)
+                .timeout(properties.getUserTimeout());
+    }
+
+    public Mono<Result<List<User>>> getUsersByIds(List<Long> ids) {
+        return webClient.get()
+                .uri(builder -> builder.path("/users/batch").queryParam("ids", ids.toArray()).build())
+                .retrieve()
+                .bodyToMono(USER_LIST_RESULT)
+                .timeout(properties.getUserTimeout());
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.productservice.client;
+
+import com.example.productservice.common.Result;
+import com.example.productservice.common.VirtualThreads;
+import com.example.productservice.config.UserLoaderProperties;
+import com.example.productservice.config.VirtualThreadProperties;
+import com.example.productservice.entity.User;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 用户信息合并加载器（DataLoader模式）
+ * 将并发的单个用户查询在短时间窗口内去重合并，通过一次 {@link UserClient#getUsersByIds} 批量获取，
+ * 再把结果分发给各个等待的调用方
+ */
+@Slf4j
+@Component
+public class UserBatchLoader implements MeterBinder, DisposableBean {
+
+    private final UserClient userClient;
+    private final UserLoaderProperties properties;
+    private final ScheduledExecutorService scheduler;
+    private final ExecutorService dispatcher;
+
+    private final Object lock = new Object();
+    private Map<Long, CompletableFuture<User>> pending = new LinkedHashMap<>();
+    private ScheduledFuture<?> scheduledFlush;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+
+    public UserBatchLoader(UserClient userClient, UserLoaderProperties properties,
+                           VirtualThreadProperties virtualThreadProperties) {
+        this.userClient = userClient;
+        this.properties = properties;
+        CustomizableThreadFactory schedulerThreadFactory = new CustomizableThreadFactory("user-loader-timer-");
+        schedulerThreadFactory.setDaemon(true);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(schedulerThreadFactory);
+        if (virtualThreadProperties.isEnabled() && VirtualThreads.isSupported()) {
+            // 批量Feign调用阻塞期间不占用平台线程
+            this.dispatcher = VirtualThreads.newExecutor("user-loader-vt-");
+        } else {
+            CustomizableThreadFactory dispatcherThreadFactory = new CustomizableThreadFactory("user-loader-");
+            dispatcherThreadFactory.setDaemon(true);
+            this.dispatcher = Executors.newCachedThreadPool(dispatcherThreadFactory);
+        }
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * 异步加载单个用户，用户不存在时结果为null
+     */
+    public CompletableFuture<User> load(Long id) {
+        requests.increment();
+        Map<Long, CompletableFuture<User>> batch = null;
+        CompletableFuture<User> future;
+        synchronized (lock) {
+            future = pending.get(id);
+            if (future == null) {
+                future = new CompletableFuture<>();
+                pending.put(id, future);
+            }
+            if (pending.size() >= properties.getMaxBatchSize()) {
+                batch = drain();
+            } else if (scheduledFlush == null) {
+                scheduledFlush = scheduler.schedule(this::flush,
+                        properties.getMaxWait().toNanos(), TimeUnit.NANOSECONDS);
+            }
+        }
+        if (batch != null) {
+            dispatch(batch);
+        }
+        return future;
+    }
+
+    /**
+     * 同步加载单个用户，等待时间受timeout配置限制
+     */
+    public User get(Long id) throws Exception {
+        return load(id).get(properties.getTimeout().toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("user.loader.requests", requests, LongAdder::sum)
+                .description("单个用户查询次数")
+                .register(registry);
+        FunctionCounter.builder("user.loader.batches", batches, LongAdder::sum)
+                .description("实际发往用户服务的批量请求次数")
+                .register(registry);
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdownNow();
+        dispatcher.shutdownNow();
+    }
+
+    private void flush() {
+        Map<Long, CompletableFuture<User>> batch;
+        synchronized (lock) {
+            batch = drain();
+        }
+        if (!batch.isEmpty()) {
+            dispatch(batch);
+        }
+    }
+
+    /**
+     * 取出当前等待中的全部查询，调用方需持有lock
+     */
+    private Map<Long, CompletableFuture<User>> drain() {
+        Map<Long, CompletableFuture<User>> batch = pending;
+        pending = new LinkedHashMap<>();
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+        return batch;
+    }
+
+    private void dispatch(Map<Long, CompletableFuture<User>> batch) {
+        batches.increment();
+        dispatcher.execute(() -> {
+            try {
+                Result<List<User>> result = userClient.getUsersByIds(new ArrayList<>(batch.keySet()));
+                if (result == null || result.getCode() != 200 || result.getData() == null) {
+                    String message = result != null ? result.getMessage() : "empty response";
+                    batch.values().forEach(f -> f.completeExceptionally(new IllegalStateException(message)));
+                    return;
+                }
+                Map<Long, User> users = new HashMap<>();
+                result.getData().forEach(user -> users.put(user.getId(), user));
+                batch.forEach((id, f) -> f.complete(users.get(id)));
+            } catch (Exception e) {
+                log.warn("批量获取用户信息失败: ids={}, error={}", batch.keySet(), e.getMessage());
+                batch.values().forEach(f -> f.completeExceptionally(e));
+            }
+        });
+    }
+}
@@ -5,10 +5,16 @@ import com.example.productservice.common.Result;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import java.util.List;
 
 @FeignClient(name = "user-service")
 public interface UserClient {
     
     @GetMapping("/users/{id}")
     Result<User> getUserById(@PathVariable("id") Long id);
+
+    @GetMapping("/users/batch")
+    Result<List<User>> getUsersByIds(@RequestParam("ids") List<Long> ids);
 }
\ No newline at end of file
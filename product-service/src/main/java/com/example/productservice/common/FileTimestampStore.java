@@ -0,0 +1,49 @@
+package com.example.productservice.common;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * 把主键生成器的逻辑时钟保存在本地文件中，先写临时文件再原子替换，写入中途宕机不会留下不完整的内容
+ */
+public class FileTimestampStore implements SnowflakeIdGenerator.TimestampStore {
+
+    private final Path file;
+    private final Path tempFile;
+
+    public FileTimestampStore(Path file) {
+        this.file = file;
+        this.tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+    }
+
+    @Override
+    public long load() {
+        try {
+            if (!Files.exists(file)) {
+                return 0;
+            }
+            String content = new String(Files.readAllBytes(file), StandardCharsets.UTF_8).trim();
+            return content.isEmpty() ? 0 : Long.parseLong(content);
+        } catch (IOException e) {
+            throw new UncheckedIOException("读取主键生成器时钟文件失败: " + file, e);
+        }
+    }
+
+    @Override
+    public void save(long timestampMillis) {
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            Files.write(tempFile, Long.toString(timestampMillis).getBytes(StandardCharsets.UTF_8));
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("保存主键生成器时钟文件失败: " + file, e);
+        }
+    }
+}
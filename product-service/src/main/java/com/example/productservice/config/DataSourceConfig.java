@@ -0,0 +1,77 @@
+package com.example.productservice.config;
+
+import com.example.productservice.datasource.ConnectionPoolTuner;
+import com.example.productservice.datasource.ReadOnly;
+import com.example.productservice.datasource.ReadOnlyRoutingInterceptor;
+import com.example.productservice.datasource.ReadWriteRoutingDataSource;
+import com.example.productservice.datasource.WriteTrackingInterceptor;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Role;
+
+/**
+ * 数据源配置：spring.datasource为主库，app.datasource.replicas为从库，对外提供读写分离的路由数据源
+ */
+@Configuration
+@EnableConfigurationProperties(DataSourceRoutingProperties.class)
+public class DataSourceConfig {
+
+    /**
+     * 主库连接池，MySQL驱动默认开启预编译语句缓存等优化，可通过spring.datasource.hikari.data-source-properties覆盖；
+     * 连接池大小由 {@link ConnectionPoolTuner} 按app.config.max-connections和min-idle-connections设置
+     */
+    @Bean
+    @ConfigurationProperties(prefix = "spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties dataSourceProperties) {
+        HikariDataSource dataSource = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.addDataSourceProperty("cachePrepStmts", "true");
+        dataSource.addDataSourceProperty("prepStmtCacheSize", "250");
+        dataSource.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
+        dataSource.addDataSourceProperty("useServerPrepStmts", "true");
+        dataSource.addDataSourceProperty("useLocalSessionState", "true");
+        dataSource.addDataSourceProperty("cacheResultSetMetadata", "true");
+        dataSource.addDataSourceProperty("cacheServerConfiguration", "true");
+        dataSource.addDataSourceProperty("elideSetAutoCommits", "true");
+        dataSource.addDataSourceProperty("maintainTimeStats", "false");
+        return dataSource;
+    }
+
+    @Bean
+    public ConnectionPoolTuner connectionPoolTuner(HikariDataSource primaryDataSource,
+                                                   DynamicConfigProperties dynamicConfigProperties) {
+        return new ConnectionPoolTuner(primaryDataSource, dynamicConfigProperties);
+    }
+
+    /**
+     * 依赖connectionPoolTuner，保证首次获取连接前连接池大小已按配置设置
+     */
+    @Bean
+    @Primary
+    @DependsOn("connectionPoolTuner")
+    public ReadWriteRoutingDataSource dataSource(HikariDataSource primaryDataSource,
+                                                 DataSourceRoutingProperties routingProperties) {
+        return new ReadWriteRoutingDataSource(primaryDataSource, routingProperties);
+    }
+
+    @Bean
+    public WriteTrackingInterceptor writeTrackingInterceptor(ReadWriteRoutingDataSource dataSource) {
+        return new WriteTrackingInterceptor(dataSource);
+    }
+
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public static Advisor readOnlyRoutingAdvisor() {
+        return new DefaultPointcutAdvisor(AnnotationMatchingPointcut.forMethodAnnotation(ReadOnly.class),
+                new ReadOnlyRoutingInterceptor());
+    }
+}
@@ -1,20 +1,17 @@
 package com.example.productservice.config;
 
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
-import org.springframework.cloud.context.config.annotation.RefreshScope;
-import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 /**
  * 动态配置管理类
+ * <p>
+ * 配置类均为普通的@ConfigurationProperties Bean，Nacos配置变更后由ConfigurationPropertiesRebinder原地重新绑定，
+ * 不使用@RefreshScope代理；需要一致视图的读取方使用 {@link DynamicConfigHolder} 提供的快照
  */
 @Configuration
-@EnableConfigurationProperties
+@EnableConfigurationProperties({DynamicConfigProperties.class, UserLoaderProperties.class, ExportProperties.class,
+        ImportProperties.class, StockProperties.class, WriteBehindProperties.class, VirtualThreadProperties.class,
+        ReactiveProperties.class})
 public class DynamicConfigManager {
-
-    @Bean
-    @RefreshScope
-    public DynamicConfigProperties dynamicConfigProperties() {
-        return new DynamicConfigProperties();
-    }
 }
\ No newline at end of file
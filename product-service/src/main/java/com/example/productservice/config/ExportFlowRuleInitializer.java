@@ -0,0 +1,60 @@
+package com.example.productservice.config;
+
+import com.alibaba.csp.sentinel.slots.block.RuleConstant;
+import com.alibaba.csp.sentinel.slots.block.flow.FlowRule;
+import com.alibaba.csp.sentinel.slots.block.flow.FlowRuleManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 为商品导出注册默认的Sentinel流控规则
+ * 已通过控制台配置了同名资源的规则时不会覆盖
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ExportFlowRuleInitializer implements ApplicationRunner {
+
+    /**
+     * 导出任务资源，按并发线程数限流
+     */
+    public static final String EXPORT_RESOURCE = "product-export";
+
+    /**
+     * 导出批次资源，按QPS匀速排队，控制导出速率
+     */
+    public static final String EXPORT_BATCH_RESOURCE = "product-export-batch";
+
+    private final ExportProperties exportProperties;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        List<FlowRule> rules = new ArrayList<>(FlowRuleManager.getRules());
+
+        if (rules.stream().noneMatch(rule -> EXPORT_RESOURCE.equals(rule.getResource()))) {
+            FlowRule concurrentRule = new FlowRule(EXPORT_RESOURCE);
+            concurrentRule.setGrade(RuleConstant.FLOW_GRADE_THREAD);
+            concurrentRule.setCount(exportProperties.getMaxConcurrent());
+            rules.add(concurrentRule);
+        }
+
+        if (rules.stream().noneMatch(rule -> EXPORT_BATCH_RESOURCE.equals(rule.getResource()))) {
+            FlowRule rateRule = new FlowRule(EXPORT_BATCH_RESOURCE);
+            rateRule.setGrade(RuleConstant.FLOW_GRADE_QPS);
+            rateRule.setCount(Math.max(1.0, (double) exportProperties.getRowsPerSecond() / exportProperties.getBatchSize()));
+            rateRule.setControlBehavior(RuleConstant.CONTROL_BEHAVIOR_RATE_LIMITER);
+            rateRule.setMaxQueueingTimeMs(1000);
+            rules.add(rateRule);
+        }
+
+        FlowRuleManager.loadRules(rules);
+        log.info("商品导出流控规则已加载: 最大并发={}, 速率={}行/秒",
+                exportProperties.getMaxConcurrent(), exportProperties.getRowsPerSecond());
+    }
+}
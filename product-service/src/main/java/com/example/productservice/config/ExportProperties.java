@@ -0,0 +1,27 @@
+package com.example.productservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 商品全量导出配置
+ */
+@Data
+@ConfigurationProperties(prefix = "app.export")
+public class ExportProperties {
+
+    /**
+     * 同时进行的导出任务上限
+     */
+    private int maxConcurrent = 2;
+
+    /**
+     * 每批导出的行数，每批申请一次Sentinel令牌并刷新一次输出
+     */
+    private int batchSize = 500;
+
+    /**
+     * 单节点导出速率上限（行/秒），避免导出挤占在线业务的数据库资源
+     */
+    private int rowsPerSecond = 10000;
+}
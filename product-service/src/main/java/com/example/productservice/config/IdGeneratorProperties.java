@@ -0,0 +1,24 @@
+package com.example.productservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 主键生成器配置，修改后重启生效
+ */
+@Data
+@ConfigurationProperties(prefix = "app.id-generator")
+public class IdGeneratorProperties {
+
+    /**
+     * 保存逻辑时钟的目录，每个服务和机器号一个文件；容器部署时应挂载持久卷，否则重启后从系统时间开始
+     */
+    private String stateDir = "data/snowflake";
+
+    /**
+     * 逻辑时钟每次预先保存的时长，即最多每隔这么久写一次文件；重启后生成的id时间戳最多领先系统时钟这么多
+     */
+    private Duration reserveWindow = Duration.ofSeconds(2);
+}
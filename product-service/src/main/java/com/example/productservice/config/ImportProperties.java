@@ -0,0 +1,32 @@
+package com.example.productservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 商品批量导入配置
+ */
+@Data
+@ConfigurationProperties(prefix = "app.import")
+public class ImportProperties {
+
+    /**
+     * 每批写入数据库的行数，配合数据源URL中的rewriteBatchedStatements=true使用
+     */
+    private int batchSize = 1000;
+
+    /**
+     * 单个导入任务最多记录的错误行数，超出后只计数不记录明细
+     */
+    private int maxErrors = 1000;
+
+    /**
+     * 每批写入成功后是否批量刷新products缓存
+     */
+    private boolean refreshCache = true;
+
+    /**
+     * 保留的已结束导入任务数量，用于查询导入结果
+     */
+    private int retainedJobs = 100;
+}
@@ -0,0 +1,15 @@
+package com.example.productservice.config;
+
+import com.example.productservice.loadbalancer.LatencyAwareLoadBalancerConfiguration;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClients;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 负载均衡配置类，所有服务默认使用 {@link LatencyAwareLoadBalancerConfiguration}
+ */
+@Configuration
+@EnableConfigurationProperties(LoadBalancingProperties.class)
+@LoadBalancerClients(defaultConfiguration = LatencyAwareLoadBalancerConfiguration.class)
+public class LoadBalancerConfig {
+}
@@ -0,0 +1,56 @@
+package com.example.productservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Feign客户端的负载均衡策略配置，可按服务单独指定，修改Nacos配置后对下一次选择立即生效
+ */
+@Data
+@ConfigurationProperties(prefix = "app.load-balancer")
+public class LoadBalancingProperties {
+
+    /**
+     * 默认负载均衡策略
+     */
+    private Strategy strategy = Strategy.ROUND_ROBIN;
+
+    /**
+     * 按服务名覆盖的负载均衡策略
+     */
+    private Map<String, Strategy> services = new HashMap<>();
+
+    /**
+     * 延迟与错误率EWMA的衰减时间常数，越小越快反映实例的最新状态
+     */
+    private Duration decayTime = Duration.ofSeconds(10);
+
+    /**
+     * 错误率的惩罚系数，实例得分 = 延迟EWMA × (进行中请求数 + 1) × (1 + 系数 × 错误率)
+     */
+    private double errorPenalty = 5;
+
+    public Strategy getStrategy(String serviceId) {
+        Strategy override = services.get(serviceId);
+        return override != null ? override : strategy;
+    }
+
+    public enum Strategy {
+        /**
+         * 轮询，Spring Cloud LoadBalancer的默认行为
+         */
+        ROUND_ROBIN,
+        /**
+         * 随机取两个实例，选择进行中请求较少的一个
+         */
+        LEAST_OUTSTANDING,
+        /**
+         * 随机取两个实例，选择峰值EWMA延迟、进行中请求数与错误率综合得分较低的一个
+         */
+        PEAK_EWMA
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.productservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 响应式读取路径配置，仅在激活reactive profile时使用
+ */
+@Data
+@ConfigurationProperties(prefix = "app.reactive")
+public class ReactiveProperties {
+
+    /**
+     * 执行阻塞的数据库查询的线程数上限，不宜超过连接池大小，修改后重启生效
+     */
+    private int blockingThreads = 20;
+
+    /**
+     * 等待执行的数据库查询数量上限，超出时请求直接失败
+     */
+    private int blockingQueueSize = 10000;
+
+    /**
+     * 通过WebClient调用用户服务的超时时间
+     */
+    private Duration userTimeout = Duration.ofSeconds(3);
+}
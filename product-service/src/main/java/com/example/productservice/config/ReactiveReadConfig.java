@@ -0,0 +1,65 @@
+package com.example.productservice.config;
+
+import com.example.productservice.common.VirtualThreads;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.web.reactive.function.client.WebClientCustomizer;
+import org.springframework.cloud.client.loadbalancer.LoadBalanced;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * 响应式读取路径（reactive profile）：商品读取接口返回Mono，缓存读写使用ReactiveRedisTemplate，
+ * 用户服务通过负载均衡的WebClient调用；数据库仍为JDBC，查询在有界的专用线程池上执行，不占用请求线程
+ */
+@Slf4j
+@Configuration
+@Profile("reactive")
+public class ReactiveReadConfig {
+
+    /**
+     * 与redisTemplate使用相同的key和value序列化方式，读写的缓存条目与TwoLevelCache互通
+     */
+    @Bean
+    @SuppressWarnings("unchecked")
+    public ReactiveRedisTemplate<String, Object> reactiveCacheTemplate(ReactiveRedisConnectionFactory connectionFactory,
+                                                                      RedisTemplate<String, Object> redisTemplate) {
+        RedisSerializationContext<String, Object> context = RedisSerializationContext
+                .<String, Object>newSerializationContext(new StringRedisSerializer())
+                .value((RedisSerializer<Object>) redisTemplate.getValueSerializer())
+                .build();
+        return new ReactiveRedisTemplate<>(connectionFactory, context);
+    }
+
+    @Bean
+    @LoadBalanced
+    public WebClient.Builder loadBalancedWebClientBuilder(ObjectProvider<WebClientCustomizer> customizers) {
+        WebClient.Builder builder = WebClient.builder();
+        // 沿用Spring Boot的编解码配置，与Feign一样使用应用的ObjectMapper
+        customizers.orderedStream().forEach(customizer -> customizer.customize(builder));
+        return builder;
+    }
+
+    /**
+     * 执行阻塞数据库查询的调度器，开启虚拟线程模式且JDK支持时改用虚拟线程
+     */
+    @Bean(destroyMethod = "dispose")
+    public Scheduler jdbcScheduler(ReactiveProperties properties, VirtualThreadProperties virtualThreadProperties) {
+        if (virtualThreadProperties.isEnabled() && VirtualThreads.isSupported()) {
+            return Schedulers.fromExecutorService(VirtualThreads.newExecutor("reactive-jdbc-vt-"), "reactive-jdbc");
+        }
+        log.info("响应式读取路径的数据库查询线程数上限: {}", properties.getBlockingThreads());
+        return Schedulers.newBoundedElastic(properties.getBlockingThreads(), properties.getBlockingQueueSize(),
+                "reactive-jdbc", 60, true);
+    }
+}
@@ -1,23 +1,33 @@
 package com.example.productservice.config;
 
-import org.springframework.cache.CacheManager;
+import com.example.productservice.cache.CacheMessageListener;
+import com.example.productservice.cache.CacheWarmer;
+import com.example.productservice.cache.CacheWarmupEndpoint;
+import com.example.productservice.cache.CacheWarmupLoader;
+import com.example.productservice.cache.HotKeyEndpoint;
+import com.example.productservice.cache.TwoLevelCacheManager;
+import com.example.productservice.cache.serializer.CacheMessageCodec;
+import com.example.productservice.cache.serializer.CompactRedisSerializer;
+import com.example.productservice.cache.serializer.ProductCodec;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.data.redis.cache.RedisCacheConfiguration;
-import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
-import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
-import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
 
 @Configuration
+@EnableConfigurationProperties(TwoLevelCacheProperties.class)
 public class RedisConfig {
 
     @Bean
-    public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory connectionFactory) {
+    public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory connectionFactory,
+                                                       TwoLevelCacheProperties cacheProperties) {
         RedisTemplate<String, Object> template = new RedisTemplate<>();
         template.setConnectionFactory(connectionFactory);
 
@@ -25,24 +35,51 @@ public class RedisConfig {
         template.setKeySerializer(new StringRedisSerializer());
         template.setHashKeySerializer(new StringRedisSerializer());
 
-        // 使用Jackson2JsonRedisSerializer来序列化和反序列化redis的value值
-        template.setValueSerializer(new GenericJackson2JsonRedisSerializer());
-        template.setHashValueSerializer(new GenericJackson2JsonRedisSerializer());
+        // value按配置写为紧凑二进制或JSON，读取时两种格式都能识别
+        CompactRedisSerializer valueSerializer = new CompactRedisSerializer(cacheProperties,
+                Arrays.asList(new ProductCodec(), new CacheMessageCodec()));
+        template.setValueSerializer(valueSerializer);
+        template.setHashValueSerializer(valueSerializer);
 
         template.afterPropertiesSet();
         return template;
     }
 
     @Bean
-    public CacheManager cacheManager(RedisConnectionFactory connectionFactory) {
-        RedisCacheConfiguration config = RedisCacheConfiguration.defaultCacheConfig()
-                .entryTtl(Duration.ofMinutes(30)) // 设置缓存过期时间为30分钟
-                .serializeKeysWith(RedisSerializationContext.SerializationPair.fromSerializer(new StringRedisSerializer()))
-                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(new GenericJackson2JsonRedisSerializer()))
-                .disableCachingNullValues(); // 不缓存null值
-
-        return RedisCacheManager.builder(connectionFactory)
-                .cacheDefaults(config)
-                .build();
+    public TwoLevelCacheManager cacheManager(RedisTemplate<String, Object> redisTemplate,
+                                             TwoLevelCacheProperties cacheProperties,
+                                             DynamicConfigProperties dynamicConfigProperties) {
+        // 一级缓存为本地Caffeine，二级缓存为Redis，Redis中的缓存过期时间默认取app.config.cache-expire-minutes
+        return new TwoLevelCacheManager(redisTemplate, cacheProperties, dynamicConfigProperties);
     }
-}
\ No newline at end of file
+
+    @Bean
+    public CacheWarmer cacheWarmer(TwoLevelCacheManager cacheManager, RedisTemplate<String, Object> redisTemplate,
+                                   TwoLevelCacheProperties cacheProperties, List<CacheWarmupLoader> loaders) {
+        // 启动时在注册到Nacos之前按热点排名预热缓存
+        return new CacheWarmer(cacheManager, redisTemplate, cacheProperties, loaders);
+    }
+
+    @Bean
+    public CacheWarmupEndpoint cacheWarmupEndpoint(CacheWarmer cacheWarmer) {
+        return new CacheWarmupEndpoint(cacheWarmer);
+    }
+
+    @Bean
+    public HotKeyEndpoint hotKeyEndpoint(TwoLevelCacheManager cacheManager) {
+        return new HotKeyEndpoint(cacheManager);
+    }
+
+    @Bean
+    public RedisMessageListenerContainer cacheMessageListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                       RedisTemplate<String, Object> redisTemplate,
+                                                                       TwoLevelCacheManager cacheManager,
+                                                                       TwoLevelCacheProperties cacheProperties) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        // 订阅缓存变更频道，其他节点写入或删除缓存时清理本地一级缓存
+        container.addMessageListener(new CacheMessageListener(cacheManager, redisTemplate.getValueSerializer()),
+                new ChannelTopic(cacheProperties.getTopic()));
+        return container;
+    }
+}
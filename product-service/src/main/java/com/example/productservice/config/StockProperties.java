@@ -0,0 +1,44 @@
+package com.example.productservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 库存预占配置 - 预扣减在Redis中完成，数据库库存由后台任务异步对账扣减
+ */
+@Data
+@ConfigurationProperties(prefix = "app.stock")
+public class StockProperties {
+
+    /**
+     * 预占的有效期，超时未确认的预占会自动释放库存
+     */
+    private Duration reservationTimeout = Duration.ofMinutes(15);
+
+    /**
+     * 确认标记的保留时间，期间重复确认同一个预占返回成功（订单服务重启后重新确认），应大于订单服务可能停机的时长
+     */
+    private Duration confirmedRetention = Duration.ofDays(1);
+
+    /**
+     * 后台对账（把已确认的预占扣减到数据库）以及扫描过期预占的间隔
+     */
+    private Duration reconcileInterval = Duration.ofSeconds(1);
+
+    /**
+     * 每次对账最多处理的已确认预占数量
+     */
+    private int reconcileBatchSize = 500;
+
+    /**
+     * 对账锁的超时时间，同一时刻只有持锁的实例处理对账队列；每扣减一个商品前续期，应大于单条扣减语句的最长耗时
+     */
+    private Duration reconcileLockTimeout = Duration.ofMinutes(1);
+
+    /**
+     * 每次最多释放的过期预占数量
+     */
+    private int expireBatchSize = 200;
+}
@@ -0,0 +1,190 @@
+package com.example.productservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 二级缓存配置 - 一级为进程内Caffeine，二级为Redis
+ */
+@Data
+@ConfigurationProperties(prefix = "app.cache")
+public class TwoLevelCacheProperties {
+
+    /**
+     * 缓存变更广播频道，用于通知其他节点清理一级缓存
+     */
+    private String topic = "cache:invalidate";
+
+    /**
+     * Redis过期时间的随机抖动比例，0.1表示在±10%范围内浮动
+     */
+    private double ttlJitter = 0.1;
+
+    /**
+     * 概率提前刷新的激进程度（XFetch的beta），越大越早刷新，0表示关闭
+     */
+    private double earlyRefreshBeta = 1.0;
+
+    /**
+     * 集群回源锁的超时时间，未抢到锁的节点最多等待这么久
+     */
+    private Duration lockTimeout = Duration.ofSeconds(3);
+
+    /**
+     * 默认的缓存区域配置（一级缓存大小、过期时间及Redis过期时间），修改后实时作用于运行中的缓存
+     */
+    private Local local = new Local();
+
+    /**
+     * 按缓存区域（如products）单独配置，未配置的区域使用local
+     */
+    private Map<String, Local> regions = new LinkedHashMap<>();
+
+    /**
+     * Redis中缓存值的序列化方式
+     */
+    private Serializer serializer = new Serializer();
+
+    /**
+     * 启动及缓存配置变更时的热点key预热
+     */
+    private Warmup warmup = new Warmup();
+
+    /**
+     * 热点key检测与本地固定副本、Redis副本
+     */
+    private HotKey hotKey = new HotKey();
+
+    public Local getLocal(String cacheName) {
+        return regions.getOrDefault(cacheName, local);
+    }
+
+    /**
+     * 缓存区域在Redis中的过期时间，区域未单独配置时使用defaultTtl（app.config.cache-expire-minutes）
+     */
+    public Duration getTtl(String cacheName, Duration defaultTtl) {
+        Duration ttl = getLocal(cacheName).getTtl();
+        return ttl != null ? ttl : defaultTtl;
+    }
+
+    @Data
+    public static class Local {
+
+        /**
+         * 一级缓存最大条目数
+         */
+        private long maximumSize = 10000;
+
+        /**
+         * 一级缓存写入后过期时间
+         */
+        private Duration expireAfterWrite = Duration.ofSeconds(60);
+
+        /**
+         * Redis中的过期时间，为空时使用app.config.cache-expire-minutes，0表示不过期
+         */
+        private Duration ttl;
+    }
+
+    @Data
+    public static class Serializer {
+
+        /**
+         * 写入格式，读取时两种格式都支持；集群升级时先保持json，全部节点升级后再切换为binary
+         */
+        private Format format = Format.JSON;
+
+        /**
+         * 二进制编码后超过该字节数的值进行压缩，0表示不压缩
+         */
+        private int compressThreshold = 1024;
+    }
+
+    @Data
+    public static class Warmup {
+
+        /**
+         * 是否在实例注册到Nacos前预热缓存
+         */
+        private boolean enabled = true;
+
+        /**
+         * 每个缓存区域预热的热点key数量，同时也是热点统计保留的候选数量
+         */
+        private int topN = 1000;
+
+        /**
+         * 每批从Redis/数据库加载的key数量
+         */
+        private int batchSize = 200;
+
+        /**
+         * 并行加载的线程数
+         */
+        private int parallelism = 4;
+
+        /**
+         * 预热最长耗时，超时后未完成的批次放弃，实例照常启动
+         */
+        private Duration timeout = Duration.ofSeconds(30);
+
+        /**
+         * 热点统计写入Redis的间隔，写入后本地计数减半
+         */
+        private Duration persistInterval = Duration.ofMinutes(1);
+    }
+
+    @Data
+    public static class HotKey {
+
+        /**
+         * 是否检测热点key
+         */
+        private boolean enabled = true;
+
+        /**
+         * 统计窗口长度
+         */
+        private Duration window = Duration.ofSeconds(5);
+
+        /**
+         * 本节点在一个窗口内访问次数达到该值的key视为热点
+         */
+        private int threshold = 1000;
+
+        /**
+         * 热点key本地固定副本的有效期，也是最后一次达到阈值后保持热点状态的时间
+         */
+        private Duration pinTtl = Duration.ofSeconds(5);
+
+        /**
+         * 热点key在Redis中的副本数，读取在主key和副本间随机分散，0表示不创建副本
+         */
+        private int replicas = 0;
+
+        /**
+         * Redis副本的过期时间，限制副本在异常情况下的最长不一致时间
+         */
+        private Duration replicaTtl = Duration.ofSeconds(10);
+
+        /**
+         * 每个缓存区域最多同时跟踪的热点key数量
+         */
+        private int maxHotKeys = 100;
+    }
+
+    public enum Format {
+        /**
+         * 带类型信息的JSON（GenericJackson2JsonRedisSerializer）
+         */
+        JSON,
+        /**
+         * 紧凑二进制编码
+         */
+        BINARY
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.productservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 用户信息批量合并加载配置
+ */
+@Data
+@ConfigurationProperties(prefix = "app.user-loader")
+public class UserLoaderProperties {
+
+    /**
+     * 是否合并单个用户查询为批量请求
+     */
+    private boolean enabled = false;
+
+    /**
+     * 单个查询最多等待多久再与其他查询一起发出
+     */
+    private Duration maxWait = Duration.ofMillis(5);
+
+    /**
+     * 单批最多合并的用户ID数量，达到后立即发出
+     */
+    private int maxBatchSize = 100;
+
+    /**
+     * 调用方等待批量结果的超时时间
+     */
+    private Duration timeout = Duration.ofSeconds(3);
+}
@@ -0,0 +1,46 @@
+package com.example.productservice.config;
+
+import com.example.productservice.common.VirtualThreads;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * 虚拟线程执行模式：每个请求在独立的虚拟线程上执行，阻塞在Feign、JDBC或sleep上时不占用平台线程，
+ * 并发请求数不再受Tomcat线程池大小限制（仍受max-connections和数据库连接池限制）
+ * <p>
+ * MySQL驱动内部的synchronized会在阻塞期间占住载体线程，数据库并发实际由连接池大小决定
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(prefix = "app.virtual-threads", name = "enabled", havingValue = "true")
+public class VirtualThreadConfig implements WebMvcConfigurer {
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        return protocolHandler -> {
+            if (VirtualThreads.isSupported()) {
+                protocolHandler.setExecutor(VirtualThreads.newExecutor("tomcat-vt-"));
+                log.info("Tomcat请求改为在虚拟线程上执行");
+            } else {
+                log.warn("已开启app.virtual-threads.enabled，但当前JDK({})不支持虚拟线程，继续使用平台线程",
+                        System.getProperty("java.version"));
+            }
+        };
+    }
+
+    /**
+     * 流式导出等异步请求（StreamingResponseBody）同样在虚拟线程上执行
+     */
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        if (VirtualThreads.isSupported()) {
+            configurer.setTaskExecutor(new TaskExecutorAdapter(VirtualThreads.newExecutor("mvc-async-vt-")));
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.productservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 虚拟线程执行模式，需要运行在JDK 21+上，修改后重启生效
+ */
+@Data
+@ConfigurationProperties(prefix = "app.virtual-threads")
+public class VirtualThreadProperties {
+
+    /**
+     * 开启后Tomcat请求、Spring MVC异步请求及后台的阻塞调用（Feign、JDBC）在虚拟线程上执行；
+     * 当前JDK不支持时记录警告并继续使用平台线程
+     */
+    private boolean enabled = false;
+}
@@ -1,56 +1,101 @@
 package com.example.productservice.controller;
 
+import com.alibaba.csp.sentinel.AsyncEntry;
+import com.alibaba.csp.sentinel.SphU;
+import com.alibaba.csp.sentinel.slots.block.BlockException;
 import com.example.productservice.entity.Product;
+import com.example.productservice.dto.ImportJob;
+import com.example.productservice.service.ProductImportService;
 import com.example.productservice.service.ProductService;
 import com.example.productservice.common.Result;
-import com.example.productservice.config.DynamicConfigProperties;
+import com.example.productservice.config.DynamicConfigHolder;
+import com.example.productservice.config.DynamicConfigSnapshot;
+import com.example.productservice.config.ExportFlowRuleInitializer;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.CachePut;
-import org.springframework.cache.annotation.Cacheable;
-import org.springframework.cloud.context.config.annotation.RefreshScope;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.List;
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/products")
 @RequiredArgsConstructor
-@RefreshScope
 @Tag(name = "商品管理", description = "商品相关接口")
 public class ProductController {
 
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
     private final ProductService productService;
-    private final DynamicConfigProperties configProperties;
+    private final ProductImportService productImportService;
+    private final DynamicConfigHolder configHolder;
 
-    @GetMapping
-    @Operation(summary = "获取商品列表")
-    public Result<List<Product>> getProducts() {
-        return Result.success(productService.list());
-    }
+    @GetMapping("/export")
+    @Operation(summary = "以NDJSON格式流式导出全部商品")
+    public ResponseEntity<StreamingResponseBody> exportProducts(
+            @Parameter(description = "从该id之后开始导出，用于断点续传") @RequestParam(defaultValue = "0") long afterId,
+            @Parameter(description = "是否gzip压缩") @RequestParam(defaultValue = "false") boolean gzip) {
+        // 导出在异步线程中执行，使用AsyncEntry以便在其他线程中退出
+        AsyncEntry entry;
+        try {
+            entry = SphU.asyncEntry(ExportFlowRuleInitializer.EXPORT_RESOURCE);
+        } catch (BlockException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).build();
+        }
 
-    @GetMapping("/{id}")
-    @Operation(summary = "根据ID获取商品")
-    @Cacheable(value = "products", key = "#id")
-    public Result<Product> getProductById(@Parameter(description = "商品ID") @PathVariable Long id) {
-        Product product = productService.getProductById(id);
-        if (product != null) {
-            return Result.success(product);
+        StreamingResponseBody body = outputStream -> {
+            try {
+                if (gzip) {
+                    GZIPOutputStream gzipStream = new GZIPOutputStream(outputStream, 64 * 1024);
+                    productService.exportProducts(afterId, gzipStream);
+                    gzipStream.finish();
+                } else {
+                    productService.exportProducts(afterId, outputStream);
+                }
+            } finally {
+                entry.exit();
+            }
+        };
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok().contentType(NDJSON);
+        if (gzip) {
+            builder.header(HttpHeaders.CONTENT_ENCODING, "gzip");
         }
-        return Result.error("商品不存在");
+        return builder.body(body);
+    }
+
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"})
+    @Operation(summary = "批量导入商品，请求体为带表头的CSV或NDJSON")
+    public Result<ImportJob> importProducts(HttpServletRequest request) throws IOException {
+        String format = NDJSON.isCompatibleWith(MediaType.parseMediaType(request.getContentType()))
+                ? ProductImportService.FORMAT_NDJSON : ProductImportService.FORMAT_CSV;
+        return Result.success(productImportService.importProducts(request.getInputStream(), format));
+    }
+
+    @GetMapping("/import/jobs")
+    @Operation(summary = "查询最近的导入任务")
+    public Result<Collection<ImportJob>> listImportJobs() {
+        return Result.success(productImportService.listJobs());
     }
 
-    @GetMapping("/{id}/with-user")
-    @Operation(summary = "获取商品详情，包含用户信息")
-    public Result<Object> getProductWithUserInfo(@Parameter(description = "商品ID") @PathVariable Long id) {
-        Object result = productService.getProductWithUserInfo(id);
-        if (result != null) {
-            return Result.success(result);
+    @GetMapping("/import/jobs/{jobId}")
+    @Operation(summary = "查询导入任务结果")
+    public Result<ImportJob> getImportJob(@Parameter(description = "导入任务ID") @PathVariable String jobId) {
+        ImportJob job = productImportService.getJob(jobId);
+        if (job != null) {
+            return Result.success(job);
         }
-        return Result.error("商品不存在");
+        return Result.error("导入任务不存在");
     }
 
     @PostMapping
@@ -90,7 +135,7 @@ public class ProductController {
 
     @GetMapping("/config")
     @Operation(summary = "获取当前配置信息")
-    public Result<DynamicConfigProperties> getConfig() {
-        return Result.success(configProperties);
+    public Result<DynamicConfigSnapshot> getConfig() {
+        return Result.success(configHolder.get());
     }
 }
\ No newline at end of file
@@ -0,0 +1,96 @@
+package com.example.productservice.controller;
+
+import com.example.productservice.common.CursorPage;
+import com.example.productservice.common.Result;
+import com.example.productservice.entity.Product;
+import com.example.productservice.service.ProductService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.annotation.Profile;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * 商品读取接口（阻塞实现），激活reactive profile时由 {@link ReactiveProductQueryController} 替代
+ */
+@RestController
+@RequestMapping("/products")
+@Profile("!reactive")
+@RequiredArgsConstructor
+@Tag(name = "商品管理", description = "商品相关接口")
+public class ProductQueryController {
+
+    /**
+     * 批量查询单次允许的最大ID数量
+     */
+    static final int MAX_BATCH_SIZE = 200;
+
+    /**
+     * 分页查询每页允许的最大数量
+     */
+    static final int MAX_PAGE_SIZE = 100;
+
+    private final ProductService productService;
+
+    @GetMapping
+    @Operation(summary = "分页获取商品列表")
+    public Result<CursorPage<Product>> getProducts(
+            @Parameter(description = "分页游标，取上一页返回的nextCursor，为空时从第一页开始") @RequestParam(required = false) String cursor,
+            @Parameter(description = "每页数量，最大" + MAX_PAGE_SIZE) @RequestParam(defaultValue = "20") int limit,
+            @Parameter(description = "需要返回的字段，逗号分隔，如id,name") @RequestParam(required = false) List<String> fields) {
+        try {
+            Long afterId = CursorPage.decodeCursor(cursor);
+            int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+            return Result.success(productService.listByCursor(afterId, pageSize, fields));
+        } catch (IllegalArgumentException e) {
+            return Result.error(400, e.getMessage());
+        }
+    }
+
+    @GetMapping("/batch")
+    @Operation(summary = "批量获取商品")
+    public Result<List<Product>> getProductsByIds(@Parameter(description = "商品ID列表，逗号分隔") @RequestParam List<Long> ids) {
+        if (ids.size() > MAX_BATCH_SIZE) {
+            return Result.error("单次最多查询" + MAX_BATCH_SIZE + "个商品");
+        }
+        return Result.success(productService.getCachedProductsByIds(ids));
+    }
+
+    @GetMapping("/with-user")
+    @Operation(summary = "批量获取商品详情，包含用户信息")
+    public Result<List<Object>> getProductsWithUserInfo(@Parameter(description = "商品ID列表，逗号分隔") @RequestParam List<Long> ids) {
+        if (ids.size() > MAX_BATCH_SIZE) {
+            return Result.error("单次最多查询" + MAX_BATCH_SIZE + "个商品");
+        }
+        return Result.success(productService.getProductsWithUserInfo(ids));
+    }
+
+    @GetMapping("/{id}")
+    @Operation(summary = "根据ID获取商品")
+    @Cacheable(value = "products", key = "#id", sync = true)
+    public Result<Product> getProductById(@Parameter(description = "商品ID") @PathVariable Long id) {
+        Product product = productService.getProductById(id);
+        if (product != null) {
+            return Result.success(product);
+        }
+        return Result.error("商品不存在");
+    }
+
+    @GetMapping("/{id}/with-user")
+    @Operation(summary = "获取商品详情，包含用户信息")
+    public Result<Object> getProductWithUserInfo(@Parameter(description = "商品ID") @PathVariable Long id) {
+        Object result = productService.getProductWithUserInfo(id);
+        if (result != null) {
+            return Result.success(result);
+        }
+        return Result.error("商品不存在");
+    }
+}
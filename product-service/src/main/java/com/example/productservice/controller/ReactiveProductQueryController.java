@@ -0,0 +1,87 @@
+package com.example.productservice.controller;
+
+import com.example.productservice.common.CursorPage;
+import com.example.productservice.common.Result;
+import com.example.productservice.entity.Product;
+import com.example.productservice.service.ReactiveProductService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+import static com.example.productservice.controller.ProductQueryController.MAX_BATCH_SIZE;
+import static com.example.productservice.controller.ProductQueryController.MAX_PAGE_SIZE;
+
+/**
+ * 商品读取接口（响应式实现），路径与返回数据同 {@link ProductQueryController}
+ * <p>
+ * 返回Mono的接口由Spring MVC异步处理，等待Redis、数据库或用户服务期间不占用Tomcat请求线程
+ */
+@RestController
+@RequestMapping("/products")
+@Profile("reactive")
+@RequiredArgsConstructor
+@Tag(name = "商品管理", description = "商品相关接口")
+public class ReactiveProductQueryController {
+
+    private final ReactiveProductService reactiveProductService;
+
+    @GetMapping
+    @Operation(summary = "分页获取商品列表")
+    public Mono<Result<CursorPage<Product>>> getProducts(
+            @Parameter(description = "分页游标，取上一页返回的nextCursor，为空时从第一页开始") @RequestParam(required = false) String cursor,
+            @Parameter(description = "每页数量，最大" + MAX_PAGE_SIZE) @RequestParam(defaultValue = "20") int limit,
+            @Parameter(description = "需要返回的字段，逗号分隔，如id,name") @RequestParam(required = false) List<String> fields) {
+        Long afterId;
+        try {
+            afterId = CursorPage.decodeCursor(cursor);
+        } catch (IllegalArgumentException e) {
+            return Mono.just(Result.error(400, e.getMessage()));
+        }
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        return reactiveProductService.listByCursor(afterId, pageSize, fields)
+                .map(Result::success)
+                .onErrorResume(IllegalArgumentException.class, e -> Mono.just(Result.error(400, e.getMessage())));
+    }
+
+    @GetMapping("/batch")
+    @Operation(summary = "批量获取商品")
+    public Mono<Result<List<Product>>> getProductsByIds(@Parameter(description = "商品ID列表，逗号分隔") @RequestParam List<Long> ids) {
+        if (ids.size() > MAX_BATCH_SIZE) {
+            return Mono.just(Result.error("单次最多查询" + MAX_BATCH_SIZE + "个商品"));
+        }
+        return reactiveProductService.getProductsByIds(ids).map(Result::success);
+    }
+
+    @GetMapping("/with-user")
+    @Operation(summary = "批量获取商品详情，包含用户信息")
+    public Mono<Result<List<Object>>> getProductsWithUserInfo(@Parameter(description = "商品ID列表，逗号分隔") @RequestParam List<Long> ids) {
+        if (ids.size() > MAX_BATCH_SIZE) {
+            return Mono.just(Result.error("单次最多查询" + MAX_BATCH_SIZE + "个商品"));
+        }
+        return reactiveProductService.getProductsWithUserInfo(ids).map(Result::success);
+    }
+
+    @GetMapping("/{id}")
+    @Operation(summary = "根据ID获取商品")
+    public Mono<Result<Product>> getProductById(@Parameter(description = "商品ID") @PathVariable Long id) {
+        return reactiveProductService.getProductById(id);
+    }
+
+    @GetMapping("/{id}/with-user")
+    @Operation(summary = "获取商品详情，包含用户信息")
+    public Mono<Result<Object>> getProductWithUserInfo(@Parameter(description = "商品ID") @PathVariable Long id) {
+        return reactiveProductService.getProductWithUserInfo(id)
+                .map(Result::success)
+                .defaultIfEmpty(Result.error("商品不存在"));
+    }
+}
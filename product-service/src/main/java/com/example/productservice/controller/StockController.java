@@ -0,0 +1,90 @@
+package com.example.productservice.controller;
+
+import com.example.productservice.common.Result;
+import com.example.productservice.dto.BatchReservationRequest;
+import com.example.productservice.dto.StockReservation;
+import com.example.productservice.service.StockReservationService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/products")
+@Tag(name = "库存管理", description = "库存预占、确认与释放接口")
+@RequiredArgsConstructor
+public class StockController {
+
+    private final StockReservationService stockReservationService;
+
+    @GetMapping("/{id}/stock")
+    @Operation(summary = "查询可售库存")
+    public Result<Long> getAvailableStock(@Parameter(description = "商品ID") @PathVariable Long id) {
+        try {
+            return Result.success(stockReservationService.getAvailableStock(id));
+        } catch (IllegalArgumentException e) {
+            return Result.error(404, e.getMessage());
+        }
+    }
+
+    @PostMapping("/{id}/reservations")
+    @Operation(summary = "预占库存")
+    public Result<StockReservation> reserve(@Parameter(description = "商品ID") @PathVariable Long id,
+                                            @Parameter(description = "预占数量") @RequestParam(defaultValue = "1") int quantity) {
+        try {
+            return Result.success(stockReservationService.reserve(id, quantity));
+        } catch (IllegalArgumentException e) {
+            return Result.error(400, e.getMessage());
+        } catch (IllegalStateException e) {
+            return Result.error(409, e.getMessage());
+        }
+    }
+
+    @PostMapping("/reservations/batch")
+    @Operation(summary = "批量预占库存，全部成功或全部不预占")
+    public Result<List<StockReservation>> reserveAll(@RequestBody BatchReservationRequest request) {
+        if (request.getItems() == null || request.getItems().isEmpty()) {
+            return Result.error(400, "预占商品不能为空");
+        }
+        if (request.getItems().size() > ProductQueryController.MAX_BATCH_SIZE) {
+            return Result.error(400, "单次最多预占" + ProductQueryController.MAX_BATCH_SIZE + "个商品");
+        }
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        for (BatchReservationRequest.Item item : request.getItems()) {
+            if (item.getProductId() == null || item.getQuantity() == null || item.getQuantity() <= 0) {
+                return Result.error(400, "预占数量必须大于0");
+            }
+            quantities.merge(item.getProductId(), item.getQuantity(), Integer::sum);
+        }
+        try {
+            return Result.success(stockReservationService.reserveAll(quantities));
+        } catch (IllegalArgumentException e) {
+            return Result.error(400, e.getMessage());
+        } catch (IllegalStateException e) {
+            return Result.error(409, e.getMessage());
+        }
+    }
+
+    @PostMapping("/reservations/{reservationId}/confirm")
+    @Operation(summary = "确认预占，库存将异步扣减到数据库")
+    public Result<Boolean> confirm(@Parameter(description = "预占ID") @PathVariable String reservationId) {
+        if (stockReservationService.confirm(reservationId)) {
+            return Result.success(true);
+        }
+        return Result.error(404, "预占不存在或已过期");
+    }
+
+    @DeleteMapping("/reservations/{reservationId}")
+    @Operation(summary = "释放预占并归还库存")
+    public Result<Boolean> release(@Parameter(description = "预占ID") @PathVariable String reservationId) {
+        if (stockReservationService.release(reservationId)) {
+            return Result.success(true);
+        }
+        return Result.error(404, "预占不存在或已确认");
+    }
+}
@@ -0,0 +1,432 @@
+package com.example.productservice.datasource;
+
+import com.example.productservice.config.DataSourceRoutingProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.cloud.context.scope.refresh.RefreshScopeRefreshedEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 读写分离数据源：只读区域（{@link ReadOnly}）内获取的连接来自从库，其余来自主库
+ * <p>
+ * 同一调用方在stickyWindow内有过写入时读取仍走主库；复制延迟超过maxLag或无法连接的从库移出轮转；
+ * 没有可用从库或从库获取连接失败时回退到主库
+ */
+@Slf4j
+public class ReadWriteRoutingDataSource extends AbstractDataSource
+        implements InitializingBean, DisposableBean, MeterBinder, ApplicationListener<RefreshScopeRefreshedEvent> {
+
+    private final HikariDataSource primary;
+    private final DataSourceRoutingProperties properties;
+
+    private volatile List<ReplicaNode> replicas = Collections.emptyList();
+    private ScheduledExecutorService scheduler;
+    private volatile boolean running;
+    private volatile MeterRegistry registry;
+
+    /**
+     * 调用方最近一次写入的时间，过期时间随stickyWindow实时变化
+     */
+    private final Cache<String, Long> recentWrites;
+
+    private final LongAdder replicaReads = new LongAdder();
+    private final LongAdder primaryReads = new LongAdder();
+    private final LongAdder stickyReads = new LongAdder();
+    private final LongAdder fallbackReads = new LongAdder();
+
+    public ReadWriteRoutingDataSource(HikariDataSource primary, DataSourceRoutingProperties properties) {
+        this.primary = primary;
+        this.properties = properties;
+        this.recentWrites = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfter(new Expiry<String, Long>() {
+                    @Override
+                    public long expireAfterCreate(String key, Long value, long currentTime) {
+                        return properties.getStickyWindow().toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Long value, long currentTime, long currentDuration) {
+                        return properties.getStickyWindow().toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Long value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        ReplicaNode replica = route();
+        if (replica == null) {
+            return primary.getConnection();
+        }
+        try {
+            Connection connection = replica.dataSource.getConnection();
+            replicaReads.increment();
+            return connection;
+        } catch (SQLException e) {
+            replica.markDown(e.getMessage());
+            fallbackReads.increment();
+            return primary.getConnection();
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        ReplicaNode replica = route();
+        if (replica == null) {
+            return primary.getConnection(username, password);
+        }
+        try {
+            Connection connection = replica.dataSource.getConnection(username, password);
+            replicaReads.increment();
+            return connection;
+        } catch (SQLException e) {
+            replica.markDown(e.getMessage());
+            fallbackReads.increment();
+            return primary.getConnection(username, password);
+        }
+    }
+
+    /**
+     * 记录当前调用方的一次写入，之后stickyWindow内的读取走主库
+     */
+    public void recordWrite() {
+        String caller = RoutingContext.currentCaller();
+        if (caller != null) {
+            recentWrites.put(caller, System.nanoTime());
+        }
+    }
+
+    /**
+     * 选择本次连接使用的从库，返回null时使用主库
+     */
+    private ReplicaNode route() {
+        if (!RoutingContext.isReadOnly()) {
+            return null;
+        }
+        List<ReplicaNode> nodes = replicas;
+        if (!properties.isReadReplicaEnabled() || nodes.isEmpty()) {
+            primaryReads.increment();
+            return null;
+        }
+        String caller = RoutingContext.currentCaller();
+        if (caller != null && recentWrites.getIfPresent(caller) != null) {
+            stickyReads.increment();
+            return null;
+        }
+        ReplicaNode chosen = properties.getStrategy() == DataSourceRoutingProperties.Strategy.WEIGHTED
+                ? chooseWeighted(nodes) : chooseLeastConnections(nodes);
+        if (chosen == null) {
+            primaryReads.increment();
+        }
+        return chosen;
+    }
+
+    private static ReplicaNode chooseLeastConnections(List<ReplicaNode> nodes) {
+        // 从随机位置开始遍历，活跃连接数相同的从库之间均匀分布
+        int start = ThreadLocalRandom.current().nextInt(nodes.size());
+        ReplicaNode best = null;
+        double bestLoad = Double.MAX_VALUE;
+        for (int i = 0; i < nodes.size(); i++) {
+            ReplicaNode node = nodes.get((start + i) % nodes.size());
+            if (!node.available) {
+                continue;
+            }
+            double load = (double) node.activeConnections() / node.weight();
+            if (load < bestLoad) {
+                best = node;
+                bestLoad = load;
+            }
+        }
+        return best;
+    }
+
+    private static ReplicaNode chooseWeighted(List<ReplicaNode> nodes) {
+        int total = 0;
+        for (ReplicaNode node : nodes) {
+            if (node.available) {
+                total += node.weight();
+            }
+        }
+        if (total == 0) {
+            return null;
+        }
+        int point = ThreadLocalRandom.current().nextInt(total);
+        for (ReplicaNode node : nodes) {
+            if (node.available) {
+                point -= node.weight();
+                if (point < 0) {
+                    return node;
+                }
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("replica-lag-");
+        threadFactory.setDaemon(true);
+        scheduler = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        running = true;
+        reloadReplicas();
+        scheduleLagCheck();
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        running = false;
+        scheduler.shutdownNow();
+        for (ReplicaNode node : replicas) {
+            node.close();
+        }
+        replicas = Collections.emptyList();
+    }
+
+    /**
+     * 从库列表通过Nacos修改后，新增的从库建立连接池，移除的从库关闭连接池，未变化的保留
+     */
+    @Override
+    public void onApplicationEvent(RefreshScopeRefreshedEvent event) {
+        if (running) {
+            reloadReplicas();
+        }
+    }
+
+    private synchronized void reloadReplicas() {
+        List<DataSourceRoutingProperties.Replica> configs = properties.getReplicas();
+        List<ReplicaNode> current = replicas;
+        Map<DataSourceRoutingProperties.Replica, ReplicaNode> existing = new HashMap<>();
+        current.forEach(node -> existing.put(node.config, node));
+
+        List<ReplicaNode> updated = new ArrayList<>(configs.size());
+        for (DataSourceRoutingProperties.Replica config : configs) {
+            ReplicaNode node = existing.remove(config);
+            updated.add(node != null ? node : createNode(config));
+        }
+        if (existing.isEmpty() && updated.size() == current.size()) {
+            return;
+        }
+        replicas = Collections.unmodifiableList(updated);
+        for (ReplicaNode removed : existing.values()) {
+            removed.close();
+        }
+        log.info("从库列表已更新: {}", updated.stream().map(node -> node.name).toArray());
+        try {
+            scheduler.execute(this::checkLag);
+        } catch (RejectedExecutionException e) {
+            log.debug("从库延迟检查已停止");
+        }
+    }
+
+    private ReplicaNode createNode(DataSourceRoutingProperties.Replica config) {
+        String name = config.getName() != null ? config.getName() : config.getUrl();
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName("replica-" + name);
+        dataSource.setJdbcUrl(config.getUrl());
+        dataSource.setUsername(config.getUsername() != null ? config.getUsername() : primary.getUsername());
+        dataSource.setPassword(config.getPassword() != null ? config.getPassword() : primary.getPassword());
+        if (primary.getDriverClassName() != null) {
+            dataSource.setDriverClassName(primary.getDriverClassName());
+        }
+        // 沿用主库的驱动参数（预编译语句缓存等）
+        dataSource.setDataSourceProperties(primary.getDataSourceProperties());
+        dataSource.setMaximumPoolSize(config.getMaximumPoolSize());
+        dataSource.setConnectionTimeout(config.getConnectionTimeout().toMillis());
+        dataSource.setReadOnly(true);
+        // 从库不可用时不阻止启动，由延迟检查标记为不可用
+        dataSource.setInitializationFailTimeout(-1);
+        ReplicaNode node = new ReplicaNode(name, config, dataSource);
+        MeterRegistry meterRegistry = registry;
+        if (meterRegistry != null) {
+            node.registerMeters(meterRegistry);
+        }
+        return node;
+    }
+
+    private void scheduleLagCheck() {
+        if (!running) {
+            return;
+        }
+        try {
+            scheduler.schedule(() -> {
+                checkLag();
+                scheduleLagCheck();
+            }, properties.getLagCheckInterval().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            log.debug("从库延迟检查已停止");
+        }
+    }
+
+    private void checkLag() {
+        for (ReplicaNode node : replicas) {
+            try (Connection connection = node.dataSource.getConnection();
+                 Statement statement = connection.createStatement()) {
+                statement.setQueryTimeout(Math.max(1, (int) properties.getLagCheckInterval().getSeconds()));
+                try (ResultSet resultSet = statement.executeQuery(properties.getLagQuery())) {
+                    Long lagSeconds = resultSet.next() ? readLagSeconds(resultSet) : Long.valueOf(0);
+                    if (lagSeconds == null) {
+                        node.markDown("复制未运行");
+                    } else {
+                        node.updateLag(lagSeconds, properties.getMaxLag().getSeconds());
+                    }
+                }
+            } catch (SQLException | RuntimeException e) {
+                node.markDown(e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 读取复制延迟秒数，复制线程未运行时为null，结果中没有延迟列时视为没有延迟
+     */
+    private static Long readLagSeconds(ResultSet resultSet) throws SQLException {
+        ResultSetMetaData metaData = resultSet.getMetaData();
+        for (int i = 1; i <= metaData.getColumnCount(); i++) {
+            String column = metaData.getColumnLabel(i);
+            if ("Seconds_Behind_Master".equalsIgnoreCase(column) || "Seconds_Behind_Source".equalsIgnoreCase(column)) {
+                long lag = resultSet.getLong(i);
+                return resultSet.wasNull() ? null : lag;
+            }
+        }
+        return 0L;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("datasource.routing.reads", replicaReads, LongAdder::sum)
+                .description("只读连接的路由结果")
+                .tags("route", "replica")
+                .register(registry);
+        FunctionCounter.builder("datasource.routing.reads", primaryReads, LongAdder::sum)
+                .description("只读连接的路由结果")
+                .tags("route", "primary")
+                .register(registry);
+        FunctionCounter.builder("datasource.routing.reads", stickyReads, LongAdder::sum)
+                .description("只读连接的路由结果")
+                .tags("route", "sticky")
+                .register(registry);
+        FunctionCounter.builder("datasource.routing.reads", fallbackReads, LongAdder::sum)
+                .description("只读连接的路由结果")
+                .tags("route", "fallback")
+                .register(registry);
+        synchronized (this) {
+            this.registry = registry;
+            replicas.forEach(node -> node.registerMeters(registry));
+        }
+    }
+
+    private static final class ReplicaNode {
+
+        final String name;
+        final DataSourceRoutingProperties.Replica config;
+        final HikariDataSource dataSource;
+
+        /**
+         * 是否在轮转中，首次延迟检查前视为可用
+         */
+        volatile boolean available = true;
+        volatile double lagSeconds = Double.NaN;
+        private final List<Meter> meters = new ArrayList<>();
+        private MeterRegistry registry;
+
+        ReplicaNode(String name, DataSourceRoutingProperties.Replica config, HikariDataSource dataSource) {
+            this.name = name;
+            this.config = config;
+            this.dataSource = dataSource;
+        }
+
+        int weight() {
+            return Math.max(1, config.getWeight());
+        }
+
+        int activeConnections() {
+            HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+            return pool != null ? pool.getActiveConnections() : 0;
+        }
+
+        void updateLag(long lag, long maxLag) {
+            lagSeconds = lag;
+            boolean withinLag = lag <= maxLag;
+            if (withinLag != available) {
+                log.info("从库{}轮转: replica={}, lag={}s, maxLag={}s", withinLag ? "加入" : "移出", name, lag, maxLag);
+            }
+            available = withinLag;
+        }
+
+        void markDown(String reason) {
+            lagSeconds = Double.NaN;
+            if (available) {
+                log.warn("从库移出轮转: replica={}, reason={}", name, reason);
+            }
+            available = false;
+        }
+
+        synchronized void registerMeters(MeterRegistry meterRegistry) {
+            if (registry != null) {
+                return;
+            }
+            registry = meterRegistry;
+            // 与主库一致发布hikaricp.connections.*指标，pool标签为连接池名称
+            dataSource.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            meters.add(Gauge.builder("datasource.replica.lag", this, node -> node.lagSeconds)
+                    .description("从库复制延迟")
+                    .baseUnit("seconds")
+                    .tags("replica", name)
+                    .register(meterRegistry));
+            meters.add(Gauge.builder("datasource.replica.available", this, node -> node.available ? 1 : 0)
+                    .description("从库是否在轮转中")
+                    .tags("replica", name)
+                    .register(meterRegistry));
+            meters.add(Gauge.builder("datasource.replica.active", this, ReplicaNode::activeConnections)
+                    .description("从库活跃连接数")
+                    .tags("replica", name)
+                    .register(meterRegistry));
+        }
+
+        synchronized void close() {
+            available = false;
+            if (registry != null) {
+                meters.forEach(registry::remove);
+                meters.clear();
+            }
+            dataSource.close();
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.productservice.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 批量预占库存请求，所有商品一起预占成功或全部不预占
+ */
+@Data
+public class BatchReservationRequest {
+
+    private List<Item> items;
+
+    @Data
+    public static class Item {
+
+        private Long productId;
+
+        private Integer quantity;
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.productservice.dto;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 商品批量导入任务，记录导入进度与出错的行
+ */
+@Getter
+public class ImportJob {
+
+    public enum Status {
+        RUNNING, COMPLETED, FAILED
+    }
+
+    private final String jobId = UUID.randomUUID().toString();
+    private final String format;
+    private final long startedAt = System.currentTimeMillis();
+    private volatile Long finishedAt;
+    private volatile Status status = Status.RUNNING;
+    private volatile String message;
+
+    /**
+     * 已读取的数据行数
+     */
+    private final AtomicLong processed = new AtomicLong();
+
+    /**
+     * 成功写入数据库的行数
+     */
+    private final AtomicLong imported = new AtomicLong();
+
+    /**
+     * 校验或写入失败的行数
+     */
+    private final AtomicLong failed = new AtomicLong();
+
+    private final List<RowError> errors = Collections.synchronizedList(new ArrayList<>());
+
+    @Getter(AccessLevel.NONE)
+    private final int maxErrors;
+
+    public ImportJob(String format, int maxErrors) {
+        this.format = format;
+        this.maxErrors = maxErrors;
+    }
+
+    public void addError(long row, String error) {
+        failed.incrementAndGet();
+        if (errors.size() < maxErrors) {
+            errors.add(new RowError(row, error));
+        }
+    }
+
+    public void complete() {
+        finish(Status.COMPLETED, null);
+    }
+
+    public void fail(String message) {
+        finish(Status.FAILED, message);
+    }
+
+    /**
+     * 导入速率（行/秒）
+     */
+    public double getRowsPerSecond() {
+        long end = finishedAt != null ? finishedAt : System.currentTimeMillis();
+        long elapsed = Math.max(1, end - startedAt);
+        return imported.get() * 1000.0 / elapsed;
+    }
+
+    private void finish(Status status, String message) {
+        this.message = message;
+        this.finishedAt = System.currentTimeMillis();
+        this.status = status;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class RowError {
+
+        /**
+         * 出错的行号（从1开始，CSV包含表头行）
+         */
+        private final long row;
+
+        private final String message;
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.productservice.dto;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 库存预占结果
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockReservation {
+
+    private String reservationId;
+
+    @JsonSerialize(using = ToStringSerializer.class)
+    private Long productId;
+
+    private Integer quantity;
+
+    /**
+     * 预占后剩余的可售库存
+     */
+    private Long remaining;
+
+    /**
+     * 预占过期时间（毫秒时间戳），之前需要确认，否则自动释放
+     */
+    private Long expireAt;
+}
@@ -1,6 +1,8 @@
 package com.example.productservice.entity;
 
 import com.baomidou.mybatisplus.annotation.*;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
 import lombok.Data;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -9,7 +11,11 @@ import java.time.LocalDateTime;
 @TableName("products")
 public class Product {
 
-    @TableId(type = IdType.AUTO)
+    /**
+     * Snowflake主键超过JavaScript的安全整数范围（2^53），JSON中以字符串输出
+     */
+    @TableId(type = IdType.ASSIGN_ID)
+    @JsonSerialize(using = ToStringSerializer.class)
     private Long id;
 
     private String name;
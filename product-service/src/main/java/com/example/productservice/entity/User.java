@@ -1,9 +1,15 @@
 package com.example.productservice.entity;
 
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
 import lombok.Data;
 
 @Data
 public class User {
+    /**
+     * Snowflake主键超过JavaScript的安全整数范围（2^53），JSON中以字符串输出
+     */
+    @JsonSerialize(using = ToStringSerializer.class)
     private Long id;
     private String username;
     private String email;
@@ -0,0 +1,22 @@
+package com.example.productservice.event;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * 低库存事件，可售库存从预警数量之上降到预警数量之下时发布
+ */
+@Getter
+public class LowStockEvent extends ApplicationEvent {
+
+    private final Long productId;
+    private final long remaining;
+    private final int threshold;
+
+    public LowStockEvent(Object source, Long productId, long remaining, int threshold) {
+        super(source);
+        this.productId = productId;
+        this.remaining = remaining;
+        this.threshold = threshold;
+    }
+}
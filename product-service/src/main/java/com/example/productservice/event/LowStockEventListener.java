@@ -0,0 +1,19 @@
+package com.example.productservice.event;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * 低库存预警，目前只记录日志，可在此接入补货或通知
+ */
+@Slf4j
+@Component
+public class LowStockEventListener {
+
+    @EventListener
+    public void onLowStock(LowStockEvent event) {
+        log.warn("商品库存不足预警: productId={}, remaining={}, threshold={}",
+                event.getProductId(), event.getRemaining(), event.getThreshold());
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.productservice.loadbalancer;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 单个服务实例的负载统计：进行中请求数、峰值EWMA延迟与错误率EWMA
+ * 延迟高于当前EWMA时直接取新值（峰值），低于时按时间衰减平滑，使变慢的实例能被立即避开、恢复后逐步回到正常权重
+ */
+public class InstanceStats {
+
+    /**
+     * 尚无延迟样本但已有请求在途时的得分，避免新实例在首个响应返回前被集中压入请求
+     */
+    private static final double PENALTY = 1e12;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private double latencyEwma;
+    private double errorEwma;
+    private long lastUpdate = System.nanoTime();
+
+    public void onStart() {
+        inFlight.incrementAndGet();
+    }
+
+    /**
+     * 请求被取消（如对冲请求落败）时只减少进行中计数，不计入延迟样本
+     */
+    public void onCancel() {
+        inFlight.decrementAndGet();
+    }
+
+    public void onComplete(long latencyNanos, boolean failed, long decayNanos) {
+        inFlight.decrementAndGet();
+        synchronized (this) {
+            long now = System.nanoTime();
+            double weight = Math.exp(-(now - lastUpdate) / (double) decayNanos);
+            lastUpdate = now;
+            latencyEwma = latencyNanos > latencyEwma ? latencyNanos : latencyEwma * weight + latencyNanos * (1 - weight);
+            errorEwma = errorEwma * weight + (failed ? 1 - weight : 0);
+        }
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * 实例得分，越低越优先；统计值在没有新样本时向0衰减，使长时间未被选中的慢实例能被重新探测
+     */
+    public double cost(long decayNanos, double errorPenalty) {
+        double latency;
+        double errors;
+        long last;
+        synchronized (this) {
+            latency = latencyEwma;
+            errors = errorEwma;
+            last = lastUpdate;
+        }
+        int pending = inFlight.get();
+        if (latency == 0 && pending > 0) {
+            return PENALTY + pending;
+        }
+        double weight = Math.exp(-(System.nanoTime() - last) / (double) decayNanos);
+        return (latency * weight + 1) * (pending + 1) * (1 + errorPenalty * errors * weight);
+    }
+}
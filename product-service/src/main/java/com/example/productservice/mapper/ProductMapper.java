@@ -3,7 +3,29 @@ package com.example.productservice.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.example.productservice.entity.Product;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.mapping.ResultSetType;
 
 @Mapper
 public interface ProductMapper extends BaseMapper<Product> {
-}
\ No newline at end of file
+
+    /**
+     * 按id顺序流式读取商品，fetchSize为Integer.MIN_VALUE时MySQL驱动逐行返回结果，不会一次性加载到内存
+     * 需要在事务内使用，事务结束前必须关闭Cursor
+     */
+    @Select("SELECT id, name, description, price, stock, category_id, created_time, updated_time, deleted "
+            + "FROM products WHERE deleted = 0 AND id > #{afterId} ORDER BY id")
+    @Options(fetchSize = Integer.MIN_VALUE, resultSetType = ResultSetType.FORWARD_ONLY)
+    Cursor<Product> streamAfter(@Param("afterId") long afterId);
+
+    /**
+     * 条件扣减库存，库存不足时不更新并返回0，保证数据库中的库存不会为负
+     */
+    @Update("UPDATE products SET stock = stock - #{quantity} "
+            + "WHERE id = #{id} AND stock >= #{quantity} AND deleted = 0")
+    int deductStock(@Param("id") long id, @Param("quantity") int quantity);
+}
@@ -0,0 +1,26 @@
+package com.example.productservice.service;
+
+import com.example.productservice.dto.ImportJob;
+
+import java.io.InputStream;
+import java.util.Collection;
+
+public interface ProductImportService {
+
+    String FORMAT_CSV = "csv";
+
+    String FORMAT_NDJSON = "ndjson";
+
+    /**
+     * 从输入流逐行读取并导入商品，边读边校验，按批写入数据库
+     *
+     * @param in     CSV（首行为表头）或NDJSON格式的商品数据
+     * @param format {@link #FORMAT_CSV} 或 {@link #FORMAT_NDJSON}
+     * @return 导入结束后的任务报告
+     */
+    ImportJob importProducts(InputStream in, String format);
+
+    ImportJob getJob(String jobId);
+
+    Collection<ImportJob> listJobs();
+}
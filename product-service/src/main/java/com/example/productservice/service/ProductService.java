@@ -1,14 +1,42 @@
 package com.example.productservice.service;
 
+import com.example.productservice.common.CursorPage;
 import com.example.productservice.entity.Product;
+import java.io.OutputStream;
+import java.util.Collection;
 import java.util.List;
 
 public interface ProductService {
 
-    List<Product> list();
-    
     Product getProductById(Long id);
 
+    /**
+     * 批量获取商品，不存在的id忽略，返回顺序不保证与ids一致
+     */
+    List<Product> getProductsByIds(Collection<Long> ids);
+
+    /**
+     * 批量获取商品，先批量查询products缓存，未命中的一次性从主库查询并回填缓存；
+     * 不存在的id忽略，返回顺序与ids一致（重复的id只返回一次）
+     */
+    List<Product> getCachedProductsByIds(List<Long> ids);
+
+    /**
+     * 基于游标（主键id）分页获取商品列表
+     *
+     * @param afterId 上一页最后一条记录的id，为null时从第一页开始
+     * @param limit   每页数量
+     * @param fields  需要查询的字段（属性名），为空时查询全部字段
+     */
+    CursorPage<Product> listByCursor(Long afterId, int limit, Collection<String> fields);
+
+    /**
+     * 以NDJSON格式（每行一个JSON）流式导出id大于afterId的全部商品
+     *
+     * @return 导出的行数
+     */
+    long exportProducts(long afterId, OutputStream out);
+
     boolean createProduct(Product product);
 
     boolean updateProduct(Product product);
@@ -20,4 +48,9 @@ public interface ProductService {
      */
     Object getProductWithUserInfo(Long id);
 
+    /**
+     * 批量获取商品详情，包含用户信息，只调用一次用户服务
+     */
+    List<Object> getProductsWithUserInfo(List<Long> ids);
+
 }
\ No newline at end of file
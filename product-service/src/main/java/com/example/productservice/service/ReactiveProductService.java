@@ -0,0 +1,40 @@
+package com.example.productservice.service;
+
+import com.example.productservice.common.CursorPage;
+import com.example.productservice.common.Result;
+import com.example.productservice.entity.Product;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 商品读取的响应式实现，仅在reactive profile下存在，返回的数据与 {@link ProductService} 一致
+ */
+public interface ReactiveProductService {
+
+    /**
+     * 根据ID获取商品，先读Redis中的商品缓存，未命中时查库并回填，缓存值与阻塞路径通用
+     */
+    Mono<Result<Product>> getProductById(Long id);
+
+    /**
+     * 批量获取商品，同 {@link ProductService#getCachedProductsByIds}
+     */
+    Mono<List<Product>> getProductsByIds(List<Long> ids);
+
+    /**
+     * 基于游标分页获取商品列表，参数含义同 {@link ProductService#listByCursor}
+     */
+    Mono<CursorPage<Product>> listByCursor(Long afterId, int limit, Collection<String> fields);
+
+    /**
+     * 获取商品详情，包含用户信息，商品不存在时为空
+     */
+    Mono<Object> getProductWithUserInfo(Long id);
+
+    /**
+     * 批量获取商品详情，包含用户信息，只调用一次用户服务
+     */
+    Mono<List<Object>> getProductsWithUserInfo(List<Long> ids);
+}
@@ -0,0 +1,51 @@
+package com.example.productservice.service;
+
+import com.example.productservice.dto.StockReservation;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 库存预占服务
+ * 预占（reserve）在Redis中原子扣减可售库存，确认（confirm）后由后台任务异步扣减数据库库存，
+ * 释放（release）或超时则归还可售库存
+ */
+public interface StockReservationService {
+
+    /**
+     * 预占库存
+     *
+     * @throws IllegalArgumentException 数量不合法或商品不存在
+     * @throws IllegalStateException     可售库存不足
+     */
+    StockReservation reserve(Long productId, int quantity);
+
+    /**
+     * 在一次Redis调用中预占多个商品的库存，全部成功或全部不预占
+     *
+     * @param quantities 商品ID到预占数量，返回的预占结果与其迭代顺序一致
+     * @throws IllegalArgumentException 数量不合法或商品不存在
+     * @throws IllegalStateException     任一商品可售库存不足
+     */
+    List<StockReservation> reserveAll(Map<Long, Integer> quantities);
+
+    /**
+     * 确认预占，预占不存在或已过期时返回false；重复确认（app.stock.confirmed-retention内）返回true，不会重复扣减
+     */
+    boolean confirm(String reservationId);
+
+    /**
+     * 释放预占并归还库存，预占不存在或已确认时返回false
+     */
+    boolean release(String reservationId);
+
+    /**
+     * 查询当前可售库存（数据库库存减去未对账的预占）
+     */
+    long getAvailableStock(Long productId);
+
+    /**
+     * 数据库库存被直接修改后调用，下次预占时重新从数据库加载可售库存
+     */
+    void resetAvailableStock(Long productId);
+}
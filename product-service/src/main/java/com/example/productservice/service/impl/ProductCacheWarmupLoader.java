@@ -0,0 +1,55 @@
+package com.example.productservice.service.impl;
+
+import com.example.productservice.cache.CacheWarmupLoader;
+import com.example.productservice.common.Result;
+import com.example.productservice.entity.Product;
+import com.example.productservice.mapper.ProductMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * products缓存的预热加载器，缓存值与ProductController一致为Result<Product>
+ */
+@Component
+public class ProductCacheWarmupLoader implements CacheWarmupLoader {
+
+    @Autowired
+    private ProductMapper productMapper;
+
+    @Autowired
+    private ProductWriteBehindBuffer productWriteBehindBuffer;
+
+    @Override
+    public String getCacheName() {
+        return "products";
+    }
+
+    /**
+     * 预热结果写入共享缓存，从主库加载，避免缓存从库延迟期间的旧值
+     */
+    @Override
+    public Map<Object, Object> load(List<String> cacheKeys) {
+        List<Long> ids = new ArrayList<>(cacheKeys.size());
+        for (String cacheKey : cacheKeys) {
+            try {
+                ids.add(Long.valueOf(cacheKey));
+            } catch (NumberFormatException e) {
+                // 非商品ID的key不预热
+            }
+        }
+        Map<Object, Object> values = new HashMap<>();
+        if (!ids.isEmpty()) {
+            for (Product row : productMapper.selectBatchIds(ids)) {
+                // 叠加写回缓冲中尚未写入数据库的修改，与回源查询一致
+                Product product = productWriteBehindBuffer.overlay(row);
+                values.put(product.getId(), Result.success(product));
+            }
+        }
+        return values;
+    }
+}
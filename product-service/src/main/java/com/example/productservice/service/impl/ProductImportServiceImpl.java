@@ -0,0 +1,300 @@
+package com.example.productservice.service.impl;
+
+import com.example.productservice.cache.TwoLevelCache;
+import com.example.productservice.common.Result;
+import com.example.productservice.config.ImportProperties;
+import com.example.productservice.dto.ImportJob;
+import com.example.productservice.entity.Product;
+import com.example.productservice.mapper.ProductMapper;
+import com.example.productservice.service.ProductImportService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Slf4j
+@Service
+public class ProductImportServiceImpl implements ProductImportService {
+
+    private static final int NAME_MAX_LENGTH = 100;
+
+    @Autowired
+    private SqlSessionFactory sqlSessionFactory;
+
+    @Autowired
+    private ProductMapper productMapper;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ImportProperties importProperties;
+
+    /**
+     * 导入任务，按创建顺序保存，超过保留数量时移除最早结束的任务
+     */
+    private final Map<String, ImportJob> jobs = Collections.synchronizedMap(new LinkedHashMap<>());
+
+    @Override
+    public ImportJob importProducts(InputStream in, String format) {
+        ImportJob job = new ImportJob(format, importProperties.getMaxErrors());
+        registerJob(job);
+        log.info("开始导入商品: jobId={}, format={}", job.getJobId(), format);
+
+        int batchSize = importProperties.getBatchSize();
+        List<Product> batch = new ArrayList<>(batchSize);
+        List<Long> batchRows = new ArrayList<>(batchSize);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 64 * 1024)) {
+            long row = 0;
+            Map<String, Integer> header = null;
+            if (FORMAT_CSV.equals(format)) {
+                String headerLine = reader.readLine();
+                if (headerLine == null) {
+                    job.complete();
+                    return job;
+                }
+                row++;
+                header = parseHeader(headerLine);
+            }
+
+            String line;
+            while ((line = reader.readLine()) != null) {
+                row++;
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                job.getProcessed().incrementAndGet();
+                try {
+                    Product product = header != null ? parseCsv(line, header) : parseNdjson(line);
+                    validate(product);
+                    batch.add(product);
+                    batchRows.add(row);
+                } catch (IllegalArgumentException e) {
+                    job.addError(row, e.getMessage());
+                }
+
+                if (batch.size() >= batchSize) {
+                    writeBatch(job, batch, batchRows);
+                    batch.clear();
+                    batchRows.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                writeBatch(job, batch, batchRows);
+            }
+            job.complete();
+        } catch (IOException | RuntimeException e) {
+            log.error("商品导入失败: jobId={}", job.getJobId(), e);
+            job.fail(e.getMessage());
+        }
+        log.info("商品导入结束: jobId={}, status={}, imported={}, failed={}, rows/s={}", job.getJobId(),
+                job.getStatus(), job.getImported().get(), job.getFailed().get(), (long) job.getRowsPerSecond());
+        return job;
+    }
+
+    @Override
+    public ImportJob getJob(String jobId) {
+        return jobs.get(jobId);
+    }
+
+    @Override
+    public Collection<ImportJob> listJobs() {
+        synchronized (jobs) {
+            return new ArrayList<>(jobs.values());
+        }
+    }
+
+    /**
+     * 使用BATCH执行器写入一批商品，整批失败时逐行重试以定位出错的行
+     */
+    private void writeBatch(ImportJob job, List<Product> batch, List<Long> batchRows) {
+        try (SqlSession session = sqlSessionFactory.openSession(ExecutorType.BATCH, false)) {
+            ProductMapper mapper = session.getMapper(ProductMapper.class);
+            try {
+                for (Product product : batch) {
+                    mapper.insert(product);
+                }
+                session.flushStatements();
+                session.commit();
+                job.getImported().addAndGet(batch.size());
+                refreshCache(batch);
+                return;
+            } catch (RuntimeException e) {
+                session.rollback();
+                log.warn("批量写入失败，改为逐行写入: jobId={}, error={}", job.getJobId(), rootMessage(e));
+            }
+        }
+
+        List<Product> imported = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            Product product = batch.get(i);
+            product.setId(null);
+            try {
+                productMapper.insert(product);
+                job.getImported().incrementAndGet();
+                imported.add(product);
+            } catch (RuntimeException e) {
+                job.addError(batchRows.get(i), rootMessage(e));
+            }
+        }
+        refreshCache(imported);
+    }
+
+    /**
+     * 通过一次Redis往返批量写入缓存，缓存值与ProductController一致为Result<Product>
+     */
+    private void refreshCache(List<Product> products) {
+        if (!importProperties.isRefreshCache() || products.isEmpty()) {
+            return;
+        }
+        try {
+            Map<Long, Result<Product>> values = new HashMap<>();
+            for (Product product : products) {
+                if (product.getId() != null) {
+                    values.put(product.getId(), Result.success(product));
+                }
+            }
+            ((TwoLevelCache) cacheManager.getCache("products")).putAll(values);
+        } catch (RuntimeException e) {
+            // 缓存刷新失败不影响导入结果，缓存会在读取时回源
+            log.warn("导入后刷新商品缓存失败: {}", e.getMessage());
+        }
+    }
+
+    private void registerJob(ImportJob job) {
+        synchronized (jobs) {
+            jobs.put(job.getJobId(), job);
+            if (jobs.size() > importProperties.getRetainedJobs()) {
+                jobs.values().stream()
+                        .filter(existing -> existing.getStatus() != ImportJob.Status.RUNNING)
+                        .findFirst()
+                        .ifPresent(existing -> jobs.remove(existing.getJobId()));
+            }
+        }
+    }
+
+    private Product parseNdjson(String line) {
+        try {
+            return objectMapper.readValue(line, Product.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("JSON格式错误: " + e.getOriginalMessage());
+        }
+    }
+
+    private static Map<String, Integer> parseHeader(String line) {
+        List<String> columns = splitCsv(line);
+        Map<String, Integer> header = new HashMap<>();
+        for (int i = 0; i < columns.size(); i++) {
+            String column = columns.get(i).trim();
+            header.put("category_id".equals(column) ? "categoryId" : column, i);
+        }
+        if (!header.containsKey("name") || !header.containsKey("price")) {
+            throw new IllegalArgumentException("CSV表头必须包含name和price列");
+        }
+        return header;
+    }
+
+    private static Product parseCsv(String line, Map<String, Integer> header) {
+        List<String> values = splitCsv(line);
+        Product product = new Product();
+        product.setName(column(values, header, "name"));
+        product.setDescription(column(values, header, "description"));
+        try {
+            String price = column(values, header, "price");
+            product.setPrice(price != null ? new BigDecimal(price) : null);
+            String stock = column(values, header, "stock");
+            product.setStock(stock != null ? Integer.valueOf(stock) : 0);
+            String categoryId = column(values, header, "categoryId");
+            product.setCategoryId(categoryId != null ? Long.valueOf(categoryId) : null);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("数字格式错误: " + e.getMessage());
+        }
+        return product;
+    }
+
+    private static String column(List<String> values, Map<String, Integer> header, String name) {
+        Integer index = header.get(name);
+        if (index == null || index >= values.size()) {
+            return null;
+        }
+        String value = values.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    /**
+     * 解析一行CSV，支持双引号包裹的字段及其中转义的双引号（""）
+     */
+    private static List<String> splitCsv(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        values.add(current.toString());
+        return values;
+    }
+
+    private static void validate(Product product) {
+        if (product.getName() == null || product.getName().trim().isEmpty()) {
+            throw new IllegalArgumentException("商品名称不能为空");
+        }
+        if (product.getName().length() > NAME_MAX_LENGTH) {
+            throw new IllegalArgumentException("商品名称不能超过" + NAME_MAX_LENGTH + "个字符");
+        }
+        if (product.getPrice() == null || product.getPrice().signum() < 0) {
+            throw new IllegalArgumentException("商品价格不能为空且不能为负数");
+        }
+        if (product.getStock() != null && product.getStock() < 0) {
+            throw new IllegalArgumentException("库存不能为负数");
+        }
+        // 导入的商品一律由数据库分配id
+        product.setId(null);
+        product.setDeleted(null);
+    }
+
+    private static String rootMessage(Throwable e) {
+        Throwable root = NestedExceptionUtils.getMostSpecificCause(e);
+        return root.getMessage();
+    }
+}
@@ -1,18 +1,54 @@
 package com.example.productservice.service.impl;
 
+import com.alibaba.csp.sentinel.Entry;
+import com.alibaba.csp.sentinel.SphU;
+import com.alibaba.csp.sentinel.slots.block.BlockException;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.core.metadata.TableFieldInfo;
+import com.baomidou.mybatisplus.core.metadata.TableInfo;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import com.example.productservice.cache.TwoLevelCache;
+import com.example.productservice.client.UserBatchLoader;
+import com.example.productservice.client.UserClient;
+import com.example.productservice.common.CursorPage;
+import com.example.productservice.common.Result;
+import com.example.productservice.config.ExportFlowRuleInitializer;
+import com.example.productservice.config.ExportProperties;
+import com.example.productservice.config.WriteBehindProperties;
+import com.example.productservice.datasource.ReadOnly;
 import com.example.productservice.entity.Product;
 import com.example.productservice.entity.User;
 import com.example.productservice.mapper.ProductMapper;
 import com.example.productservice.service.ProductService;
-import com.example.productservice.client.UserClient;
-import com.example.productservice.common.Result;
+import com.example.productservice.service.StockReservationService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.ibatis.cursor.Cursor;
+import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class ProductServiceImpl implements ProductService {
@@ -22,16 +58,140 @@ public class ProductServiceImpl implements ProductService {
     
     @Autowired
     private UserClient userClient;
+
+    @Autowired
+    private UserBatchLoader userBatchLoader;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ExportProperties exportProperties;
+
+    @Autowired
+    private StockReservationService stockReservationService;
+
+    @Autowired
+    private WriteBehindProperties writeBehindProperties;
+
+    @Autowired
+    private ProductWriteBehindBuffer productWriteBehindBuffer;
+
+    @Autowired
+    private CacheManager cacheManager;
     
+    /**
+     * products缓存的回源查询（包括提前刷新），结果会缓存整个TTL，因此不路由到从库
+     */
     @Override
-    public List<Product> list() {
-        return productMapper.selectList(null);
+    public Product getProductById(Long id) {
+        // 叠加写回缓冲中尚未写入数据库的修改
+        return productWriteBehindBuffer.overlay(productMapper.selectById(id));
     }
 
     @Override
-    @Cacheable(value = "products", key = "#id")
-    public Product getProductById(Long id) {
-        return productMapper.selectById(id);
+    @ReadOnly
+    public List<Product> getProductsByIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Product> products = productMapper.selectBatchIds(ids);
+        List<Product> results = new ArrayList<>(products.size());
+        for (Product product : products) {
+            results.add(productWriteBehindBuffer.overlay(product));
+        }
+        return results;
+    }
+
+    /**
+     * 回源结果会写入products缓存，因此与getProductById一样不路由到从库
+     */
+    @Override
+    public List<Product> getCachedProductsByIds(List<Long> ids) {
+        List<Long> distinctIds = ids.stream().filter(Objects::nonNull).distinct().collect(Collectors.toList());
+        if (distinctIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        // 缓存值与ProductQueryController一致为Result<Product>
+        TwoLevelCache cache = (TwoLevelCache) cacheManager.getCache("products");
+        Map<Object, Object> cached = cache.getAll(distinctIds);
+        Map<Long, Product> products = new HashMap<>();
+        List<Long> missIds = new ArrayList<>();
+        for (Long id : distinctIds) {
+            Object value = cached.get(id);
+            if (value == null) {
+                missIds.add(id);
+            } else if (value instanceof Result && ((Result<?>) value).getData() instanceof Product) {
+                products.put(id, (Product) ((Result<?>) value).getData());
+            }
+        }
+
+        if (!missIds.isEmpty()) {
+            Map<Long, Result<Product>> loaded = new HashMap<>();
+            for (Product row : productMapper.selectBatchIds(missIds)) {
+                Product product = productWriteBehindBuffer.overlay(row);
+                products.put(product.getId(), product);
+                loaded.put(product.getId(), Result.success(product));
+            }
+            cache.putAll(loaded);
+        }
+
+        return distinctIds.stream().map(products::get).filter(Objects::nonNull).collect(Collectors.toList());
+    }
+
+    @Override
+    @ReadOnly
+    public long exportProducts(long afterId, OutputStream out) {
+        // MyBatis的Cursor依赖打开的SqlSession，需要在只读事务内遍历
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        Long exported = transactionTemplate.execute(status -> {
+            int batchSize = exportProperties.getBatchSize();
+            long count = 0;
+            try (Cursor<Product> cursor = productMapper.streamAfter(afterId);
+                 JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                generator.setRootValueSeparator(null);
+                for (Product product : cursor) {
+                    if (count % batchSize == 0) {
+                        generator.flush();
+                        acquireExportPermit();
+                    }
+                    generator.writeObject(product);
+                    generator.writeRaw('\n');
+                    count++;
+                }
+                generator.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return count;
+        });
+        return exported != null ? exported : 0;
+    }
+
+    /**
+     * 每批导出前申请一次Sentinel令牌，被限流时等待后重试，从而把导出速率压在配置范围内
+     */
+    private static void acquireExportPermit() {
+        while (true) {
+            try {
+                Entry entry = SphU.entry(ExportFlowRuleInitializer.EXPORT_BATCH_RESOURCE);
+                entry.exit();
+                return;
+            } catch (BlockException e) {
+                try {
+                    TimeUnit.MILLISECONDS.sleep(100);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("导出被中断", ie);
+                }
+            }
+        }
     }
 
     @Override
@@ -41,18 +201,61 @@ public class ProductServiceImpl implements ProductService {
 
     @Override
     public boolean updateProduct(Product product) {
-        return productMapper.updateById(product) > 0;
+        if (writeBehindProperties.isEnabled()) {
+            return updateProductWriteBehind(product);
+        }
+        boolean success = productMapper.updateById(product) > 0;
+        if (success && product.getStock() != null) {
+            // 直接修改了数据库库存，可售库存需要重新加载
+            stockReservationService.resetAvailableStock(product.getId());
+        }
+        return success;
+    }
+
+    /**
+     * 写回模式：修改写入缓冲区和本地日志后立即返回，由后台批量写入数据库。
+     * 返回前把合并后的完整商品回写到入参中，控制器的@CachePut因此缓存完整的最新值
+     */
+    private boolean updateProductWriteBehind(Product product) {
+        Product current = currentProduct(product.getId());
+        if (current == null) {
+            return false;
+        }
+        productWriteBehindBuffer.submit(productWriteBehindBuffer.toPatch(product));
+        BeanUtils.copyProperties(productWriteBehindBuffer.merge(current, product), product);
+        return true;
+    }
+
+    /**
+     * 写回模式下更新前的完整商品：优先取products缓存中的值并叠加之后的未写入修改，
+     * 只有缓存未命中时才查询主库，避免每次更新都产生一次数据库读取
+     */
+    private Product currentProduct(Long id) {
+        Cache cache = cacheManager.getCache("products");
+        Cache.ValueWrapper cached = cache != null ? cache.get(id) : null;
+        // 缓存值与控制器一致为Result<Product>，缓存的“不存在”结果没有data，仍以数据库为准
+        Object value = cached != null ? cached.get() : null;
+        if (value instanceof Result && ((Result<?>) value).getData() instanceof Product) {
+            return productWriteBehindBuffer.overlay((Product) ((Result<?>) value).getData());
+        }
+        return getProductById(id);
     }
 
     @Override
     public boolean deleteProduct(Long id) {
-        return productMapper.deleteById(id) > 0;
+        productWriteBehindBuffer.discard(id);
+        boolean success = productMapper.deleteById(id) > 0;
+        if (success) {
+            stockReservationService.resetAvailableStock(id);
+        }
+        return success;
     }
 
     @Override
+    @ReadOnly
     public Object getProductWithUserInfo(Long id) {
-        // 获取商品信息
-        Product product = productMapper.selectById(id);
+        // 获取商品信息，叠加写回缓冲中尚未写入数据库的修改
+        Product product = productWriteBehindBuffer.overlay(productMapper.selectById(id));
         if (product == null) {
             return null;
         }
@@ -60,13 +263,13 @@ public class ProductServiceImpl implements ProductService {
         // 模拟调用用户服务获取用户信息（假设商品有创建者ID）
         // 这里我们假设商品的categoryId实际上是用户ID（为了演示服务间调用）
         try {
-            Result<User> userResult = userClient.getUserById(product.getCategoryId());
+            User user = loadUser(product.getCategoryId());
             
             Map<String, Object> result = new HashMap<>();
             result.put("product", product);
             
-            if (userResult != null && userResult.getCode() == 200) {
-                result.put("user", userResult.getData());
+            if (user != null) {
+                result.put("user", user);
             } else {
                 result.put("user", null);
                 result.put("userError", "无法获取用户信息");
@@ -82,4 +285,113 @@ public class ProductServiceImpl implements ProductService {
             return result;
         }
     }
+
+    /**
+     * 获取单个用户，开启合并加载时与其他并发查询合并为一次批量调用
+     */
+    private User loadUser(Long userId) throws Exception {
+        if (userBatchLoader.isEnabled() && userId != null) {
+            try {
+                return userBatchLoader.get(userId);
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+            }
+        }
+        Result<User> userResult = userClient.getUserById(userId);
+        return userResult != null && userResult.getCode() == 200 ? userResult.getData() : null;
+    }
+
+    @Override
+    @ReadOnly
+    public List<Object> getProductsWithUserInfo(List<Long> ids) {
+        List<Long> distinctIds = ids.stream().filter(Objects::nonNull).distinct().collect(Collectors.toList());
+        if (distinctIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Map<Long, Product> products = productMapper.selectBatchIds(distinctIds).stream()
+                .map(productWriteBehindBuffer::overlay)
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+
+        // 一次批量调用用户服务获取所有商品关联的用户（同样以categoryId作为用户ID演示）
+        List<Long> userIds = products.values().stream()
+                .map(Product::getCategoryId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .collect(Collectors.toList());
+        Map<Long, User> users = new HashMap<>();
+        String userError = null;
+        if (!userIds.isEmpty()) {
+            try {
+                Result<List<User>> userResult = userClient.getUsersByIds(userIds);
+                if (userResult != null && userResult.getCode() == 200 && userResult.getData() != null) {
+                    userResult.getData().forEach(user -> users.put(user.getId(), user));
+                } else {
+                    userError = "无法获取用户信息";
+                }
+            } catch (Exception e) {
+                // 服务调用失败时的降级处理
+                userError = "用户服务暂时不可用: " + e.getMessage();
+            }
+        }
+
+        List<Object> results = new ArrayList<>(products.size());
+        for (Long id : distinctIds) {
+            Product product = products.get(id);
+            if (product == null) {
+                continue;
+            }
+            Map<String, Object> result = new HashMap<>();
+            result.put("product", product);
+            User user = users.get(product.getCategoryId());
+            result.put("user", user);
+            if (user == null) {
+                result.put("userError", userError != null ? userError : "无法获取用户信息");
+            }
+            results.add(result);
+        }
+        return results;
+    }
+
+    @Override
+    @ReadOnly
+    public CursorPage<Product> listByCursor(Long afterId, int limit, Collection<String> fields) {
+        // 多查一条用于判断是否还有下一页
+        QueryWrapper<Product> wrapper = new QueryWrapper<Product>()
+                .select(selectColumns(fields))
+                .gt(afterId != null, "id", afterId)
+                .orderByAsc("id")
+                .last("LIMIT " + (limit + 1));
+        List<Product> rows = productMapper.selectList(wrapper);
+        if (rows.size() <= limit) {
+            return new CursorPage<>(rows, null);
+        }
+        List<Product> items = new ArrayList<>(rows.subList(0, limit));
+        return new CursorPage<>(items, CursorPage.encodeCursor(items.get(limit - 1).getId()));
+    }
+
+    /**
+     * 将属性名转换为查询列，主键始终包含以便生成游标
+     */
+    private static String[] selectColumns(Collection<String> fields) {
+        TableInfo tableInfo = TableInfoHelper.getTableInfo(Product.class);
+        Map<String, String> columns = new LinkedHashMap<>();
+        columns.put(tableInfo.getKeyProperty(), tableInfo.getKeyColumn());
+        for (TableFieldInfo field : tableInfo.getFieldList()) {
+            columns.put(field.getProperty(), field.getColumn());
+        }
+        if (fields == null || fields.isEmpty()) {
+            return columns.values().toArray(new String[0]);
+        }
+
+        Set<String> selected = new LinkedHashSet<>();
+        selected.add(tableInfo.getKeyColumn());
+        for (String field : fields) {
+            String column = columns.get(field);
+            if (column == null) {
+                throw new IllegalArgumentException("不支持的字段: " + field);
+            }
+            selected.add(column);
+        }
+        return selected.toArray(new String[0]);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,105 @@
+package com.example.productservice.service.impl;
+
+import com.example.productservice.config.WriteBehindProperties;
+import com.example.productservice.entity.Product;
+import com.example.productservice.mapper.ProductMapper;
+import com.example.productservice.service.StockReservationService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.mybatis.spring.MyBatisExceptionTranslator;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 商品更新写回缓冲区，按字段合并同一商品的多次更新，写入时每个商品执行一条只包含被修改字段的UPDATE，
+ * 不会覆盖期间由库存扣减等其他路径写入的字段
+ */
+@Component
+public class ProductWriteBehindBuffer extends WriteBehindBuffer<Product> {
+
+    private final SqlSessionFactory sqlSessionFactory;
+    private final CacheManager cacheManager;
+    private final MyBatisExceptionTranslator exceptionTranslator;
+    private final StockReservationService stockReservationService;
+
+    public ProductWriteBehindBuffer(SqlSessionFactory sqlSessionFactory, StockReservationService stockReservationService,
+                                    CacheManager cacheManager, ObjectMapper objectMapper, WriteBehindProperties properties) {
+        super("products", Product.class, objectMapper, properties);
+        this.sqlSessionFactory = sqlSessionFactory;
+        this.cacheManager = cacheManager;
+        this.exceptionTranslator = new MyBatisExceptionTranslator(
+                sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(), true);
+        this.stockReservationService = stockReservationService;
+    }
+
+    @Override
+    protected Long getId(Product product) {
+        return product.getId();
+    }
+
+    @Override
+    public Product merge(Product older, Product newer) {
+        Product merged = new Product();
+        merged.setId(older.getId());
+        merged.setName(newer.getName() != null ? newer.getName() : older.getName());
+        merged.setDescription(newer.getDescription() != null ? newer.getDescription() : older.getDescription());
+        merged.setPrice(newer.getPrice() != null ? newer.getPrice() : older.getPrice());
+        merged.setStock(newer.getStock() != null ? newer.getStock() : older.getStock());
+        merged.setCategoryId(newer.getCategoryId() != null ? newer.getCategoryId() : older.getCategoryId());
+        merged.setCreatedTime(older.getCreatedTime());
+        merged.setUpdatedTime(older.getUpdatedTime());
+        merged.setDeleted(older.getDeleted());
+        return merged;
+    }
+
+    /**
+     * 只保留可由更新接口修改的字段，作为缓冲和写入日志的补丁
+     */
+    public Product toPatch(Product product) {
+        Product patch = merge(new Product(), product);
+        patch.setId(product.getId());
+        return patch;
+    }
+
+    @Override
+    protected void write(List<Product> batch) {
+        try (SqlSession session = sqlSessionFactory.openSession(ExecutorType.BATCH, false)) {
+            ProductMapper mapper = session.getMapper(ProductMapper.class);
+            try {
+                for (Product product : batch) {
+                    mapper.updateById(product);
+                }
+                session.flushStatements();
+                session.commit();
+            } catch (RuntimeException e) {
+                session.rollback();
+                // 转换为Spring的异常类型，数据错误（如字段超长、违反唯一约束）为DataIntegrityViolationException
+                DataAccessException translated = exceptionTranslator.translateExceptionIfPossible(e);
+                throw translated != null ? translated : e;
+            }
+        }
+        for (Product product : batch) {
+            if (product.getStock() != null) {
+                // 与同步更新一致，数据库库存变化后可售库存需要重新加载
+                stockReservationService.resetAvailableStock(product.getId());
+            }
+        }
+    }
+
+    /**
+     * 缓存中是更新接口返回的合并值，该更新没有写入数据库，清除后由下一次读取从数据库加载
+     */
+    @Override
+    protected void onDeadLetter(Product patch) {
+        Cache cache = cacheManager.getCache("products");
+        if (cache != null) {
+            cache.evict(patch.getId());
+        }
+    }
+}
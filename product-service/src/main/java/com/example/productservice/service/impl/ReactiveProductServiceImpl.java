@@ -0,0 +1,202 @@
+package com.example.productservice.service.impl;
+
+import com.example.productservice.cache.TwoLevelCache;
+import com.example.productservice.client.ReactiveUserClient;
+import com.example.productservice.common.CursorPage;
+import com.example.productservice.common.Result;
+import com.example.productservice.entity.Product;
+import com.example.productservice.entity.User;
+import com.example.productservice.service.ProductService;
+import com.example.productservice.service.ReactiveProductService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ReactiveValueOperations;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 数据库查询复用 {@link ProductService}（只读路由、写回缓冲叠加），在jdbcScheduler上执行；
+ * Redis与用户服务的调用全程非阻塞
+ */
+@Slf4j
+@Service
+@Profile("reactive")
+public class ReactiveProductServiceImpl implements ReactiveProductService {
+
+    private static final String CACHE_NAME = "products";
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ReactiveUserClient userClient;
+
+    @Autowired
+    private ReactiveRedisTemplate<String, Object> reactiveCacheTemplate;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private Scheduler jdbcScheduler;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Mono<Result<Product>> getProductById(Long id) {
+        Mono<Result<Product>> load = blocking(() -> productService.getProductById(id))
+                .map(Result::success)
+                .defaultIfEmpty(Result.error("商品不存在"));
+        TwoLevelCache cache = (TwoLevelCache) cacheManager.getCache(CACHE_NAME);
+        if (!cache.isEnabled()) {
+            return load;
+        }
+
+        String key = cache.getRedisKey(id);
+        return reactiveCacheTemplate.opsForValue().get(key)
+                .map(value -> (Result<Product>) value)
+                .onErrorResume(e -> {
+                    // Redis不可用时直接查库
+                    log.warn("读取商品缓存失败: key={}, error={}", key, e.getMessage());
+                    return Mono.empty();
+                })
+                .switchIfEmpty(load.flatMap(result -> store(cache, key, result)));
+    }
+
+    @Override
+    public Mono<CursorPage<Product>> listByCursor(Long afterId, int limit, Collection<String> fields) {
+        return blocking(() -> productService.listByCursor(afterId, limit, fields));
+    }
+
+    @Override
+    public Mono<Object> getProductWithUserInfo(Long id) {
+        return blocking(() -> productService.getProductById(id))
+                .flatMap(product -> {
+                    // 与阻塞实现一致，以商品的categoryId作为用户ID演示服务间调用
+                    Long userId = product.getCategoryId();
+                    Mono<Result<User>> userResult = userId != null ? userClient.getUserById(userId) : Mono.empty();
+                    return userResult
+                            .filter(result -> result.getCode() == 200 && result.getData() != null)
+                            .map(result -> withUser(product, result.getData(), null))
+                            .switchIfEmpty(Mono.fromSupplier(() -> withUser(product, null, "无法获取用户信息")))
+                            // 服务调用失败时的降级处理
+                            .onErrorResume(e -> Mono.just(withUser(product, null, "用户服务暂时不可用: " + e.getMessage())));
+                });
+    }
+
+    @Override
+    public Mono<List<Product>> getProductsByIds(List<Long> ids) {
+        return blocking(() -> productService.getCachedProductsByIds(ids));
+    }
+
+    @Override
+    public Mono<List<Object>> getProductsWithUserInfo(List<Long> ids) {
+        List<Long> distinctIds = ids.stream().filter(Objects::nonNull).distinct().collect(Collectors.toList());
+        if (distinctIds.isEmpty()) {
+            return Mono.just(Collections.emptyList());
+        }
+        return blocking(() -> productService.getProductsByIds(distinctIds))
+                .flatMap(rows -> {
+                    Map<Long, Product> products = rows.stream()
+                            .collect(Collectors.toMap(Product::getId, Function.identity()));
+                    List<Long> userIds = products.values().stream()
+                            .map(Product::getCategoryId)
+                            .filter(Objects::nonNull)
+                            .distinct()
+                            .collect(Collectors.toList());
+                    if (userIds.isEmpty()) {
+                        return Mono.just(withUsers(distinctIds, products, Collections.emptyList(), null));
+                    }
+                    return userClient.getUsersByIds(userIds)
+                            .map(result -> result.getCode() == 200 && result.getData() != null
+                                    ? withUsers(distinctIds, products, result.getData(), null)
+                                    : withUsers(distinctIds, products, Collections.emptyList(), "无法获取用户信息"))
+                            .switchIfEmpty(Mono.fromSupplier(() ->
+                                    withUsers(distinctIds, products, Collections.emptyList(), "无法获取用户信息")))
+                            .onErrorResume(e -> Mono.just(withUsers(distinctIds, products, Collections.emptyList(),
+                                    "用户服务暂时不可用: " + e.getMessage())));
+                });
+    }
+
+    /**
+     * 回填Redis，只在key不存在时写入，避免覆盖并发的更新请求写入的新值；写入失败不影响返回结果
+     */
+    private Mono<Result<Product>> store(TwoLevelCache cache, String key, Result<Product> result) {
+        ReactiveValueOperations<String, Object> ops = reactiveCacheTemplate.opsForValue();
+        long ttlMillis = cache.nextTtlMillis();
+        Mono<Boolean> write = ttlMillis > 0
+                ? ops.setIfAbsent(key, result, Duration.ofMillis(ttlMillis))
+                : ops.setIfAbsent(key, result);
+        return write
+                .onErrorResume(e -> {
+                    log.warn("回填商品缓存失败: key={}, error={}", key, e.getMessage());
+                    return Mono.just(false);
+                })
+                .thenReturn(result);
+    }
+
+    /**
+     * 在jdbcScheduler上执行阻塞调用，并带上当前请求的RequestAttributes，读写分离的粘滞路由仍能识别调用方
+     */
+    private <T> Mono<T> blocking(Callable<T> callable) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        return Mono.fromCallable(() -> {
+            RequestAttributes previous = RequestContextHolder.getRequestAttributes();
+            RequestContextHolder.setRequestAttributes(attributes);
+            try {
+                return callable.call();
+            } finally {
+                if (previous != null) {
+                    RequestContextHolder.setRequestAttributes(previous);
+                } else {
+                    RequestContextHolder.resetRequestAttributes();
+                }
+            }
+        }).subscribeOn(jdbcScheduler);
+    }
+
+    private static Object withUser(Product product, User user, String userError) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("product", product);
+        result.put("user", user);
+        if (user == null) {
+            result.put("userError", userError);
+        }
+        return result;
+    }
+
+    /**
+     * 按请求中的id顺序组装结果，跳过不存在的商品
+     */
+    private static List<Object> withUsers(List<Long> ids, Map<Long, Product> products, List<User> userList,
+                                          String userError) {
+        Map<Long, User> users = new HashMap<>();
+        userList.forEach(user -> users.put(user.getId(), user));
+        List<Object> results = new ArrayList<>(products.size());
+        for (Long id : ids) {
+            Product product = products.get(id);
+            if (product != null) {
+                User user = users.get(product.getCategoryId());
+                results.add(withUser(product, user, userError != null ? userError : "无法获取用户信息"));
+            }
+        }
+        return results;
+    }
+}
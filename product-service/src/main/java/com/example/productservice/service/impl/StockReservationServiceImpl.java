@@ -0,0 +1,563 @@
+package com.example.productservice.service.impl;
+
+import com.example.productservice.config.DynamicConfigHolder;
+import com.example.productservice.config.StockProperties;
+import com.example.productservice.dto.StockReservation;
+import com.example.productservice.entity.Product;
+import com.example.productservice.event.LowStockEvent;
+import com.example.productservice.mapper.ProductMapper;
+import com.example.productservice.service.StockReservationService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 基于Redis Lua脚本的库存预占实现
+ * <p>
+ * Redis中维护两个计数器：stock:available:{id} 为可售库存，stock:held:{id} 为已预占但尚未扣减到数据库的数量，
+ * 始终满足 可售库存 = 数据库库存 - held。预占只在Redis中原子执行，热点商品不会在数据库行锁上排队；
+ * 确认后的预占写入对账队列，由后台任务按商品合并后以条件UPDATE扣减数据库库存。
+ * 数据库扣减带有 stock >= quantity 条件，即使Redis数据丢失也不会超卖。
+ * <p>
+ * 对账时记录先移入处理中队列，数据库扣减提交后才从中删除并减少held，进程崩溃时记录留在处理中队列、下次对账继续处理；
+ * 扣减提交后、删除前崩溃的记录会被再扣减一次（只会少卖，不会超卖）。
+ * 数据库库存不足以扣减时（库存被直接改小），记录移入死信队列 stock:journal:dead-letter，held保持不变，
+ * 这部分已售出的库存不会再次售出；补足数据库库存后把记录移回 stock:journal 即可重新对账
+ */
+@Slf4j
+@Service
+public class StockReservationServiceImpl implements StockReservationService, MeterBinder, InitializingBean, DisposableBean {
+
+    private static final String KEY_PREFIX = "stock:";
+    private static final String AVAILABLE_PREFIX = KEY_PREFIX + "available:";
+    private static final String HELD_PREFIX = KEY_PREFIX + "held:";
+    private static final String RESERVATION_PREFIX = KEY_PREFIX + "reservation:";
+    private static final String CONFIRMED_PREFIX = KEY_PREFIX + "confirmed:";
+    private static final String EXPIRY_KEY = KEY_PREFIX + "reservation-expiry";
+    private static final String JOURNAL_KEY = KEY_PREFIX + "journal";
+    private static final String PROCESSING_KEY = KEY_PREFIX + "journal:processing";
+    private static final String DEAD_LETTER_KEY = KEY_PREFIX + "journal:dead-letter";
+    private static final String RECONCILE_LOCK_KEY = KEY_PREFIX + "reconcile-lock";
+
+    private static final long NOT_LOADED = -2;
+    private static final long INSUFFICIENT = -1;
+
+    /**
+     * 预占：可售库存足够时扣减并记录预占，返回剩余库存；库存未加载返回-2，库存不足返回-1
+     */
+    private static final RedisScript<Long> RESERVE_SCRIPT = new DefaultRedisScript<>(
+            "local stock = redis.call('get', KEYS[1]) "
+                    + "if not stock then return -2 end "
+                    + "local qty = tonumber(ARGV[1]) "
+                    + "if tonumber(stock) < qty then return -1 end "
+                    + "local remaining = redis.call('decrby', KEYS[1], qty) "
+                    + "redis.call('incrby', KEYS[2], qty) "
+                    + "redis.call('hset', KEYS[3], 'productId', ARGV[2], 'quantity', ARGV[1]) "
+                    + "redis.call('zadd', KEYS[4], ARGV[3], ARGV[4]) "
+                    + "return remaining", Long.class);
+
+    /**
+     * 批量预占：KEYS[1]为过期队列，之后每个商品依次为可售库存、held、预占三个键；
+     * ARGV[1]为过期时间，之后每个商品依次为数量、商品ID、预占ID。
+     * 先检查全部商品，任一商品库存未加载返回{-2, 序号}、库存不足返回{-1, 序号}，此时不做任何修改；
+     * 全部足够时逐个扣减并记录预占，返回各商品的剩余库存
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static final RedisScript<List> BATCH_RESERVE_SCRIPT = new DefaultRedisScript<>(
+            "local n = (#KEYS - 1) / 3 "
+                    + "for i = 1, n do "
+                    + "local stock = redis.call('get', KEYS[i * 3 - 1]) "
+                    + "if not stock then return {-2, i} end "
+                    + "if tonumber(stock) < tonumber(ARGV[i * 3 - 1]) then return {-1, i} end end "
+                    + "local remaining = {} "
+                    + "for i = 1, n do "
+                    + "local qty = ARGV[i * 3 - 1] "
+                    + "remaining[i] = redis.call('decrby', KEYS[i * 3 - 1], qty) "
+                    + "redis.call('incrby', KEYS[i * 3], qty) "
+                    + "redis.call('hset', KEYS[i * 3 + 1], 'productId', ARGV[i * 3], 'quantity', qty) "
+                    + "redis.call('zadd', KEYS[1], ARGV[1], ARGV[i * 3 + 1]) end "
+                    + "return remaining", List.class);
+
+    /**
+     * 确认：删除预占、写入对账队列并保留确认标记，返回1；已确认过（标记仍在）返回2，预占不存在返回0
+     */
+    private static final RedisScript<Long> CONFIRM_SCRIPT = new DefaultRedisScript<>(
+            "local productId = redis.call('hget', KEYS[1], 'productId') "
+                    + "if not productId then "
+                    + "if redis.call('exists', KEYS[4]) == 1 then return 2 end "
+                    + "return 0 end "
+                    + "local qty = redis.call('hget', KEYS[1], 'quantity') "
+                    + "redis.call('del', KEYS[1]) "
+                    + "redis.call('zrem', KEYS[2], ARGV[1]) "
+                    + "redis.call('rpush', KEYS[3], productId .. ':' .. qty) "
+                    + "redis.call('set', KEYS[4], '1', 'PX', ARGV[2]) "
+                    + "return 1", Long.class);
+
+    private static final long CONFIRMED = 1;
+    private static final long ALREADY_CONFIRMED = 2;
+
+    /**
+     * 释放：删除预占并归还可售库存，预占不存在返回0
+     * 可售库存未加载时不归还，下次加载时会按 数据库库存 - held 重新计算
+     */
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "local productId = redis.call('hget', KEYS[1], 'productId') "
+                    + "if not productId then return 0 end "
+                    + "local qty = tonumber(redis.call('hget', KEYS[1], 'quantity')) "
+                    + "redis.call('del', KEYS[1]) "
+                    + "redis.call('zrem', KEYS[2], ARGV[1]) "
+                    + "redis.call('decrby', ARGV[3] .. productId, qty) "
+                    + "if redis.call('exists', ARGV[2] .. productId) == 1 then "
+                    + "redis.call('incrby', ARGV[2] .. productId, qty) end "
+                    + "return 1", Long.class);
+
+    /**
+     * 把对账队列头部的一批记录移入处理中队列并返回（逐条LPOP+RPUSH，与LMOVE等价，兼容Redis 6.2以下版本）
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static final RedisScript<List> MOVE_SCRIPT = new DefaultRedisScript<>(
+            "local items = {} "
+                    + "for i = 1, tonumber(ARGV[1]) do "
+                    + "local item = redis.call('lpop', KEYS[1]) "
+                    + "if not item then break end "
+                    + "redis.call('rpush', KEYS[2], item) "
+                    + "items[i] = item end "
+                    + "return items", List.class);
+
+    /**
+     * 数据库扣减提交后确认：从处理中队列删除这些记录并按删除的数量减少held，返回减少的数量
+     */
+    private static final RedisScript<Long> ACK_SCRIPT = new DefaultRedisScript<>(
+            "local removed = 0 "
+                    + "for i = 1, #ARGV do "
+                    + "if redis.call('lrem', KEYS[1], 1, ARGV[i]) == 1 then "
+                    + "removed = removed + tonumber(string.sub(ARGV[i], string.find(ARGV[i], ':', 1, true) + 1)) end end "
+                    + "if removed > 0 then redis.call('decrby', KEYS[2], removed) end "
+                    + "return removed", Long.class);
+
+    /**
+     * 数据库无法扣减的记录从处理中队列移入死信队列，held不变，返回移动的条数
+     */
+    private static final RedisScript<Long> DEAD_LETTER_SCRIPT = new DefaultRedisScript<>(
+            "local moved = 0 "
+                    + "for i = 1, #ARGV do "
+                    + "if redis.call('lrem', KEYS[1], 1, ARGV[i]) == 1 then "
+                    + "redis.call('rpush', KEYS[2], ARGV[i]) "
+                    + "moved = moved + 1 end end "
+                    + "return moved", Long.class);
+
+    private static final RedisScript<Long> RENEW_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('pexpire', KEYS[1], ARGV[2]) else return 0 end",
+            Long.class);
+
+    private static final RedisScript<Long> UNLOCK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private ProductMapper productMapper;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private DynamicConfigHolder configHolder;
+
+    @Autowired
+    private StockProperties stockProperties;
+
+    private ScheduledExecutorService scheduler;
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    /**
+     * 数据库已扣减但确认失败（Redis异常）的记录，按商品分组，下次对账时只重试确认、不再扣减；只由对账线程访问
+     */
+    private final Map<Long, List<String>> unacknowledged = new LinkedHashMap<>();
+
+    private final LongAdder reserved = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder confirmed = new LongAdder();
+    private final LongAdder released = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+    private final LongAdder reconciled = new LongAdder();
+    private final LongAdder reconcileFailures = new LongAdder();
+    private final LongAdder deadLetters = new LongAdder();
+
+    @Override
+    public StockReservation reserve(Long productId, int quantity) {
+        if (productId == null || quantity <= 0) {
+            throw new IllegalArgumentException("预占数量必须大于0");
+        }
+        String reservationId = UUID.randomUUID().toString().replace("-", "");
+        long expireAt = System.currentTimeMillis() + stockProperties.getReservationTimeout().toMillis();
+        List<String> keys = Arrays.asList(AVAILABLE_PREFIX + productId, HELD_PREFIX + productId,
+                RESERVATION_PREFIX + reservationId, EXPIRY_KEY);
+        Object[] args = {String.valueOf(quantity), String.valueOf(productId), String.valueOf(expireAt), reservationId};
+
+        Long remaining = stringRedisTemplate.execute(RESERVE_SCRIPT, keys, args);
+        if (remaining != null && remaining == NOT_LOADED) {
+            loadAvailableStock(productId);
+            remaining = stringRedisTemplate.execute(RESERVE_SCRIPT, keys, args);
+        }
+        if (remaining == null || remaining < 0) {
+            rejected.increment();
+            throw new IllegalStateException(remaining != null && remaining == INSUFFICIENT ? "库存不足" : "库存预占失败");
+        }
+        reserved.increment();
+        publishLowStock(productId, quantity, remaining);
+        return new StockReservation(reservationId, productId, quantity, remaining, expireAt);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<StockReservation> reserveAll(Map<Long, Integer> quantities) {
+        if (quantities == null || quantities.isEmpty()) {
+            throw new IllegalArgumentException("预占商品不能为空");
+        }
+        List<Long> productIds = new ArrayList<>(quantities.size());
+        List<String> reservationIds = new ArrayList<>(quantities.size());
+        long expireAt = System.currentTimeMillis() + stockProperties.getReservationTimeout().toMillis();
+        List<String> keys = new ArrayList<>(quantities.size() * 3 + 1);
+        List<String> args = new ArrayList<>(quantities.size() * 3 + 1);
+        keys.add(EXPIRY_KEY);
+        args.add(String.valueOf(expireAt));
+        for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+            Long productId = entry.getKey();
+            Integer quantity = entry.getValue();
+            if (productId == null || quantity == null || quantity <= 0) {
+                throw new IllegalArgumentException("预占数量必须大于0");
+            }
+            String reservationId = UUID.randomUUID().toString().replace("-", "");
+            productIds.add(productId);
+            reservationIds.add(reservationId);
+            keys.add(AVAILABLE_PREFIX + productId);
+            keys.add(HELD_PREFIX + productId);
+            keys.add(RESERVATION_PREFIX + reservationId);
+            args.add(String.valueOf(quantity));
+            args.add(String.valueOf(productId));
+            args.add(reservationId);
+        }
+
+        // 每次脚本返回一个未加载的商品，加载后重试，最多为每个商品加载一次
+        List<Long> result = null;
+        for (int attempt = 0; attempt <= productIds.size(); attempt++) {
+            result = stringRedisTemplate.execute(BATCH_RESERVE_SCRIPT, keys, args.toArray());
+            if (result == null || result.size() != 2 || result.get(0) != NOT_LOADED || attempt == productIds.size()) {
+                break;
+            }
+            loadAvailableStock(productIds.get(result.get(1).intValue() - 1));
+        }
+        if (result == null || result.size() != productIds.size() || result.get(0) < 0) {
+            rejected.increment();
+            boolean insufficient = result != null && result.size() == 2 && result.get(0) == INSUFFICIENT;
+            throw new IllegalStateException(insufficient
+                    ? "库存不足: " + productIds.get(result.get(1).intValue() - 1) : "库存预占失败");
+        }
+
+        List<StockReservation> reservations = new ArrayList<>(productIds.size());
+        for (int i = 0; i < productIds.size(); i++) {
+            Long productId = productIds.get(i);
+            int quantity = quantities.get(productId);
+            long remaining = result.get(i);
+            reserved.increment();
+            publishLowStock(productId, quantity, remaining);
+            reservations.add(new StockReservation(reservationIds.get(i), productId, quantity, remaining, expireAt));
+        }
+        return reservations;
+    }
+
+    /**
+     * 本次预占使可售库存跌破预警阈值时发布低库存事件
+     */
+    private void publishLowStock(Long productId, int quantity, long remaining) {
+        int threshold = configHolder.get().getStockWarningThreshold();
+        if (remaining < threshold && remaining + quantity >= threshold) {
+            eventPublisher.publishEvent(new LowStockEvent(this, productId, remaining, threshold));
+        }
+    }
+
+    @Override
+    public boolean confirm(String reservationId) {
+        Long result = stringRedisTemplate.execute(CONFIRM_SCRIPT,
+                Arrays.asList(RESERVATION_PREFIX + reservationId, EXPIRY_KEY, JOURNAL_KEY, CONFIRMED_PREFIX + reservationId),
+                reservationId, String.valueOf(stockProperties.getConfirmedRetention().toMillis()));
+        if (result != null && result == CONFIRMED) {
+            confirmed.increment();
+            return true;
+        }
+        return result != null && result == ALREADY_CONFIRMED;
+    }
+
+    @Override
+    public boolean release(String reservationId) {
+        if (doRelease(reservationId)) {
+            released.increment();
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public long getAvailableStock(Long productId) {
+        String available = stringRedisTemplate.opsForValue().get(AVAILABLE_PREFIX + productId);
+        if (available == null) {
+            available = String.valueOf(loadAvailableStock(productId));
+        }
+        return Long.parseLong(available);
+    }
+
+    @Override
+    public void resetAvailableStock(Long productId) {
+        stringRedisTemplate.delete(AVAILABLE_PREFIX + productId);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("stock-reconciler-");
+        threadFactory.setDaemon(true);
+        scheduler = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        long interval = stockProperties.getReconcileInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(this::runMaintenance, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdownNow();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        bindCounter(registry, "stock.reservations", reserved, "result", "reserved");
+        bindCounter(registry, "stock.reservations", rejected, "result", "rejected");
+        bindCounter(registry, "stock.reservations", confirmed, "result", "confirmed");
+        bindCounter(registry, "stock.reservations", released, "result", "released");
+        bindCounter(registry, "stock.reservations", expired, "result", "expired");
+        bindCounter(registry, "stock.reconcile", reconciled, "result", "success");
+        bindCounter(registry, "stock.reconcile", reconcileFailures, "result", "failure");
+        bindCounter(registry, "stock.reconcile", deadLetters, "result", "dead-letter");
+    }
+
+    private static void bindCounter(MeterRegistry registry, String name, LongAdder counter, String... tags) {
+        FunctionCounter.builder(name, counter, LongAdder::sum).tags(tags).register(registry);
+    }
+
+    /**
+     * 从数据库加载可售库存，已存在时不覆盖
+     * 先读held再读数据库：两次读取之间若发生对账，算出的可售库存只会偏小，不会偏大
+     */
+    private long loadAvailableStock(Long productId) {
+        String held = stringRedisTemplate.opsForValue().get(HELD_PREFIX + productId);
+        Product product = productMapper.selectById(productId);
+        if (product == null) {
+            throw new IllegalArgumentException("商品不存在");
+        }
+        long stock = product.getStock() != null ? product.getStock() : 0;
+        long available = Math.max(0, stock - (held != null ? Long.parseLong(held) : 0));
+        String key = AVAILABLE_PREFIX + productId;
+        Boolean loaded = stringRedisTemplate.opsForValue().setIfAbsent(key, String.valueOf(available));
+        if (Boolean.TRUE.equals(loaded)) {
+            log.info("加载商品可售库存: productId={}, stock={}, available={}", productId, stock, available);
+            return available;
+        }
+        String current = stringRedisTemplate.opsForValue().get(key);
+        return current != null ? Long.parseLong(current) : available;
+    }
+
+    private boolean doRelease(String reservationId) {
+        Long result = stringRedisTemplate.execute(RELEASE_SCRIPT,
+                Arrays.asList(RESERVATION_PREFIX + reservationId, EXPIRY_KEY),
+                reservationId, AVAILABLE_PREFIX, HELD_PREFIX);
+        return result != null && result == 1;
+    }
+
+    private void runMaintenance() {
+        try {
+            releaseExpired();
+            reconcile();
+        } catch (Exception e) {
+            log.warn("库存后台任务执行失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 释放超时未确认的预占
+     */
+    private void releaseExpired() {
+        Set<String> reservationIds = stringRedisTemplate.opsForZSet().rangeByScore(EXPIRY_KEY,
+                0, System.currentTimeMillis(), 0, stockProperties.getExpireBatchSize());
+        if (reservationIds == null) {
+            return;
+        }
+        for (String reservationId : reservationIds) {
+            if (doRelease(reservationId)) {
+                expired.increment();
+            }
+        }
+    }
+
+    /**
+     * 把已确认的预占按商品合并后扣减到数据库，提交后再从处理中队列删除并减少held
+     * 处理中队列里残留的记录（上次扣减失败或进程崩溃）与新移入的记录一起处理，同一时刻只有持锁的实例执行；
+     * 每个商品扣减前续期对账锁，锁已丢失（例如Redis或数据库长时间停顿）时立即停止，避免与新的持锁实例重复扣减
+     */
+    @SuppressWarnings("unchecked")
+    private void reconcile() {
+        Duration lockTimeout = stockProperties.getReconcileLockTimeout();
+        if (!Boolean.TRUE.equals(stringRedisTemplate.opsForValue()
+                .setIfAbsent(RECONCILE_LOCK_KEY, nodeId, lockTimeout.toMillis(), TimeUnit.MILLISECONDS))) {
+            return;
+        }
+        try {
+            // 先补上次失败的确认，避免这些记录被当作残留记录重复扣减
+            for (Iterator<Map.Entry<Long, List<String>>> it = unacknowledged.entrySet().iterator(); it.hasNext(); ) {
+                Map.Entry<Long, List<String>> entry = it.next();
+                acknowledge(entry.getKey(), entry.getValue());
+                it.remove();
+            }
+
+            int batchSize = stockProperties.getReconcileBatchSize();
+            List<String> items = new ArrayList<>(stringRedisTemplate.opsForList().range(PROCESSING_KEY, 0, batchSize - 1));
+            if (items.size() < batchSize) {
+                List<String> moved = stringRedisTemplate.execute(MOVE_SCRIPT,
+                        Arrays.asList(JOURNAL_KEY, PROCESSING_KEY), String.valueOf(batchSize - items.size()));
+                if (moved != null) {
+                    items.addAll(moved);
+                }
+            }
+            if (items.isEmpty()) {
+                return;
+            }
+
+            Map<Long, List<String>> itemsByProduct = new LinkedHashMap<>();
+            for (String item : items) {
+                itemsByProduct.computeIfAbsent(parseProductId(item), id -> new ArrayList<>()).add(item);
+            }
+            for (Map.Entry<Long, List<String>> entry : itemsByProduct.entrySet()) {
+                if (!renewLock(lockTimeout)) {
+                    log.warn("对账锁已过期，停止本次对账，剩余记录由持锁实例处理");
+                    return;
+                }
+                reconcileProduct(entry.getKey(), entry.getValue());
+            }
+        } finally {
+            stringRedisTemplate.execute(UNLOCK_SCRIPT, Collections.singletonList(RECONCILE_LOCK_KEY), nodeId);
+        }
+    }
+
+    private void reconcileProduct(Long productId, List<String> items) {
+        int quantity = 0;
+        for (String item : items) {
+            quantity += parseQuantity(item);
+        }
+        int updated;
+        try {
+            updated = productMapper.deductStock(productId, quantity);
+        } catch (RuntimeException e) {
+            // 记录留在处理中队列，下次对账重试
+            log.warn("库存对账失败，稍后重试: productId={}, quantity={}, error={}", productId, quantity, e.getMessage());
+            return;
+        }
+        if (updated == 0) {
+            deadLetter(productId, items, quantity);
+            return;
+        }
+
+        // 以下为扣减提交后的步骤，失败时不能再重试扣减
+        try {
+            acknowledge(productId, items);
+        } catch (RuntimeException e) {
+            log.warn("库存对账确认失败，稍后重试确认: productId={}, quantity={}, error={}", productId, quantity, e.getMessage());
+            unacknowledged.computeIfAbsent(productId, id -> new ArrayList<>()).addAll(items);
+        }
+        reconciled.add(quantity);
+        evictProduct(productId);
+    }
+
+    /**
+     * 数据库库存被直接改小或商品已删除，已确认的销售无法扣减：记录移入死信队列等待人工处理，
+     * held保持不变，可售库存按 数据库库存 - held 重新加载，这部分库存不会再次售出
+     */
+    private void deadLetter(Long productId, List<String> items, int quantity) {
+        try {
+            stringRedisTemplate.execute(DEAD_LETTER_SCRIPT, Arrays.asList(PROCESSING_KEY, DEAD_LETTER_KEY), items.toArray());
+        } catch (RuntimeException e) {
+            // 记录留在处理中队列，下次对账重新扣减，仍不足时再移入死信队列
+            log.warn("库存对账记录移入死信队列失败，稍后重试: productId={}, error={}", productId, e.getMessage());
+            return;
+        }
+        reconcileFailures.increment();
+        deadLetters.add(items.size());
+        log.error("数据库库存不足以完成对账，已售出的{}件移入死信队列{}，需要补足数据库库存后人工处理: productId={}",
+                quantity, DEAD_LETTER_KEY, productId);
+        try {
+            resetAvailableStock(productId);
+        } catch (RuntimeException e) {
+            log.warn("重置可售库存失败: productId={}, error={}", productId, e.getMessage());
+        }
+        evictProduct(productId);
+    }
+
+    private void evictProduct(Long productId) {
+        try {
+            Cache cache = cacheManager.getCache("products");
+            if (cache != null) {
+                cache.evict(productId);
+            }
+        } catch (RuntimeException e) {
+            log.warn("库存对账后刷新缓存失败: productId={}, error={}", productId, e.getMessage());
+        }
+    }
+
+    private boolean renewLock(Duration lockTimeout) {
+        Long renewed = stringRedisTemplate.execute(RENEW_SCRIPT, Collections.singletonList(RECONCILE_LOCK_KEY),
+                nodeId, String.valueOf(lockTimeout.toMillis()));
+        return renewed != null && renewed == 1;
+    }
+
+    private void acknowledge(Long productId, List<String> items) {
+        stringRedisTemplate.execute(ACK_SCRIPT, Arrays.asList(PROCESSING_KEY, HELD_PREFIX + productId),
+                items.toArray());
+    }
+
+    private static Long parseProductId(String item) {
+        return Long.valueOf(item.substring(0, item.indexOf(':')));
+    }
+
+    private static int parseQuantity(String item) {
+        return Integer.parseInt(item.substring(item.indexOf(':') + 1));
+    }
+}
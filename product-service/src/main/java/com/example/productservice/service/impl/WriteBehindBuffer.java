@@ -0,0 +1,473 @@
+package com.example.productservice.service.impl;
+
+import com.example.productservice.config.WriteBehindProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 写回缓冲区：按实体ID合并更新（只保留各字段最后一次写入的值），定时或达到批量大小时批量写入数据库
+ * <p>
+ * 每次更新先追加到本地日志分段再放入缓冲区。写入数据库前切换到新的日志分段并取出缓冲区中的全部更新，
+ * 写入成功后删除旧分段；写入失败时把更新放回缓冲区，旧分段保留到下一次写入成功。
+ * 启动时按顺序重放残留的日志分段。
+ * <p>
+ * 某一批因数据完整性错误（{@link DataIntegrityViolationException}）失败时逐条重新写入，
+ * 仍然失败的更新重试也不会成功，写入日志目录下的死信文件后丢弃，不再阻塞后续的写入。
+ *
+ * @param <T> 实体类型，缓冲的是只包含被修改字段的“补丁”对象
+ */
+@Slf4j
+public abstract class WriteBehindBuffer<T> implements MeterBinder, InitializingBean, DisposableBean {
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String DEAD_LETTER_FILE = "dead-letter.log";
+
+    private final String name;
+    private final Class<T> type;
+    private final ObjectMapper objectMapper;
+    private final WriteBehindProperties properties;
+
+    /**
+     * 追加日志与放入缓冲区持读锁，切换日志分段并取出缓冲区持写锁，保证取出的更新都在旧分段中
+     */
+    private final ReadWriteLock rotateLock = new ReentrantReadWriteLock();
+    private final Object journalLock = new Object();
+    private final ConcurrentMap<Long, Pending<T>> pending = new ConcurrentHashMap<>();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    /**
+     * 正在写入数据库的更新，写入完成前读取仍可看到；被丢弃的实体从中移除，不再写入
+     */
+    private volatile Map<Long, T> flushing = Collections.emptyMap();
+
+    private Path journalDir;
+    private FileChannel journal;
+    private Path journalFile;
+    private long segmentSequence;
+    /**
+     * 已取出但尚未确认写入数据库的日志分段，只由写入线程访问
+     */
+    private final List<Path> unflushedSegments = new ArrayList<>();
+    private ScheduledExecutorService scheduler;
+    private volatile boolean running;
+
+    private final LongAdder flushed = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder deadLetters = new LongAdder();
+
+    protected WriteBehindBuffer(String name, Class<T> type, ObjectMapper objectMapper, WriteBehindProperties properties) {
+        this.name = name;
+        this.type = type;
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+    }
+
+    protected abstract Long getId(T entity);
+
+    /**
+     * 合并两次更新，newer中不为null的字段覆盖older，返回新对象
+     */
+    public abstract T merge(T older, T newer);
+
+    /**
+     * 把一批更新写入数据库，数据错误应以 {@link DataIntegrityViolationException} 抛出，
+     * 其余异常视为暂时性故障，整批重新放回缓冲区
+     */
+    protected abstract void write(List<T> batch);
+
+    /**
+     * 更新被写入死信文件后调用，子类可在此清理已缓存的、数据库中并不存在的值
+     */
+    protected void onDeadLetter(T patch) {
+    }
+
+    /**
+     * 受理一次更新，调用返回后更新已写入本地日志
+     */
+    public void submit(T patch) {
+        byte[] line;
+        try {
+            line = (objectMapper.writeValueAsString(patch) + "\n").getBytes(StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        rotateLock.readLock().lock();
+        try {
+            appendJournal(line);
+            pending.merge(getId(patch), new Pending<>(patch, System.currentTimeMillis()),
+                    (existing, update) -> new Pending<>(merge(existing.patch, update.patch), existing.since));
+        } finally {
+            rotateLock.readLock().unlock();
+        }
+        if (pending.size() >= properties.getMaxBatchSize()) {
+            requestFlush();
+        }
+    }
+
+    /**
+     * 尚未写入数据库的更新，没有时返回null
+     */
+    public T getPending(Long id) {
+        Pending<T> entry = pending.get(id);
+        T inFlight = flushing.get(id);
+        if (entry == null) {
+            return inFlight;
+        }
+        return inFlight != null ? merge(inFlight, entry.patch) : entry.patch;
+    }
+
+    /**
+     * 在从数据库读出的实体上叠加尚未写入的更新，没有时原样返回
+     */
+    public T overlay(T entity) {
+        T patch = entity != null ? getPending(getId(entity)) : null;
+        return patch != null ? merge(entity, patch) : entity;
+    }
+
+    /**
+     * 丢弃尚未写入的更新（如实体被删除），包括已取出、正在写入的批次中尚未写入的部分，
+     * 之后的读取不再叠加这些更新；日志中的记录在重放时作用于已删除的行，不产生影响
+     */
+    public void discard(Long id) {
+        // 与取出缓冲区互斥，保证更新不会在取出后、写入前被漏掉
+        rotateLock.readLock().lock();
+        try {
+            pending.remove(id);
+            flushing.remove(id);
+        } finally {
+            rotateLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void afterPropertiesSet() throws IOException {
+        journalDir = Paths.get(properties.getJournalDir(), name);
+        recover();
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("write-behind-" + name + "-");
+        threadFactory.setDaemon(true);
+        scheduler = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        running = true;
+        scheduleFlush();
+        if (!pending.isEmpty()) {
+            requestFlush();
+        }
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        running = false;
+        scheduler.shutdown();
+        scheduler.awaitTermination(10, TimeUnit.SECONDS);
+        // 停止前写入剩余的更新，失败的仍保留在日志中，下次启动时重放
+        flush();
+        synchronized (journalLock) {
+            if (journal != null) {
+                journal.close();
+            }
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("writebehind.pending", pending, ConcurrentMap::size)
+                .description("缓冲中尚未写入数据库的实体数")
+                .tags("entity", name)
+                .register(registry);
+        TimeGauge.builder("writebehind.flush.lag", this, TimeUnit.MILLISECONDS, WriteBehindBuffer::getFlushLagMillis)
+                .description("缓冲中最早一次未写入数据库的更新已等待的时间")
+                .tags("entity", name)
+                .register(registry);
+        FunctionCounter.builder("writebehind.flushed", flushed, LongAdder::sum)
+                .description("写入数据库的实体数（合并后）")
+                .tags("entity", name)
+                .register(registry);
+        FunctionCounter.builder("writebehind.flushes", flushes, LongAdder::sum)
+                .description("批量写入次数")
+                .tags("entity", name)
+                .register(registry);
+        FunctionCounter.builder("writebehind.flush.failures", failures, LongAdder::sum)
+                .description("批量写入失败次数")
+                .tags("entity", name)
+                .register(registry);
+        FunctionCounter.builder("writebehind.dead.letters", deadLetters, LongAdder::sum)
+                .description("因数据错误无法写入数据库、转入死信文件的更新数")
+                .tags("entity", name)
+                .register(registry);
+    }
+
+    private double getFlushLagMillis() {
+        long oldest = Long.MAX_VALUE;
+        for (Pending<T> entry : pending.values()) {
+            oldest = Math.min(oldest, entry.since);
+        }
+        return oldest == Long.MAX_VALUE ? 0 : System.currentTimeMillis() - oldest;
+    }
+
+    private void requestFlush() {
+        if (running && flushRequested.compareAndSet(false, true)) {
+            try {
+                scheduler.execute(this::flush);
+            } catch (RejectedExecutionException e) {
+                flushRequested.set(false);
+            }
+        }
+    }
+
+    private void scheduleFlush() {
+        if (!running) {
+            return;
+        }
+        try {
+            scheduler.schedule(() -> {
+                flush();
+                scheduleFlush();
+            }, properties.getFlushInterval().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // 关闭过程中调度器已停止，剩余更新由destroy写入
+            log.debug("写回调度已停止: {}", name);
+        }
+    }
+
+    /**
+     * 只在写入线程（或关闭时）调用
+     */
+    private void flush() {
+        flushRequested.set(false);
+        List<Pending<T>> drained;
+        rotateLock.writeLock().lock();
+        try {
+            Path segment = rotateJournal();
+            if (segment != null) {
+                unflushedSegments.add(segment);
+            }
+            drained = new ArrayList<>(pending.values());
+            Map<Long, T> inFlight = new ConcurrentHashMap<>();
+            drained.forEach(entry -> inFlight.put(getId(entry.patch), entry.patch));
+            flushing = inFlight;
+            pending.clear();
+        } catch (IOException e) {
+            log.warn("切换写回日志失败: entity={}, error={}", name, e.getMessage());
+            return;
+        } finally {
+            rotateLock.writeLock().unlock();
+        }
+        if (drained.isEmpty() && unflushedSegments.isEmpty()) {
+            return;
+        }
+
+        int batchSize = Math.max(1, properties.getMaxBatchSize());
+        for (int from = 0; from < drained.size(); from += batchSize) {
+            List<Pending<T>> batch = drained.subList(from, Math.min(from + batchSize, drained.size()));
+            try {
+                writeBatch(batch);
+            } catch (RuntimeException e) {
+                failures.increment();
+                List<Pending<T>> remaining = drained.subList(from, drained.size());
+                log.warn("写回数据库失败，稍后重试: entity={}, size={}, error={}", name, remaining.size(), e.getMessage());
+                // 已写入的批次不再重试，其余放回缓冲区，期间新到达的更新较新，合并时以其为准
+                for (Pending<T> entry : remaining) {
+                    if (!flushing.containsKey(getId(entry.patch))) {
+                        continue;
+                    }
+                    pending.merge(getId(entry.patch), entry,
+                            (newer, older) -> new Pending<>(merge(older.patch, newer.patch), older.since));
+                }
+                flushing = Collections.emptyMap();
+                return;
+            }
+        }
+        flushing = Collections.emptyMap();
+        for (Path segment : unflushedSegments) {
+            try {
+                Files.deleteIfExists(segment);
+            } catch (IOException e) {
+                log.warn("删除写回日志失败: {}", segment, e);
+            }
+        }
+        unflushedSegments.clear();
+    }
+
+    /**
+     * 写入一批更新；整批因数据错误失败时逐条写入，找出并转移无法写入的更新，
+     * 逐条写入时遇到其他异常则抛出，由调用方把未写入的更新放回缓冲区
+     */
+    private void writeBatch(List<Pending<T>> batch) {
+        // 跳过取出后被丢弃的实体
+        List<T> patches = batch.stream()
+                .map(entry -> entry.patch)
+                .filter(patch -> flushing.containsKey(getId(patch)))
+                .collect(Collectors.toList());
+        if (patches.isEmpty()) {
+            return;
+        }
+        try {
+            write(patches);
+            flushed.add(patches.size());
+            flushes.increment();
+            return;
+        } catch (DataIntegrityViolationException e) {
+            log.warn("批量写回出现数据错误，改为逐条写入: entity={}, size={}, error={}",
+                    name, patches.size(), e.getMessage());
+        }
+        for (T patch : patches) {
+            try {
+                write(Collections.singletonList(patch));
+                flushed.increment();
+                flushes.increment();
+            } catch (DataIntegrityViolationException e) {
+                deadLetter(patch, e);
+            }
+        }
+    }
+
+    private void deadLetter(T patch, DataIntegrityViolationException error) {
+        deadLetters.increment();
+        log.error("更新无法写入数据库，已转入死信文件: entity={}, id={}, error={}",
+                name, getId(patch), error.getMostSpecificCause().getMessage());
+        try {
+            byte[] line = (objectMapper.writeValueAsString(patch) + "\n").getBytes(StandardCharsets.UTF_8);
+            Files.createDirectories(journalDir);
+            Files.write(journalDir.resolve(DEAD_LETTER_FILE), line, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            log.error("写入死信文件失败: entity={}, patch={}", name, patch, e);
+        }
+        onDeadLetter(patch);
+    }
+
+    private void appendJournal(byte[] line) {
+        synchronized (journalLock) {
+            try {
+                if (journal == null) {
+                    Files.createDirectories(journalDir);
+                    journalFile = journalDir.resolve(SEGMENT_PREFIX + (++segmentSequence) + SEGMENT_SUFFIX);
+                    journal = FileChannel.open(journalFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                            StandardOpenOption.APPEND);
+                }
+                ByteBuffer buffer = ByteBuffer.wrap(line);
+                while (buffer.hasRemaining()) {
+                    journal.write(buffer);
+                }
+                if (properties.isFsync()) {
+                    journal.force(false);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("写入写回日志失败", e);
+            }
+        }
+    }
+
+    /**
+     * 关闭当前日志分段，下一次追加时创建新分段
+     *
+     * @return 被关闭的分段，没有打开的分段时返回null
+     */
+    private Path rotateJournal() throws IOException {
+        synchronized (journalLock) {
+            if (journal == null) {
+                return null;
+            }
+            journal.close();
+            journal = null;
+            return journalFile;
+        }
+    }
+
+    private void recover() throws IOException {
+        if (!Files.isDirectory(journalDir)) {
+            return;
+        }
+        List<Path> segments;
+        try (Stream<Path> files = Files.list(journalDir)) {
+            segments = files.filter(file -> file.getFileName().toString().startsWith(SEGMENT_PREFIX))
+                    .sorted((a, b) -> Long.compare(sequence(a), sequence(b)))
+                    .collect(Collectors.toList());
+        }
+        int replayed = 0;
+        for (Path segment : segments) {
+            segmentSequence = Math.max(segmentSequence, sequence(segment));
+            try (BufferedReader reader = Files.newBufferedReader(segment, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.trim().isEmpty()) {
+                        continue;
+                    }
+                    try {
+                        T patch = objectMapper.readValue(line, type);
+                        pending.merge(getId(patch), new Pending<>(patch, System.currentTimeMillis()),
+                                (existing, update) -> new Pending<>(merge(existing.patch, update.patch), existing.since));
+                        replayed++;
+                    } catch (IOException e) {
+                        // 最后一行可能因进程退出而不完整
+                        log.warn("跳过无法解析的写回日志: file={}, error={}", segment, e.getMessage());
+                    }
+                }
+            }
+            unflushedSegments.add(segment);
+        }
+        if (!segments.isEmpty()) {
+            log.info("写回日志重放完成: entity={}, segments={}, records={}, pending={}",
+                    name, segments.size(), replayed, pending.size());
+        }
+    }
+
+    private static long sequence(Path segment) {
+        String fileName = segment.getFileName().toString();
+        try {
+            return Long.parseLong(fileName.substring(SEGMENT_PREFIX.length(), fileName.length() - SEGMENT_SUFFIX.length()));
+        } catch (RuntimeException e) {
+            return 0;
+        }
+    }
+
+    private static final class Pending<T> {
+
+        final T patch;
+
+        /**
+         * 该实体最早一次未写入的更新的受理时间，用于计算写回延迟
+         */
+        final long since;
+
+        Pending(T patch, long since) {
+            this.patch = patch;
+            this.since = since;
+        }
+    }
+}
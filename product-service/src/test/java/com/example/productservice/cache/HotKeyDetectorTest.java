@@ -0,0 +1,128 @@
+package com.example.productservice.cache;
+
+import com.example.productservice.config.TwoLevelCacheProperties;
+import com.example.productservice.support.EmbeddedRedis;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 热点key：Zipf分布的访问中识别出头部key，并用本地固定副本替代对Redis的重复读取
+ * <p>
+ * 一级缓存容量设为0，模拟一级缓存被大量冷key挤占、热点key也无法常驻的情况
+ */
+class HotKeyDetectorTest {
+
+    private static final String CACHE_NAME = "products";
+    private static final int KEYS = 200;
+    private static final int READS = 2_000;
+    private static final double ZIPF_EXPONENT = 1.1;
+    private static final int THRESHOLD = 10;
+
+    private EmbeddedRedis redis;
+    private final int[] accesses = zipfAccesses(KEYS, READS, ZIPF_EXPONENT, 42);
+
+    @BeforeEach
+    void setUp() throws IOException {
+        redis = new EmbeddedRedis();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        redis.close();
+    }
+
+    @Test
+    void detectsHeadOfZipfDistribution() {
+        HotKeyDetector detector = new HotKeyDetector(CACHE_NAME, properties(true));
+        for (int key : accesses) {
+            detector.record(String.valueOf(key));
+        }
+
+        Map<Integer, Integer> counts = new HashMap<>();
+        for (int key : accesses) {
+            counts.merge(key, 1, Integer::sum);
+        }
+        Set<String> hot = detector.getHotKeys().stream().map(HotKeyDetector.HotKey::getKey).collect(Collectors.toSet());
+        // 排名第一的key一定是热点，访问次数明显低于阈值的长尾key不会被误判
+        assertThat(hot).contains("0");
+        for (String key : hot) {
+            assertThat(counts.get(Integer.valueOf(key))).isGreaterThanOrEqualTo(THRESHOLD / 2);
+        }
+    }
+
+    @Test
+    void pinnedHotKeysOffloadRedisReads() {
+        long withoutDetection = remoteReads(false);
+        long withDetection = remoteReads(true);
+        System.out.printf("Zipf(%.1f) %d个key读取%d次，一级缓存容量为0: Redis读取 关闭检测%d次, 开启检测%d次%n",
+                ZIPF_EXPONENT, KEYS, READS, withoutDetection, withDetection);
+
+        assertThat(withoutDetection).isEqualTo(READS);
+        assertThat(withDetection).isLessThan(withoutDetection / 2);
+    }
+
+    /**
+     * 按访问序列读取一遍，返回访问Redis的次数
+     */
+    private long remoteReads(boolean detection) {
+        TwoLevelCacheProperties properties = properties(detection);
+        RedisTemplate<String, Object> redisTemplate = redis.createCacheTemplate(properties);
+        TwoLevelCache cache = new TwoLevelCache(CACHE_NAME,
+                Caffeine.newBuilder().maximumSize(0).executor(Runnable::run).build(),
+                redisTemplate, Duration.ofMinutes(30), properties, "test-node", Runnable::run,
+                new HeavyHitterSketch(properties.getWarmup().getTopN()), new HotKeyDetector(CACHE_NAME, properties));
+        Map<Integer, String> values = new HashMap<>();
+        for (int key = 0; key < KEYS; key++) {
+            values.put(key, "value-" + key);
+        }
+        cache.putAll(values);
+
+        for (int key : accesses) {
+            assertThat(cache.get(key).get()).isEqualTo("value-" + key);
+        }
+        return cache.getRemoteHits() + cache.getRemoteMisses();
+    }
+
+    private static TwoLevelCacheProperties properties(boolean detection) {
+        TwoLevelCacheProperties properties = new TwoLevelCacheProperties();
+        properties.getHotKey().setEnabled(detection);
+        properties.getHotKey().setThreshold(THRESHOLD);
+        // 窗口和固定副本有效期覆盖整个测试，结果不受运行速度影响
+        properties.getHotKey().setWindow(Duration.ofMinutes(1));
+        properties.getHotKey().setPinTtl(Duration.ofMinutes(1));
+        return properties;
+    }
+
+    /**
+     * 按Zipf分布生成访问序列，key为排名（0最热）
+     */
+    private static int[] zipfAccesses(int keys, int reads, double exponent, long seed) {
+        double[] cumulative = new double[keys];
+        double sum = 0;
+        for (int rank = 0; rank < keys; rank++) {
+            sum += 1.0 / Math.pow(rank + 1, exponent);
+            cumulative[rank] = sum;
+        }
+        Random random = new Random(seed);
+        int[] accesses = new int[reads];
+        for (int i = 0; i < reads; i++) {
+            int index = Arrays.binarySearch(cumulative, random.nextDouble() * sum);
+            accesses[i] = index >= 0 ? index : -index - 1;
+        }
+        return accesses;
+    }
+}
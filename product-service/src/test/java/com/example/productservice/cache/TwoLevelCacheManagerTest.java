@@ -0,0 +1,122 @@
+package com.example.productservice.cache;
+
+import com.example.productservice.config.DynamicConfigProperties;
+import com.example.productservice.config.TwoLevelCacheProperties;
+import com.example.productservice.support.EmbeddedRedis;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.context.scope.refresh.RefreshScopeRefreshedEvent;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Nacos推送配置后，缓存开关与过期时间在不重启的情况下作用于已创建的缓存
+ */
+class TwoLevelCacheManagerTest {
+
+    private static final String CACHE_NAME = "products";
+    private static final long TOLERANCE_MILLIS = TimeUnit.SECONDS.toMillis(5);
+
+    private EmbeddedRedis redis;
+    private RedisTemplate<String, Object> redisTemplate;
+    private TwoLevelCacheProperties cacheProperties;
+    private DynamicConfigProperties configProperties;
+    private TwoLevelCacheManager manager;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        redis = new EmbeddedRedis();
+        cacheProperties = new TwoLevelCacheProperties();
+        // 关闭过期时间抖动，便于断言Redis中的剩余时间
+        cacheProperties.setTtlJitter(0);
+        configProperties = new DynamicConfigProperties();
+        redisTemplate = redis.createCacheTemplate(cacheProperties);
+        manager = new TwoLevelCacheManager(redisTemplate, cacheProperties, configProperties);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        manager.destroy();
+        redis.close();
+    }
+
+    @Test
+    void pushedExpireMinutesApplyToNewWrites() {
+        TwoLevelCache cache = (TwoLevelCache) manager.getCache(CACHE_NAME);
+        cache.put("1", "value-1");
+        assertThat(remainingTtl("1")).isCloseTo(TimeUnit.MINUTES.toMillis(30), within(TOLERANCE_MILLIS));
+
+        configProperties.setCacheExpireMinutes(5);
+        refresh();
+
+        assertThat(cache.getTtl()).isEqualTo(Duration.ofMinutes(5));
+        cache.put("2", "value-2");
+        assertThat(remainingTtl("2")).isCloseTo(TimeUnit.MINUTES.toMillis(5), within(TOLERANCE_MILLIS));
+        // 已写入的条目保留原来的过期时间
+        assertThat(remainingTtl("1")).isCloseTo(TimeUnit.MINUTES.toMillis(30), within(TOLERANCE_MILLIS));
+    }
+
+    @Test
+    void regionTtlOverridesExpireMinutesUntilRemoved() {
+        TwoLevelCache cache = (TwoLevelCache) manager.getCache(CACHE_NAME);
+
+        TwoLevelCacheProperties.Local region = new TwoLevelCacheProperties.Local();
+        region.setTtl(Duration.ofMinutes(10));
+        cacheProperties.getRegions().put(CACHE_NAME, region);
+        configProperties.setCacheExpireMinutes(5);
+        refresh();
+
+        cache.put("1", "value-1");
+        assertThat(remainingTtl("1")).isCloseTo(TimeUnit.MINUTES.toMillis(10), within(TOLERANCE_MILLIS));
+
+        // 去掉区域配置后回到app.config.cache-expire-minutes
+        cacheProperties.getRegions().remove(CACHE_NAME);
+        refresh();
+
+        cache.put("2", "value-2");
+        assertThat(remainingTtl("2")).isCloseTo(TimeUnit.MINUTES.toMillis(5), within(TOLERANCE_MILLIS));
+    }
+
+    @Test
+    void disablingCachingBypassesCacheUntilReenabled() {
+        TwoLevelCache cache = (TwoLevelCache) manager.getCache(CACHE_NAME);
+        AtomicInteger loads = new AtomicInteger();
+        assertThat(cache.get("1", () -> "v" + loads.incrementAndGet())).isEqualTo("v1");
+        assertThat(cache.get("1", () -> "v" + loads.incrementAndGet())).isEqualTo("v1");
+
+        configProperties.setEnableCaching(false);
+        refresh();
+
+        // 关闭期间每次读取都回源，写入变为删除
+        assertThat(cache.isEnabled()).isFalse();
+        assertThat(cache.get("1", () -> "v" + loads.incrementAndGet())).isEqualTo("v2");
+        assertThat(cache.get("1", () -> "v" + loads.incrementAndGet())).isEqualTo("v3");
+        cache.put("1", "v3");
+        assertThat(redisTemplate.hasKey(cache.getRedisKey("1"))).isFalse();
+
+        configProperties.setEnableCaching(true);
+        refresh();
+
+        // 重新开启后不会读到关闭前缓存的旧值
+        assertThat(cache.get("1", () -> "v" + loads.incrementAndGet())).isEqualTo("v4");
+        assertThat(cache.get("1", () -> "v" + loads.incrementAndGet())).isEqualTo("v4");
+        assertThat(loads.get()).isEqualTo(4);
+    }
+
+    private void refresh() {
+        manager.onApplicationEvent(new RefreshScopeRefreshedEvent());
+    }
+
+    private long remainingTtl(String key) {
+        String redisKey = ((TwoLevelCache) manager.getCache(CACHE_NAME)).getRedisKey(key);
+        return redisTemplate.getExpire(redisKey, TimeUnit.MILLISECONDS);
+    }
+}
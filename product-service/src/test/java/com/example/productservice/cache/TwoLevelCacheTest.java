@@ -0,0 +1,198 @@
+package com.example.productservice.cache;
+
+import com.example.productservice.config.DynamicConfigProperties;
+import com.example.productservice.config.TwoLevelCacheProperties;
+import com.example.productservice.support.EmbeddedRedis;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 二级缓存的缓存击穿保护：同一个key并发未命中时本节点只回源一次，多个节点之间通过Redis锁只回源一次
+ */
+class TwoLevelCacheTest {
+
+    private static final String CACHE_NAME = "products";
+    private static final int CALLERS = 32;
+    private static final long LOAD_MILLIS = 300;
+
+    private EmbeddedRedis redis;
+    private RedisTemplate<String, Object> redisTemplate;
+    private TwoLevelCacheProperties cacheProperties;
+    private final List<TwoLevelCacheManager> managers = new ArrayList<>();
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        redis = new EmbeddedRedis();
+        cacheProperties = new TwoLevelCacheProperties();
+        redisTemplate = redis.createCacheTemplate(cacheProperties);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        managers.forEach(TwoLevelCacheManager::destroy);
+        redis.close();
+    }
+
+    @Test
+    void concurrentMissesOnOneNodeLoadOnce() throws Exception {
+        Cache cache = newNode().getCache(CACHE_NAME);
+
+        List<Object> results = getConcurrently(CALLERS, cache, "1", slowLoader("value-1"));
+
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(results).hasSize(CALLERS).containsOnly("value-1");
+        assertThat(redisTemplate.opsForValue().get(CACHE_NAME + "::1")).isEqualTo("value-1");
+        // 回源结束后锁已释放
+        assertThat(redisTemplate.hasKey("lock:" + CACHE_NAME + "::1")).isFalse();
+        assertThat(((TwoLevelCache) cache).getLoads()).isEqualTo(1);
+    }
+
+    @Test
+    void concurrentMissesAcrossNodesLoadOnce() throws Exception {
+        Cache first = newNode().getCache(CACHE_NAME);
+        Cache second = newNode().getCache(CACHE_NAME);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        CountDownLatch start = new CountDownLatch(1);
+        Callable<Object> loader = slowLoader("value-2");
+        Future<List<Object>> onFirst = executor.submit(() -> {
+            start.await();
+            return getConcurrently(CALLERS / 2, first, "2", loader);
+        });
+        Future<List<Object>> onSecond = executor.submit(() -> {
+            start.await();
+            return getConcurrently(CALLERS / 2, second, "2", loader);
+        });
+        start.countDown();
+
+        assertThat(onFirst.get(30, TimeUnit.SECONDS)).containsOnly("value-2");
+        assertThat(onSecond.get(30, TimeUnit.SECONDS)).containsOnly("value-2");
+        executor.shutdown();
+        // 没有拿到锁的节点等待持锁节点写入Redis，而不是各自查询数据库
+        assertThat(loads.get()).isEqualTo(1);
+    }
+
+    @Test
+    void failedLoadIsPropagatedAndNotCached() throws Exception {
+        Cache cache = newNode().getCache(CACHE_NAME);
+        Callable<Object> failing = () -> {
+            loads.incrementAndGet();
+            TimeUnit.MILLISECONDS.sleep(LOAD_MILLIS);
+            throw new IllegalStateException("数据库不可用");
+        };
+
+        List<Throwable> errors = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Object>> futures = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return cache.get("3", failing);
+            }));
+        }
+        start.countDown();
+        for (Future<Object> future : futures) {
+            try {
+                future.get(30, TimeUnit.SECONDS);
+            } catch (ExecutionException e) {
+                errors.add(e.getCause());
+            }
+        }
+        executor.shutdown();
+
+        // 等待中的调用方拿到同一次回源的异常
+        assertThat(errors).hasSize(CALLERS);
+        assertThat(loads.get()).isEqualTo(1);
+        // 失败的回源不留下进行中的记录，之后的读取重新回源
+        assertThat(cache.get("3", slowLoader("value-3"))).isEqualTo("value-3");
+        assertThat(loads.get()).isEqualTo(2);
+        assertThatThrownBy(() -> cache.get("4", failing)).isInstanceOf(Cache.ValueRetrievalException.class);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void waitersOfAbandonedRefreshStillLoadOnce() throws Exception {
+        cacheProperties.setLockTimeout(Duration.ofMillis(500));
+        TwoLevelCache cache = (TwoLevelCache) newNode().getCache(CACHE_NAME);
+        // 其他节点持有回源锁且迟迟没有写入Redis
+        redisTemplate.opsForValue().set("lock:" + CACHE_NAME + "::5", "other-node", 10, TimeUnit.SECONDS);
+        // 本节点的后台提前刷新正在进行，未命中的读取都在等待它
+        Map<String, CompletableFuture<Object>> inFlight =
+                (Map<String, CompletableFuture<Object>>) ReflectionTestUtils.getField(cache, "inFlight");
+        CompletableFuture<Object> refresh = new CompletableFuture<>();
+        inFlight.put("5", refresh);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<List<Object>> results = executor.submit(() -> getConcurrently(CALLERS, cache, "5", slowLoader("value-5")));
+        TimeUnit.MILLISECONDS.sleep(200);
+        // 后台刷新因拿不到锁而放弃
+        refresh.complete(null);
+
+        assertThat(results.get(30, TimeUnit.SECONDS)).hasSize(CALLERS).containsOnly("value-5");
+        executor.shutdown();
+        // 等待的线程重新单飞，只有一个线程等锁超时后回源，而不是每个线程各自等待再各自回源
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(inFlight).isEmpty();
+    }
+
+    private TwoLevelCacheManager newNode() {
+        TwoLevelCacheManager manager = new TwoLevelCacheManager(redisTemplate, cacheProperties, new DynamicConfigProperties());
+        managers.add(manager);
+        return manager;
+    }
+
+    private Callable<Object> slowLoader(String value) {
+        return () -> {
+            loads.incrementAndGet();
+            TimeUnit.MILLISECONDS.sleep(LOAD_MILLIS);
+            return value;
+        };
+    }
+
+    /**
+     * 多个线程同时读取同一个未命中的key
+     */
+    private static List<Object> getConcurrently(int callers, Cache cache, String key, Callable<Object> loader)
+            throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Object>> futures = new ArrayList<>(callers);
+        for (int i = 0; i < callers; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return cache.get(key, loader);
+            }));
+        }
+        start.countDown();
+        List<Object> results = new ArrayList<>(callers);
+        for (Future<Object> future : futures) {
+            results.add(future.get(30, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+        return results;
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.productservice.cache.serializer;
+
+import com.example.productservice.cache.CacheMessage;
+import com.example.productservice.common.Result;
+import com.example.productservice.config.TwoLevelCacheProperties;
+import com.example.productservice.entity.Product;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.support.NullValue;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 紧凑二进制缓存序列化：往返一致、兼容已有JSON缓存、按阈值压缩，体积与耗时明显小于JSON
+ */
+class CompactRedisSerializerTest {
+
+    private final TwoLevelCacheProperties properties = new TwoLevelCacheProperties();
+    private final CompactRedisSerializer serializer = new CompactRedisSerializer(properties,
+            Arrays.asList(new ProductCodec(), new CacheMessageCodec()));
+    private final GenericJackson2JsonRedisSerializer json = new GenericJackson2JsonRedisSerializer();
+
+    @Test
+    void binaryRoundTripPreservesAllFields() {
+        properties.getSerializer().setFormat(TwoLevelCacheProperties.Format.BINARY);
+
+        Result<Product> full = Result.success(product(1_234_567_890_123_456_789L, "商品", "描述"));
+        byte[] bytes = serializer.serialize(full);
+        assertThat(bytes[0]).isEqualTo(CompactRedisSerializer.MAGIC);
+        assertThat(serializer.deserialize(bytes)).isEqualTo(full);
+
+        // 可选字段为null、负数库存、错误结果
+        Product sparse = new Product();
+        sparse.setId(2L);
+        sparse.setStock(-3);
+        assertThat(serializer.deserialize(serializer.serialize(Result.success(sparse)))).isEqualTo(Result.success(sparse));
+        Result<Product> notFound = Result.error(404, "商品不存在");
+        assertThat(serializer.deserialize(serializer.serialize(notFound))).isEqualTo(notFound);
+
+        CacheMessage message = new CacheMessage("node-1", "products", "1");
+        assertThat(serializer.deserialize(serializer.serialize(message))).isEqualTo(message);
+    }
+
+    @Test
+    void typesWithoutCodecAreWrittenAsJson() {
+        properties.getSerializer().setFormat(TwoLevelCacheProperties.Format.BINARY);
+
+        byte[] nullValue = serializer.serialize(NullValue.INSTANCE);
+        assertThat(nullValue[0]).isNotEqualTo(CompactRedisSerializer.MAGIC);
+        assertThat(serializer.deserialize(nullValue)).isInstanceOf(NullValue.class);
+
+        List<String> list = new ArrayList<>(Arrays.asList("a", "b"));
+        assertThat(serializer.deserialize(serializer.serialize(list))).isEqualTo(list);
+    }
+
+    @Test
+    void legacyJsonEntriesRemainReadable() {
+        Result<Product> value = Result.success(product(1L, "商品", "描述"));
+        // 灰度前由GenericJackson2JsonRedisSerializer写入的缓存
+        assertThat(serializer.deserialize(json.serialize(value))).isEqualTo(value);
+
+        // 默认仍写JSON，未升级的节点可以读取
+        byte[] written = serializer.serialize(value);
+        assertThat(written[0]).isEqualTo((byte) '{');
+        assertThat(json.deserialize(written)).isEqualTo(value);
+    }
+
+    @Test
+    void valuesAboveThresholdAreCompressed() {
+        properties.getSerializer().setFormat(TwoLevelCacheProperties.Format.BINARY);
+        properties.getSerializer().setCompressThreshold(256);
+
+        Result<Product> small = Result.success(product(1L, "商品", "描述"));
+        assertThat(serializer.serialize(small)[2] & CompactRedisSerializer.FLAG_COMPRESSED).isZero();
+
+        Result<Product> large = Result.success(product(2L, "商品", repeat("规格参数：长宽高 10x20x30cm；", 40)));
+        byte[] compressed = serializer.serialize(large);
+        assertThat(compressed[2] & CompactRedisSerializer.FLAG_COMPRESSED).isEqualTo(CompactRedisSerializer.FLAG_COMPRESSED);
+        properties.getSerializer().setCompressThreshold(0);
+        byte[] plain = serializer.serialize(large);
+        assertThat(plain[2] & CompactRedisSerializer.FLAG_COMPRESSED).isZero();
+        assertThat(compressed.length).isLessThan(plain.length / 4);
+        assertThat(serializer.deserialize(compressed)).isEqualTo(large);
+    }
+
+    @Test
+    void binaryIsSmallerAndFasterThanJson() {
+        properties.getSerializer().setFormat(TwoLevelCacheProperties.Format.BINARY);
+        List<Result<Product>> values = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            values.add(Result.success(product(1_000_000_000_000L + i, "商品" + i, "商品描述" + i)));
+        }
+
+        long binaryBytes = 0;
+        long jsonBytes = 0;
+        for (Result<Product> value : values) {
+            binaryBytes += serializer.serialize(value).length;
+            jsonBytes += json.serialize(value).length;
+        }
+        assertThat(binaryBytes).isLessThan(jsonBytes / 3);
+
+        // 预热后取多轮中的最短耗时，减少JIT和GC的干扰
+        long binaryNanos = Long.MAX_VALUE;
+        long jsonNanos = Long.MAX_VALUE;
+        for (int round = 0; round < 10; round++) {
+            binaryNanos = Math.min(binaryNanos, roundTripNanos(values, true));
+            jsonNanos = Math.min(jsonNanos, roundTripNanos(values, false));
+        }
+        assertThat(binaryNanos).isLessThan(jsonNanos);
+    }
+
+    private long roundTripNanos(List<Result<Product>> values, boolean binary) {
+        long begin = System.nanoTime();
+        for (Result<Product> value : values) {
+            Object decoded = binary ? serializer.deserialize(serializer.serialize(value)) : json.deserialize(json.serialize(value));
+            assertThat(decoded).isNotNull();
+        }
+        return System.nanoTime() - begin;
+    }
+
+    private static Product product(Long id, String name, String description) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        product.setDescription(description);
+        product.setPrice(new BigDecimal("1999.90"));
+        product.setStock(100);
+        product.setCategoryId(7L);
+        product.setCreatedTime("2024-01-01 10:00:00");
+        product.setUpdatedTime("2024-01-02 10:00:00");
+        product.setDeleted(0);
+        return product;
+    }
+
+    private static String repeat(String text, int times) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < times; i++) {
+            builder.append(text);
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.productservice.client;
+
+import com.example.productservice.common.Result;
+import com.example.productservice.config.UserLoaderProperties;
+import com.example.productservice.config.VirtualThreadProperties;
+import com.example.productservice.entity.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntToLongFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 并发的单个用户查询合并为少量批量调用，结果按ID分发给各个调用方
+ */
+class UserBatchLoaderTest {
+
+    private static final int CALLERS = 500;
+
+    private final UserClient userClient = mock(UserClient.class);
+    private final UserLoaderProperties properties = new UserLoaderProperties();
+    /**
+     * 每次批量调用请求的用户ID
+     */
+    private final List<List<Long>> downstreamCalls = new CopyOnWriteArrayList<>();
+    private UserBatchLoader loader;
+
+    @BeforeEach
+    void setUp() {
+        properties.setEnabled(true);
+        properties.setMaxWait(Duration.ofMillis(20));
+        when(userClient.getUsersByIds(anyList())).thenAnswer(invocation -> {
+            List<Long> ids = new ArrayList<>(invocation.getArgument(0));
+            downstreamCalls.add(ids);
+            List<User> users = new ArrayList<>();
+            for (Long id : ids) {
+                // 负数ID的用户不存在
+                if (id > 0) {
+                    users.add(user(id));
+                }
+            }
+            return Result.success(users);
+        });
+        loader = new UserBatchLoader(userClient, properties, new VirtualThreadProperties());
+    }
+
+    @AfterEach
+    void tearDown() {
+        loader.destroy();
+    }
+
+    @Test
+    void concurrentLookupsOfHotUsersAreCoalesced() throws Exception {
+        List<User> results = callConcurrently(i -> (long) (i % 20 + 1));
+
+        for (int i = 0; i < CALLERS; i++) {
+            assertThat(results.get(i).getId()).isEqualTo(i % 20 + 1);
+        }
+        // 500次查询只有20个不同用户，在合并窗口内去重后只需极少的下游调用
+        assertThat(downstreamCalls.size()).isLessThanOrEqualTo(5);
+        assertThat(downstreamCalls.stream().mapToInt(List::size).sum()).isLessThan(CALLERS / 5);
+        for (List<Long> ids : downstreamCalls) {
+            assertThat(ids).doesNotHaveDuplicates();
+        }
+    }
+
+    @Test
+    void distinctLookupsAreSplitIntoBoundedBatches() throws Exception {
+        List<User> results = callConcurrently(i -> (long) (i + 1));
+
+        for (int i = 0; i < CALLERS; i++) {
+            assertThat(results.get(i).getId()).isEqualTo(i + 1);
+        }
+        // 达到批量上限时立即发出，不等合并窗口结束
+        assertThat(downstreamCalls).allSatisfy(ids -> assertThat(ids.size()).isLessThanOrEqualTo(properties.getMaxBatchSize()));
+        assertThat(downstreamCalls.size()).isBetween(CALLERS / properties.getMaxBatchSize(), CALLERS / 10);
+        assertThat(downstreamCalls.stream().mapToInt(List::size).sum()).isEqualTo(CALLERS);
+    }
+
+    @Test
+    void missingUserCompletesWithNullAndFailureReachesEveryCaller() throws Exception {
+        assertThat(loader.get(-1L)).isNull();
+
+        when(userClient.getUsersByIds(anyList())).thenReturn(Result.error("用户服务不可用"));
+        CompletableFuture<User> first = loader.load(1L);
+        CompletableFuture<User> second = loader.load(2L);
+        assertThatThrownBy(() -> first.get(5, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class)
+                .hasMessageContaining("用户服务不可用");
+        assertThatThrownBy(() -> second.get(5, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class);
+    }
+
+    private List<User> callConcurrently(IntToLongFunction idForCaller) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<User>> futures = new ArrayList<>(CALLERS);
+        for (int i = 0; i < CALLERS; i++) {
+            long id = idForCaller.applyAsLong(i);
+            futures.add(executor.submit(() -> {
+                start.await();
+                return loader.get(id);
+            }));
+        }
+        start.countDown();
+        List<User> results = new ArrayList<>(CALLERS);
+        for (Future<User> future : futures) {
+            results.add(future.get(10, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+        return results;
+    }
+
+    private static User user(Long id) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername("user" + id);
+        return user;
+    }
+}
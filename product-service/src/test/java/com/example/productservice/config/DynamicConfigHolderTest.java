@@ -0,0 +1,120 @@
+package com.example.productservice.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.boot.test.util.TestPropertyValues;
+import org.springframework.cloud.autoconfigure.ConfigurationPropertiesRebinderAutoConfiguration;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.cloud.context.scope.refresh.RefreshScopeRefreshedEvent;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 动态配置快照：配置在原地重新绑定、不经过作用域代理，刷新后整体替换快照，并发读取不会看到只更新了一半的配置
+ */
+class DynamicConfigHolderTest {
+
+    private static final int READERS = 4;
+    private static final int REFRESHES = 5_000;
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(ConfigurationPropertiesRebinderAutoConfiguration.class))
+            .withUserConfiguration(DynamicConfigManager.class, DynamicConfigHolder.class);
+
+    @Test
+    void nacosRefreshRebindsInPlaceAndSwapsSnapshot() {
+        contextRunner.withPropertyValues("app.config.stock-warning-threshold=10").run(context -> {
+            DynamicConfigProperties properties = context.getBean(DynamicConfigProperties.class);
+            DynamicConfigHolder holder = context.getBean(DynamicConfigHolder.class);
+            assertThat(AopUtils.isAopProxy(properties)).isFalse();
+            DynamicConfigSnapshot before = holder.get();
+            assertThat(before.getStockWarningThreshold()).isEqualTo(10);
+
+            // 与Nacos推送后的刷新顺序一致：先重新绑定配置属性，再发布RefreshScopeRefreshedEvent
+            TestPropertyValues.of("app.config.stock-warning-threshold=3", "app.config.max-connections=40")
+                    .applyTo(context.getEnvironment());
+            context.publishEvent(new EnvironmentChangeEvent(context.getSourceApplicationContext(),
+                    new HashSet<>(Arrays.asList("app.config.stock-warning-threshold", "app.config.max-connections"))));
+            // 属性Bean是同一个实例，已读取的快照不受影响
+            assertThat(context.getBean(DynamicConfigProperties.class)).isSameAs(properties);
+            assertThat(properties.getStockWarningThreshold()).isEqualTo(3);
+            assertThat(holder.get()).isSameAs(before);
+
+            context.publishEvent(new RefreshScopeRefreshedEvent());
+            assertThat(holder.get().getStockWarningThreshold()).isEqualTo(3);
+            assertThat(holder.get().getMaxConnections()).isEqualTo(40);
+            assertThat(before.getStockWarningThreshold()).isEqualTo(10);
+        });
+    }
+
+    @Test
+    void readersNeverSeeHalfAppliedRefresh() throws Exception {
+        DynamicConfigProperties properties = new DynamicConfigProperties();
+        apply(properties, 0);
+        DynamicConfigHolder holder = new DynamicConfigHolder(properties);
+
+        ExecutorService executor = Executors.newFixedThreadPool(READERS);
+        AtomicBoolean refreshing = new AtomicBoolean(true);
+        AtomicBoolean torn = new AtomicBoolean();
+        CountDownLatch started = new CountDownLatch(READERS);
+        List<Future<Long>> readers = new ArrayList<>();
+        for (int r = 0; r < READERS; r++) {
+            readers.add(executor.submit(() -> {
+                started.countDown();
+                long reads = 0;
+                int lastVersion = 0;
+                while (refreshing.get()) {
+                    DynamicConfigSnapshot snapshot = holder.get();
+                    int version = Integer.parseInt(snapshot.getVersion());
+                    // 同一次刷新写入的字段互相匹配，且版本不会倒退
+                    if (snapshot.getMaxConnections() != version + 1
+                            || snapshot.getStockWarningThreshold() != version
+                            || !String.valueOf(version).equals(snapshot.getEnvironment())
+                            || version < lastVersion) {
+                        torn.set(true);
+                    }
+                    lastVersion = version;
+                    reads++;
+                }
+                return reads;
+            }));
+        }
+        started.await(5, TimeUnit.SECONDS);
+
+        // 刷新风暴：配置在每次刷新之间原地修改
+        for (int i = 1; i <= REFRESHES; i++) {
+            apply(properties, i);
+            holder.onApplicationEvent(new RefreshScopeRefreshedEvent());
+        }
+        refreshing.set(false);
+        long reads = 0;
+        for (Future<Long> reader : readers) {
+            reads += reader.get(10, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertThat(torn.get()).isFalse();
+        assertThat(reads).isPositive();
+        assertThat(holder.get().getVersion()).isEqualTo(String.valueOf(REFRESHES));
+    }
+
+    private static void apply(DynamicConfigProperties properties, int version) {
+        properties.setVersion(String.valueOf(version));
+        properties.setEnvironment(String.valueOf(version));
+        properties.setMaxConnections(version + 1);
+        properties.setStockWarningThreshold(version);
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.productservice.config;
+
+import com.example.productservice.common.VirtualThreads;
+import org.apache.coyote.ProtocolHandler;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.runner.WebApplicationContextRunner;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * 虚拟线程执行模式：默认关闭，不支持虚拟线程的JDK上保持平台线程，支持时阻塞任务不受平台线程数限制
+ */
+class VirtualThreadConfigTest {
+
+    private static final int CONCURRENT_REQUESTS = 2_000;
+    private static final long BLOCKING_MILLIS = 200;
+
+    private final WebApplicationContextRunner contextRunner = new WebApplicationContextRunner()
+            .withUserConfiguration(VirtualThreadConfig.class);
+
+    @Test
+    void disabledByDefault() {
+        contextRunner.run(context -> assertThat(context).doesNotHaveBean(VirtualThreadConfig.class));
+        contextRunner.withPropertyValues("app.virtual-threads.enabled=true")
+                .run(context -> assertThat(context).hasSingleBean(VirtualThreadConfig.class));
+    }
+
+    @Test
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    void unsupportedJdkKeepsPlatformThreads() {
+        assumeTrue(!VirtualThreads.isSupported(), "当前JDK支持虚拟线程");
+
+        assertThatThrownBy(() -> VirtualThreads.newExecutor("test-")).isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("不支持虚拟线程");
+        VirtualThreadConfig config = new VirtualThreadConfig();
+        TomcatProtocolHandlerCustomizer customizer = config.virtualThreadProtocolHandlerCustomizer();
+        ProtocolHandler protocolHandler = mock(ProtocolHandler.class);
+        customizer.customize(protocolHandler);
+        verify(protocolHandler, never()).setExecutor(any(Executor.class));
+
+        AsyncSupportConfigurer configurer = mock(AsyncSupportConfigurer.class);
+        config.configureAsyncSupport(configurer);
+        verify(configurer, never()).setTaskExecutor(any());
+    }
+
+    @Test
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    void blockingRequestsDoNotNeedOnePlatformThreadEach() throws Exception {
+        assumeTrue(VirtualThreads.isSupported(), "需要JDK 21+");
+
+        VirtualThreadConfig config = new VirtualThreadConfig();
+        TomcatProtocolHandlerCustomizer customizer = config.virtualThreadProtocolHandlerCustomizer();
+        ProtocolHandler protocolHandler = mock(ProtocolHandler.class);
+        customizer.customize(protocolHandler);
+        verify(protocolHandler).setExecutor(any(ExecutorService.class));
+
+        // 2000个同时阻塞的请求，平台线程池（Tomcat默认200个线程）需要10轮，虚拟线程一轮完成
+        ExecutorService executor = VirtualThreads.newExecutor("tomcat-vt-");
+        Set<String> threadNames = ConcurrentHashMap.newKeySet();
+        long begin = System.nanoTime();
+        List<Future<?>> futures = new ArrayList<>(CONCURRENT_REQUESTS);
+        for (int i = 0; i < CONCURRENT_REQUESTS; i++) {
+            futures.add(executor.submit(() -> {
+                threadNames.add(Thread.currentThread().getName());
+                TimeUnit.MILLISECONDS.sleep(BLOCKING_MILLIS);
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin);
+        executor.shutdown();
+
+        assertThat(threadNames).hasSize(CONCURRENT_REQUESTS).allMatch(name -> name.startsWith("tomcat-vt-"));
+        assertThat(elapsedMillis).isLessThan(BLOCKING_MILLIS * 5);
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.productservice.datasource;
+
+import com.example.productservice.config.DynamicConfigProperties;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.context.scope.refresh.RefreshScopeRefreshedEvent;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 主库连接池大小：空闲时只保持min-idle-connections个连接，并发超过max-connections时排队等待，推送后实时调整
+ */
+class ConnectionPoolTunerTest {
+
+    private static final long HOLD_MILLIS = 50;
+
+    /**
+     * 数据库端当前打开的物理连接数及其峰值
+     */
+    private final AtomicInteger open = new AtomicInteger();
+    private final AtomicInteger peakOpen = new AtomicInteger();
+
+    private final DynamicConfigProperties configProperties = new DynamicConfigProperties();
+    private HikariDataSource dataSource;
+    private ConnectionPoolTuner tuner;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        DataSource database = mock(DataSource.class);
+        when(database.getConnection()).thenAnswer(invocation -> {
+            peakOpen.accumulateAndGet(open.incrementAndGet(), Math::max);
+            Connection connection = mock(Connection.class);
+            when(connection.isValid(anyInt())).thenReturn(true);
+            doAnswer(close -> open.decrementAndGet()).when(connection).close();
+            return connection;
+        });
+
+        dataSource = new HikariDataSource();
+        dataSource.setDataSource(database);
+        dataSource.setPoolName("primary-test");
+        dataSource.setConnectionTimeout(10_000);
+        tuner = new ConnectionPoolTuner(dataSource, configProperties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dataSource.close();
+    }
+
+    @Test
+    void idlePoolKeepsOnlyMinIdleConnections() throws Exception {
+        tuner.afterPropertiesSet();
+        assertThat(dataSource.getMaximumPoolSize()).isEqualTo(20);
+        assertThat(dataSource.getMinimumIdle()).isEqualTo(10);
+
+        dataSource.getConnection().close();
+        awaitValue(() -> dataSource.getHikariPoolMXBean().getTotalConnections(), 10);
+        // 没有请求时不会按最大连接数打开连接
+        TimeUnit.MILLISECONDS.sleep(500);
+        assertThat(open.get()).isEqualTo(10);
+    }
+
+    @Test
+    void saturatedPoolQueuesCallersInsteadOfOpeningMoreConnections() throws Exception {
+        tuner.afterPropertiesSet();
+
+        Saturation saturation = saturate(configProperties.getMaxConnections() * 3);
+        assertThat(saturation.peakActive).isEqualTo(20);
+        assertThat(saturation.peakWaiting).isPositive();
+        assertThat(peakOpen.get()).isEqualTo(20);
+    }
+
+    @Test
+    void pushedSizesApplyWithoutRestart() throws Exception {
+        tuner.afterPropertiesSet();
+        saturate(40);
+        assertThat(open.get()).isEqualTo(20);
+
+        configProperties.setMaxConnections(4);
+        tuner.onApplicationEvent(new RefreshScopeRefreshedEvent());
+        assertThat(dataSource.getHikariConfigMXBean().getMaximumPoolSize()).isEqualTo(4);
+        // 最小空闲连接数不超过最大连接数
+        assertThat(dataSource.getHikariConfigMXBean().getMinimumIdle()).isEqualTo(4);
+
+        // 软驱逐后多余的物理连接关闭
+        peakOpen.set(0);
+        Saturation saturation = saturate(12);
+        assertThat(saturation.peakActive).isEqualTo(4);
+        awaitValue(open::get, 4);
+
+        configProperties.setMaxConnections(20);
+        configProperties.setMinIdleConnections(2);
+        tuner.onApplicationEvent(new RefreshScopeRefreshedEvent());
+        assertThat(dataSource.getHikariConfigMXBean().getMaximumPoolSize()).isEqualTo(20);
+        assertThat(dataSource.getHikariConfigMXBean().getMinimumIdle()).isEqualTo(2);
+    }
+
+    @Test
+    void invalidSizesAreIgnored() {
+        tuner.afterPropertiesSet();
+        configProperties.setMaxConnections(0);
+        tuner.onApplicationEvent(new RefreshScopeRefreshedEvent());
+        assertThat(dataSource.getHikariConfigMXBean().getMaximumPoolSize()).isEqualTo(20);
+        assertThat(dataSource.getHikariConfigMXBean().getMinimumIdle()).isEqualTo(10);
+    }
+
+    /**
+     * callers个线程同时借用连接并各自持有一段时间，记录连接池的峰值活跃连接数和等待线程数
+     */
+    private Saturation saturate(int callers) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        CountDownLatch start = new CountDownLatch(1);
+        Saturation saturation = new Saturation();
+        List<Future<?>> futures = new ArrayList<>(callers);
+        for (int i = 0; i < callers; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                try (Connection ignored = dataSource.getConnection()) {
+                    HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+                    saturation.record(pool.getActiveConnections(), pool.getThreadsAwaitingConnection());
+                    TimeUnit.MILLISECONDS.sleep(HOLD_MILLIS);
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        return saturation;
+    }
+
+    private static void awaitValue(IntSupplier actual, int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (actual.getAsInt() != expected && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(20);
+        }
+        assertThat(actual.getAsInt()).isEqualTo(expected);
+    }
+
+    private static class Saturation {
+
+        private int peakActive;
+        private int peakWaiting;
+
+        synchronized void record(int active, int waiting) {
+            peakActive = Math.max(peakActive, active);
+            peakWaiting = Math.max(peakWaiting, waiting);
+        }
+    }
+}
@@ -0,0 +1,285 @@
+package com.example.productservice.datasource;
+
+import com.example.productservice.config.DataSourceRoutingProperties;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.DriverPropertyInfo;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 读写分离路由：只读区域走从库，写入后的粘滞窗口内走主库，延迟过大或无法连接的从库移出轮转
+ */
+class ReadWriteRoutingDataSourceTest {
+
+    private static final String PRIMARY = "jdbc:stub:primary";
+    private static final String REPLICA_1 = "jdbc:stub:replica1";
+    private static final String REPLICA_2 = "jdbc:stub:replica2";
+
+    private static final StubDriver DRIVER = new StubDriver();
+
+    private final DataSourceRoutingProperties properties = new DataSourceRoutingProperties();
+    private HikariDataSource primary;
+    private ReadWriteRoutingDataSource routing;
+
+    @BeforeAll
+    static void registerDriver() throws SQLException {
+        DriverManager.registerDriver(DRIVER);
+        // 预先创建一次替身连接，避免首次创建mock的耗时超过获取连接的超时时间
+        DRIVER.connect(PRIMARY, new Properties()).createStatement();
+    }
+
+    @AfterAll
+    static void deregisterDriver() throws SQLException {
+        DriverManager.deregisterDriver(DRIVER);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        RequestContextHolder.resetRequestAttributes();
+        if (routing != null) {
+            routing.destroy();
+        }
+        if (primary != null) {
+            primary.close();
+        }
+        DRIVER.lagSeconds.clear();
+        DRIVER.unreachable.clear();
+    }
+
+    @Test
+    void onlyReadOnlyConnectionsGoToReplica() throws Exception {
+        start(REPLICA_1);
+
+        assertThat(write()).isEqualTo(PRIMARY);
+        assertThat(read()).isEqualTo(REPLICA_1);
+        assertThat(counter("replicaReads")).isEqualTo(1);
+
+        properties.setReadReplicaEnabled(false);
+        assertThat(read()).isEqualTo(PRIMARY);
+        assertThat(counter("primaryReads")).isEqualTo(1);
+    }
+
+    @Test
+    void readsAfterWriteStickToPrimaryWithinWindow() throws Exception {
+        properties.setStickyWindow(Duration.ofMillis(300));
+        start(REPLICA_1);
+
+        MockHttpServletRequest writer = new MockHttpServletRequest();
+        writer.setRemoteAddr("10.0.0.1");
+        MockHttpServletRequest other = new MockHttpServletRequest();
+        other.addHeader("X-Forwarded-For", "10.0.0.2, 10.0.0.9");
+
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(writer));
+        routing.recordWrite();
+        assertThat(read()).isEqualTo(PRIMARY);
+        assertThat(counter("stickyReads")).isEqualTo(1);
+
+        // 其他调用方不受影响
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(other));
+        assertThat(read()).isEqualTo(REPLICA_1);
+
+        // 窗口过后写入方也回到从库
+        TimeUnit.MILLISECONDS.sleep(400);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(writer));
+        assertThat(read()).isEqualTo(REPLICA_1);
+    }
+
+    @Test
+    void laggingReplicaIsEvictedAndRejoinsAfterCatchingUp() throws Exception {
+        start(REPLICA_1, REPLICA_2);
+
+        DRIVER.lagSeconds.put(REPLICA_1, 30L);
+        checkLag();
+        assertThat(reads(20)).containsOnly(REPLICA_2);
+
+        // 所有从库都延迟过大时读主库
+        DRIVER.lagSeconds.put(REPLICA_2, 6L);
+        checkLag();
+        assertThat(reads(5)).containsOnly(PRIMARY);
+
+        DRIVER.lagSeconds.put(REPLICA_1, 5L);
+        checkLag();
+        assertThat(reads(20)).containsOnly(REPLICA_1);
+
+        DRIVER.lagSeconds.put(REPLICA_2, 0L);
+        checkLag();
+        assertThat(reads(50)).contains(REPLICA_1, REPLICA_2).doesNotContain(PRIMARY);
+    }
+
+    @Test
+    void unreachableReplicaFallsBackToPrimary() throws Exception {
+        start(REPLICA_1);
+
+        DRIVER.unreachable.add(REPLICA_1);
+        // 连接池对空闲超过500ms的连接才在借出时校验
+        TimeUnit.MILLISECONDS.sleep(600);
+        // 获取连接超时后本次读取改走主库，从库移出轮转，之后的读取不再等待
+        assertThat(read()).isEqualTo(PRIMARY);
+        assertThat(counter("fallbackReads")).isEqualTo(1);
+        long begin = System.nanoTime();
+        assertThat(read()).isEqualTo(PRIMARY);
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin)).isLessThan(200);
+        assertThat(counter("primaryReads")).isEqualTo(1);
+
+        // 延迟检查连接成功后重新加入
+        DRIVER.unreachable.clear();
+        checkLag();
+        assertThat(read()).isEqualTo(REPLICA_1);
+    }
+
+    private void start(String... replicaUrls) throws Exception {
+        primary = new HikariDataSource();
+        primary.setJdbcUrl(PRIMARY);
+        primary.setPoolName("primary-test");
+        List<DataSourceRoutingProperties.Replica> replicas = new ArrayList<>();
+        for (String url : replicaUrls) {
+            DataSourceRoutingProperties.Replica replica = new DataSourceRoutingProperties.Replica();
+            replica.setUrl(url);
+            replica.setMaximumPoolSize(2);
+            replicas.add(replica);
+        }
+        properties.setReplicas(replicas);
+        properties.setLagCheckInterval(Duration.ofHours(1));
+
+        routing = new ReadWriteRoutingDataSource(primary, properties);
+        routing.afterPropertiesSet();
+        // 等待从库列表加载后的首次延迟检查完成
+        ScheduledExecutorService scheduler = (ScheduledExecutorService) ReflectionTestUtils.getField(routing, "scheduler");
+        scheduler.submit(() -> {
+        }).get(5, TimeUnit.SECONDS);
+    }
+
+    private void checkLag() {
+        ReflectionTestUtils.invokeMethod(routing, "checkLag");
+    }
+
+    private long counter(String name) {
+        return ((LongAdder) ReflectionTestUtils.getField(routing, name)).sum();
+    }
+
+    private String write() throws SQLException {
+        try (Connection connection = routing.getConnection()) {
+            return connection.getMetaData().getURL();
+        }
+    }
+
+    private String read() throws SQLException {
+        Boolean previous = RoutingContext.enterReadOnly();
+        try {
+            return write();
+        } finally {
+            RoutingContext.exit(previous);
+        }
+    }
+
+    private Set<String> reads(int count) throws SQLException {
+        Set<String> targets = new HashSet<>();
+        for (int i = 0; i < count; i++) {
+            targets.add(read());
+        }
+        return targets;
+    }
+
+    /**
+     * 按URL区分的替身数据库：连接的元数据返回URL，延迟查询返回lagSeconds中的值，unreachable中的库无法连接
+     */
+    private static final class StubDriver implements Driver {
+
+        final Map<String, Long> lagSeconds = new ConcurrentHashMap<>();
+        final Set<String> unreachable = ConcurrentHashMap.newKeySet();
+
+        @Override
+        public Connection connect(String url, Properties info) throws SQLException {
+            if (!acceptsURL(url)) {
+                return null;
+            }
+            if (unreachable.contains(url)) {
+                throw new SQLException("Communications link failure: " + url);
+            }
+            DatabaseMetaData metaData = mock(DatabaseMetaData.class);
+            when(metaData.getURL()).thenReturn(url);
+            Connection connection = mock(Connection.class);
+            when(connection.getMetaData()).thenReturn(metaData);
+            when(connection.isValid(anyInt())).thenAnswer(invocation -> !unreachable.contains(url));
+            when(connection.createStatement()).thenAnswer(invocation -> lagStatement(url));
+            return connection;
+        }
+
+        private Statement lagStatement(String url) throws SQLException {
+            ResultSetMetaData columns = mock(ResultSetMetaData.class);
+            when(columns.getColumnCount()).thenReturn(1);
+            when(columns.getColumnLabel(1)).thenReturn("Seconds_Behind_Master");
+            ResultSet resultSet = mock(ResultSet.class);
+            when(resultSet.next()).thenReturn(true, false);
+            when(resultSet.getMetaData()).thenReturn(columns);
+            when(resultSet.getLong(1)).thenAnswer(invocation -> lagSeconds.getOrDefault(url, 0L));
+            Statement statement = mock(Statement.class);
+            when(statement.executeQuery(anyString())).thenReturn(resultSet);
+            return statement;
+        }
+
+        @Override
+        public boolean acceptsURL(String url) {
+            return url != null && url.startsWith("jdbc:stub:");
+        }
+
+        @Override
+        public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) {
+            return new DriverPropertyInfo[0];
+        }
+
+        @Override
+        public int getMajorVersion() {
+            return 1;
+        }
+
+        @Override
+        public int getMinorVersion() {
+            return 0;
+        }
+
+        @Override
+        public boolean jdbcCompliant() {
+            return false;
+        }
+
+        @Override
+        public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+            throw new SQLFeatureNotSupportedException();
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.productservice.service.impl;
+
+import com.example.productservice.cache.TwoLevelCache;
+import com.example.productservice.config.ImportProperties;
+import com.example.productservice.dto.ImportJob;
+import com.example.productservice.entity.Product;
+import com.example.productservice.mapper.ProductMapper;
+import com.example.productservice.service.ProductImportService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 商品批量导入：按批写入、逐行校验报告错误、整批失败时逐行重试定位出错的行、写入后批量刷新缓存
+ */
+class ProductImportServiceImplTest {
+
+    private static final int BATCH_SIZE = 100;
+
+    private final AtomicLong nextId = new AtomicLong(1);
+    /**
+     * 批量会话中提交的每一批商品
+     */
+    private final List<List<Product>> committedBatches = new ArrayList<>();
+    private final List<Product> singleInserts = new ArrayList<>();
+    private final AtomicInteger failingBatches = new AtomicInteger();
+
+    private final ProductMapper productMapper = mock(ProductMapper.class);
+    private final TwoLevelCache cache = mock(TwoLevelCache.class);
+    private final ProductImportServiceImpl service = new ProductImportServiceImpl();
+
+    @BeforeEach
+    void setUp() {
+        SqlSessionFactory sqlSessionFactory = mock(SqlSessionFactory.class);
+        when(sqlSessionFactory.openSession(eq(ExecutorType.BATCH), eq(false))).thenAnswer(invocation -> batchSession());
+        when(productMapper.insert(any(Product.class))).thenAnswer(invocation -> {
+            Product product = invocation.getArgument(0);
+            if (product.getName().startsWith("重复")) {
+                throw new DuplicateKeyException("Duplicate entry '" + product.getName() + "' for key 'uk_name'");
+            }
+            product.setId(nextId.getAndIncrement());
+            singleInserts.add(product);
+            return 1;
+        });
+        CacheManager cacheManager = mock(CacheManager.class);
+        when(cacheManager.getCache("products")).thenReturn(cache);
+
+        ImportProperties properties = new ImportProperties();
+        properties.setBatchSize(BATCH_SIZE);
+        ReflectionTestUtils.setField(service, "sqlSessionFactory", sqlSessionFactory);
+        ReflectionTestUtils.setField(service, "productMapper", productMapper);
+        ReflectionTestUtils.setField(service, "cacheManager", cacheManager);
+        ReflectionTestUtils.setField(service, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(service, "importProperties", properties);
+    }
+
+    @Test
+    void csvIsWrittenInBatchesAndInvalidRowsAreReported() {
+        StringBuilder csv = new StringBuilder("name,description,price,stock,category_id\n");
+        for (int i = 1; i <= 250; i++) {
+            csv.append("商品").append(i).append(",\"描述, 含逗号和\"\"引号\"\"\",").append(i).append(".50,10,3\n");
+        }
+        csv.append(",没有名称,1,1,1\n");
+        csv.append("负价格,,-1,1,1\n");
+        csv.append("价格错误,,abc,1,1\n");
+
+        ImportJob job = service.importProducts(stream(csv), ProductImportService.FORMAT_CSV);
+
+        assertThat(job.getStatus()).isEqualTo(ImportJob.Status.COMPLETED);
+        assertThat(job.getProcessed().get()).isEqualTo(253);
+        assertThat(job.getImported().get()).isEqualTo(250);
+        // 行号包含表头行
+        assertThat(job.getErrors()).extracting(ImportJob.RowError::getRow).containsExactly(252L, 253L, 254L);
+        assertThat(committedBatches).extracting(List::size).containsExactly(100, 100, 50);
+        Product first = committedBatches.get(0).get(0);
+        assertThat(first.getDescription()).isEqualTo("描述, 含逗号和\"引号\"");
+        assertThat(first.getPrice()).isEqualByComparingTo("1.50");
+        assertThat(first.getCategoryId()).isEqualTo(3L);
+        // 每批一次缓存写入
+        verify(cache, times(3)).putAll(anyMap());
+        verify(productMapper, never()).insert(any(Product.class));
+    }
+
+    @Test
+    @SuppressWarnings("rawtypes")
+    void failedBatchIsRetriedRowByRowToFindTheBadRow() {
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 1; i <= 10; i++) {
+            String name = i == 4 ? "重复商品" : "商品" + i;
+            ndjson.append("{\"id\":999,\"name\":\"").append(name).append("\",\"price\":9.9}\n");
+        }
+        ndjson.append("{不是JSON}\n");
+        failingBatches.set(1);
+
+        ImportJob job = service.importProducts(stream(ndjson), ProductImportService.FORMAT_NDJSON);
+
+        assertThat(job.getStatus()).isEqualTo(ImportJob.Status.COMPLETED);
+        assertThat(job.getImported().get()).isEqualTo(9);
+        // 解析错误在读取时报告，写入错误在该批写入时报告
+        assertThat(job.getErrors()).extracting(ImportJob.RowError::getRow).containsExactly(11L, 4L);
+        assertThat(job.getErrors().get(0).getMessage()).startsWith("JSON格式错误");
+        assertThat(job.getErrors().get(1).getMessage()).contains("Duplicate entry");
+        assertThat(committedBatches).isEmpty();
+        // 导入的商品一律由数据库分配id，逐行写入成功的商品写入缓存
+        assertThat(singleInserts).extracting(Product::getId).doesNotContain(999L).hasSize(9);
+        ArgumentCaptor<Map> cached = ArgumentCaptor.forClass(Map.class);
+        verify(cache).putAll(cached.capture());
+        assertThat(cached.getValue()).hasSize(9);
+    }
+
+    /**
+     * 模拟BATCH执行器：insert只记录，flushStatements时整批提交；failingBatches大于0时该批失败
+     */
+    private SqlSession batchSession() {
+        SqlSession session = mock(SqlSession.class);
+        ProductMapper batchMapper = mock(ProductMapper.class);
+        List<Product> buffered = new ArrayList<>();
+        when(batchMapper.insert(any(Product.class))).thenAnswer(invocation -> {
+            buffered.add(invocation.getArgument(0));
+            return 0;
+        });
+        when(session.getMapper(ProductMapper.class)).thenReturn(batchMapper);
+        when(session.flushStatements()).thenAnswer(invocation -> {
+            if (failingBatches.getAndDecrement() > 0) {
+                throw new DuplicateKeyException("Duplicate entry for key 'uk_name'");
+            }
+            buffered.forEach(product -> product.setId(nextId.getAndIncrement()));
+            return new ArrayList<>();
+        });
+        doAnswer(invocation -> committedBatches.add(new ArrayList<>(buffered))).when(session).commit();
+        return session;
+    }
+
+    private static ByteArrayInputStream stream(CharSequence content) {
+        return new ByteArrayInputStream(content.toString().getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.productservice.service.impl;
+
+import com.example.productservice.common.Result;
+import com.example.productservice.config.WriteBehindProperties;
+import com.example.productservice.entity.Product;
+import com.example.productservice.mapper.ProductMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 写回模式的商品更新：以缓存中的完整商品为基础合并，只有缓存未命中时才查询主库
+ */
+class ProductServiceImplTest {
+
+    private final ProductMapper productMapper = mock(ProductMapper.class);
+    private final ProductWriteBehindBuffer buffer = mock(ProductWriteBehindBuffer.class);
+    private final ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager("products");
+    private final ProductServiceImpl service = new ProductServiceImpl();
+
+    @BeforeEach
+    void setUp() {
+        WriteBehindProperties properties = new WriteBehindProperties();
+        properties.setEnabled(true);
+        when(buffer.overlay(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(buffer.toPatch(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(buffer.merge(any(), any())).thenAnswer(invocation -> {
+            Product older = invocation.getArgument(0);
+            Product newer = invocation.getArgument(1);
+            Product merged = product(older.getId(), older.getName(), older.getPrice());
+            if (newer.getName() != null) {
+                merged.setName(newer.getName());
+            }
+            if (newer.getPrice() != null) {
+                merged.setPrice(newer.getPrice());
+            }
+            return merged;
+        });
+        ReflectionTestUtils.setField(service, "productMapper", productMapper);
+        ReflectionTestUtils.setField(service, "writeBehindProperties", properties);
+        ReflectionTestUtils.setField(service, "productWriteBehindBuffer", buffer);
+        ReflectionTestUtils.setField(service, "cacheManager", cacheManager);
+    }
+
+    @Test
+    void cachedProductIsMergedWithoutQueryingDatabase() {
+        cacheManager.getCache("products").put(1L, Result.success(product(1L, "旧名称", new BigDecimal("19.90"))));
+
+        Product update = new Product();
+        update.setId(1L);
+        update.setPrice(new BigDecimal("9.90"));
+        assertThat(service.updateProduct(update)).isTrue();
+
+        verify(productMapper, never()).selectById(any());
+        verify(buffer).submit(update);
+        // 返回给@CachePut的是合并后的完整商品
+        assertThat(update.getName()).isEqualTo("旧名称");
+        assertThat(update.getPrice()).isEqualByComparingTo("9.90");
+    }
+
+    @Test
+    void cacheMissFallsBackToDatabase() {
+        when(productMapper.selectById(1L)).thenReturn(product(1L, "旧名称", BigDecimal.ONE));
+        // 缓存的“不存在”结果不能作为合并基础
+        cacheManager.getCache("products").put(2L, Result.error("商品不存在"));
+
+        Product update = new Product();
+        update.setId(1L);
+        update.setName("新名称");
+        assertThat(service.updateProduct(update)).isTrue();
+        verify(productMapper, times(1)).selectById(1L);
+
+        Product missing = new Product();
+        missing.setId(2L);
+        missing.setName("新名称");
+        assertThat(service.updateProduct(missing)).isFalse();
+        verify(buffer, times(1)).submit(any());
+    }
+
+    private static Product product(Long id, String name, BigDecimal price) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        product.setPrice(price);
+        return product;
+    }
+}
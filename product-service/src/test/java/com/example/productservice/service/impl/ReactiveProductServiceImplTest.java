@@ -0,0 +1,219 @@
+package com.example.productservice.service.impl;
+
+import com.example.productservice.cache.TwoLevelCache;
+import com.example.productservice.client.ReactiveUserClient;
+import com.example.productservice.common.Result;
+import com.example.productservice.config.ReactiveProperties;
+import com.example.productservice.config.ReactiveReadConfig;
+import com.example.productservice.config.VirtualThreadProperties;
+import com.example.productservice.entity.Product;
+import com.example.productservice.entity.User;
+import com.example.productservice.service.ProductService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ReactiveValueOperations;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 响应式商品读取：缓存命中不查库，未命中时在有界的数据库线程池上查询并以SET NX回填，Redis和用户服务故障时降级
+ */
+class ReactiveProductServiceImplTest {
+
+    private static final String KEY = "products::1";
+    private static final int BLOCKING_THREADS = 4;
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    private final ProductService productService = mock(ProductService.class);
+    private final ReactiveUserClient userClient = mock(ReactiveUserClient.class);
+    private final TwoLevelCache cache = mock(TwoLevelCache.class);
+    @SuppressWarnings("unchecked")
+    private final ReactiveRedisTemplate<String, Object> redisTemplate = mock(ReactiveRedisTemplate.class);
+    @SuppressWarnings("unchecked")
+    private final ReactiveValueOperations<String, Object> ops = mock(ReactiveValueOperations.class);
+    private final ReactiveProductServiceImpl service = new ReactiveProductServiceImpl();
+    private Scheduler jdbcScheduler;
+
+    @BeforeEach
+    void setUp() {
+        when(cache.isEnabled()).thenReturn(true);
+        when(cache.getRedisKey(any())).thenAnswer(invocation -> "products::" + invocation.getArgument(0));
+        when(cache.nextTtlMillis()).thenReturn(60_000L);
+        CacheManager cacheManager = mock(CacheManager.class);
+        when(cacheManager.getCache("products")).thenReturn(cache);
+        when(redisTemplate.opsForValue()).thenReturn(ops);
+        when(ops.get(anyString())).thenReturn(Mono.empty());
+        when(ops.setIfAbsent(anyString(), any(), any(Duration.class))).thenReturn(Mono.just(true));
+
+        ReactiveProperties properties = new ReactiveProperties();
+        properties.setBlockingThreads(BLOCKING_THREADS);
+        jdbcScheduler = new ReactiveReadConfig().jdbcScheduler(properties, new VirtualThreadProperties());
+
+        ReflectionTestUtils.setField(service, "productService", productService);
+        ReflectionTestUtils.setField(service, "userClient", userClient);
+        ReflectionTestUtils.setField(service, "reactiveCacheTemplate", redisTemplate);
+        ReflectionTestUtils.setField(service, "cacheManager", cacheManager);
+        ReflectionTestUtils.setField(service, "jdbcScheduler", jdbcScheduler);
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+        jdbcScheduler.dispose();
+    }
+
+    @Test
+    void cacheHitDoesNotQueryDatabase() {
+        Result<Product> cached = Result.success(product(1L, 7L));
+        when(ops.get(KEY)).thenReturn(Mono.just(cached));
+
+        assertThat(service.getProductById(1L).block(TIMEOUT)).isSameAs(cached);
+        verify(productService, never()).getProductById(anyLong());
+        verify(ops, never()).setIfAbsent(anyString(), any(), any(Duration.class));
+    }
+
+    @Test
+    void cacheMissLoadsOnJdbcSchedulerAndBackfillsWithoutOverwriting() {
+        AtomicReference<String> loadThread = new AtomicReference<>();
+        AtomicReference<RequestAttributes> loadAttributes = new AtomicReference<>();
+        when(productService.getProductById(1L)).thenAnswer(invocation -> {
+            loadThread.set(Thread.currentThread().getName());
+            loadAttributes.set(RequestContextHolder.getRequestAttributes());
+            return product(1L, 7L);
+        });
+        ServletRequestAttributes attributes = new ServletRequestAttributes(new MockHttpServletRequest());
+        RequestContextHolder.setRequestAttributes(attributes);
+
+        Result<Product> result = service.getProductById(1L).block(TIMEOUT);
+
+        assertThat(result.getData().getId()).isEqualTo(1L);
+        verify(ops).setIfAbsent(eq(KEY), eq(result), eq(Duration.ofMillis(60_000)));
+        // 查询不在调用线程上执行，且带着调用方的请求上下文（读写分离的粘滞路由依赖它）
+        assertThat(loadThread.get()).startsWith("reactive-jdbc");
+        assertThat(loadAttributes.get()).isSameAs(attributes);
+
+        // 商品不存在时同样缓存“不存在”的结果
+        Result<Product> missing = service.getProductById(2L).block(TIMEOUT);
+        assertThat(missing.getCode()).isNotEqualTo(200);
+        verify(ops).setIfAbsent(eq("products::2"), eq(missing), any(Duration.class));
+    }
+
+    @Test
+    void redisFailureFallsBackToDatabase() {
+        when(productService.getProductById(1L)).thenReturn(product(1L, 7L));
+        when(ops.get(KEY)).thenReturn(Mono.error(new RedisConnectionFailureException("连接被拒绝")));
+        when(ops.setIfAbsent(anyString(), any(), any(Duration.class)))
+                .thenReturn(Mono.error(new RedisConnectionFailureException("连接被拒绝")));
+
+        assertThat(service.getProductById(1L).block(TIMEOUT).getData().getId()).isEqualTo(1L);
+
+        // 关闭缓存开关时不访问Redis
+        when(cache.isEnabled()).thenReturn(false);
+        assertThat(service.getProductById(1L).block(TIMEOUT).getData().getId()).isEqualTo(1L);
+        verify(ops, times(1)).get(anyString());
+    }
+
+    @Test
+    void concurrentMissesAreBoundedByBlockingThreads() {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        when(productService.getProductById(anyLong())).thenAnswer(invocation -> {
+            peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+            threads.add(Thread.currentThread().getName());
+            TimeUnit.MILLISECONDS.sleep(20);
+            running.decrementAndGet();
+            return product(invocation.getArgument(0), 7L);
+        });
+
+        // 订阅不阻塞调用线程，所有查询都排在数据库线程池上
+        List<Mono<Result<Product>>> requests = new ArrayList<>();
+        for (long id = 1; id <= 40; id++) {
+            requests.add(service.getProductById(id));
+        }
+        List<Result<Product>> results = Flux.merge(requests).collectList().block(TIMEOUT);
+
+        assertThat(results).hasSize(40).allMatch(result -> result.getCode() == 200);
+        assertThat(peak.get()).isLessThanOrEqualTo(BLOCKING_THREADS);
+        assertThat(threads).allMatch(name -> name.startsWith("reactive-jdbc"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void userServiceFailureDegradesLikeBlockingPath() {
+        when(productService.getProductById(1L)).thenReturn(product(1L, 7L));
+        when(userClient.getUserById(7L)).thenReturn(Mono.error(new IllegalStateException("连接超时")));
+
+        Map<String, Object> result = (Map<String, Object>) service.getProductWithUserInfo(1L).block(TIMEOUT);
+        assertThat(result.get("user")).isNull();
+        assertThat((String) result.get("userError")).isEqualTo("用户服务暂时不可用: 连接超时");
+
+        when(userClient.getUserById(7L)).thenReturn(Mono.just(Result.error("用户不存在")));
+        result = (Map<String, Object>) service.getProductWithUserInfo(1L).block(TIMEOUT);
+        assertThat(result.get("userError")).isEqualTo("无法获取用户信息");
+
+        // 商品不存在时为空
+        assertThat(service.getProductWithUserInfo(2L).block(TIMEOUT)).isNull();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void batchLookupCallsUserServiceOnceAndKeepsRequestOrder() {
+        when(productService.getProductsByIds(anyList()))
+                .thenReturn(Arrays.asList(product(1L, 7L), product(3L, 8L), product(2L, 7L)));
+        User user = new User();
+        user.setId(7L);
+        when(userClient.getUsersByIds(anyList())).thenReturn(Mono.just(Result.success(Collections.singletonList(user))));
+
+        List<Object> results = service.getProductsWithUserInfo(Arrays.asList(3L, 1L, 3L, 4L, 2L)).block(TIMEOUT);
+
+        assertThat(results).extracting(item -> ((Product) ((Map<String, Object>) item).get("product")).getId())
+                .containsExactly(3L, 1L, 2L);
+        assertThat(((Map<String, Object>) results.get(0)).get("userError")).isEqualTo("无法获取用户信息");
+        assertThat(((Map<String, Object>) results.get(1)).get("user")).isSameAs(user);
+        verify(userClient, times(1)).getUsersByIds(anyList());
+        verify(productService).getProductsByIds(Arrays.asList(3L, 1L, 4L, 2L));
+    }
+
+    private static Product product(Long id, Long categoryId) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName("商品" + id);
+        product.setCategoryId(categoryId);
+        return product;
+    }
+}
@@ -0,0 +1,294 @@
+package com.example.productservice.service.impl;
+
+import com.example.productservice.config.DynamicConfigHolder;
+import com.example.productservice.config.DynamicConfigProperties;
+import com.example.productservice.config.StockProperties;
+import com.example.productservice.dto.StockReservation;
+import com.example.productservice.entity.Product;
+import com.example.productservice.event.LowStockEvent;
+import com.example.productservice.mapper.ProductMapper;
+import com.example.productservice.support.EmbeddedRedis;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 库存预占：进程内Redis（jedis-mock，执行真实的Lua脚本）+ 内存中的数据库库存
+ */
+class StockReservationServiceImplTest {
+
+    private static final long PRODUCT_ID = 1L;
+    private static final int STOCK = 1000;
+    private static final int BUYERS = 10_000;
+
+    private EmbeddedRedis redis;
+    private StringRedisTemplate redisTemplate;
+    private ProductMapper productMapper;
+    private ApplicationEventPublisher eventPublisher;
+    private StockReservationServiceImpl service;
+
+    /**
+     * 数据库中的库存，deductStock与SQL一样只在 stock >= quantity 时扣减
+     */
+    private final AtomicInteger dbStock = new AtomicInteger(STOCK);
+
+    @BeforeEach
+    void setUp() throws IOException {
+        redis = new EmbeddedRedis();
+        redisTemplate = new StringRedisTemplate(redis.getConnectionFactory());
+
+        productMapper = mock(ProductMapper.class);
+        when(productMapper.selectById(PRODUCT_ID)).thenAnswer(invocation -> {
+            Product product = new Product();
+            product.setId(PRODUCT_ID);
+            product.setStock(dbStock.get());
+            return product;
+        });
+        when(productMapper.deductStock(anyLong(), anyInt())).thenAnswer(invocation -> {
+            int quantity = invocation.getArgument(1);
+            int current;
+            do {
+                current = dbStock.get();
+                if (current < quantity) {
+                    return 0;
+                }
+            } while (!dbStock.compareAndSet(current, current - quantity));
+            return 1;
+        });
+        eventPublisher = mock(ApplicationEventPublisher.class);
+
+        DynamicConfigProperties configProperties = new DynamicConfigProperties();
+        configProperties.setStockWarningThreshold(10);
+
+        service = new StockReservationServiceImpl();
+        ReflectionTestUtils.setField(service, "stringRedisTemplate", redisTemplate);
+        ReflectionTestUtils.setField(service, "productMapper", productMapper);
+        ReflectionTestUtils.setField(service, "cacheManager", mock(CacheManager.class));
+        ReflectionTestUtils.setField(service, "eventPublisher", eventPublisher);
+        ReflectionTestUtils.setField(service, "configHolder", new DynamicConfigHolder(configProperties));
+        ReflectionTestUtils.setField(service, "stockProperties", new StockProperties());
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        redis.close();
+    }
+
+    @Test
+    void concurrentBuyersNeverOversell() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(64);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>(BUYERS);
+        for (int i = 0; i < BUYERS; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                try {
+                    StockReservation reservation = service.reserve(PRODUCT_ID, 1);
+                    assertThat(reservation.getRemaining()).isGreaterThanOrEqualTo(0);
+                    assertThat(service.confirm(reservation.getReservationId())).isTrue();
+                    succeeded.incrementAndGet();
+                } catch (IllegalStateException e) {
+                    assertThat(e).hasMessage("库存不足");
+                    rejected.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        long elapsedNanos = System.nanoTime() - begin;
+        executor.shutdown();
+        System.out.printf("%d个买家并发抢购%d件库存（jedis-mock）: 成功%d, 拒绝%d, 耗时%dms, 吞吐%.0f次/秒%n",
+                BUYERS, STOCK, succeeded.get(), rejected.get(), TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                BUYERS * 1e9 / elapsedNanos);
+
+        assertThat(succeeded.get()).isEqualTo(STOCK);
+        assertThat(rejected.get()).isEqualTo(BUYERS - STOCK);
+        assertThat(service.getAvailableStock(PRODUCT_ID)).isZero();
+        // 低库存事件只在越过阈值时发布一次
+        verify(eventPublisher, times(1)).publishEvent(any(LowStockEvent.class));
+
+        // 对账把全部已确认的预占扣减到数据库，held归零
+        for (int i = 0; i < STOCK / new StockProperties().getReconcileBatchSize() + 1; i++) {
+            runMaintenance();
+        }
+        assertThat(dbStock.get()).isZero();
+        assertThat(redisTemplate.opsForValue().get("stock:held:" + PRODUCT_ID)).isEqualTo("0");
+        assertThat(redisTemplate.opsForList().size("stock:journal")).isZero();
+        assertThat(redisTemplate.opsForList().size("stock:journal:processing")).isZero();
+    }
+
+    @Test
+    void failedDeductionStaysInProcessingListAndIsAppliedOnce() {
+        for (int i = 0; i < 3; i++) {
+            service.confirm(service.reserve(PRODUCT_ID, 2).getReservationId());
+        }
+        doThrow(new IllegalStateException("数据库不可用")).when(productMapper).deductStock(anyLong(), anyInt());
+        runMaintenance();
+        assertThat(dbStock.get()).isEqualTo(STOCK);
+        assertThat(redisTemplate.opsForList().size("stock:journal:processing")).isEqualTo(3);
+        assertThat(redisTemplate.opsForValue().get("stock:held:" + PRODUCT_ID)).isEqualTo("6");
+
+        // 数据库恢复后残留记录只扣减一次
+        doAnswer(invocation -> {
+            dbStock.addAndGet(-(int) invocation.getArgument(1));
+            return 1;
+        }).when(productMapper).deductStock(anyLong(), anyInt());
+        runMaintenance();
+        runMaintenance();
+        assertThat(dbStock.get()).isEqualTo(STOCK - 6);
+        assertThat(redisTemplate.opsForList().size("stock:journal:processing")).isZero();
+        assertThat(redisTemplate.opsForValue().get("stock:held:" + PRODUCT_ID)).isEqualTo("0");
+    }
+
+    @Test
+    void itemsLeftInProcessingListAfterCrashAreReconciled() {
+        service.confirm(service.reserve(PRODUCT_ID, 5).getReservationId());
+        // 模拟上一个实例移入处理中队列后崩溃
+        redisTemplate.opsForList().rightPush("stock:journal:processing", redisTemplate.opsForList().leftPop("stock:journal"));
+
+        runMaintenance();
+        assertThat(dbStock.get()).isEqualTo(STOCK - 5);
+        assertThat(redisTemplate.opsForList().size("stock:journal:processing")).isZero();
+        assertThat(redisTemplate.opsForValue().get("stock:held:" + PRODUCT_ID)).isEqualTo("0");
+    }
+
+    @Test
+    void undeductibleItemsMoveToDeadLetterAndStayHeld() {
+        service.confirm(service.reserve(PRODUCT_ID, 5).getReservationId());
+        // 数据库库存被直接改小，已确认的销售无法扣减
+        dbStock.set(3);
+
+        runMaintenance();
+        assertThat(dbStock.get()).isEqualTo(3);
+        assertThat(redisTemplate.opsForList().size("stock:journal:processing")).isZero();
+        assertThat(redisTemplate.opsForList().range("stock:journal:dead-letter", 0, -1)).containsExactly(PRODUCT_ID + ":5");
+        // held不变，已售出的5件不会再次售出
+        assertThat(redisTemplate.opsForValue().get("stock:held:" + PRODUCT_ID)).isEqualTo("5");
+        assertThat(service.getAvailableStock(PRODUCT_ID)).isZero();
+
+        // 补足数据库库存并把记录移回对账队列后完成扣减
+        dbStock.set(10);
+        redisTemplate.opsForList().rightPush("stock:journal", redisTemplate.opsForList().leftPop("stock:journal:dead-letter"));
+        runMaintenance();
+        assertThat(dbStock.get()).isEqualTo(5);
+        assertThat(redisTemplate.opsForValue().get("stock:held:" + PRODUCT_ID)).isEqualTo("0");
+    }
+
+    @Test
+    void reconcileStopsWhenLockIsLost() {
+        long otherProduct = 2L;
+        when(productMapper.selectById(otherProduct)).thenAnswer(invocation -> {
+            Product product = new Product();
+            product.setId(otherProduct);
+            product.setStock(STOCK);
+            return product;
+        });
+        service.confirm(service.reserve(PRODUCT_ID, 1).getReservationId());
+        service.confirm(service.reserve(otherProduct, 1).getReservationId());
+        // 第一个商品扣减时停顿超过锁超时，另一个实例拿到了锁
+        doAnswer(invocation -> {
+            redisTemplate.opsForValue().set("stock:reconcile-lock", "other-node");
+            dbStock.decrementAndGet();
+            return 1;
+        }).when(productMapper).deductStock(anyLong(), anyInt());
+
+        runMaintenance();
+        verify(productMapper, times(1)).deductStock(anyLong(), anyInt());
+        // 未处理的记录留在处理中队列，锁仍属于另一个实例
+        assertThat(redisTemplate.opsForList().range("stock:journal:processing", 0, -1)).containsExactly(otherProduct + ":1");
+        assertThat(redisTemplate.opsForValue().get("stock:reconcile-lock")).isEqualTo("other-node");
+    }
+
+    @Test
+    void repeatedConfirmSucceedsWithoutDeductingTwice() {
+        String reservationId = service.reserve(PRODUCT_ID, 3).getReservationId();
+        assertThat(service.confirm(reservationId)).isTrue();
+        // 订单服务重启后重新确认
+        assertThat(service.confirm(reservationId)).isTrue();
+        assertThat(redisTemplate.opsForList().size("stock:journal")).isEqualTo(1);
+        assertThat(service.release(reservationId)).isFalse();
+
+        runMaintenance();
+        assertThat(dbStock.get()).isEqualTo(STOCK - 3);
+        assertThat(service.confirm(reservationId)).isTrue();
+        assertThat(redisTemplate.opsForList().size("stock:journal")).isZero();
+
+        // 已释放的预占不能再确认
+        String released = service.reserve(PRODUCT_ID, 1).getReservationId();
+        assertThat(service.release(released)).isTrue();
+        assertThat(service.confirm(released)).isFalse();
+    }
+
+    @Test
+    void batchReservationIsAllOrNothing() {
+        long scarceProduct = 2L;
+        when(productMapper.selectById(scarceProduct)).thenAnswer(invocation -> {
+            Product product = new Product();
+            product.setId(scarceProduct);
+            product.setStock(1);
+            return product;
+        });
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        quantities.put(PRODUCT_ID, 3);
+        quantities.put(scarceProduct, 2);
+
+        // 两个商品的库存都在脚本执行过程中按需加载；第二个不足时第一个也不预占
+        assertThatThrownBy(() -> service.reserveAll(quantities))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("库存不足: " + scarceProduct);
+        assertThat(service.getAvailableStock(PRODUCT_ID)).isEqualTo(STOCK);
+        assertThat(redisTemplate.opsForValue().get("stock:held:" + PRODUCT_ID)).isNull();
+        assertThat(redisTemplate.opsForZSet().size("stock:reservation-expiry")).isZero();
+
+        quantities.put(scarceProduct, 1);
+        List<StockReservation> reservations = service.reserveAll(quantities);
+        assertThat(reservations).extracting(StockReservation::getProductId).containsExactly(PRODUCT_ID, scarceProduct);
+        assertThat(reservations).extracting(StockReservation::getRemaining).containsExactly((long) STOCK - 3, 0L);
+        assertThat(service.getAvailableStock(scarceProduct)).isZero();
+
+        // 每个商品得到独立的预占，可以分别确认或释放
+        assertThat(service.release(reservations.get(0).getReservationId())).isTrue();
+        assertThat(service.getAvailableStock(PRODUCT_ID)).isEqualTo(STOCK);
+        assertThat(service.confirm(reservations.get(1).getReservationId())).isTrue();
+        assertThat(redisTemplate.opsForList().range("stock:journal", 0, -1)).containsExactly(scarceProduct + ":1");
+    }
+
+    private void runMaintenance() {
+        ReflectionTestUtils.invokeMethod(service, "runMaintenance");
+    }
+}
@@ -0,0 +1,277 @@
+package com.example.productservice.service.impl;
+
+import com.example.productservice.config.WriteBehindProperties;
+import com.example.productservice.entity.Product;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 写回缓冲区：读取叠加、批量写入、暂时性失败重试、数据错误转入死信、崩溃后重放
+ */
+class WriteBehindBufferTest {
+
+    @TempDir
+    Path journalDir;
+
+    private final List<RecordingBuffer> buffers = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        // destroy会等待尚未到期的定时写入，测试中直接停止调度线程
+        for (RecordingBuffer buffer : buffers) {
+            ((ExecutorService) ReflectionTestUtils.getField(buffer, "scheduler")).shutdownNow();
+        }
+    }
+
+    @Test
+    void pendingUpdatesAreOverlaidUntilFlushed() throws IOException {
+        RecordingBuffer buffer = newBuffer();
+        buffer.submit(patch(1L, "新名称", null));
+        buffer.submit(patch(1L, null, new BigDecimal("9.90")));
+
+        Product row = product(1L, "旧名称", new BigDecimal("19.90"));
+        Product read = buffer.overlay(row);
+        assertThat(read.getName()).isEqualTo("新名称");
+        assertThat(read.getPrice()).isEqualByComparingTo("9.90");
+        assertThat(read.getStock()).isEqualTo(100);
+        // 没有未写入更新的实体原样返回
+        Product other = product(2L, "其他商品", BigDecimal.ONE);
+        assertThat(buffer.overlay(other)).isSameAs(other);
+        assertThat(buffer.overlay(null)).isNull();
+
+        flush(buffer);
+        // 两次更新合并为一条写入
+        assertThat(buffer.written).hasSize(1);
+        assertThat(buffer.written.get(0).getName()).isEqualTo("新名称");
+        assertThat(buffer.written.get(0).getPrice()).isEqualByComparingTo("9.90");
+        assertThat(buffer.getPending(1L)).isNull();
+        assertThat(buffer.overlay(row)).isSameAs(row);
+        assertThat(journalSegments()).isEmpty();
+    }
+
+    @Test
+    void transientFailureKeepsUpdatesAndJournal() throws IOException {
+        RecordingBuffer buffer = newBuffer();
+        buffer.submit(patch(1L, "新名称", null));
+        buffer.transientFailure = true;
+        flush(buffer);
+        assertThat(buffer.written).isEmpty();
+        assertThat(buffer.getPending(1L).getName()).isEqualTo("新名称");
+        assertThat(journalSegments()).hasSize(1);
+
+        // 重试前到达的更新较新，合并后以其为准
+        buffer.submit(patch(1L, "更新的名称", null));
+        buffer.transientFailure = false;
+        flush(buffer);
+        assertThat(buffer.written).extracting(Product::getName).containsExactly("更新的名称");
+        assertThat(journalSegments()).isEmpty();
+    }
+
+    @Test
+    void integrityViolationDeadLettersOnlyTheBadRow() throws IOException {
+        RecordingBuffer buffer = newBuffer();
+        buffer.submit(patch(1L, "商品1", null));
+        buffer.submit(patch(2L, "名称超长的商品", null));
+        buffer.submit(patch(3L, "商品3", null));
+        buffer.rejectedIds.add(2L);
+
+        flush(buffer);
+        assertThat(buffer.written).extracting(Product::getId).containsExactlyInAnyOrder(1L, 3L);
+        assertThat(buffer.deadLettered).extracting(Product::getId).containsExactly(2L);
+        assertThat(buffer.getPending(2L)).isNull();
+        List<String> deadLetters = Files.readAllLines(journalDir.resolve("products").resolve("dead-letter.log"),
+                StandardCharsets.UTF_8);
+        assertThat(deadLetters).hasSize(1);
+        assertThat(deadLetters.get(0)).contains("名称超长的商品");
+
+        // 死信不会在后续写入中反复重试
+        buffer.written.clear();
+        flush(buffer);
+        assertThat(buffer.written).isEmpty();
+        assertThat(journalSegments()).isEmpty();
+    }
+
+    @Test
+    void discardDropsQueuedAndInFlightUpdates() throws IOException {
+        RecordingBuffer buffer = newBuffer(1);
+        buffer.submit(patch(1L, "商品1", null));
+        buffer.submit(patch(2L, "商品2", null));
+        buffer.submit(patch(3L, "商品3", null));
+        buffer.discard(3L);
+        assertThat(buffer.getPending(3L)).isNull();
+
+        // 写入第一条期间另一个商品被删除：已取出的更新不再叠加，也不再写入
+        Map<Long, Product> visibleAfterDiscard = new HashMap<>();
+        buffer.beforeWrite = batch -> {
+            Long other = batch.get(0).getId() == 1L ? 2L : 1L;
+            buffer.discard(other);
+            visibleAfterDiscard.put(other, buffer.getPending(other));
+            buffer.beforeWrite = null;
+        };
+        flush(buffer);
+        assertThat(visibleAfterDiscard).hasSize(1).containsValue(null);
+        assertThat(buffer.written).hasSize(1);
+        assertThat(buffer.written.get(0).getId()).isNotIn(visibleAfterDiscard.keySet());
+
+        // 写入失败时被丢弃的更新不会放回缓冲区
+        buffer.written.clear();
+        buffer.submit(patch(1L, "商品1", null));
+        buffer.submit(patch(2L, "商品2", null));
+        AtomicLong failedId = new AtomicLong();
+        buffer.beforeWrite = batch -> {
+            failedId.set(batch.get(0).getId());
+            buffer.discard(failedId.get() == 1L ? 2L : 1L);
+            buffer.transientFailure = true;
+            buffer.beforeWrite = null;
+        };
+        flush(buffer);
+        assertThat(buffer.written).isEmpty();
+        assertThat(buffer.getPending(failedId.get())).isNotNull();
+        assertThat(buffer.getPending(failedId.get() == 1L ? 2L : 1L)).isNull();
+    }
+
+    @Test
+    void journalIsReplayedAfterCrash() throws IOException {
+        RecordingBuffer crashed = newBuffer();
+        crashed.submit(patch(1L, "新名称", null));
+        crashed.submit(patch(1L, null, new BigDecimal("9.90")));
+        // 模拟进程崩溃：不写入数据库也不执行destroy
+
+        RecordingBuffer restarted = newBuffer();
+        Product replayed = restarted.getPending(1L);
+        assertThat(replayed.getName()).isEqualTo("新名称");
+        assertThat(replayed.getPrice()).isEqualByComparingTo("9.90");
+        flush(restarted);
+        assertThat(restarted.written).hasSize(1);
+        assertThat(journalSegments()).isEmpty();
+    }
+
+    private RecordingBuffer newBuffer() throws IOException {
+        return newBuffer(new WriteBehindProperties().getMaxBatchSize());
+    }
+
+    private RecordingBuffer newBuffer(int maxBatchSize) throws IOException {
+        WriteBehindProperties properties = new WriteBehindProperties();
+        properties.setMaxBatchSize(maxBatchSize);
+        properties.setJournalDir(journalDir.toString());
+        // 只由测试触发写入
+        properties.setFlushInterval(Duration.ofHours(1));
+        properties.setFsync(false);
+        RecordingBuffer buffer = new RecordingBuffer(properties);
+        buffer.afterPropertiesSet();
+        // 达到批量大小时也不在后台写入
+        ReflectionTestUtils.setField(buffer, "running", false);
+        buffers.add(buffer);
+        return buffer;
+    }
+
+    private static void flush(RecordingBuffer buffer) {
+        ReflectionTestUtils.invokeMethod(buffer, "flush");
+    }
+
+    private List<Path> journalSegments() throws IOException {
+        Path dir = journalDir.resolve("products");
+        if (!Files.isDirectory(dir)) {
+            return new ArrayList<>();
+        }
+        List<Path> segments = new ArrayList<>();
+        try (Stream<Path> files = Files.list(dir)) {
+            files.filter(file -> file.getFileName().toString().startsWith("segment-")).forEach(segments::add);
+        }
+        return segments;
+    }
+
+    private static Product patch(Long id, String name, BigDecimal price) {
+        Product patch = new Product();
+        patch.setId(id);
+        patch.setName(name);
+        patch.setPrice(price);
+        return patch;
+    }
+
+    private static Product product(Long id, String name, BigDecimal price) {
+        Product product = patch(id, name, price);
+        product.setStock(100);
+        return product;
+    }
+
+    /**
+     * 把写入记录在内存中的缓冲区，可模拟数据库暂时不可用和个别行的数据错误
+     */
+    private static final class RecordingBuffer extends WriteBehindBuffer<Product> {
+
+        final List<Product> written = new ArrayList<>();
+        final List<Product> deadLettered = new ArrayList<>();
+        final Set<Long> rejectedIds = new HashSet<>();
+        volatile boolean transientFailure;
+        volatile Consumer<List<Product>> beforeWrite;
+
+        RecordingBuffer(WriteBehindProperties properties) {
+            super("products", Product.class, new ObjectMapper(), properties);
+        }
+
+        @Override
+        protected Long getId(Product product) {
+            return product.getId();
+        }
+
+        @Override
+        public Product merge(Product older, Product newer) {
+            Product merged = new Product();
+            merged.setId(older.getId());
+            merged.setName(newer.getName() != null ? newer.getName() : older.getName());
+            merged.setPrice(newer.getPrice() != null ? newer.getPrice() : older.getPrice());
+            merged.setStock(newer.getStock() != null ? newer.getStock() : older.getStock());
+            return merged;
+        }
+
+        @Override
+        protected void write(List<Product> batch) {
+            Consumer<List<Product>> hook = beforeWrite;
+            if (hook != null) {
+                hook.accept(batch);
+            }
+            if (transientFailure) {
+                throw new QueryTimeoutException("数据库暂时不可用");
+            }
+            // 与数据库事务一致，整批要么全部写入要么全部失败
+            Map<Long, Product> accepted = new HashMap<>();
+            for (Product product : batch) {
+                if (rejectedIds.contains(product.getId())) {
+                    throw new DataIntegrityViolationException("Data too long for column 'name'");
+                }
+                accepted.put(product.getId(), product);
+            }
+            written.addAll(accepted.values());
+        }
+
+        @Override
+        protected void onDeadLetter(Product patch) {
+            deadLettered.add(patch);
+        }
+    }
+}
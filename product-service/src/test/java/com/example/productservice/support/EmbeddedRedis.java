@@ -0,0 +1,82 @@
+package com.example.productservice.support;
+
+import com.example.productservice.cache.serializer.CacheMessageCodec;
+import com.example.productservice.cache.serializer.CompactRedisSerializer;
+import com.example.productservice.cache.serializer.ProductCodec;
+import com.example.productservice.config.TwoLevelCacheProperties;
+import com.github.fppt.jedismock.RedisServer;
+import io.lettuce.core.ClientOptions;
+import io.lettuce.core.protocol.ProtocolVersion;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.util.Arrays;
+
+/**
+ * 测试用的进程内Redis（jedis-mock，支持Lua脚本），通过Lettuce以RESP2协议连接
+ */
+public class EmbeddedRedis implements AutoCloseable {
+
+    private final RedisServer server;
+    private final LettuceConnectionFactory connectionFactory;
+
+    public EmbeddedRedis() throws IOException {
+        clearLuaStringCache();
+        server = RedisServer.newRedisServer().start();
+        LettuceClientConfiguration clientConfiguration = LettuceClientConfiguration.builder()
+                .clientOptions(ClientOptions.builder().protocolVersion(ProtocolVersion.RESP2).build())
+                .build();
+        connectionFactory = new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration("127.0.0.1", server.getBindPort()), clientConfiguration);
+        connectionFactory.afterPropertiesSet();
+    }
+
+    public LettuceConnectionFactory getConnectionFactory() {
+        return connectionFactory;
+    }
+
+    /**
+     * 与RedisConfig一致的缓存用RedisTemplate
+     */
+    public RedisTemplate<String, Object> createCacheTemplate(TwoLevelCacheProperties cacheProperties) {
+        RedisTemplate<String, Object> template = new RedisTemplate<>();
+        template.setConnectionFactory(connectionFactory);
+        template.setKeySerializer(new StringRedisSerializer());
+        template.setHashKeySerializer(new StringRedisSerializer());
+        CompactRedisSerializer valueSerializer = new CompactRedisSerializer(cacheProperties,
+                Arrays.asList(new ProductCodec(), new CacheMessageCodec()));
+        template.setValueSerializer(valueSerializer);
+        template.setHashValueSerializer(valueSerializer);
+        template.afterPropertiesSet();
+        return template;
+    }
+
+    @Override
+    public void close() throws IOException {
+        connectionFactory.destroy();
+        server.stop();
+    }
+
+    /**
+     * jedis-mock使用的LuaJ 3.0.1在静态缓存中复用短字符串，而缓存的字符串可能与已被复用的字节数组共享内容，
+     * 前一个测试执行过的脚本会让后续脚本读到错误的ARGV（如"1"变成"1:1"），每次启动前清空该缓存
+     */
+    private static void clearLuaStringCache() {
+        try {
+            Field field = Class.forName("org.luaj.vm2.LuaString$RecentShortStrings")
+                    .getDeclaredField("recent_short_strings");
+            field.setAccessible(true);
+            Object[] cache = (Object[]) field.get(null);
+            synchronized (cache) {
+                Arrays.fill(cache, null);
+            }
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("无法清空LuaJ字符串缓存", e);
+        }
+    }
+}
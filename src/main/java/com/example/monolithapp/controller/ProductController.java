@@ -1,5 +1,6 @@
 package com.example.monolithapp.controller;
 
+import com.example.monolithapp.common.CursorPage;
 import com.example.monolithapp.entity.Product;
 import com.example.monolithapp.service.ProductService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -10,7 +11,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.util.List;
 
@@ -20,12 +23,26 @@ import java.util.List;
 @Tag(name = "商品管理", description = "商品相关接口")
 public class ProductController {
 
+    /**
+     * 分页查询每页允许的最大数量
+     */
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final ProductService productService;
 
     @GetMapping
-    @Operation(summary = "获取商品列表")
-    public List<Product> getProducts() {
-        return productService.list();
+    @Operation(summary = "分页获取商品列表")
+    public CursorPage<Product> getProducts(
+            @Parameter(description = "分页游标，取上一页返回的nextCursor，为空时从第一页开始") @RequestParam(required = false) String cursor,
+            @Parameter(description = "每页数量，最大" + MAX_PAGE_SIZE) @RequestParam(defaultValue = "20") int limit,
+            @Parameter(description = "需要返回的字段，逗号分隔，如id,name") @RequestParam(required = false) List<String> fields) {
+        try {
+            Long afterId = CursorPage.decodeCursor(cursor);
+            int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+            return productService.listByCursor(afterId, pageSize, fields);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
     }
 
     @GetMapping("/{id}")
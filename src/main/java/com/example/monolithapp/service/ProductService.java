@@ -1,12 +1,24 @@
 package com.example.monolithapp.service;
 
 import com.baomidou.mybatisplus.extension.service.IService;
+import com.example.monolithapp.common.CursorPage;
 import com.example.monolithapp.entity.Product;
 
+import java.util.Collection;
+
 public interface ProductService extends IService<Product> {
 
     Product getProductById(Long id);
 
+    /**
+     * 基于游标（主键id）分页获取商品列表
+     *
+     * @param afterId 上一页最后一条记录的id，为null时从第一页开始
+     * @param limit   每页数量
+     * @param fields  需要查询的字段（属性名），为空时查询全部字段
+     */
+    CursorPage<Product> listByCursor(Long afterId, int limit, Collection<String> fields);
+
     boolean createProduct(Product product);
 
     boolean updateProduct(Product product);
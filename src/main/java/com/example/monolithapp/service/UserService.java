@@ -1,12 +1,24 @@
 package com.example.monolithapp.service;
 
 import com.baomidou.mybatisplus.extension.service.IService;
+import com.example.monolithapp.common.CursorPage;
 import com.example.monolithapp.entity.User;
 
+import java.util.Collection;
+
 public interface UserService extends IService<User> {
 
     User getUserById(Long id);
 
+    /**
+     * 基于游标（主键id）分页获取用户列表
+     *
+     * @param afterId 上一页最后一条记录的id，为null时从第一页开始
+     * @param limit   每页数量
+     * @param fields  需要查询的字段（属性名），为空时查询全部字段
+     */
+    CursorPage<User> listByCursor(Long afterId, int limit, Collection<String> fields);
+
     boolean createUser(User user);
 
     boolean updateUser(User user);
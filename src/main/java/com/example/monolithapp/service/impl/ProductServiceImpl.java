@@ -1,12 +1,25 @@
 package com.example.monolithapp.service.impl;
 
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.core.metadata.TableFieldInfo;
+import com.baomidou.mybatisplus.core.metadata.TableInfo;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.example.monolithapp.common.CursorPage;
 import com.example.monolithapp.entity.Product;
 import com.example.monolithapp.mapper.ProductMapper;
 import com.example.monolithapp.service.ProductService;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 @Service
 public class ProductServiceImpl extends ServiceImpl<ProductMapper, Product> implements ProductService {
 
@@ -30,4 +43,46 @@ public class ProductServiceImpl extends ServiceImpl<ProductMapper, Product> impl
     public boolean deleteProduct(Long id) {
         return baseMapper.deleteById(id) > 0;
     }
+
+    @Override
+    public CursorPage<Product> listByCursor(Long afterId, int limit, Collection<String> fields) {
+        // 多查一条用于判断是否还有下一页
+        QueryWrapper<Product> wrapper = new QueryWrapper<Product>()
+                .select(selectColumns(fields))
+                .gt(afterId != null, "id", afterId)
+                .orderByAsc("id")
+                .last("LIMIT " + (limit + 1));
+        List<Product> rows = baseMapper.selectList(wrapper);
+        if (rows.size() <= limit) {
+            return new CursorPage<>(rows, null);
+        }
+        List<Product> items = new ArrayList<>(rows.subList(0, limit));
+        return new CursorPage<>(items, CursorPage.encodeCursor(items.get(limit - 1).getId()));
+    }
+
+    /**
+     * 将属性名转换为查询列，主键始终包含以便生成游标
+     */
+    private static String[] selectColumns(Collection<String> fields) {
+        TableInfo tableInfo = TableInfoHelper.getTableInfo(Product.class);
+        Map<String, String> columns = new LinkedHashMap<>();
+        columns.put(tableInfo.getKeyProperty(), tableInfo.getKeyColumn());
+        for (TableFieldInfo field : tableInfo.getFieldList()) {
+            columns.put(field.getProperty(), field.getColumn());
+        }
+        if (fields == null || fields.isEmpty()) {
+            return columns.values().toArray(new String[0]);
+        }
+
+        Set<String> selected = new LinkedHashSet<>();
+        selected.add(tableInfo.getKeyColumn());
+        for (String field : fields) {
+            String column = columns.get(field);
+            if (column == null) {
+                throw new IllegalArgumentException("不支持的字段: " + field);
+            }
+            selected.add(column);
+        }
+        return selected.toArray(new String[0]);
+    }
 }
\ No newline at end of file
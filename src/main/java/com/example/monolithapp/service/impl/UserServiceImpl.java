@@ -1,15 +1,34 @@
 package com.example.monolithapp.service.impl;
 
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.core.metadata.TableFieldInfo;
+import com.baomidou.mybatisplus.core.metadata.TableInfo;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.example.monolithapp.common.CursorPage;
 import com.example.monolithapp.entity.User;
 import com.example.monolithapp.mapper.UserMapper;
 import com.example.monolithapp.service.UserService;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 @Service
 public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements UserService {
 
+    /**
+     * 列表查询中不允许返回的字段
+     */
+    private static final Set<String> LIST_EXCLUDED_FIELDS = Collections.singleton("password");
+
     @Override
     @Cacheable(value = "users", key = "#id")
     public User getUserById(Long id) {
@@ -30,4 +49,49 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
     public boolean deleteUser(Long id) {
         return baseMapper.deleteById(id) > 0;
     }
+
+    @Override
+    public CursorPage<User> listByCursor(Long afterId, int limit, Collection<String> fields) {
+        // 多查一条用于判断是否还有下一页
+        QueryWrapper<User> wrapper = new QueryWrapper<User>()
+                .select(selectColumns(fields))
+                .gt(afterId != null, "id", afterId)
+                .orderByAsc("id")
+                .last("LIMIT " + (limit + 1));
+        List<User> rows = baseMapper.selectList(wrapper);
+        if (rows.size() <= limit) {
+            return new CursorPage<>(rows, null);
+        }
+        List<User> items = new ArrayList<>(rows.subList(0, limit));
+        return new CursorPage<>(items, CursorPage.encodeCursor(items.get(limit - 1).getId()));
+    }
+
+    /**
+     * 将属性名转换为查询列，主键始终包含以便生成游标，密码等敏感字段不允许查询
+     */
+    private static String[] selectColumns(Collection<String> fields) {
+        TableInfo tableInfo = TableInfoHelper.getTableInfo(User.class);
+        Map<String, String> columns = new LinkedHashMap<>();
+        columns.put(tableInfo.getKeyProperty(), tableInfo.getKeyColumn());
+        for (TableFieldInfo field : tableInfo.getFieldList()) {
+            if (LIST_EXCLUDED_FIELDS.contains(field.getProperty())) {
+                continue;
+            }
+            columns.put(field.getProperty(), field.getColumn());
+        }
+        if (fields == null || fields.isEmpty()) {
+            return columns.values().toArray(new String[0]);
+        }
+
+        Set<String> selected = new LinkedHashSet<>();
+        selected.add(tableInfo.getKeyColumn());
+        for (String field : fields) {
+            String column = columns.get(field);
+            if (column == null) {
+                throw new IllegalArgumentException("不支持的字段: " + field);
+            }
+            selected.add(column);
+        }
+        return selected.toArray(new String[0]);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,28 @@
+package com.example.userservice.cache;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+/**
+ * 订阅缓存变更频道，将其他节点的变更同步到本地一级缓存
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class CacheMessageListener implements MessageListener {
+
+    private final TwoLevelCacheManager cacheManager;
+    private final RedisSerializer<?> serializer;
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        Object body = serializer.deserialize(message.getBody());
+        if (body instanceof CacheMessage) {
+            cacheManager.onMessage((CacheMessage) body);
+        } else {
+            log.warn("忽略无法识别的缓存变更消息: {}", body);
+        }
+    }
+}
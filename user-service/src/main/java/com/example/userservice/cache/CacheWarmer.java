@@ -0,0 +1,254 @@
+package com.example.userservice.cache;
+
+import com.example.userservice.config.TwoLevelCacheProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.redis.connection.DefaultTuple;
+import org.springframework.data.redis.connection.RedisZSetCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 缓存预热
+ * <p>各缓存区域的 {@link HeavyHitterSketch} 定期合并写入Redis的有序集合 cache:hotkeys:{区域}（旧分数先减半），
+ * 作为全集群共享的热点key排名。实例启动时在Web服务器启动、注册到Nacos之前，按排名取前topN个key：
+ * Redis中已有的批量载入一级缓存，其余通过 {@link CacheWarmupLoader} 批量查库后以管道写入两级缓存。
+ * 预热按批次并行执行，超过timeout后放弃剩余批次。app.cache配置变更后在后台再预热一次。
+ */
+@Slf4j
+public class CacheWarmer implements SmartLifecycle, ApplicationListener<EnvironmentChangeEvent> {
+
+    /**
+     * 在Web服务器启动（Integer.MAX_VALUE - 1）之前执行，Nacos服务注册发生在Web服务器启动之后
+     */
+    private static final int PHASE = Integer.MAX_VALUE - 2;
+    private static final String HOT_KEYS_PREFIX = "cache:hotkeys:";
+    private static final long HOT_KEYS_EXPIRE_SECONDS = Duration.ofDays(7).getSeconds();
+
+    private final TwoLevelCacheManager cacheManager;
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final TwoLevelCacheProperties properties;
+    private final Map<String, CacheWarmupLoader> loaders;
+    private final ScheduledExecutorService scheduler;
+    private final AtomicBoolean warming = new AtomicBoolean();
+
+    private volatile boolean running;
+    private volatile WarmupProgress progress;
+
+    public CacheWarmer(TwoLevelCacheManager cacheManager, RedisTemplate<String, Object> redisTemplate,
+                       TwoLevelCacheProperties properties, List<CacheWarmupLoader> loaders) {
+        this.cacheManager = cacheManager;
+        this.redisTemplate = redisTemplate;
+        this.properties = properties;
+        this.loaders = loaders.stream().collect(Collectors.toMap(CacheWarmupLoader::getCacheName, Function.identity()));
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("cache-hotkeys-");
+        threadFactory.setDaemon(true);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(threadFactory);
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        if (properties.getWarmup().isEnabled()) {
+            warmUp("startup");
+        }
+        schedulePersist();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        scheduler.shutdownNow();
+        // 下线前写入最后一次统计，供接替的实例预热
+        persistHotKeys();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    @Override
+    public void onApplicationEvent(EnvironmentChangeEvent event) {
+        boolean cacheChanged = event.getKeys().stream().anyMatch(key -> key.startsWith("app.cache."));
+        if (running && cacheChanged && properties.getWarmup().isEnabled()) {
+            scheduler.execute(() -> warmUp("refresh"));
+        }
+    }
+
+    /**
+     * 异步触发一次预热，已有预热在进行时不重复触发
+     */
+    public void warmUpAsync(String trigger) {
+        scheduler.execute(() -> warmUp(trigger));
+    }
+
+    public WarmupProgress getProgress() {
+        return progress;
+    }
+
+    /**
+     * 执行一次预热，最长阻塞timeout
+     */
+    public void warmUp(String trigger) {
+        if (!warming.compareAndSet(false, true)) {
+            return;
+        }
+        WarmupProgress run = new WarmupProgress(trigger);
+        progress = run;
+        TwoLevelCacheProperties.Warmup config = properties.getWarmup();
+        long deadline = System.nanoTime() + config.getTimeout().toNanos();
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("cache-warmup-");
+        threadFactory.setDaemon(true);
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, config.getParallelism()), threadFactory);
+        try {
+            for (CacheWarmupLoader loader : loaders.values()) {
+                TwoLevelCache cache = (TwoLevelCache) cacheManager.getCache(loader.getCacheName());
+                List<String> keys = hotKeys(cache, config.getTopN());
+                WarmupProgress.Region region = run.region(cache.getName(), keys.size());
+                for (int from = 0; from < keys.size(); from += config.getBatchSize()) {
+                    List<String> batch = keys.subList(from, Math.min(keys.size(), from + config.getBatchSize()));
+                    executor.execute(() -> warmBatch(cache, loader, batch, region, deadline));
+                }
+            }
+            executor.shutdown();
+            boolean finished = executor.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            run.finish(finished ? WarmupProgress.State.COMPLETED : WarmupProgress.State.TIMED_OUT);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            run.finish(WarmupProgress.State.FAILED);
+        } catch (RuntimeException e) {
+            log.warn("缓存预热失败: trigger={}, error={}", trigger, e.getMessage());
+            run.finish(WarmupProgress.State.FAILED);
+        } finally {
+            executor.shutdownNow();
+            warming.set(false);
+        }
+        run.getRegions().forEach((name, region) -> log.info(
+                "缓存预热结束: cache={}, trigger={}, state={}, total={}, fromRedis={}, fromDatabase={}, skipped={}, elapsed={}ms",
+                name, trigger, run.getState(), region.getTotal(), region.getFromRedis(), region.getFromDatabase(),
+                region.getSkipped(), run.getElapsedMillis()));
+    }
+
+    private void warmBatch(TwoLevelCache cache, CacheWarmupLoader loader, List<String> keys,
+                           WarmupProgress.Region region, long deadline) {
+        if (System.nanoTime() > deadline) {
+            region.getSkipped().addAndGet(keys.size());
+            return;
+        }
+        try {
+            Set<String> cached = cache.preload(keys);
+            region.getFromRedis().addAndGet(cached.size());
+            List<String> missing = keys.stream().filter(key -> !cached.contains(key)).collect(Collectors.toList());
+            if (missing.isEmpty()) {
+                return;
+            }
+            Map<Object, Object> loaded = loader.load(missing);
+            cache.putAll(loaded);
+            region.getFromDatabase().addAndGet(loaded.size());
+            region.getMissing().addAndGet(missing.size() - loaded.size());
+        } catch (RuntimeException e) {
+            log.warn("缓存预热批次失败: cache={}, size={}, error={}", cache.getName(), keys.size(), e.getMessage());
+            region.getSkipped().addAndGet(keys.size());
+        }
+    }
+
+    /**
+     * Redis中的全局排名在前，本地统计补充（配置变更后的预热可利用本节点已有的统计）
+     */
+    private List<String> hotKeys(TwoLevelCache cache, int topN) {
+        Set<String> keys = new LinkedHashSet<>();
+        byte[] rankKey = rawKey(HOT_KEYS_PREFIX + "{" + cache.getName() + "}");
+        Set<byte[]> ranked = redisTemplate.execute((RedisCallback<Set<byte[]>>) connection ->
+                connection.zRevRange(rankKey, 0, topN - 1));
+        if (ranked != null) {
+            ranked.forEach(member -> keys.add(new String(member, StandardCharsets.UTF_8)));
+        }
+        for (Map.Entry<String, Integer> entry : cache.getHotKeys().top(topN)) {
+            if (keys.size() >= topN) {
+                break;
+            }
+            keys.add(entry.getKey());
+        }
+        return new ArrayList<>(keys);
+    }
+
+    private void schedulePersist() {
+        if (!running) {
+            return;
+        }
+        try {
+            scheduler.schedule(() -> {
+                persistHotKeys();
+                schedulePersist();
+            }, properties.getWarmup().getPersistInterval().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (RuntimeException e) {
+            // 关闭过程中调度器已停止
+            log.debug("热点统计调度已停止: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 将各区域本地的热点统计合并到Redis：新排名 = 旧排名 × 0.5 + 本地计数，随后本地计数减半
+     * 临时key与排名key使用相同的hash tag，Redis集群下ZUNIONSTORE也可执行
+     */
+    private void persistHotKeys() {
+        int topN = properties.getWarmup().getTopN();
+        for (String name : cacheManager.getCacheNames()) {
+            TwoLevelCache cache = (TwoLevelCache) cacheManager.getCache(name);
+            List<Map.Entry<String, Integer>> top = cache.getHotKeys().top(topN);
+            if (top.isEmpty()) {
+                continue;
+            }
+            byte[] rankKey = rawKey(HOT_KEYS_PREFIX + "{" + name + "}");
+            byte[] nodeKey = rawKey(HOT_KEYS_PREFIX + "{" + name + "}:" + cacheManager.getNodeId());
+            Set<RedisZSetCommands.Tuple> tuples = new HashSet<>();
+            top.forEach(entry -> tuples.add(new DefaultTuple(entry.getKey().getBytes(StandardCharsets.UTF_8),
+                    (double) entry.getValue())));
+            try {
+                redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                    connection.zAdd(nodeKey, tuples);
+                    connection.zUnionStore(rankKey, RedisZSetCommands.Aggregate.SUM,
+                            RedisZSetCommands.Weights.of(0.5, 1), rankKey, nodeKey);
+                    connection.del(nodeKey);
+                    connection.zRemRange(rankKey, 0, -(topN * 2L) - 1);
+                    connection.expire(rankKey, HOT_KEYS_EXPIRE_SECONDS);
+                    return null;
+                });
+                cache.getHotKeys().decay();
+            } catch (RuntimeException e) {
+                log.warn("热点统计写入Redis失败: cache={}, error={}", name, e.getMessage());
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private byte[] rawKey(String key) {
+        return ((RedisSerializer<String>) redisTemplate.getKeySerializer()).serialize(key);
+    }
+}
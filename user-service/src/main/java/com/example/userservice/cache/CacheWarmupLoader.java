@@ -0,0 +1,20 @@
+package com.example.userservice.cache;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 缓存预热时从数据源批量加载缓存值，返回值的格式须与正常读取路径写入缓存的值一致
+ */
+public interface CacheWarmupLoader {
+
+    /**
+     * 负责的缓存区域
+     */
+    String getCacheName();
+
+    /**
+     * 按缓存key批量加载，不存在的key不放入结果
+     */
+    Map<Object, Object> load(List<String> cacheKeys);
+}
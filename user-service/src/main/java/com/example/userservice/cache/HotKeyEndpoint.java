@@ -0,0 +1,31 @@
+package com.example.userservice.cache;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 热点key端点：GET /actuator/hotkeys 按缓存区域列出本节点当前识别出的热点key
+ */
+@Endpoint(id = "hotkeys")
+public class HotKeyEndpoint {
+
+    private final TwoLevelCacheManager cacheManager;
+
+    public HotKeyEndpoint(TwoLevelCacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    @ReadOperation
+    public Map<String, List<HotKeyDetector.HotKey>> hotKeys() {
+        Map<String, List<HotKeyDetector.HotKey>> result = new TreeMap<>();
+        for (String name : cacheManager.getCacheNames()) {
+            TwoLevelCache cache = (TwoLevelCache) cacheManager.getCache(name);
+            result.put(name, cache.getHotKeyDetector().getHotKeys());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.userservice.cache;
+
+import lombok.Getter;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 一次缓存预热的进度，通过actuator端点 /actuator/cachewarmup 查看
+ */
+@Getter
+public class WarmupProgress {
+
+    public enum State {
+        RUNNING, COMPLETED, TIMED_OUT, FAILED
+    }
+
+    /**
+     * 触发原因：startup、refresh（缓存配置变更）或manual（actuator端点）
+     */
+    private final String trigger;
+
+    private final long startTime = System.currentTimeMillis();
+
+    private volatile State state = State.RUNNING;
+
+    private volatile long elapsedMillis;
+
+    private final Map<String, Region> regions = new ConcurrentHashMap<>();
+
+    public WarmupProgress(String trigger) {
+        this.trigger = trigger;
+    }
+
+    public Region region(String cacheName, int total) {
+        return regions.computeIfAbsent(cacheName, name -> new Region(total));
+    }
+
+    public void finish(State state) {
+        this.elapsedMillis = System.currentTimeMillis() - startTime;
+        this.state = state;
+    }
+
+    @Getter
+    public static class Region {
+
+        /**
+         * 需要预热的热点key数量
+         */
+        private final int total;
+
+        /**
+         * Redis中已存在、直接载入本地缓存的数量
+         */
+        private final AtomicInteger fromRedis = new AtomicInteger();
+
+        /**
+         * 从数据库加载并写入两级缓存的数量
+         */
+        private final AtomicInteger fromDatabase = new AtomicInteger();
+
+        /**
+         * 数据库中已不存在的数量
+         */
+        private final AtomicInteger missing = new AtomicInteger();
+
+        /**
+         * 因超时或出错未完成的数量
+         */
+        private final AtomicInteger skipped = new AtomicInteger();
+
+        Region(int total) {
+            this.total = total;
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.example.userservice.cache.serializer;
+
+import com.example.userservice.common.Result;
+import com.example.userservice.config.TwoLevelCacheProperties;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 缓存值的紧凑二进制序列化器
+ * <p>格式：魔数(1) + 版本(1) + 标志(1) + [压缩前长度varint] + 值。值以类型标识开头，
+ * {@link Result} 内置支持，其余类型由注册的 {@link ValueCodec} 编码；不认识的类型（如NullValue、集合）仍写为JSON。
+ * <p>读取时首字节不是魔数的数据按JSON解析，因此灰度期间Redis中已有的JSON缓存仍可读取。
+ * 超过压缩阈值的值使用Deflater（BEST_SPEED）压缩，只在压缩后更小时保留。
+ */
+public class CompactRedisSerializer implements RedisSerializer<Object> {
+
+    /**
+     * 魔数取非ASCII字节，JSON文本不可能以它开头
+     */
+    static final byte MAGIC = (byte) 0xC5;
+    static final byte VERSION = 1;
+    static final int FLAG_COMPRESSED = 1;
+    static final int TAG_NULL = 0;
+    static final int TAG_RESULT = 1;
+    private static final int HEADER_SIZE = 3;
+
+    private final GenericJackson2JsonRedisSerializer json = new GenericJackson2JsonRedisSerializer();
+    private final TwoLevelCacheProperties properties;
+    private final Map<Class<?>, ValueCodec<?>> codecsByType = new HashMap<>();
+    private final ValueCodec<?>[] codecsByTag = new ValueCodec<?>[64];
+
+    public CompactRedisSerializer(TwoLevelCacheProperties properties, List<ValueCodec<?>> codecs) {
+        this.properties = properties;
+        for (ValueCodec<?> codec : codecs) {
+            if (codec.tag() <= TAG_RESULT || codec.tag() >= codecsByTag.length || codecsByTag[codec.tag()] != null) {
+                throw new IllegalArgumentException("缓存编解码器类型标识无效或重复: " + codec.tag());
+            }
+            codecsByTag[codec.tag()] = codec;
+            codecsByType.put(codec.type(), codec);
+        }
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        // 每次读取当前配置，Nacos中切换格式后立即生效
+        TwoLevelCacheProperties.Serializer config = properties.getSerializer();
+        if (value == null || config.getFormat() == TwoLevelCacheProperties.Format.JSON || !supports(value)) {
+            return json.serialize(value);
+        }
+        BinaryWriter out = new BinaryWriter(256);
+        out.writeByte(MAGIC);
+        out.writeByte(VERSION);
+        out.writeByte(0);
+        writeValue(out, value);
+
+        int length = out.size() - HEADER_SIZE;
+        if (config.getCompressThreshold() <= 0 || length < config.getCompressThreshold()) {
+            return out.toByteArray();
+        }
+        byte[] compressed = compress(out.array(), HEADER_SIZE, length);
+        if (compressed == null) {
+            return out.toByteArray();
+        }
+        BinaryWriter result = new BinaryWriter(compressed.length + 8);
+        result.writeByte(MAGIC);
+        result.writeByte(VERSION);
+        result.writeByte(FLAG_COMPRESSED);
+        result.writeVarInt(length);
+        byte[] bytes = result.toByteArray();
+        byte[] merged = new byte[bytes.length + compressed.length];
+        System.arraycopy(bytes, 0, merged, 0, bytes.length);
+        System.arraycopy(compressed, 0, merged, bytes.length, compressed.length);
+        return merged;
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes[0] != MAGIC) {
+            return json.deserialize(bytes);
+        }
+        if (bytes.length < HEADER_SIZE || bytes[1] != VERSION) {
+            throw new SerializationException("不支持的缓存数据版本: " + (bytes.length > 1 ? bytes[1] : -1));
+        }
+        BinaryReader in;
+        if ((bytes[2] & FLAG_COMPRESSED) != 0) {
+            BinaryReader header = new BinaryReader(bytes, HEADER_SIZE, bytes.length);
+            int length = header.readVarInt();
+            byte[] plain = decompress(bytes, header.getPosition(), length);
+            in = new BinaryReader(plain, 0, plain.length);
+        } else {
+            in = new BinaryReader(bytes, HEADER_SIZE, bytes.length);
+        }
+        return readValue(in);
+    }
+
+    private boolean supports(Object value) {
+        if (value instanceof Result) {
+            Object data = ((Result<?>) value).getData();
+            return data == null || codecsByType.containsKey(data.getClass());
+        }
+        return codecsByType.containsKey(value.getClass());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void writeValue(BinaryWriter out, Object value) {
+        if (value == null) {
+            out.writeByte(TAG_NULL);
+        } else if (value instanceof Result) {
+            Result<?> result = (Result<?>) value;
+            out.writeByte(TAG_RESULT);
+            out.writeSignedVarLong(result.getCode() != null ? result.getCode() : Long.MIN_VALUE);
+            out.writeString(result.getMessage());
+            writeValue(out, result.getData());
+        } else {
+            ValueCodec<Object> codec = (ValueCodec<Object>) codecsByType.get(value.getClass());
+            out.writeByte(codec.tag());
+            codec.write(out, value);
+        }
+    }
+
+    private Object readValue(BinaryReader in) {
+        int tag = in.readByte();
+        if (tag == TAG_NULL) {
+            return null;
+        }
+        if (tag == TAG_RESULT) {
+            long code = in.readSignedVarLong();
+            String message = in.readString();
+            return new Result<>(code == Long.MIN_VALUE ? null : (int) code, message, readValue(in));
+        }
+        ValueCodec<?> codec = tag > 0 && tag < codecsByTag.length ? codecsByTag[tag] : null;
+        if (codec == null) {
+            throw new SerializationException("未知的缓存数据类型标识: " + tag);
+        }
+        return codec.read(in);
+    }
+
+    /**
+     * 压缩后不小于原数据时返回null
+     */
+    private static byte[] compress(byte[] data, int offset, int length) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(data, offset, length);
+            deflater.finish();
+            byte[] buffer = new byte[length];
+            int size = deflater.deflate(buffer);
+            if (!deflater.finished() || size >= length) {
+                return null;
+            }
+            byte[] result = new byte[size];
+            System.arraycopy(buffer, 0, result, 0, size);
+            return result;
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] decompress(byte[] data, int offset, int length) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data, offset, data.length - offset);
+            byte[] result = new byte[length];
+            int size = inflater.inflate(result);
+            if (size != length) {
+                throw new SerializationException("缓存数据解压后长度不符: expected=" + length + ", actual=" + size);
+            }
+            return result;
+        } catch (DataFormatException e) {
+            throw new SerializationException("缓存数据解压失败", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
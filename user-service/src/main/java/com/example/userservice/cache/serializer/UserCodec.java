@@ -0,0 +1,58 @@
+package com.example.userservice.cache.serializer;
+
+import com.example.userservice.entity.User;
+
+/**
+ * {@link User} 的二进制编解码器
+ */
+public class UserCodec implements ValueCodec<User> {
+
+    private static final int ID = 1;
+    private static final int DELETED = 1 << 1;
+
+    @Override
+    public int tag() {
+        return 3;
+    }
+
+    @Override
+    public Class<User> type() {
+        return User.class;
+    }
+
+    @Override
+    public void write(BinaryWriter out, User user) {
+        int mask = (user.getId() != null ? ID : 0)
+                | (user.getDeleted() != null ? DELETED : 0);
+        out.writeVarInt(mask);
+        if (user.getId() != null) {
+            out.writeVarLong(user.getId());
+        }
+        out.writeString(user.getUsername());
+        out.writeString(user.getPassword());
+        out.writeString(user.getEmail());
+        out.writeString(user.getCreatedTime());
+        out.writeString(user.getUpdatedTime());
+        if (user.getDeleted() != null) {
+            out.writeSignedVarLong(user.getDeleted());
+        }
+    }
+
+    @Override
+    public User read(BinaryReader in) {
+        int mask = in.readVarInt();
+        User user = new User();
+        if ((mask & ID) != 0) {
+            user.setId(in.readVarLong());
+        }
+        user.setUsername(in.readString());
+        user.setPassword(in.readString());
+        user.setEmail(in.readString());
+        user.setCreatedTime(in.readString());
+        user.setUpdatedTime(in.readString());
+        if ((mask & DELETED) != 0) {
+            user.setDeleted((int) in.readSignedVarLong());
+        }
+        return user;
+    }
+}
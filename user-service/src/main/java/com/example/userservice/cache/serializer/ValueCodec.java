@@ -0,0 +1,19 @@
+package com.example.userservice.cache.serializer;
+
+/**
+ * 单个类型的二进制编解码器，字段按固定顺序写入，可为空的字段通过开头的位掩码标记是否存在
+ * 新增字段只能追加在末尾并使用新的掩码位，以便旧数据仍可读取
+ */
+public interface ValueCodec<T> {
+
+    /**
+     * 类型标识，写在每个值的开头，同一集群内必须唯一且不能复用
+     */
+    int tag();
+
+    Class<T> type();
+
+    void write(BinaryWriter out, T value);
+
+    T read(BinaryReader in);
+}
@@ -0,0 +1,58 @@
+package com.example.userservice.common;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * 基于游标（主键id）的分页结果
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final String CURSOR_PREFIX = "id:";
+
+    private List<T> items;
+
+    /**
+     * 下一页游标，为null表示没有更多数据
+     */
+    private String nextCursor;
+
+    /**
+     * 将本页最后一条记录的id编码为不透明的游标
+     */
+    public static String encodeCursor(Long lastId) {
+        String raw = CURSOR_PREFIX + lastId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解析游标，为空时返回null表示从第一页开始
+     *
+     * @throws IllegalArgumentException 游标格式不正确
+     */
+    public static Long decodeCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (raw.startsWith(CURSOR_PREFIX)) {
+                return Long.parseLong(raw.substring(CURSOR_PREFIX.length()));
+            }
+        } catch (IllegalArgumentException e) {
+            // 交由下方统一抛出
+        }
+        throw new IllegalArgumentException("无效的分页游标: " + cursor);
+    }
+}
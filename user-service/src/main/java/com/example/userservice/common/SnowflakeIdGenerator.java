@@ -0,0 +1,128 @@
+package com.example.userservice.common;
+
+import com.baomidou.mybatisplus.core.incrementer.IdentifierGenerator;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 分布式主键生成器（Snowflake结构：41位毫秒时间戳 + 10位机器号 + 12位序列号）
+ * <p>
+ * 主键在本地生成，插入前即可得到id，不依赖数据库自增锁；生成的id随时间递增，对B+树索引友好。
+ * 状态（上次时间戳 + 序列号）打包在一个long中以CAS更新，不加锁，{@link #nextLong()} 不产生任何对象。
+ * 时钟回拨时不等待也不报错，而是沿用上次的时间戳继续递增序列号（逻辑时钟），保证id单调且不重复；
+ * 同一毫秒内序列号用尽时同样借用下一毫秒。
+ * <p>
+ * 配置了 {@link TimestampStore} 时逻辑时钟在重启后延续：时间戳超过已保存的值时先把它加上reserveMillis保存下来再返回id，
+ * 启动时从保存的值之后继续，因此重启期间系统时钟回拨也不会生成重复的id；每reserveMillis最多写一次存储。
+ */
+public class SnowflakeIdGenerator implements IdentifierGenerator {
+
+    /**
+     * 起始时间 2024-01-01 00:00:00 UTC
+     */
+    private static final long EPOCH = 1704067200000L;
+    private static final int WORKER_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    public static final long MAX_WORKER_ID = (1L << WORKER_BITS) - 1;
+
+    private final long workerBits;
+
+    /**
+     * 高位为上次使用的时间戳（相对EPOCH），低12位为序列号
+     */
+    private final AtomicLong state = new AtomicLong();
+
+    private final TimestampStore store;
+    private final long reserveMillis;
+
+    /**
+     * 已保存到store的时间戳（相对EPOCH），不超过它的id可以直接返回
+     */
+    private volatile long reservedUntil;
+
+    /**
+     * 逻辑时钟只保存在内存中，重启后从当前系统时间开始
+     */
+    public SnowflakeIdGenerator(long workerId) {
+        this(workerId, null, 0);
+    }
+
+    /**
+     * @param store         保存逻辑时钟的存储，启动时从保存的时间戳之后继续
+     * @param reserveMillis 每次预先保存的时长，生成的id时间戳最多领先系统时钟这么多
+     */
+    public SnowflakeIdGenerator(long workerId, TimestampStore store, long reserveMillis) {
+        if (workerId < 0 || workerId > MAX_WORKER_ID) {
+            throw new IllegalArgumentException("worker-id必须在0到" + MAX_WORKER_ID + "之间: " + workerId);
+        }
+        this.workerBits = workerId << SEQUENCE_BITS;
+        this.store = store;
+        this.reserveMillis = Math.max(1, reserveMillis);
+        if (store == null) {
+            reservedUntil = Long.MAX_VALUE;
+            return;
+        }
+        long saved = store.load() - EPOCH;
+        if (saved > 0) {
+            // 下一个id的时间戳大于上次保存的值，序列号已满时加1进位到下一毫秒
+            state.set((saved << SEQUENCE_BITS) | SEQUENCE_MASK);
+        }
+        // 启动时先保存一次，存储不可用时启动失败
+        reserve(Math.max(saved, System.currentTimeMillis() - EPOCH));
+    }
+
+    public long nextLong() {
+        while (true) {
+            long current = state.get();
+            long now = System.currentTimeMillis() - EPOCH;
+            // 时间前进时序列号从0开始；同一毫秒、时钟回拨或序列号用尽时在原状态上加1（溢出自动进位到时间戳）
+            long next = now > (current >>> SEQUENCE_BITS) ? now << SEQUENCE_BITS : current + 1;
+            if (state.compareAndSet(current, next)) {
+                long timestamp = next >>> SEQUENCE_BITS;
+                if (timestamp > reservedUntil) {
+                    reserve(timestamp);
+                }
+                return (timestamp << (WORKER_BITS + SEQUENCE_BITS)) | workerBits | (next & SEQUENCE_MASK);
+            }
+        }
+    }
+
+    /**
+     * 保存成功后才返回，超过已保存时间戳的id不会在保存之前交给调用方
+     */
+    private synchronized void reserve(long timestamp) {
+        if (timestamp <= reservedUntil) {
+            return;
+        }
+        long until = timestamp + reserveMillis;
+        store.save(until + EPOCH);
+        reservedUntil = until;
+    }
+
+    /**
+     * 逻辑时钟领先系统时钟的毫秒数，持续大于0说明发生了时钟回拨或序列号长时间用尽
+     */
+    public long getClockDrift() {
+        return Math.max(0, (state.get() >>> SEQUENCE_BITS) - (System.currentTimeMillis() - EPOCH));
+    }
+
+    @Override
+    public Number nextId(Object entity) {
+        return nextLong();
+    }
+
+    /**
+     * 逻辑时钟的持久化存储
+     */
+    public interface TimestampStore {
+
+        /**
+         * 上次保存的时间戳（毫秒），没有记录时返回0
+         */
+        long load();
+
+        void save(long timestampMillis);
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.userservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 读写分离配置：标注了@ReadOnly的服务方法路由到从库，其余请求及没有可用从库时使用spring.datasource主库
+ */
+@Data
+@ConfigurationProperties(prefix = "app.datasource")
+public class DataSourceRoutingProperties {
+
+    /**
+     * 是否把只读请求路由到从库
+     */
+    private boolean readReplicaEnabled = true;
+
+    /**
+     * 从库选择策略
+     */
+    private Strategy strategy = Strategy.LEAST_CONNECTIONS;
+
+    /**
+     * 同一调用方写入后，在该时间内的读取仍走主库，避免读到尚未同步的数据
+     */
+    private Duration stickyWindow = Duration.ofSeconds(2);
+
+    /**
+     * 从库复制延迟超过该值时移出轮转，恢复后自动加入
+     */
+    private Duration maxLag = Duration.ofSeconds(5);
+
+    /**
+     * 复制延迟检查间隔
+     */
+    private Duration lagCheckInterval = Duration.ofSeconds(5);
+
+    /**
+     * 查询复制延迟的语句，结果中Seconds_Behind_Master（或Seconds_Behind_Source）列为延迟秒数，
+     * 没有结果行时视为没有延迟（如非复制环境的替身库）
+     */
+    private String lagQuery = "SHOW SLAVE STATUS";
+
+    /**
+     * 从库列表，修改后实时生效
+     */
+    private List<Replica> replicas = new ArrayList<>();
+
+    @Data
+    public static class Replica {
+
+        /**
+         * 从库名称，用于连接池名称和指标标签
+         */
+        private String name;
+
+        private String url;
+
+        /**
+         * 为空时使用主库的用户名
+         */
+        private String username;
+
+        /**
+         * 为空时使用主库的密码
+         */
+        private String password;
+
+        /**
+         * 权重，WEIGHTED策略按权重随机选择，LEAST_CONNECTIONS策略按活跃连接数/权重选择
+         */
+        private int weight = 1;
+
+        /**
+         * 从库连接池最大连接数
+         */
+        private int maximumPoolSize = 10;
+
+        /**
+         * 获取连接的超时时间，超时后本次读取改走主库
+         */
+        private Duration connectionTimeout = Duration.ofSeconds(1);
+    }
+
+    public enum Strategy {
+        LEAST_CONNECTIONS,
+        WEIGHTED
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.userservice.config;
+
+import org.springframework.cloud.context.scope.refresh.RefreshScopeRefreshedEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * 动态配置的当前快照
+ * <p>
+ * 配置刷新后（DynamicConfigProperties已重新绑定）生成新快照并通过volatile引用整体替换，
+ * 请求路径上只读取该引用，不经过@RefreshScope代理，刷新期间也不会因作用域加锁或重建Bean而阻塞
+ */
+@Component
+public class DynamicConfigHolder implements ApplicationListener<RefreshScopeRefreshedEvent> {
+
+    private final DynamicConfigProperties properties;
+    private volatile DynamicConfigSnapshot current;
+
+    public DynamicConfigHolder(DynamicConfigProperties properties) {
+        this.properties = properties;
+        this.current = DynamicConfigSnapshot.of(properties);
+    }
+
+    public DynamicConfigSnapshot get() {
+        return current;
+    }
+
+    @Override
+    public void onApplicationEvent(RefreshScopeRefreshedEvent event) {
+        current = DynamicConfigSnapshot.of(properties);
+    }
+}
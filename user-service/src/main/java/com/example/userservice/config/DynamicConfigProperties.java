@@ -36,7 +36,12 @@ public class DynamicConfigProperties {
     private int cacheExpireMinutes = 30;
     
     /**
-     * 最大连接数
+     * 主库连接池最大连接数，所有服务实例之和应小于MySQL的max_connections（默认151）
      */
-    private int maxConnections = 100;
+    private int maxConnections = 20;
+
+    /**
+     * 主库连接池最小空闲连接数，超过max-connections时按max-connections计
+     */
+    private int minIdleConnections = 10;
 }
\ No newline at end of file
@@ -0,0 +1,27 @@
+package com.example.userservice.config;
+
+import lombok.Value;
+
+/**
+ * {@link DynamicConfigProperties} 的不可变快照，配置刷新时整体替换，读取方不会看到只更新了一半的配置
+ */
+@Value
+public class DynamicConfigSnapshot {
+
+    String appName;
+
+    String version;
+
+    String environment;
+
+    boolean enableCaching;
+
+    int cacheExpireMinutes;
+
+    int maxConnections;
+
+    public static DynamicConfigSnapshot of(DynamicConfigProperties properties) {
+        return new DynamicConfigSnapshot(properties.getAppName(), properties.getVersion(), properties.getEnvironment(),
+                properties.isEnableCaching(), properties.getCacheExpireMinutes(), properties.getMaxConnections());
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.userservice.config;
+
+import com.alibaba.cloud.nacos.NacosDiscoveryProperties;
+import com.alibaba.cloud.nacos.NacosServiceManager;
+import com.alibaba.nacos.api.naming.pojo.Instance;
+import com.example.userservice.common.FileTimestampStore;
+import com.example.userservice.common.SnowflakeIdGenerator;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 主键生成器配置
+ * 机器号取自Nacos实例元数据 spring.cloud.nacos.discovery.metadata.worker-id，多实例部署时每个实例需配置不同的值：
+ * 启动时Nacos中已有本服务的其他实例而未配置机器号，或者机器号与其他实例相同时启动失败；
+ * 只有单个实例时允许不配置，根据IP和进程号计算。最终使用的机器号写回本实例的元数据，供之后启动的实例检查冲突
+ */
+@Slf4j
+@Configuration
+@EnableConfigurationProperties(IdGeneratorProperties.class)
+public class IdGeneratorConfig {
+
+    static final String WORKER_ID_METADATA = "worker-id";
+
+    /**
+     * 注册为MyBatis-Plus的IdentifierGenerator，实体使用IdType.ASSIGN_ID时由它分配主键
+     */
+    @Bean
+    public SnowflakeIdGenerator snowflakeIdGenerator(NacosDiscoveryProperties discoveryProperties,
+                                                     ObjectProvider<NacosServiceManager> nacosServiceManager,
+                                                     IdGeneratorProperties properties,
+                                                     @Value("${server.port:8080}") int serverPort) {
+        List<Instance> others = otherInstances(discoveryProperties, nacosServiceManager.getIfAvailable(), serverPort);
+        String configured = discoveryProperties.getMetadata().get(WORKER_ID_METADATA);
+        long workerId;
+        if (configured != null && !configured.trim().isEmpty()) {
+            workerId = Long.parseLong(configured.trim());
+            if (others != null) {
+                for (Instance other : others) {
+                    if (String.valueOf(workerId).equals(trim(other.getMetadata().get(WORKER_ID_METADATA)))) {
+                        throw new IllegalStateException("机器号" + workerId + "已被实例" + other.getIp() + ":"
+                                + other.getPort() + "使用，请在Nacos实例元数据" + WORKER_ID_METADATA + "中配置不同的值");
+                    }
+                }
+            }
+        } else {
+            if (others != null && !others.isEmpty()) {
+                throw new IllegalStateException("Nacos中已有" + others.size() + "个" + discoveryProperties.getService()
+                        + "实例，多实例部署必须在Nacos实例元数据" + WORKER_ID_METADATA + "中为每个实例配置不同的机器号");
+            }
+            String identity = discoveryProperties.getIp() + "/" + ManagementFactory.getRuntimeMXBean().getName();
+            workerId = (identity.hashCode() & Integer.MAX_VALUE) % (SnowflakeIdGenerator.MAX_WORKER_ID + 1);
+            log.warn("Nacos实例元数据未配置{}，当前为单实例，根据{}计算得到机器号{}；扩容前需为每个实例配置机器号",
+                    WORKER_ID_METADATA, identity, workerId);
+            discoveryProperties.getMetadata().put(WORKER_ID_METADATA, String.valueOf(workerId));
+        }
+        log.info("主键生成器机器号: {}", workerId);
+        FileTimestampStore store = new FileTimestampStore(Paths.get(properties.getStateDir(),
+                discoveryProperties.getService() + "-" + workerId + ".timestamp"));
+        return new SnowflakeIdGenerator(workerId, store, properties.getReserveWindow().toMillis());
+    }
+
+    @Bean
+    public MeterBinder idGeneratorMetrics(SnowflakeIdGenerator generator) {
+        return registry -> Gauge.builder("id.generator.clock.drift", generator, SnowflakeIdGenerator::getClockDrift)
+                .description("主键生成器逻辑时钟领先系统时钟的毫秒数")
+                .baseUnit("milliseconds")
+                .register(registry);
+    }
+
+    /**
+     * Nacos中本服务的其他实例（本实例此时尚未注册，排除上次运行留下的同地址实例），查询失败时返回null
+     */
+    private static List<Instance> otherInstances(NacosDiscoveryProperties discoveryProperties,
+                                                 NacosServiceManager nacosServiceManager, int serverPort) {
+        if (nacosServiceManager == null) {
+            return null;
+        }
+        try {
+            List<Instance> instances = nacosServiceManager.getNamingService()
+                    .getAllInstances(discoveryProperties.getService(), discoveryProperties.getGroup(), false);
+            return instances.stream()
+                    .filter(instance -> !(instance.getIp().equals(discoveryProperties.getIp())
+                            && instance.getPort() == serverPort))
+                    .collect(Collectors.toList());
+        } catch (Exception e) {
+            log.warn("查询Nacos中的{}实例失败，无法检查机器号冲突: {}", discoveryProperties.getService(), e.getMessage());
+            return null;
+        }
+    }
+
+    private static String trim(String value) {
+        return value != null ? value.trim() : null;
+    }
+}
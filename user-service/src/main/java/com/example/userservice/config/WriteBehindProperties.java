@@ -0,0 +1,39 @@
+package com.example.userservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 更新写回（write-behind）配置：开启后更新先写缓存和本地日志，再由后台按批写入数据库
+ */
+@Data
+@ConfigurationProperties(prefix = "app.write-behind")
+public class WriteBehindProperties {
+
+    /**
+     * 是否开启写回，关闭时更新同步写入数据库；关闭后已缓冲的更新仍会按计划写入
+     */
+    private boolean enabled = false;
+
+    /**
+     * 定时写入数据库的间隔
+     */
+    private Duration flushInterval = Duration.ofSeconds(1);
+
+    /**
+     * 缓冲的记录数达到该值时立即写入，同时也是单个批次的最大记录数
+     */
+    private int maxBatchSize = 1000;
+
+    /**
+     * 本地日志目录，进程崩溃后启动时重放其中尚未写入数据库的更新
+     */
+    private String journalDir = "data/write-behind";
+
+    /**
+     * 每次追加日志后是否fsync，关闭时只能防止进程崩溃，无法防止操作系统崩溃或断电
+     */
+    private boolean fsync = true;
+}
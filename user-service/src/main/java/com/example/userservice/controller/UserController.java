@@ -2,8 +2,10 @@ package com.example.userservice.controller;
 
 import com.example.userservice.entity.User;
 import com.example.userservice.service.UserService;
+import com.example.userservice.common.CursorPage;
 import com.example.userservice.common.Result;
-import com.example.userservice.config.DynamicConfigProperties;
+import com.example.userservice.config.DynamicConfigHolder;
+import com.example.userservice.config.DynamicConfigSnapshot;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -11,7 +13,6 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
-import org.springframework.cloud.context.config.annotation.RefreshScope;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -19,22 +20,49 @@ import java.util.List;
 @RestController
 @RequestMapping("/users")
 @RequiredArgsConstructor
-@RefreshScope
 @Tag(name = "用户管理", description = "用户相关接口")
 public class UserController {
 
+    /**
+     * 批量查询单次允许的最大ID数量
+     */
+    private static final int MAX_BATCH_SIZE = 200;
+
+    /**
+     * 分页查询每页允许的最大数量
+     */
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final UserService userService;
-    private final DynamicConfigProperties configProperties;
+    private final DynamicConfigHolder configHolder;
 
     @GetMapping
-    @Operation(summary = "获取用户列表")
-    public Result<List<User>> getUsers() {
-        return Result.success(userService.list());
+    @Operation(summary = "分页获取用户列表")
+    public Result<CursorPage<User>> getUsers(
+            @Parameter(description = "分页游标，取上一页返回的nextCursor，为空时从第一页开始") @RequestParam(required = false) String cursor,
+            @Parameter(description = "每页数量，最大" + MAX_PAGE_SIZE) @RequestParam(defaultValue = "20") int limit,
+            @Parameter(description = "需要返回的字段，逗号分隔，如id,name") @RequestParam(required = false) List<String> fields) {
+        try {
+            Long afterId = CursorPage.decodeCursor(cursor);
+            int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+            return Result.success(userService.listByCursor(afterId, pageSize, fields));
+        } catch (IllegalArgumentException e) {
+            return Result.error(400, e.getMessage());
+        }
+    }
+
+    @GetMapping("/batch")
+    @Operation(summary = "根据ID批量获取用户")
+    public Result<List<User>> getUsersByIds(@Parameter(description = "用户ID列表，逗号分隔") @RequestParam List<Long> ids) {
+        if (ids.size() > MAX_BATCH_SIZE) {
+            return Result.error("单次最多查询" + MAX_BATCH_SIZE + "个用户");
+        }
+        return Result.success(userService.getUsersByIds(ids));
     }
 
     @GetMapping("/{id}")
     @Operation(summary = "根据ID获取用户")
-    @Cacheable(value = "users", key = "#id")
+    @Cacheable(value = "users", key = "#id", sync = true)
     public Result<User> getUserById(@Parameter(description = "用户ID") @PathVariable Long id) {
         User user = userService.getUserById(id);
         if (user != null) {
@@ -82,13 +110,14 @@ public class UserController {
     @Operation(summary = "获取当前配置信息")
     public Result<Object> getConfig() {
         // 创建一个简单的配置对象，避免循环引用
+        DynamicConfigSnapshot config = configHolder.get();
         java.util.Map<String, Object> configMap = new java.util.HashMap<>();
-        configMap.put("appName", configProperties.getAppName());
-        configMap.put("version", configProperties.getVersion());
-        configMap.put("environment", configProperties.getEnvironment());
-        configMap.put("enableCaching", configProperties.isEnableCaching());
-        configMap.put("cacheExpireMinutes", configProperties.getCacheExpireMinutes());
-        configMap.put("maxConnections", configProperties.getMaxConnections());
+        configMap.put("appName", config.getAppName());
+        configMap.put("version", config.getVersion());
+        configMap.put("environment", config.getEnvironment());
+        configMap.put("enableCaching", config.isEnableCaching());
+        configMap.put("cacheExpireMinutes", config.getCacheExpireMinutes());
+        configMap.put("maxConnections", config.getMaxConnections());
         configMap.put("timestamp", java.time.LocalDateTime.now().toString());
         
         return Result.success(configMap);
@@ -0,0 +1,67 @@
+package com.example.userservice.datasource;
+
+import com.example.userservice.config.DynamicConfigProperties;
+import com.zaxxer.hikari.HikariConfigMXBean;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.cloud.context.scope.refresh.RefreshScopeRefreshedEvent;
+import org.springframework.context.ApplicationListener;
+
+/**
+ * 主库连接池大小取自app.config.max-connections，最小空闲连接数取自app.config.min-idle-connections，
+ * Nacos推送修改后通过Hikari的MXBean实时调整，无需重启
+ * <p>
+ * 最小空闲连接数单独配置且保持较小，空闲时每个实例只保持少量连接，负载升高时再按需扩展到最大连接数，
+ * 所有服务实例的最大连接数之和应小于MySQL的max_connections；缩小时软驱逐现有连接，
+ * 空闲连接立即关闭，使用中的连接归还后关闭，连接池随后按新大小补足
+ */
+@Slf4j
+public class ConnectionPoolTuner implements InitializingBean, ApplicationListener<RefreshScopeRefreshedEvent> {
+
+    private final HikariDataSource dataSource;
+    private final DynamicConfigProperties configProperties;
+
+    public ConnectionPoolTuner(HikariDataSource dataSource, DynamicConfigProperties configProperties) {
+        this.dataSource = dataSource;
+        this.configProperties = configProperties;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        resize(configProperties.getMaxConnections(), configProperties.getMinIdleConnections());
+    }
+
+    @Override
+    public void onApplicationEvent(RefreshScopeRefreshedEvent event) {
+        resize(configProperties.getMaxConnections(), configProperties.getMinIdleConnections());
+    }
+
+    private synchronized void resize(int maxConnections, int minIdleConnections) {
+        if (maxConnections < 1 || minIdleConnections < 0) {
+            log.warn("忽略无效的连接池大小: maxConnections={}, minIdleConnections={}", maxConnections, minIdleConnections);
+            return;
+        }
+        HikariConfigMXBean config = dataSource.getHikariConfigMXBean();
+        int current = config.getMaximumPoolSize();
+        int minimumIdle = Math.min(minIdleConnections, maxConnections);
+        if (current == maxConnections && config.getMinimumIdle() == minimumIdle) {
+            return;
+        }
+        // 先调小的一方，保证调整过程中minimumIdle不超过maximumPoolSize
+        if (maxConnections < current) {
+            config.setMinimumIdle(minimumIdle);
+            config.setMaximumPoolSize(maxConnections);
+            HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+            if (pool != null) {
+                pool.softEvictConnections();
+            }
+        } else {
+            config.setMaximumPoolSize(maxConnections);
+            config.setMinimumIdle(minimumIdle);
+        }
+        log.info("主库连接池大小已调整: pool={}, maximumPoolSize={} -> {}, minimumIdle={}",
+                dataSource.getPoolName(), current, maxConnections, minimumIdle);
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.userservice.datasource;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 标注只读的服务方法，方法内获取的数据库连接路由到从库
+ * <p>
+ * 已在事务中时沿用事务绑定的连接；同一对象内部调用不经过代理，不会切换
+ * <p>
+ * 结果会写入共享缓存的查询（@Cacheable回源、缓存预热、批量回填）不要标注：从库延迟期间读到的旧值
+ * 会在缓存中保留整个TTL，这类查询固定走主库
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface ReadOnly {
+}
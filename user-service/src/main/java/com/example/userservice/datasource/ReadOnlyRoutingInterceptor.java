@@ -0,0 +1,20 @@
+package com.example.userservice.datasource;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+/**
+ * 在 {@link ReadOnly} 方法执行期间把当前线程标记为只读区域
+ */
+public class ReadOnlyRoutingInterceptor implements MethodInterceptor {
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Boolean previous = RoutingContext.enterReadOnly();
+        try {
+            return invocation.proceed();
+        } finally {
+            RoutingContext.exit(previous);
+        }
+    }
+}
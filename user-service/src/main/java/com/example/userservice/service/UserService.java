@@ -1,14 +1,28 @@
 package com.example.userservice.service;
 
+import com.example.userservice.common.CursorPage;
 import com.example.userservice.entity.User;
+import java.util.Collection;
 import java.util.List;
 
 public interface UserService {
 
-    List<User> list();
-    
     User getUserById(Long id);
 
+    /**
+     * 基于游标（主键id）分页获取用户列表
+     *
+     * @param afterId 上一页最后一条记录的id，为null时从第一页开始
+     * @param limit   每页数量
+     * @param fields  需要查询的字段（属性名），为空时查询全部字段
+     */
+    CursorPage<User> listByCursor(Long afterId, int limit, Collection<String> fields);
+
+    /**
+     * 根据ID批量获取用户，结果按ids顺序返回，不存在的用户会被忽略
+     */
+    List<User> getUsersByIds(List<Long> ids);
+
     boolean createUser(User user);
 
     boolean updateUser(User user);
@@ -0,0 +1,55 @@
+package com.example.userservice.service.impl;
+
+import com.example.userservice.cache.CacheWarmupLoader;
+import com.example.userservice.common.Result;
+import com.example.userservice.entity.User;
+import com.example.userservice.mapper.UserMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * users缓存的预热加载器，缓存值与UserController一致为Result<User>
+ */
+@Component
+public class UserCacheWarmupLoader implements CacheWarmupLoader {
+
+    @Autowired
+    private UserMapper userMapper;
+
+    @Autowired
+    private UserWriteBehindBuffer userWriteBehindBuffer;
+
+    @Override
+    public String getCacheName() {
+        return "users";
+    }
+
+    /**
+     * 预热结果写入共享缓存，从主库加载，避免缓存从库延迟期间的旧值
+     */
+    @Override
+    public Map<Object, Object> load(List<String> cacheKeys) {
+        List<Long> ids = new ArrayList<>(cacheKeys.size());
+        for (String cacheKey : cacheKeys) {
+            try {
+                ids.add(Long.valueOf(cacheKey));
+            } catch (NumberFormatException e) {
+                // 非用户ID的key不预热
+            }
+        }
+        Map<Object, Object> values = new HashMap<>();
+        if (!ids.isEmpty()) {
+            for (User row : userMapper.selectBatchIds(ids)) {
+                // 叠加写回缓冲中尚未写入数据库的修改，与回源查询一致
+                User user = userWriteBehindBuffer.overlay(row);
+                values.put(user.getId(), Result.success(user));
+            }
+        }
+        return values;
+    }
+}
@@ -1,28 +1,100 @@
 package com.example.userservice.service.impl;
 
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.core.metadata.TableFieldInfo;
+import com.baomidou.mybatisplus.core.metadata.TableInfo;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import com.example.userservice.cache.TwoLevelCache;
+import com.example.userservice.common.CursorPage;
+import com.example.userservice.common.Result;
+import com.example.userservice.config.WriteBehindProperties;
+import com.example.userservice.datasource.ReadOnly;
 import com.example.userservice.entity.User;
 import com.example.userservice.mapper.UserMapper;
 import com.example.userservice.service.UserService;
+import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 public class UserServiceImpl implements UserService {
 
+    /**
+     * 列表查询中不允许返回的字段
+     */
+    private static final Set<String> LIST_EXCLUDED_FIELDS = Collections.singleton("password");
+
     @Autowired
     private UserMapper userMapper;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private WriteBehindProperties writeBehindProperties;
+
+    @Autowired
+    private UserWriteBehindBuffer userWriteBehindBuffer;
     
+    /**
+     * users缓存的回源查询（包括提前刷新），结果会缓存整个TTL，因此不路由到从库
+     */
     @Override
-    public List<User> list() {
-        return userMapper.selectList(null);
+    public User getUserById(Long id) {
+        // 叠加写回缓冲中尚未写入数据库的修改
+        return userWriteBehindBuffer.overlay(userMapper.selectById(id));
     }
 
+    /**
+     * 未命中的用户会批量回填users缓存，因此与getUserById一样不路由到从库
+     */
     @Override
-    @Cacheable(value = "users", key = "#id")
-    public User getUserById(Long id) {
-        return userMapper.selectById(id);
+    public List<User> getUsersByIds(List<Long> ids) {
+        List<Long> distinctIds = ids.stream().filter(Objects::nonNull).distinct().collect(Collectors.toList());
+        if (distinctIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        // 先批量查询users缓存，缓存值与UserController一致为Result<User>
+        TwoLevelCache cache = (TwoLevelCache) cacheManager.getCache("users");
+        Map<Object, Object> cached = cache.getAll(distinctIds);
+        Map<Long, User> users = new HashMap<>();
+        List<Long> missIds = new ArrayList<>();
+        for (Long id : distinctIds) {
+            Object value = cached.get(id);
+            if (value == null) {
+                missIds.add(id);
+            } else if (value instanceof Result && ((Result<?>) value).getData() instanceof User) {
+                users.put(id, (User) ((Result<?>) value).getData());
+            }
+        }
+
+        // 缓存未命中的用户一次性从数据库查询，叠加写回缓冲中尚未写入的修改后批量回填缓存
+        if (!missIds.isEmpty()) {
+            Map<Long, Result<User>> loaded = new HashMap<>();
+            for (User row : userMapper.selectBatchIds(missIds)) {
+                User user = userWriteBehindBuffer.overlay(row);
+                users.put(user.getId(), user);
+                loaded.put(user.getId(), Result.success(user));
+            }
+            cache.putAll(loaded);
+        }
+
+        return distinctIds.stream().map(users::get).filter(Objects::nonNull).collect(Collectors.toList());
     }
 
     @Override
@@ -32,11 +104,90 @@ public class UserServiceImpl implements UserService {
 
     @Override
     public boolean updateUser(User user) {
+        if (writeBehindProperties.isEnabled()) {
+            return updateUserWriteBehind(user);
+        }
         return userMapper.updateById(user) > 0;
     }
 
+    /**
+     * 写回模式：修改写入缓冲区和本地日志后立即返回，由后台批量写入数据库。
+     * 返回前把合并后的完整用户回写到入参中，控制器的@CachePut因此缓存完整的最新值
+     */
+    private boolean updateUserWriteBehind(User user) {
+        User current = currentUser(user.getId());
+        if (current == null) {
+            return false;
+        }
+        userWriteBehindBuffer.submit(userWriteBehindBuffer.toPatch(user));
+        BeanUtils.copyProperties(userWriteBehindBuffer.merge(current, user), user);
+        return true;
+    }
+
+    /**
+     * 写回模式下更新前的完整用户：优先取users缓存中的值并叠加之后的未写入修改，
+     * 只有缓存未命中时才查询主库，避免每次更新都产生一次数据库读取
+     */
+    private User currentUser(Long id) {
+        Cache cache = cacheManager.getCache("users");
+        Cache.ValueWrapper cached = cache != null ? cache.get(id) : null;
+        // 缓存值与控制器一致为Result<User>，缓存的“不存在”结果没有data，仍以数据库为准
+        Object value = cached != null ? cached.get() : null;
+        if (value instanceof Result && ((Result<?>) value).getData() instanceof User) {
+            return userWriteBehindBuffer.overlay((User) ((Result<?>) value).getData());
+        }
+        return getUserById(id);
+    }
+
     @Override
     public boolean deleteUser(Long id) {
+        userWriteBehindBuffer.discard(id);
         return userMapper.deleteById(id) > 0;
     }
+
+    @Override
+    @ReadOnly
+    public CursorPage<User> listByCursor(Long afterId, int limit, Collection<String> fields) {
+        // 多查一条用于判断是否还有下一页
+        QueryWrapper<User> wrapper = new QueryWrapper<User>()
+                .select(selectColumns(fields))
+                .gt(afterId != null, "id", afterId)
+                .orderByAsc("id")
+                .last("LIMIT " + (limit + 1));
+        List<User> rows = userMapper.selectList(wrapper);
+        if (rows.size() <= limit) {
+            return new CursorPage<>(rows, null);
+        }
+        List<User> items = new ArrayList<>(rows.subList(0, limit));
+        return new CursorPage<>(items, CursorPage.encodeCursor(items.get(limit - 1).getId()));
+    }
+
+    /**
+     * 将属性名转换为查询列，主键始终包含以便生成游标，密码等敏感字段不允许查询
+     */
+    private static String[] selectColumns(Collection<String> fields) {
+        TableInfo tableInfo = TableInfoHelper.getTableInfo(User.class);
+        Map<String, String> columns = new LinkedHashMap<>();
+        columns.put(tableInfo.getKeyProperty(), tableInfo.getKeyColumn());
+        for (TableFieldInfo field : tableInfo.getFieldList()) {
+            if (LIST_EXCLUDED_FIELDS.contains(field.getProperty())) {
+                continue;
+            }
+            columns.put(field.getProperty(), field.getColumn());
+        }
+        if (fields == null || fields.isEmpty()) {
+            return columns.values().toArray(new String[0]);
+        }
+
+        Set<String> selected = new LinkedHashSet<>();
+        selected.add(tableInfo.getKeyColumn());
+        for (String field : fields) {
+            String column = columns.get(field);
+            if (column == null) {
+                throw new IllegalArgumentException("不支持的字段: " + field);
+            }
+            selected.add(column);
+        }
+        return selected.toArray(new String[0]);
+    }
 }
\ No newline at end of file
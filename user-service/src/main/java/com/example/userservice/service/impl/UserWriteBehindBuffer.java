@@ -0,0 +1,93 @@
+package com.example.userservice.service.impl;
+
+import com.example.userservice.config.WriteBehindProperties;
+import com.example.userservice.entity.User;
+import com.example.userservice.mapper.UserMapper;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.mybatis.spring.MyBatisExceptionTranslator;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 用户更新写回缓冲区，按字段合并同一用户的多次更新，写入时每个用户执行一条只包含被修改字段的UPDATE
+ */
+@Component
+public class UserWriteBehindBuffer extends WriteBehindBuffer<User> {
+
+    private final SqlSessionFactory sqlSessionFactory;
+    private final CacheManager cacheManager;
+    private final MyBatisExceptionTranslator exceptionTranslator;
+
+    public UserWriteBehindBuffer(SqlSessionFactory sqlSessionFactory, CacheManager cacheManager,
+                                 ObjectMapper objectMapper, WriteBehindProperties properties) {
+        super("users", User.class, objectMapper, properties);
+        this.sqlSessionFactory = sqlSessionFactory;
+        this.cacheManager = cacheManager;
+        this.exceptionTranslator = new MyBatisExceptionTranslator(
+                sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(), true);
+    }
+
+    @Override
+    protected Long getId(User user) {
+        return user.getId();
+    }
+
+    @Override
+    public User merge(User older, User newer) {
+        User merged = new User();
+        merged.setId(older.getId());
+        merged.setUsername(newer.getUsername() != null ? newer.getUsername() : older.getUsername());
+        merged.setPassword(newer.getPassword() != null ? newer.getPassword() : older.getPassword());
+        merged.setEmail(newer.getEmail() != null ? newer.getEmail() : older.getEmail());
+        merged.setCreatedTime(older.getCreatedTime());
+        merged.setUpdatedTime(older.getUpdatedTime());
+        merged.setDeleted(older.getDeleted());
+        return merged;
+    }
+
+    /**
+     * 只保留可由更新接口修改的字段，作为缓冲和写入日志的补丁
+     */
+    public User toPatch(User user) {
+        User patch = merge(new User(), user);
+        patch.setId(user.getId());
+        return patch;
+    }
+
+    @Override
+    protected void write(List<User> batch) {
+        try (SqlSession session = sqlSessionFactory.openSession(ExecutorType.BATCH, false)) {
+            UserMapper mapper = session.getMapper(UserMapper.class);
+            try {
+                for (User user : batch) {
+                    mapper.updateById(user);
+                }
+                session.flushStatements();
+                session.commit();
+            } catch (RuntimeException e) {
+                session.rollback();
+                // 转换为Spring的异常类型，数据错误（如字段超长、违反唯一约束）为DataIntegrityViolationException
+                DataAccessException translated = exceptionTranslator.translateExceptionIfPossible(e);
+                throw translated != null ? translated : e;
+            }
+        }
+    }
+
+    /**
+     * 缓存中是更新接口返回的合并值，该更新没有写入数据库，清除后由下一次读取从数据库加载
+     */
+    @Override
+    protected void onDeadLetter(User patch) {
+        Cache cache = cacheManager.getCache("users");
+        if (cache != null) {
+            cache.evict(patch.getId());
+        }
+    }
+}
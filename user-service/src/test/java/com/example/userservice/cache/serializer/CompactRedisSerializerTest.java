@@ -0,0 +1,145 @@
+package com.example.userservice.cache.serializer;
+
+import com.example.userservice.cache.CacheMessage;
+import com.example.userservice.common.Result;
+import com.example.userservice.config.TwoLevelCacheProperties;
+import com.example.userservice.entity.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.support.NullValue;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 紧凑二进制缓存序列化：往返一致、兼容已有JSON缓存、按阈值压缩，体积与耗时明显小于JSON
+ */
+class CompactRedisSerializerTest {
+
+    private final TwoLevelCacheProperties properties = new TwoLevelCacheProperties();
+    private final CompactRedisSerializer serializer = new CompactRedisSerializer(properties,
+            Arrays.asList(new UserCodec(), new CacheMessageCodec()));
+    private final GenericJackson2JsonRedisSerializer json = new GenericJackson2JsonRedisSerializer();
+
+    @Test
+    void binaryRoundTripPreservesAllFields() {
+        properties.getSerializer().setFormat(TwoLevelCacheProperties.Format.BINARY);
+
+        Result<User> full = Result.success(user(1_234_567_890_123_456_789L, "用户", "user@example.com"));
+        byte[] bytes = serializer.serialize(full);
+        assertThat(bytes[0]).isEqualTo(CompactRedisSerializer.MAGIC);
+        assertThat(serializer.deserialize(bytes)).isEqualTo(full);
+
+        // 可选字段为null、错误结果
+        User sparse = new User();
+        sparse.setId(2L);
+        sparse.setEmail("sparse@example.com");
+        assertThat(serializer.deserialize(serializer.serialize(Result.success(sparse)))).isEqualTo(Result.success(sparse));
+        Result<User> notFound = Result.error(404, "用户不存在");
+        assertThat(serializer.deserialize(serializer.serialize(notFound))).isEqualTo(notFound);
+
+        CacheMessage message = new CacheMessage("node-1", "users", "1");
+        assertThat(serializer.deserialize(serializer.serialize(message))).isEqualTo(message);
+    }
+
+    @Test
+    void typesWithoutCodecAreWrittenAsJson() {
+        properties.getSerializer().setFormat(TwoLevelCacheProperties.Format.BINARY);
+
+        byte[] nullValue = serializer.serialize(NullValue.INSTANCE);
+        assertThat(nullValue[0]).isNotEqualTo(CompactRedisSerializer.MAGIC);
+        assertThat(serializer.deserialize(nullValue)).isInstanceOf(NullValue.class);
+
+        List<String> list = new ArrayList<>(Arrays.asList("a", "b"));
+        assertThat(serializer.deserialize(serializer.serialize(list))).isEqualTo(list);
+    }
+
+    @Test
+    void legacyJsonEntriesRemainReadable() {
+        Result<User> value = Result.success(user(1L, "用户", "user@example.com"));
+        // 灰度前由GenericJackson2JsonRedisSerializer写入的缓存
+        assertThat(serializer.deserialize(json.serialize(value))).isEqualTo(value);
+
+        // 默认仍写JSON，未升级的节点可以读取
+        byte[] written = serializer.serialize(value);
+        assertThat(written[0]).isEqualTo((byte) '{');
+        assertThat(json.deserialize(written)).isEqualTo(value);
+    }
+
+    @Test
+    void valuesAboveThresholdAreCompressed() {
+        properties.getSerializer().setFormat(TwoLevelCacheProperties.Format.BINARY);
+        properties.getSerializer().setCompressThreshold(256);
+
+        Result<User> small = Result.success(user(1L, "用户", "user@example.com"));
+        assertThat(serializer.serialize(small)[2] & CompactRedisSerializer.FLAG_COMPRESSED).isZero();
+
+        Result<User> large = Result.success(user(2L, "用户", repeat("long.alias+", 80) + "@example.com"));
+        byte[] compressed = serializer.serialize(large);
+        assertThat(compressed[2] & CompactRedisSerializer.FLAG_COMPRESSED).isEqualTo(CompactRedisSerializer.FLAG_COMPRESSED);
+        properties.getSerializer().setCompressThreshold(0);
+        byte[] plain = serializer.serialize(large);
+        assertThat(plain[2] & CompactRedisSerializer.FLAG_COMPRESSED).isZero();
+        assertThat(compressed.length).isLessThan(plain.length / 4);
+        assertThat(serializer.deserialize(compressed)).isEqualTo(large);
+    }
+
+    @Test
+    void binaryIsSmallerAndFasterThanJson() {
+        properties.getSerializer().setFormat(TwoLevelCacheProperties.Format.BINARY);
+        List<Result<User>> values = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            values.add(Result.success(user(1_000_000_000_000L + i, "用户" + i, "user" + i + "@example.com")));
+        }
+
+        long binaryBytes = 0;
+        long jsonBytes = 0;
+        for (Result<User> value : values) {
+            binaryBytes += serializer.serialize(value).length;
+            jsonBytes += json.serialize(value).length;
+        }
+        // 密码哈希等长字符串两种格式相同，节省主要来自字段名和类型信息
+        assertThat(binaryBytes).isLessThan(jsonBytes / 2);
+
+        // 预热后取多轮中的最短耗时，减少JIT和GC的干扰
+        long binaryNanos = Long.MAX_VALUE;
+        long jsonNanos = Long.MAX_VALUE;
+        for (int round = 0; round < 10; round++) {
+            binaryNanos = Math.min(binaryNanos, roundTripNanos(values, true));
+            jsonNanos = Math.min(jsonNanos, roundTripNanos(values, false));
+        }
+        assertThat(binaryNanos).isLessThan(jsonNanos);
+    }
+
+    private long roundTripNanos(List<Result<User>> values, boolean binary) {
+        long begin = System.nanoTime();
+        for (Result<User> value : values) {
+            Object decoded = binary ? serializer.deserialize(serializer.serialize(value)) : json.deserialize(json.serialize(value));
+            assertThat(decoded).isNotNull();
+        }
+        return System.nanoTime() - begin;
+    }
+
+    private static User user(Long id, String username, String email) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername(username);
+        user.setPassword("$2a$10$7EqJtq98hPqEX7fNZaFWoOhi5BwKQ1n6rG5rSYcx0dYzx1PAs/4Oe");
+        user.setEmail(email);
+        user.setCreatedTime("2024-01-01 10:00:00");
+        user.setUpdatedTime("2024-01-02 10:00:00");
+        user.setDeleted(0);
+        return user;
+    }
+
+    private static String repeat(String text, int times) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < times; i++) {
+            builder.append(text);
+        }
+        return builder.toString();
+    }
+}